@@ -5,8 +5,14 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 @SpringBootApplication
+// Transactions open outside AuditContextAspect, which must set the audit user inside them
+@EnableTransactionManagement(order = Ordered.LOWEST_PRECEDENCE - 1)
+@ImportRuntimeHints(ApplicationRuntimeHints.class)
 public class Application {
   public static void main(String[] args) {
     SpringApplication.run(Application.class, args);
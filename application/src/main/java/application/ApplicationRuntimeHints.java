@@ -0,0 +1,59 @@
+package application;
+
+import application.audit.AuditContextAspect;
+import application.model.AuditOperationConverter;
+import application.model.Widget;
+import application.model.WidgetAudit;
+import liquibase.change.core.RawSQLChange;
+import liquibase.precondition.core.ColumnExistsPrecondition;
+import liquibase.precondition.core.DBMSPrecondition;
+import liquibase.precondition.core.IndexExistsPrecondition;
+import liquibase.precondition.core.NotPrecondition;
+import liquibase.precondition.core.PreconditionContainer;
+import liquibase.precondition.core.SqlPrecondition;
+import liquibase.precondition.core.TableExistsPrecondition;
+import org.springframework.aot.hint.ExecutableMode;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * Reflection and resource hints for the native image built by the "native" Maven profile.
+ *
+ * Spring AOT covers beans, repositories and entity scanning; this adds what is only reached
+ * reflectively at runtime: Hibernate populating entity fields, the AspectJ advice method,
+ * the Liquibase changelogs and the change and precondition classes they instantiate by tag name.
+ */
+class ApplicationRuntimeHints implements RuntimeHintsRegistrar {
+
+  @Override
+  public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+    for (Class<?> type : List.of(Widget.class, WidgetAudit.class, AuditOperationConverter.class)) {
+      hints.reflection().registerType(type,
+        MemberCategory.DECLARED_FIELDS,
+        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+        MemberCategory.INVOKE_DECLARED_METHODS);
+    }
+    hints.reflection().registerType(AuditContextAspect.class,
+      MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+      MemberCategory.INVOKE_PUBLIC_METHODS);
+
+    hints.resources().registerPattern("db/changelog/*.xml");
+    hints.resources().registerPattern("www.liquibase.org/xml/ns/dbchangelog/*.xsd");
+    hints.resources().registerPattern("liquibase.build.properties");
+    for (Class<?> type : List.of(RawSQLChange.class, PreconditionContainer.class, NotPrecondition.class,
+      TableExistsPrecondition.class, ColumnExistsPrecondition.class, IndexExistsPrecondition.class,
+      DBMSPrecondition.class, SqlPrecondition.class)) {
+      hints.reflection().registerType(type,
+        MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+        MemberCategory.INVOKE_PUBLIC_METHODS);
+    }
+
+    // UserThreads looks up virtual threads reflectively so the load generator and ingest server still run on Java 17
+    hints.reflection().registerType(Executors.class, builder -> builder.withMethod(
+      "newVirtualThreadPerTaskExecutor", List.of(), ExecutableMode.INVOKE));
+  }
+}
@@ -0,0 +1,86 @@
+package application.activity;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enables the per-user activity rollup with app.audit.activity-rollup.enabled=true. A run folds in
+ * new audit rows every app.audit.activity-rollup.interval-ms milliseconds (default one minute). Without
+ * it, activity summaries read every audit row in their window.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "app.audit.activity-rollup", name = "enabled", havingValue = "true")
+public class AuditActivityRollupConfiguration {
+
+  @Bean
+  AuditActivityRollupJob auditActivityRollupJob(JdbcTemplate jdbcTemplate,
+                                                PlatformTransactionManager transactionManager,
+                                                @Value("${app.audit.activity-rollup.batch-size:50000}")
+                                                int batchSize) {
+    return new AuditActivityRollupJob(jdbcTemplate, new TransactionTemplate(transactionManager), batchSize);
+  }
+
+  @Bean
+  SmartLifecycle auditActivityRollupScheduler(AuditActivityRollupJob job,
+                                              @Value("${app.audit.activity-rollup.interval-ms:60000}")
+                                              long intervalMs) {
+    return new RollupScheduler(job, intervalMs);
+  }
+
+  static final class RollupScheduler implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(RollupScheduler.class);
+
+    private final AuditActivityRollupJob job;
+    private final long intervalMs;
+    private ScheduledExecutorService scheduler;
+
+    RollupScheduler(AuditActivityRollupJob job, long intervalMs) {
+      this.job = job;
+      this.intervalMs = intervalMs;
+    }
+
+    @Override
+    public void start() {
+      scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "audit-activity-rollup");
+        thread.setDaemon(true);
+        return thread;
+      });
+      scheduler.scheduleWithFixedDelay(this::rollUp, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void rollUp() {
+      try {
+        long rows = job.run();
+        log.debug("Activity rollup folded in {} audit rows", rows);
+      } catch (RuntimeException e) {
+        log.warn("Activity rollup failed; will retry", e);
+      }
+    }
+
+    @Override
+    public void stop() {
+      if (scheduler != null) {
+        scheduler.shutdownNow();
+        scheduler = null;
+      }
+    }
+
+    @Override
+    public boolean isRunning() {
+      return scheduler != null;
+    }
+  }
+}
@@ -0,0 +1,207 @@
+package application.activity;
+
+import application.repo.WidgetIdSketch;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folds widgets_audit rows into the per-user, per-day rollup in widgets_audit_user_daily, which
+ * AuditActivityOperations sums for activity summaries. Only rows above rolled_through are read.
+ *
+ * A transaction can commit an audit id below ids that are already visible, so a run only folds in ids up
+ * to a recorded position whose transactions have all ended: the audit sequence position, then the xmax of
+ * a snapshot taken after it. Every id up to the position was drawn by a transaction below that xmax. The
+ * position is used once pg_snapshot_xmin passes the xmax, which is usually the same run; a long transaction
+ * holds the rollup back until it ends. Each batch locks the position row, so concurrent runs take turns.
+ *
+ * Rollup days before the oldest remaining audit row are dropped after retention or archival; the day the
+ * purge cut through keeps counting its purged rows.
+ */
+public class AuditActivityRollupJob {
+
+  public static final int DEFAULT_BATCH_SIZE = 50_000;
+
+  private static final String SNAPSHOT_XMIN =
+    "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::BIGINT";
+  private static final String LOCK_POSITION =
+    "SELECT rolled_through, settle_audit_id, settle_xmax FROM public.widgets_audit_user_daily_position FOR UPDATE";
+  private static final String AUDIT_SEQUENCE_POSITION =
+    "SELECT CASE WHEN is_called THEN last_value ELSE last_value - 1 END FROM public.widgets_audit_audit_id_seq";
+  private static final String SNAPSHOT_XMAX =
+    "SELECT pg_snapshot_xmax(pg_current_snapshot())::text::BIGINT";
+  private static final String SAVE_SETTLE_POSITION =
+    "UPDATE public.widgets_audit_user_daily_position SET settle_audit_id = ?, settle_xmax = ?";
+  private static final String SAVE_ROLLED_THROUGH =
+    "UPDATE public.widgets_audit_user_daily_position SET rolled_through = ?, "
+      + "settle_audit_id = CASE WHEN settle_audit_id <= ? THEN NULL ELSE settle_audit_id END, "
+      + "settle_xmax = CASE WHEN settle_audit_id <= ? THEN NULL ELSE settle_xmax END";
+  private static final String SELECT_BATCH =
+    "SELECT changed_by_id, (changed_at AT TIME ZONE 'UTC')::DATE, widget_id, "
+      + "count(*) FILTER (WHERE operation = 'I'), count(*) FILTER (WHERE operation = 'U'), "
+      + "count(*) FILTER (WHERE operation = 'D'), min(changed_at), max(changed_at) "
+      + "FROM public.widgets_audit WHERE audit_id > ? AND audit_id <= ? AND changed_by_id IS NOT NULL "
+      + "GROUP BY 1, 2, 3";
+  private static final String SELECT_SKETCHES =
+    "SELECT d.changed_by_id, d.day, d.widget_sketch FROM public.widgets_audit_user_daily d "
+      + "JOIN unnest(?::INTEGER[], ?::DATE[]) AS k(changed_by_id, day) "
+      + "ON d.changed_by_id = k.changed_by_id AND d.day = k.day";
+  private static final String UPSERT_DAY =
+    "INSERT INTO public.widgets_audit_user_daily AS d "
+      + "(changed_by_id, day, inserted, updated, deleted, first_changed_at, last_changed_at, widget_sketch) "
+      + "VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (changed_by_id, day) DO UPDATE SET "
+      + "inserted = d.inserted + EXCLUDED.inserted, updated = d.updated + EXCLUDED.updated, "
+      + "deleted = d.deleted + EXCLUDED.deleted, "
+      + "first_changed_at = LEAST(d.first_changed_at, EXCLUDED.first_changed_at), "
+      + "last_changed_at = GREATEST(d.last_changed_at, EXCLUDED.last_changed_at), "
+      + "widget_sketch = EXCLUDED.widget_sketch";
+  private static final String PRUNE_PURGED_DAYS =
+    "DELETE FROM public.widgets_audit_user_daily WHERE day < COALESCE("
+      + "(SELECT (min(changed_at) AT TIME ZONE 'UTC')::DATE FROM public.widgets_audit), 'infinity'::DATE)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+
+  public AuditActivityRollupJob(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+    this(jdbcTemplate, transactionTemplate, DEFAULT_BATCH_SIZE);
+  }
+
+  public AuditActivityRollupJob(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+    }
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Fold in every settled audit row above the rolled-up position.
+   *
+   * @return the number of audit rows folded in, 0 if the recorded position is not settled yet
+   */
+  public long run() {
+    // Read before the position is locked, while this session has no transaction id of its own
+    long xmin = jdbcTemplate.queryForObject(SNAPSHOT_XMIN, Long.class);
+    Position position = transactionTemplate.execute(status -> {
+      Position locked = lockPosition();
+      if (locked.settleAuditId() == null) {
+        long auditId = jdbcTemplate.queryForObject(AUDIT_SEQUENCE_POSITION, Long.class);
+        long xmax = jdbcTemplate.queryForObject(SNAPSHOT_XMAX, Long.class);
+        jdbcTemplate.update(SAVE_SETTLE_POSITION, auditId, xmax);
+        return new Position(locked.rolledThrough(), auditId, xmax);
+      }
+      return locked;
+    });
+    if (position.settleXmax() > xmin) {
+      // Recorded by this run, or older transactions are still running: check again now that it is saved
+      xmin = jdbcTemplate.queryForObject(SNAPSHOT_XMIN, Long.class);
+      if (position.settleXmax() > xmin) {
+        return 0;
+      }
+    }
+
+    long target = position.settleAuditId();
+    long rolled = 0;
+    boolean more = true;
+    while (more) {
+      long[] batch = transactionTemplate.execute(status -> rollUpBatch(target));
+      rolled += batch[0];
+      more = batch[1] < target;
+    }
+    jdbcTemplate.update(PRUNE_PURGED_DAYS);
+    return rolled;
+  }
+
+  /**
+   * @return rows folded in, and the position reached
+   */
+  private long[] rollUpBatch(long target) {
+    long from = lockPosition().rolledThrough();
+    long to = Math.min(target, from + batchSize);
+    Map<Day, Activity> days = new HashMap<>();
+    long[] rows = {0};
+    if (to > from) {
+      jdbcTemplate.query(SELECT_BATCH, rs -> {
+        Activity activity = days.computeIfAbsent(new Day(rs.getInt(1), rs.getObject(2, LocalDate.class)),
+          day -> new Activity());
+        long widgetId = rs.getLong(3);
+        if (!rs.wasNull()) {
+          activity.widgets.add(widgetId);
+        }
+        activity.add(rs.getLong(4), rs.getLong(5), rs.getLong(6),
+          rs.getObject(7, OffsetDateTime.class), rs.getObject(8, OffsetDateTime.class));
+        rows[0] += rs.getLong(4) + rs.getLong(5) + rs.getLong(6);
+      }, from, to);
+    }
+    if (!days.isEmpty()) {
+      mergeStoredSketches(days);
+      List<Object[]> upserts = new ArrayList<>(days.size());
+      days.forEach((day, activity) -> upserts.add(new Object[] {
+        day.changedById(), Date.valueOf(day.day()), activity.inserted, activity.updated, activity.deleted,
+        activity.first, activity.last, activity.widgets.toBytes()}));
+      jdbcTemplate.batchUpdate(UPSERT_DAY, upserts);
+    }
+    long reached = Math.max(from, to);
+    jdbcTemplate.update(SAVE_ROLLED_THROUGH, reached, reached, reached);
+    return new long[] {rows[0], reached};
+  }
+
+  private void mergeStoredSketches(Map<Day, Activity> days) {
+    Integer[] userIds = new Integer[days.size()];
+    Date[] dates = new Date[days.size()];
+    int i = 0;
+    for (Day day : days.keySet()) {
+      userIds[i] = day.changedById();
+      dates[i] = Date.valueOf(day.day());
+      i++;
+    }
+    jdbcTemplate.query(connection -> {
+      PreparedStatement statement = connection.prepareStatement(SELECT_SKETCHES);
+      statement.setArray(1, connection.createArrayOf("integer", userIds));
+      statement.setArray(2, connection.createArrayOf("date", dates));
+      return statement;
+    }, (ResultSet rs) -> {
+      Day day = new Day(rs.getInt(1), rs.getObject(2, LocalDate.class));
+      days.get(day).widgets.merge(WidgetIdSketch.fromBytes(rs.getBytes(3)));
+    });
+  }
+
+  private Position lockPosition() {
+    return jdbcTemplate.queryForObject(LOCK_POSITION, (rs, rowNum) -> new Position(
+      rs.getLong(1), rs.getObject(2, Long.class), rs.getObject(3, Long.class)));
+  }
+
+  private record Position(long rolledThrough, Long settleAuditId, Long settleXmax) {
+  }
+
+  private record Day(int changedById, LocalDate day) {
+  }
+
+  private static final class Activity {
+    private final WidgetIdSketch widgets = new WidgetIdSketch();
+    private long inserted;
+    private long updated;
+    private long deleted;
+    private OffsetDateTime first;
+    private OffsetDateTime last;
+
+    void add(long inserted, long updated, long deleted, OffsetDateTime first, OffsetDateTime last) {
+      this.inserted += inserted;
+      this.updated += updated;
+      this.deleted += deleted;
+      this.first = this.first == null || first.isBefore(this.first) ? first : this.first;
+      this.last = this.last == null || last.isAfter(this.last) ? last : this.last;
+    }
+  }
+}
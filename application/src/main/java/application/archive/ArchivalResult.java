@@ -0,0 +1,9 @@
+package application.archive;
+
+import java.time.Duration;
+
+/**
+ * Outcome of one archival run.
+ */
+public record ArchivalResult(int segmentsWritten, long rowsArchived, Duration elapsed) {
+}
@@ -0,0 +1,40 @@
+package application.archive;
+
+import application.model.AuditOperation;
+
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+
+/**
+ * Index metadata of one archive file, read from its header without decoding any column.
+ * Queries use the min/max ranges and the widget id filter to skip files that cannot contain
+ * matching rows, and the per-operation counts to answer counts without decoding.
+ *
+ * @param version   format version the file was written with, see {@link AuditSegmentFile}
+ * @param widgetIds Bloom filter of the widget ids in the file; null for version 1 files, which
+ *                  are pruned by their widget id range alone
+ */
+public record ArchiveSegment(Path file, int version, int rowCount,
+                             long minAuditId, long maxAuditId,
+                             long minWidgetId, long maxWidgetId,
+                             OffsetDateTime minChangedAt, OffsetDateTime maxChangedAt,
+                             int insertCount, int updateCount, int deleteCount,
+                             WidgetIdFilter widgetIds) {
+
+  public int count(AuditOperation operation) {
+    return switch (operation) {
+      case INSERT -> insertCount;
+      case UPDATE -> updateCount;
+      case DELETE -> deleteCount;
+    };
+  }
+
+  public boolean mayContainWidget(long widgetId) {
+    return widgetId >= minWidgetId && widgetId <= maxWidgetId
+      && (widgetIds == null || widgetIds.mightContain(widgetId));
+  }
+
+  public boolean mayContainChangedAfter(OffsetDateTime changedAt) {
+    return maxChangedAt.isAfter(changedAt);
+  }
+}
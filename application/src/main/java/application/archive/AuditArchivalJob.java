@@ -0,0 +1,80 @@
+package application.archive;
+
+import application.repo.AuditPurgeListener;
+import application.repo.AuditRow;
+import application.repo.WidgetAuditReader;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Moves audit rows older than the retention window from widgets_audit into archive segments.
+ *
+ * Each batch of up to segmentRows rows (in audit_id order) is first written and fsynced as a
+ * segment, and only then deleted from Postgres. A crash in between leaves the rows in both places;
+ * {@link AuditQueryService} prefers the live copy and drops archived duplicates by audit_id.
+ * Every deleted batch is reported to the {@link AuditPurgeListener}.
+ */
+public class AuditArchivalJob {
+
+  public static final Duration DEFAULT_RETENTION = Duration.ofDays(90);
+  public static final int DEFAULT_SEGMENT_ROWS = 100_000;
+
+  private final AuditArchive archive;
+  private final JdbcTemplate jdbcTemplate;
+  private final Duration retention;
+  private final int segmentRows;
+  private final AuditPurgeListener purgeListener;
+
+  public AuditArchivalJob(AuditArchive archive, JdbcTemplate jdbcTemplate, Duration retention, int segmentRows) {
+    this(archive, jdbcTemplate, retention, segmentRows, AuditPurgeListener.NONE);
+  }
+
+  public AuditArchivalJob(AuditArchive archive, JdbcTemplate jdbcTemplate, Duration retention, int segmentRows,
+                          AuditPurgeListener purgeListener) {
+    if (segmentRows <= 0) {
+      throw new IllegalArgumentException("segmentRows must be positive: " + segmentRows);
+    }
+    this.archive = archive;
+    this.jdbcTemplate = jdbcTemplate;
+    this.retention = retention;
+    this.segmentRows = segmentRows;
+    this.purgeListener = purgeListener;
+  }
+
+  public ArchivalResult run() {
+    return archiveChangedBefore(OffsetDateTime.now().minus(retention));
+  }
+
+  public ArchivalResult archiveChangedBefore(OffsetDateTime cutoff) {
+    long started = System.nanoTime();
+    int segments = 0;
+    long archived = 0;
+    while (true) {
+      List<AuditRow> batch = jdbcTemplate.query(
+        WidgetAuditReader.SELECT_AUDIT_ROWS + "WHERE a.changed_at < ? ORDER BY a.audit_id LIMIT ?",
+        WidgetAuditReader.AUDIT_ROW_MAPPER, cutoff, segmentRows);
+      if (batch.isEmpty()) {
+        break;
+      }
+      archive.append(batch);
+      Long[] auditIds = batch.stream().map(AuditRow::auditId).toArray(Long[]::new);
+      jdbcTemplate.update(connection -> {
+        PreparedStatement statement =
+          connection.prepareStatement("DELETE FROM public.widgets_audit WHERE audit_id = ANY(?)");
+        statement.setArray(1, connection.createArrayOf("int8", auditIds));
+        return statement;
+      });
+      purgeListener.auditRowsPurged(batch.get(batch.size() - 1).auditId());
+      segments++;
+      archived += batch.size();
+      if (batch.size() < segmentRows) {
+        break;
+      }
+    }
+    return new ArchivalResult(segments, archived, Duration.ofNanos(System.nanoTime() - started));
+  }
+}
@@ -0,0 +1,93 @@
+package application.archive;
+
+import application.repo.AuditRow;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * A directory of archive segment files plus their in-memory index of min/max metadata.
+ * Segments are immutable once written; the index is rebuilt from file headers on startup.
+ */
+public class AuditArchive {
+
+  static final String SEGMENT_SUFFIX = ".wac";
+
+  private final Path directory;
+  private final List<ArchiveSegment> segments = new CopyOnWriteArrayList<>();
+
+  public AuditArchive(Path directory) {
+    this.directory = directory;
+    try {
+      Files.createDirectories(directory);
+      try (Stream<Path> files = Files.list(directory)) {
+        files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+          .map(AuditSegmentFile::readMetadata)
+          .sorted(Comparator.comparingLong(ArchiveSegment::minAuditId))
+          .forEach(segments::add);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not open audit archive " + directory, e);
+    }
+  }
+
+  public Path directory() {
+    return directory;
+  }
+
+  public List<ArchiveSegment> segments() {
+    return List.copyOf(segments);
+  }
+
+  /**
+   * Write rows (ascending audit_id) as a new segment and add it to the index.
+   */
+  public ArchiveSegment append(List<AuditRow> rows) {
+    String fileName = String.format("audit-%019d-%019d%s",
+      rows.get(0).auditId(), rows.get(rows.size() - 1).auditId(), SEGMENT_SUFFIX);
+    ArchiveSegment segment = AuditSegmentFile.write(directory.resolve(fileName), rows);
+    segments.removeIf(existing -> existing.file().equals(segment.file()));
+    segments.add(segment);
+    return segment;
+  }
+
+  /**
+   * Decode every segment the pruning predicate admits and pass the rows that match to the consumer.
+   *
+   * @return the number of segments decoded
+   */
+  public int scan(Predicate<ArchiveSegment> segmentFilter, Predicate<AuditRow> rowFilter, Consumer<AuditRow> consumer) {
+    int decoded = 0;
+    for (ArchiveSegment segment : segments) {
+      if (!segmentFilter.test(segment)) {
+        continue;
+      }
+      decoded++;
+      for (AuditRow row : AuditSegmentFile.read(segment.file())) {
+        if (rowFilter.test(row)) {
+          consumer.accept(row);
+        }
+      }
+    }
+    return decoded;
+  }
+
+  public List<AuditRow> findAll(Predicate<ArchiveSegment> segmentFilter, Predicate<AuditRow> rowFilter) {
+    List<AuditRow> rows = new ArrayList<>();
+    scan(segmentFilter, rowFilter, rows::add);
+    return rows;
+  }
+
+  public long rowCount() {
+    return segments.stream().mapToLong(ArchiveSegment::rowCount).sum();
+  }
+}
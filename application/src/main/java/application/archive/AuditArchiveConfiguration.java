@@ -0,0 +1,102 @@
+package application.archive;
+
+import application.repo.AuditPurgeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enables tiered audit archival with app.audit.archive.enabled=true. Rows older than
+ * app.audit.archive.retention (default 90 days) are moved to segment files under
+ * app.audit.archive.directory every app.audit.archive.interval-ms milliseconds.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "app.audit.archive", name = "enabled", havingValue = "true")
+public class AuditArchiveConfiguration {
+
+  @Bean
+  AuditArchive auditArchive(@Value("${app.audit.archive.directory}") Path directory) {
+    return new AuditArchive(directory);
+  }
+
+  @Bean
+  AuditArchivalJob auditArchivalJob(AuditArchive auditArchive, JdbcTemplate jdbcTemplate,
+                                    ObjectProvider<AuditPurgeListener> purgeListeners,
+                                    @Value("${app.audit.archive.retention:P90D}") Duration retention,
+                                    @Value("${app.audit.archive.segment-rows:"
+                                      + AuditArchivalJob.DEFAULT_SEGMENT_ROWS + "}") int segmentRows) {
+    return new AuditArchivalJob(auditArchive, jdbcTemplate, retention, segmentRows,
+      AuditPurgeListener.all(purgeListeners.orderedStream().toList()));
+  }
+
+  @Bean
+  AuditQueryService auditQueryService(AuditArchive auditArchive, JdbcTemplate jdbcTemplate) {
+    return new AuditQueryService(auditArchive, jdbcTemplate);
+  }
+
+  @Bean
+  SmartLifecycle auditArchivalScheduler(AuditArchivalJob job,
+                                        @Value("${app.audit.archive.interval-ms:3600000}") long intervalMs) {
+    return new ArchivalScheduler(job, intervalMs);
+  }
+
+  static final class ArchivalScheduler implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(ArchivalScheduler.class);
+
+    private final AuditArchivalJob job;
+    private final long intervalMs;
+    private ScheduledExecutorService scheduler;
+
+    ArchivalScheduler(AuditArchivalJob job, long intervalMs) {
+      this.job = job;
+      this.intervalMs = intervalMs;
+    }
+
+    @Override
+    public void start() {
+      scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "audit-archival");
+        thread.setDaemon(true);
+        return thread;
+      });
+      scheduler.scheduleWithFixedDelay(this::archive, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void archive() {
+      try {
+        ArchivalResult result = job.run();
+        if (result.rowsArchived() > 0) {
+          log.info("Archived {} audit rows into {} segments in {} ms",
+            result.rowsArchived(), result.segmentsWritten(), result.elapsed().toMillis());
+        }
+      } catch (RuntimeException e) {
+        log.warn("Audit archival failed; will retry", e);
+      }
+    }
+
+    @Override
+    public void stop() {
+      if (scheduler != null) {
+        scheduler.shutdownNow();
+        scheduler = null;
+      }
+    }
+
+    @Override
+    public boolean isRunning() {
+      return scheduler != null;
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package application.archive;
+
+import application.model.AuditOperation;
+import application.repo.AuditRow;
+import application.repo.WidgetAuditReader;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.OffsetDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WidgetAuditRepository-style lookups over live and archived audit rows together. Archive files are
+ * pruned by their header metadata (min/max ranges, and the widget id filter for widget history)
+ * before being decoded; a row present in both tiers (an archival
+ * run interrupted before its delete) is returned once, from Postgres.
+ */
+public class AuditQueryService {
+
+  private static final Comparator<AuditRow> NEWEST_FIRST =
+    Comparator.comparing(AuditRow::changedAt).thenComparingLong(AuditRow::auditId).reversed();
+
+  private final AuditArchive archive;
+  private final JdbcTemplate jdbcTemplate;
+
+  public AuditQueryService(AuditArchive archive, JdbcTemplate jdbcTemplate) {
+    this.archive = archive;
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public List<AuditRow> findByWidgetIdOrderByChangedAtDesc(long widgetId) {
+    List<AuditRow> live = jdbcTemplate.query(
+      WidgetAuditReader.SELECT_AUDIT_ROWS + "WHERE a.widget_id = ?", WidgetAuditReader.AUDIT_ROW_MAPPER, widgetId);
+    List<AuditRow> archived = archive.findAll(segment -> segment.mayContainWidget(widgetId),
+      row -> row.widgetId() != null && row.widgetId() == widgetId);
+    return merge(live, archived);
+  }
+
+  public List<AuditRow> findByChangedAtAfterOrderByChangedAtDesc(OffsetDateTime changedAt) {
+    List<AuditRow> live = jdbcTemplate.query(
+      WidgetAuditReader.SELECT_AUDIT_ROWS + "WHERE a.changed_at > ?", WidgetAuditReader.AUDIT_ROW_MAPPER, changedAt);
+    List<AuditRow> archived = archive.findAll(segment -> segment.mayContainChangedAfter(changedAt),
+      row -> row.changedAt().isAfter(changedAt));
+    return merge(live, archived);
+  }
+
+  /**
+   * Counts archived rows from segment headers. Only segments whose audit_id range reaches into
+   * the live table are decoded, to drop rows that are also still live.
+   *
+   * @param operation INSERT, UPDATE or DELETE
+   */
+  public long countByOperation(String operation) {
+    AuditOperation op = AuditOperation.valueOf(operation);
+    String code = String.valueOf(op.getCode());
+    long count = jdbcTemplate.queryForObject(
+      "SELECT count(*) FROM public.widgets_audit WHERE operation = ?::\"char\"", Long.class, code);
+    Long minLiveAuditId = jdbcTemplate.queryForObject("SELECT min(audit_id) FROM public.widgets_audit", Long.class);
+    for (ArchiveSegment segment : archive.segments()) {
+      count += segment.count(op);
+      if (minLiveAuditId != null && segment.maxAuditId() >= minLiveAuditId && segment.count(op) > 0) {
+        Long[] archivedIds = AuditSegmentFile.read(segment.file()).stream()
+          .filter(row -> row.operation().equals(operation))
+          .map(AuditRow::auditId)
+          .toArray(Long[]::new);
+        count -= jdbcTemplate.query(connection -> {
+          PreparedStatement statement =
+            connection.prepareStatement("SELECT count(*) FROM public.widgets_audit WHERE audit_id = ANY(?)");
+          statement.setArray(1, connection.createArrayOf("int8", archivedIds));
+          return statement;
+        }, (rs, rowNum) -> rs.getLong(1)).get(0);
+      }
+    }
+    return count;
+  }
+
+  private static List<AuditRow> merge(List<AuditRow> live, List<AuditRow> archived) {
+    Map<Long, AuditRow> byAuditId = new LinkedHashMap<>();
+    archived.forEach(row -> byAuditId.put(row.auditId(), row));
+    live.forEach(row -> byAuditId.put(row.auditId(), row));
+    return byAuditId.values().stream().sorted(NEWEST_FIRST).toList();
+  }
+}
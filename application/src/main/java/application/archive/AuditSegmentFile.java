@@ -0,0 +1,357 @@
+package application.archive;
+
+import application.model.AuditOperation;
+import application.repo.AuditRow;
+import application.repo.WidgetColumnBatch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Reads and writes the archive's compressed columnar segment files.
+ *
+ * Layout: a header (magic, version, row count, min/max audit_id, widget_id and changed_at,
+ * per-operation row counts and, from version 2, a {@link WidgetIdFilter}) followed by one
+ * Deflate-compressed block per column, each prefixed with its raw and compressed lengths.
+ * Version 3 adds old_quantity and old_price after the other columns, and version 4 the hash chain:
+ * the changed_by_id of every dictionary entry, prev_hash and row_hash, so archived history can be
+ * verified and linked to the rows still in Postgres. prev_hash is stored as a one-byte reference
+ * when it repeats the row_hash of the widget's previous row in the same file, which leaves about
+ * 33 bytes of incompressible hash per row. Older files are still read: version 1 has no filter,
+ * rows of versions 1 and 2 come back without old values and rows before version 4 without chain
+ * columns. Rows are stored in audit_id order; audit_id and changed_at are delta encoded, changed_by
+ * is dictionary encoded per file and prices are stored as cents.
+ */
+public final class AuditSegmentFile {
+
+  static final int MAGIC = 0x57415544; // "WAUD"
+  static final int VERSION = 4;
+  private static final int FIRST_VERSION_WITH_FILTER = 2;
+  private static final int FIRST_VERSION_WITH_OLD_VALUES = 3;
+  private static final int FIRST_VERSION_WITH_CHAIN = 4;
+  private static final int BLOCKS = 14; // thirteen columns plus the changed_by dictionary
+
+  private static final int NO_PREV_HASH = 0;
+  private static final int PREV_HASH_OF_PREVIOUS_ROW = 1;
+  private static final int PREV_HASH_STORED = 2;
+
+  private AuditSegmentFile() {
+  }
+
+  /**
+   * Write rows (in audit_id order) to the target file. The file is written under a temporary
+   * name, forced to disk and then atomically renamed, so a segment is either complete or absent.
+   * The directory is forced after the rename as well: the caller deletes the archived rows from
+   * Postgres once this returns, so the new directory entry has to survive a crash by then.
+   */
+  public static ArchiveSegment write(Path target, List<AuditRow> rows) {
+    if (rows.isEmpty()) {
+      throw new IllegalArgumentException("A segment needs at least one row");
+    }
+    ColumnWriter auditIds = new ColumnWriter();
+    ColumnWriter operations = new ColumnWriter();
+    ColumnWriter widgetIds = new ColumnWriter();
+    ColumnWriter names = new ColumnWriter();
+    ColumnWriter createdAts = new ColumnWriter();
+    ColumnWriter quantities = new ColumnWriter();
+    ColumnWriter prices = new ColumnWriter();
+    ColumnWriter changedAts = new ColumnWriter();
+    ColumnWriter changedBys = new ColumnWriter();
+    ColumnWriter oldQuantities = new ColumnWriter();
+    ColumnWriter oldPrices = new ColumnWriter();
+    ColumnWriter prevHashes = new ColumnWriter();
+    ColumnWriter rowHashes = new ColumnWriter();
+
+    Map<String, Integer> users = new HashMap<>();
+    List<AuditRow> userDictionary = new ArrayList<>();
+    Map<Long, byte[]> lastRowHashes = new HashMap<>();
+    long previousAuditId = 0;
+    long previousChangedAt = 0;
+    long minWidgetId = Long.MAX_VALUE;
+    long maxWidgetId = Long.MIN_VALUE;
+    long minChangedAt = Long.MAX_VALUE;
+    long maxChangedAt = Long.MIN_VALUE;
+    int[] operationCounts = new int[AuditOperation.values().length];
+    long[] widgetIdValues = new long[rows.size()];
+    int widgetIdCount = 0;
+    for (AuditRow row : rows) {
+      if (row.auditId() <= previousAuditId) {
+        throw new IllegalArgumentException("Rows must be in ascending audit_id order");
+      }
+      auditIds.writeVarLong(row.auditId() - previousAuditId);
+      previousAuditId = row.auditId();
+
+      AuditOperation operation = AuditOperation.valueOf(row.operation());
+      operations.writeByte(operation.getCode());
+      operationCounts[operation.ordinal()]++;
+      widgetIds.writeNullableSigned(row.widgetId());
+      if (row.widgetId() != null) {
+        widgetIdValues[widgetIdCount++] = row.widgetId();
+        minWidgetId = Math.min(minWidgetId, row.widgetId());
+        maxWidgetId = Math.max(maxWidgetId, row.widgetId());
+      }
+      names.writeString(row.name());
+      createdAts.writeNullableSigned(row.createdAt() == null ? null : WidgetColumnBatch.toEpochMicros(row.createdAt()));
+      quantities.writeNullableSigned(row.quantity() == null ? null : row.quantity().longValue());
+      prices.writeNullableSigned(row.price() == null ? null : WidgetColumnBatch.toCents(row.price()));
+
+      long changedAt = WidgetColumnBatch.toEpochMicros(row.changedAt());
+      changedAts.writeSigned(changedAt - previousChangedAt);
+      previousChangedAt = changedAt;
+      minChangedAt = Math.min(minChangedAt, changedAt);
+      maxChangedAt = Math.max(maxChangedAt, changedAt);
+
+      if (row.changedBy() == null) {
+        changedBys.writeVarLong(0);
+      } else {
+        changedBys.writeVarLong(users.computeIfAbsent(row.changedBy(), user -> {
+          userDictionary.add(row);
+          return userDictionary.size();
+        }));
+      }
+      writePrevHash(prevHashes, row.prevHash(), lastRowHashes.get(row.widgetId()));
+      rowHashes.writeBytes(row.rowHash());
+      lastRowHashes.put(row.widgetId(), row.rowHash());
+      oldQuantities.writeNullableSigned(row.oldQuantity() == null ? null : row.oldQuantity().longValue());
+      oldPrices.writeNullableSigned(row.oldPrice() == null ? null : WidgetColumnBatch.toCents(row.oldPrice()));
+    }
+    ColumnWriter dictionary = new ColumnWriter();
+    dictionary.writeVarLong(userDictionary.size());
+    for (AuditRow user : userDictionary) {
+      dictionary.writeString(user.changedBy());
+      dictionary.writeNullableSigned(user.changedById() == null ? null : user.changedById().longValue());
+    }
+
+    if (minWidgetId > maxWidgetId) {
+      minWidgetId = 0;
+      maxWidgetId = -1;
+    }
+    ArchiveSegment segment = new ArchiveSegment(target, VERSION, rows.size(),
+      rows.get(0).auditId(), previousAuditId, minWidgetId, maxWidgetId,
+      fromMicros(minChangedAt), fromMicros(maxChangedAt),
+      operationCounts[AuditOperation.INSERT.ordinal()], operationCounts[AuditOperation.UPDATE.ordinal()],
+      operationCounts[AuditOperation.DELETE.ordinal()],
+      WidgetIdFilter.of(Arrays.stream(widgetIdValues, 0, widgetIdCount).distinct().toArray()));
+
+    Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+    try {
+      try (OutputStream file = Files.newOutputStream(temporary);
+           DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 64 * 1024))) {
+        writeHeader(out, segment, minChangedAt, maxChangedAt);
+        for (ColumnWriter column : List.of(auditIds, operations, widgetIds, names, createdAts,
+          quantities, prices, changedAts, dictionary, changedBys, oldQuantities, oldPrices, prevHashes, rowHashes)) {
+          writeBlock(out, column.toByteArray());
+        }
+      }
+      try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+        channel.force(true);
+      }
+      Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      try (FileChannel directory = FileChannel.open(target.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+        directory.force(true);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write archive segment " + target, e);
+    }
+    return segment;
+  }
+
+  public static ArchiveSegment readMetadata(Path file) {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+      return readHeader(in, file);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read archive segment " + file, e);
+    }
+  }
+
+  /**
+   * Decode every row of the segment, in audit_id order.
+   */
+  public static List<AuditRow> read(Path file) {
+    try (InputStream stream = new BufferedInputStream(Files.newInputStream(file), 64 * 1024);
+         DataInputStream in = new DataInputStream(stream)) {
+      ArchiveSegment segment = readHeader(in, file);
+      ColumnReader auditIds = readBlock(in);
+      ColumnReader operations = readBlock(in);
+      ColumnReader widgetIds = readBlock(in);
+      ColumnReader names = readBlock(in);
+      ColumnReader createdAts = readBlock(in);
+      ColumnReader quantities = readBlock(in);
+      ColumnReader prices = readBlock(in);
+      ColumnReader changedAts = readBlock(in);
+      ColumnReader dictionary = readBlock(in);
+      ColumnReader changedBys = readBlock(in);
+      boolean hasOldValues = segment.version() >= FIRST_VERSION_WITH_OLD_VALUES;
+      ColumnReader oldQuantities = hasOldValues ? readBlock(in) : null;
+      ColumnReader oldPrices = hasOldValues ? readBlock(in) : null;
+      boolean hasChain = segment.version() >= FIRST_VERSION_WITH_CHAIN;
+      ColumnReader prevHashes = hasChain ? readBlock(in) : null;
+      ColumnReader rowHashes = hasChain ? readBlock(in) : null;
+
+      String[] users = new String[(int) dictionary.readVarLong() + 1];
+      Integer[] userIds = new Integer[users.length];
+      for (int i = 1; i < users.length; i++) {
+        users[i] = dictionary.readString();
+        Long userId = hasChain ? dictionary.readNullableSigned() : null;
+        userIds[i] = userId == null ? null : userId.intValue();
+      }
+      Map<Long, byte[]> lastRowHashes = new HashMap<>();
+
+      List<AuditRow> rows = new ArrayList<>(segment.rowCount());
+      long auditId = 0;
+      long changedAt = 0;
+      for (int i = 0; i < segment.rowCount(); i++) {
+        auditId += auditIds.readVarLong();
+        String operation = AuditOperation.fromCode((char) operations.readByte()).name();
+        Long widgetId = widgetIds.readNullableSigned();
+        String name = names.readString();
+        Long createdAt = createdAts.readNullableSigned();
+        Long quantity = quantities.readNullableSigned();
+        Long cents = prices.readNullableSigned();
+        changedAt += changedAts.readSigned();
+        int user = (int) changedBys.readVarLong();
+        Long oldQuantity = hasOldValues ? oldQuantities.readNullableSigned() : null;
+        Long oldCents = hasOldValues ? oldPrices.readNullableSigned() : null;
+        byte[] prevHash = hasChain ? readPrevHash(prevHashes, lastRowHashes.get(widgetId)) : null;
+        byte[] rowHash = hasChain ? rowHashes.readBytes() : null;
+        lastRowHashes.put(widgetId, rowHash);
+        rows.add(new AuditRow(auditId, operation, widgetId, name,
+          createdAt == null ? null : fromMicros(createdAt),
+          quantity == null ? null : quantity.intValue(),
+          cents == null ? null : WidgetColumnBatch.fromCents(cents),
+          fromMicros(changedAt), users[user],
+          oldQuantity == null ? null : oldQuantity.intValue(),
+          oldCents == null ? null : WidgetColumnBatch.fromCents(oldCents),
+          userIds[user], prevHash, rowHash));
+      }
+      return rows;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read archive segment " + file, e);
+    }
+  }
+
+  private static void writePrevHash(ColumnWriter column, byte[] prevHash, byte[] previousRowHash) {
+    if (prevHash == null) {
+      column.writeByte(NO_PREV_HASH);
+    } else if (Arrays.equals(prevHash, previousRowHash)) {
+      column.writeByte(PREV_HASH_OF_PREVIOUS_ROW);
+    } else {
+      column.writeByte(PREV_HASH_STORED);
+      column.writeBytes(prevHash);
+    }
+  }
+
+  private static byte[] readPrevHash(ColumnReader column, byte[] previousRowHash) throws IOException {
+    return switch (column.readByte()) {
+      case NO_PREV_HASH -> null;
+      case PREV_HASH_OF_PREVIOUS_ROW -> previousRowHash;
+      case PREV_HASH_STORED -> column.readBytes();
+      default -> throw new IOException("Corrupt prev_hash column");
+    };
+  }
+
+  private static void writeHeader(DataOutputStream out, ArchiveSegment segment, long minChangedAt, long maxChangedAt)
+    throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(BLOCKS);
+    out.writeInt(segment.rowCount());
+    out.writeLong(segment.minAuditId());
+    out.writeLong(segment.maxAuditId());
+    out.writeLong(segment.minWidgetId());
+    out.writeLong(segment.maxWidgetId());
+    out.writeLong(minChangedAt);
+    out.writeLong(maxChangedAt);
+    out.writeInt(segment.insertCount());
+    out.writeInt(segment.updateCount());
+    out.writeInt(segment.deleteCount());
+    segment.widgetIds().write(out);
+  }
+
+  private static ArchiveSegment readHeader(DataInputStream in, Path file) throws IOException {
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not an audit archive segment: " + file);
+    }
+    int version = in.readInt();
+    if (version < 1 || version > VERSION) {
+      throw new IOException("Unsupported archive segment version " + version + ": " + file);
+    }
+    in.readInt(); // block count, reserved for forward-compatible readers
+    return new ArchiveSegment(file, version, in.readInt(), in.readLong(), in.readLong(), in.readLong(), in.readLong(),
+      fromMicros(in.readLong()), fromMicros(in.readLong()), in.readInt(), in.readInt(), in.readInt(),
+      version >= FIRST_VERSION_WITH_FILTER ? WidgetIdFilter.read(in) : null);
+  }
+
+  private static void writeBlock(DataOutputStream out, byte[] raw) throws IOException {
+    Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    try {
+      deflater.setInput(raw);
+      deflater.finish();
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+      byte[] buffer = new byte[16 * 1024];
+      while (!deflater.finished()) {
+        compressed.write(buffer, 0, deflater.deflate(buffer));
+      }
+      out.writeInt(raw.length);
+      out.writeInt(compressed.size());
+      compressed.writeTo(out);
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static ColumnReader readBlock(DataInputStream in) throws IOException {
+    byte[] raw = new byte[in.readInt()];
+    byte[] compressed = new byte[in.readInt()];
+    in.readFully(compressed);
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(compressed);
+      int inflated = 0;
+      while (inflated < raw.length && !inflater.finished()) {
+        int read = inflater.inflate(raw, inflated, raw.length - inflated);
+        if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        inflated += read;
+      }
+      if (inflated != raw.length) {
+        throw new IOException("Truncated archive column block");
+      }
+    } catch (DataFormatException e) {
+      throw new IOException("Corrupt archive column block", e);
+    } finally {
+      inflater.end();
+    }
+    return new ColumnReader(raw);
+  }
+
+  private static OffsetDateTime fromMicros(long micros) {
+    return OffsetDateTime.ofInstant(Instant.EPOCH.plus(micros, ChronoUnit.MICROS), ZoneOffset.UTC);
+  }
+}
@@ -0,0 +1,63 @@
+package application.archive;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Sequential reader for a column written by {@link ColumnWriter}.
+ */
+final class ColumnReader {
+
+  private final byte[] bytes;
+  private int position;
+
+  ColumnReader(byte[] bytes) {
+    this.bytes = bytes;
+  }
+
+  long readVarLong() {
+    long value = 0;
+    int shift = 0;
+    while (true) {
+      byte next = bytes[position++];
+      value |= (long) (next & 0x7F) << shift;
+      if (next >= 0) {
+        return value;
+      }
+      shift += 7;
+    }
+  }
+
+  long readSigned() {
+    long raw = readVarLong();
+    return (raw >>> 1) ^ -(raw & 1);
+  }
+
+  Long readNullableSigned() {
+    return bytes[position++] == 0 ? null : readSigned();
+  }
+
+  int readByte() {
+    return bytes[position++];
+  }
+
+  String readString() {
+    int length = (int) readVarLong() - 1;
+    if (length < 0) {
+      return null;
+    }
+    String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+    position += length;
+    return value;
+  }
+
+  byte[] readBytes() {
+    int length = (int) readVarLong() - 1;
+    if (length < 0) {
+      return null;
+    }
+    byte[] value = Arrays.copyOfRange(bytes, position, position + length);
+    position += length;
+    return value;
+  }
+}
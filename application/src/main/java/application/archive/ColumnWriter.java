@@ -0,0 +1,70 @@
+package application.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Append-only byte buffer for one column of a segment. Integers are LEB128 varints, signed values
+ * zig-zag encoded first, so small deltas take one byte before compression.
+ */
+final class ColumnWriter {
+
+  private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+
+  void writeVarLong(long value) {
+    while ((value & ~0x7FL) != 0) {
+      bytes.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    bytes.write((int) value);
+  }
+
+  void writeSigned(long value) {
+    writeVarLong((value << 1) ^ (value >> 63));
+  }
+
+  /**
+   * Nullable signed value: a presence flag, then the value when present.
+   */
+  void writeNullableSigned(Long value) {
+    if (value == null) {
+      bytes.write(0);
+    } else {
+      bytes.write(1);
+      writeSigned(value);
+    }
+  }
+
+  void writeByte(int value) {
+    bytes.write(value);
+  }
+
+  /**
+   * Nullable string: length + 1 (0 for null), then UTF-8 bytes.
+   */
+  void writeString(String value) {
+    if (value == null) {
+      writeVarLong(0);
+      return;
+    }
+    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+    writeVarLong(utf8.length + 1L);
+    bytes.writeBytes(utf8);
+  }
+
+  /**
+   * Nullable byte string: length + 1 (0 for null), then the bytes.
+   */
+  void writeBytes(byte[] value) {
+    if (value == null) {
+      writeVarLong(0);
+      return;
+    }
+    writeVarLong(value.length + 1L);
+    bytes.writeBytes(value);
+  }
+
+  byte[] toByteArray() {
+    return bytes.toByteArray();
+  }
+}
@@ -0,0 +1,103 @@
+package application.archive;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Bloom filter over the distinct widget ids of one segment, kept in the segment header so a widget
+ * history lookup can rule a segment out without decoding it. Widget ids are spread across every
+ * segment's min/max range, so that range alone excludes almost nothing. Ten bits per id and seven
+ * probes give about a 1% false-positive rate; there are no false negatives.
+ */
+public final class WidgetIdFilter {
+
+  private static final int BITS_PER_ID = 10;
+  private static final int PROBES = 7;
+  // Bit positions are ints, so the filter is capped at 2^31 bits (256 MiB)
+  private static final int MAX_WORDS = Integer.MAX_VALUE / Long.SIZE;
+
+  private final long[] words;
+
+  private WidgetIdFilter(long[] words) {
+    this.words = words;
+  }
+
+  /**
+   * @param distinctIds widget ids without duplicates, which would only inflate the filter
+   */
+  static WidgetIdFilter of(long[] distinctIds) {
+    long bits = Math.max(Long.SIZE, (long) distinctIds.length * BITS_PER_ID);
+    WidgetIdFilter filter = new WidgetIdFilter(new long[(int) Math.min(MAX_WORDS, (bits + Long.SIZE - 1) / Long.SIZE)]);
+    for (long id : distinctIds) {
+      filter.add(id);
+    }
+    return filter;
+  }
+
+  public boolean mightContain(long widgetId) {
+    long hash = mix(widgetId);
+    int bits = words.length * Long.SIZE;
+    for (int i = 0; i < PROBES; i++) {
+      int bit = probe(hash, i, bits);
+      if ((words[bit >>> 6] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Size of the filter in the header and on the heap.
+   */
+  public int sizeInBytes() {
+    return words.length * Long.BYTES;
+  }
+
+  private void add(long widgetId) {
+    long hash = mix(widgetId);
+    int bits = words.length * Long.SIZE;
+    for (int i = 0; i < PROBES; i++) {
+      int bit = probe(hash, i, bits);
+      words[bit >>> 6] |= 1L << bit;
+    }
+  }
+
+  void write(DataOutputStream out) throws IOException {
+    out.writeInt(words.length);
+    for (long word : words) {
+      out.writeLong(word);
+    }
+  }
+
+  static WidgetIdFilter read(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length <= 0 || length > MAX_WORDS) {
+      throw new IOException("Corrupt widget id filter length " + length);
+    }
+    byte[] bytes = new byte[length * Long.BYTES];
+    in.readFully(bytes);
+    long[] words = new long[length];
+    ByteBuffer.wrap(bytes).asLongBuffer().get(words);
+    return new WidgetIdFilter(words);
+  }
+
+  /**
+   * Double hashing on the two halves of one 64-bit hash (Kirsch and Mitzenmacher).
+   */
+  private static int probe(long hash, int i, int bits) {
+    int combined = (int) hash + i * (int) (hash >>> 32);
+    return (combined & Integer.MAX_VALUE) % bits;
+  }
+
+  /**
+   * SplitMix64 finalizer; sequential ids come out uncorrelated.
+   */
+  private static long mix(long value) {
+    long z = value * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
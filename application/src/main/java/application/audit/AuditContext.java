@@ -1,15 +1,30 @@
 package application.audit;
 
+import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 
 /**
  * Thread-safe context holder for audit information.
  * Allows the application layer to set the current user for database-level audit tracking.
  * Supports nested calls via a stack-based approach.
+ *
+ * The context is per thread and does not follow work handed to another thread on its own.
+ * Use {@link #wrap(Runnable)} and friends for individual tasks, {@link AuditContextExecutorService}
+ * for whole executors, or {@link AuditContextTaskDecorator} for Spring task executors.
  */
 public class AuditContext {
-  private static final ThreadLocal<Deque<String>> USER_STACK = ThreadLocal.withInitial(LinkedList::new);
+  private static final ThreadLocal<Deque<Frame>> USER_STACK = ThreadLocal.withInitial(LinkedList::new);
+
+  /**
+   * One runAsUser or runAsBulkMaintenance scope.
+   *
+   * @param bulkReason non-null only inside {@link #runAsBulkMaintenance}
+   */
+  private record Frame(String username, String bulkReason) {
+  }
 
   /**
    * Execute a runnable as a specific user.
@@ -20,25 +35,158 @@ public class AuditContext {
    * @param action   the action to execute
    */
   public static void runAsUser(String username, Runnable action) {
-    Deque<String> stack = USER_STACK.get();
-    stack.push(username);
+    Deque<Frame> stack = push(new Frame(username, null));
     try {
       action.run();
     } finally {
-      if (!stack.isEmpty()) {
-        stack.pop();
+      pop(stack);
+    }
+  }
+
+  /**
+   * Execute a supplier as a specific user and return its result.
+   *
+   * @see #runAsUser(String, Runnable)
+   */
+  public static <T> T runAsUser(String username, Supplier<T> action) {
+    Deque<Frame> stack = push(new Frame(username, null));
+    try {
+      return action.get();
+    } finally {
+      pop(stack);
+    }
+  }
+
+  /**
+   * Execute a callable as a specific user and return its result; checked exceptions pass through.
+   *
+   * @see #runAsUser(String, Runnable)
+   */
+  public static <T> T callAsUser(String username, Callable<T> action) throws Exception {
+    Deque<Frame> stack = push(new Frame(username, null));
+    try {
+      return action.call();
+    } finally {
+      pop(stack);
+    }
+  }
+
+  /**
+   * Execute a mass administrative change as a specific user without per-row auditing.
+   *
+   * Transactions started inside the action set 'app.audit_bulk_reason', which makes the row audit
+   * trigger skip widgets_audit. Instead each committed transaction writes one row to
+   * widgets_audit_bulk_summary with the reason, the statements, row counts and the affected id
+   * ranges. A nested {@link #runAsUser} scope inside the action is audited normally again. Each
+   * changed row still costs a trigger call and one narrow insert, less than half the cost of writing its
+   * audit row (see BulkMaintenanceBenchmarkTest).
+   *
+   * The username is only recorded. The database rejects the mode unless its login (session_user) is a
+   * member of the audit_bulk_maintainer role, which the caller cannot claim the way it names a user, so
+   * run bulk maintenance on a connection pool that logs in as such a member.
+   *
+   * @param reason why the change is made, recorded in the summary
+   */
+  public static void runAsBulkMaintenance(String username, String reason, Runnable action) {
+    if (username == null || username.isBlank() || reason == null || reason.isBlank()) {
+      throw new IllegalArgumentException("Bulk maintenance needs a user and a reason");
+    }
+    Deque<Frame> stack = push(new Frame(username, reason));
+    try {
+      action.run();
+    } finally {
+      pop(stack);
+    }
+  }
+
+  /**
+   * Capture the calling thread's context so the task runs with it on whichever thread executes it.
+   * The executing thread's own context is restored afterwards, so pooled threads never leak a user
+   * into the next task.
+   */
+  public static Runnable wrap(Runnable task) {
+    Deque<Frame> captured = snapshot();
+    return () -> {
+      Deque<Frame> previous = install(captured);
+      try {
+        task.run();
+      } finally {
+        USER_STACK.set(previous);
+      }
+    };
+  }
+
+  /**
+   * Callable variant of {@link #wrap(Runnable)}.
+   */
+  public static <T> Callable<T> wrap(Callable<T> task) {
+    Deque<Frame> captured = snapshot();
+    return () -> {
+      Deque<Frame> previous = install(captured);
+      try {
+        return task.call();
+      } finally {
+        USER_STACK.set(previous);
+      }
+    };
+  }
+
+  /**
+   * Supplier variant of {@link #wrap(Runnable)}, e.g. for {@code CompletableFuture.supplyAsync}
+   * or the body of a parallel stream.
+   */
+  public static <T> Supplier<T> wrapSupplier(Supplier<T> task) {
+    Deque<Frame> captured = snapshot();
+    return () -> {
+      Deque<Frame> previous = install(captured);
+      try {
+        return task.get();
+      } finally {
+        USER_STACK.set(previous);
       }
+    };
+  }
+
+  private static Deque<Frame> push(Frame frame) {
+    Deque<Frame> stack = USER_STACK.get();
+    stack.push(frame);
+    return stack;
+  }
+
+  private static void pop(Deque<Frame> stack) {
+    if (!stack.isEmpty()) {
+      stack.pop();
     }
   }
 
+  private static Deque<Frame> snapshot() {
+    return new ArrayDeque<>(USER_STACK.get());
+  }
+
+  private static Deque<Frame> install(Deque<Frame> captured) {
+    Deque<Frame> previous = USER_STACK.get();
+    USER_STACK.set(new LinkedList<>(captured));
+    return previous;
+  }
+
   /**
    * Get the current user from the thread-local context.
    *
    * @return the current user, or null if not set
    */
   public static String getCurrentUser() {
-    Deque<String> stack = USER_STACK.get();
-    return stack.isEmpty() ? null : stack.peek();
+    Frame frame = USER_STACK.get().peek();
+    return frame == null ? null : frame.username();
+  }
+
+  /**
+   * Get the reason of the innermost scope if it is a bulk-maintenance scope.
+   *
+   * @return the reason, or null outside bulk maintenance
+   */
+  public static String getBulkMaintenanceReason() {
+    Frame frame = USER_STACK.get().peek();
+    return frame == null ? null : frame.bulkReason();
   }
 
   /**
@@ -4,7 +4,13 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Objects;
 
 /**
  * AOP aspect that intercepts @Transactional methods and passes the current user
@@ -12,33 +18,117 @@ import org.springframework.stereotype.Component;
  *
  * This bridges the gap between the application layer (AuditContext) and the database
  * layer (Postgres triggers), allowing audit triggers to know who made the change.
+ *
+ * set_config(..., true) only lasts until the end of the current transaction, so this advice has to
+ * run inside the transaction interceptor. It is ordered last and {@link application.Application}
+ * orders transaction management just ahead of it; with both at the default order the two ran in
+ * unspecified order and a top-level repository call could set the user in a throwaway transaction.
+ * Spring Data repositories open their transaction inside their own proxy, where no aspect can
+ * reach, so {@link AuditRepositoryPostProcessor} applies the same settings there.
  */
 @Aspect
+@Order(Ordered.LOWEST_PRECEDENCE)
 @Component
 public class AuditContextAspect {
 
+  /**
+   * JDBC statement that sets the audit user for the current transaction; bind the user as its only parameter.
+   */
+  public static final String SET_CURRENT_USER_SQL = "SELECT set_config('app.current_user', ?, true)";
+
+  static final String SYSTEM_USER = "system_process";
+
   @PersistenceContext
   private EntityManager entityManager;
 
   /**
    * Intercept any method annotated with @Transactional and set the Postgres session variable.
-   * This runs BEFORE the transaction begins, ensuring the trigger can access the user info.
+   * This runs just inside the transaction, before the method body, ensuring the trigger can access the user info.
    */
   @Before("@annotation(org.springframework.transaction.annotation.Transactional) || @within(org.springframework.transaction.annotation.Transactional)")
   public void setPostgresSessionUser() {
-    // 1. Grab the user from the AuditContext thread-local stack
-    String currentUser = AuditContext.getCurrentUser();
+    applySessionSettings(entityManager);
+  }
 
-    // 2. Fallback for system startup, background jobs, or when no user is set
-    if (currentUser == null || currentUser.trim().isEmpty()) {
-      currentUser = "system_process";
+  /**
+   * Pass the AuditContext user and bulk-maintenance reason to Postgres for the transaction the
+   * EntityManager is bound to. The values applied are remembered on the transaction, so nested
+   * @Transactional calls and repository calls under the same AuditContext skip the round trip.
+   * Components that run their own TransactionTemplate call this directly.
+   */
+  public static void applySessionSettings(EntityManager entityManager) {
+    // 1. Grab the user from the AuditContext thread-local stack (with its fallback)
+    String currentUser = resolveCurrentUser();
+    // The bulk reason is always set, so an empty value switches bulk maintenance off again
+    String bulkReason = AuditContext.getBulkMaintenanceReason();
+    String reason = bulkReason == null ? "" : bulkReason;
+
+    AppliedSettings applied = null;
+    if (TransactionSynchronizationManager.isActualTransactionActive()
+        && TransactionSynchronizationManager.isSynchronizationActive()) {
+      applied = AppliedSettings.current();
+      if (applied != null && applied.matches(currentUser, reason)) {
+        return;
+      }
     }
 
-    // 3. Pass it to Postgres via set_config() for the duration of this transaction
-    // The true flag makes it local to the session (for this transaction only)
-    entityManager.createNativeQuery("SELECT set_config('app.current_user', :username, true)")
+    // 2. Pass it to Postgres via set_config() for the duration of this transaction
+    // The true flag makes it local to the session (for this transaction only).
+    entityManager.createNativeQuery("SELECT set_config('app.current_user', :username, true), "
+                   + "set_config('app.audit_bulk_reason', :reason, true)")
                  .setParameter("username", currentUser)
+                 .setParameter("reason", reason)
                  .getSingleResult();
+
+    if (applied != null) {
+      applied.username = currentUser;
+      applied.reason = reason;
+    } else if (TransactionSynchronizationManager.isActualTransactionActive()
+               && TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new AppliedSettings(currentUser, reason));
+    }
   }
-}
 
+  /**
+   * The user the audit trigger should record for work on the current thread: the AuditContext
+   * user, or "system_process" for system startup, background jobs, or when no user is set.
+   * Code that talks to Postgres without the EntityManager (plain JDBC, other databases)
+   * passes this value to {@link #SET_CURRENT_USER_SQL} itself.
+   */
+  public static String resolveCurrentUser() {
+    String currentUser = AuditContext.getCurrentUser();
+    if (currentUser == null || currentUser.trim().isEmpty()) {
+      return SYSTEM_USER;
+    }
+    return currentUser;
+  }
+
+  /**
+   * Settings last applied in the current transaction. Kept as a synchronization rather than a bound
+   * resource because synchronizations are suspended with their transaction, so a REQUIRES_NEW
+   * transaction starts without one and sets its own values.
+   */
+  private static final class AppliedSettings implements TransactionSynchronization {
+
+    private String username;
+    private String reason;
+
+    private AppliedSettings(String username, String reason) {
+      this.username = username;
+      this.reason = reason;
+    }
+
+    static AppliedSettings current() {
+      for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+        if (synchronization instanceof AppliedSettings applied) {
+          return applied;
+        }
+      }
+      return null;
+    }
+
+    boolean matches(String currentUser, String currentReason) {
+      return Objects.equals(username, currentUser) && Objects.equals(reason, currentReason);
+    }
+  }
+}
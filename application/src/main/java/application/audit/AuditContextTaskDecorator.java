@@ -0,0 +1,15 @@
+package application.audit;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Carries the submitting thread's {@link AuditContext} user onto Spring task executor threads,
+ * e.g. {@code ThreadPoolTaskExecutor.setTaskDecorator(new AuditContextTaskDecorator())}.
+ */
+public class AuditContextTaskDecorator implements TaskDecorator {
+
+  @Override
+  public Runnable decorate(Runnable runnable) {
+    return AuditContext.wrap(runnable);
+  }
+}
@@ -0,0 +1,58 @@
+package application.audit;
+
+import jakarta.persistence.EntityManager;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Adds the AuditContext session settings to every Spring Data repository proxy.
+ *
+ * A repository opens its transaction in an interceptor on its own proxy, so a top-level call such
+ * as widgetRepository.save() starts and commits the transaction before any outer aspect could
+ * reach it. Advice added through a repository proxy post-processor is registered after the
+ * transaction interceptor and therefore runs inside the repository's transaction.
+ */
+@Component
+class AuditRepositoryPostProcessor implements BeanPostProcessor {
+
+  private final ObjectProvider<EntityManager> entityManagerProvider;
+  private volatile EntityManager entityManager;
+
+  AuditRepositoryPostProcessor(ObjectProvider<EntityManager> entityManagerProvider) {
+    this.entityManagerProvider = entityManagerProvider;
+  }
+
+  @Override
+  public Object postProcessBeforeInitialization(Object bean, String beanName) {
+    if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+      MethodInterceptor applySettings = invocation -> {
+        // Without a transaction the settings would be discarded as soon as they were set
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+          AuditContextAspect.applySessionSettings(entityManager());
+        }
+        return invocation.proceed();
+      };
+      factoryBean.addRepositoryFactoryCustomizer(factory ->
+        factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+          proxyFactory.addAdvice(applySettings)));
+    }
+    return bean;
+  }
+
+  /**
+   * The shared, transaction-bound EntityManager, looked up on first use because a post-processor
+   * is created before the persistence unit exists.
+   */
+  private EntityManager entityManager() {
+    EntityManager shared = entityManager;
+    if (shared == null) {
+      shared = entityManagerProvider.getObject();
+      entityManager = shared;
+    }
+    return shared;
+  }
+}
@@ -0,0 +1,7 @@
+package application.catalog;
+
+/**
+ * One widget as held by the {@link WidgetCatalogMirror}.
+ */
+public record CatalogEntry(long id, String name, long priceCents, int quantity, long createdAtMicros) {
+}
@@ -0,0 +1,83 @@
+package application.catalog;
+
+import application.repo.WidgetAuditReader;
+import application.repo.WidgetBulkReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enables the in-memory catalog mirror with app.catalog.mirror.enabled=true.
+ * The mirror is loaded once the context has started (after Liquibase) and then
+ * refreshed every app.catalog.mirror.refresh-interval-ms milliseconds.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "app.catalog.mirror", name = "enabled", havingValue = "true")
+public class CatalogMirrorConfiguration {
+
+  @Bean
+  WidgetCatalogMirror widgetCatalogMirror(WidgetBulkReader widgetBulkReader, WidgetAuditReader widgetAuditReader,
+                                          JdbcTemplate jdbcTemplate) {
+    return new WidgetCatalogMirror(widgetBulkReader, widgetAuditReader, jdbcTemplate);
+  }
+
+  @Bean
+  SmartLifecycle widgetCatalogMirrorRefresher(WidgetCatalogMirror mirror,
+                                              @Value("${app.catalog.mirror.refresh-interval-ms:1000}") long intervalMs) {
+    return new MirrorRefresher(mirror, intervalMs);
+  }
+
+  static final class MirrorRefresher implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(MirrorRefresher.class);
+
+    private final WidgetCatalogMirror mirror;
+    private final long intervalMs;
+    private ScheduledExecutorService scheduler;
+
+    MirrorRefresher(WidgetCatalogMirror mirror, long intervalMs) {
+      this.mirror = mirror;
+      this.intervalMs = intervalMs;
+    }
+
+    @Override
+    public void start() {
+      mirror.load();
+      scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-mirror-refresh");
+        thread.setDaemon(true);
+        return thread;
+      });
+      scheduler.scheduleWithFixedDelay(this::refresh, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void refresh() {
+      try {
+        mirror.refresh();
+      } catch (RuntimeException e) {
+        log.warn("Catalog mirror refresh failed; will retry", e);
+      }
+    }
+
+    @Override
+    public void stop() {
+      if (scheduler != null) {
+        scheduler.shutdownNow();
+        scheduler = null;
+      }
+    }
+
+    @Override
+    public boolean isRunning() {
+      return scheduler != null;
+    }
+  }
+}
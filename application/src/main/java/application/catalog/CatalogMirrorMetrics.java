@@ -0,0 +1,20 @@
+package application.catalog;
+
+/**
+ * Point-in-time metrics of a {@link WidgetCatalogMirror}.
+ *
+ * @param widgets          number of widgets held
+ * @param memoryBytes      estimated heap used by columns, index and names
+ * @param lastAuditId      highest widgets_audit.audit_id applied
+ * @param replayFromAuditId audit ids above this are re-read by every refresh because transactions that
+ *                         may have drawn them were still running; a gap to lastAuditId that keeps
+ *                         growing points at a long-running transaction
+ * @param refreshLagMillis time since the start of the last successful load or refresh; every change
+ *                         committed before that point is visible. -1 before the first load
+ * @param lookups          number of id lookups served
+ * @param meanLookupNanos  mean latency of sampled lookups
+ */
+public record CatalogMirrorMetrics(int widgets, long memoryBytes, long lastAuditId, long replayFromAuditId,
+                                   long refreshLagMillis,
+                                   long lookups, double meanLookupNanos) {
+}
@@ -0,0 +1,11 @@
+package application.catalog;
+
+/**
+ * Receives widgets during a full scan of the {@link WidgetCatalogMirror} without
+ * materializing an entry object per row.
+ */
+@FunctionalInterface
+public interface CatalogRowConsumer {
+
+  void accept(long id, String name, long priceCents, int quantity, long createdAtMicros);
+}
@@ -0,0 +1,123 @@
+package application.catalog;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from long keys to int values, with linear probing and
+ * backward-shift deletion. Holds no boxed keys or entry objects. Not thread-safe.
+ */
+final class LongIntHashIndex {
+
+  static final int MISSING = -1;
+
+  private static final long EMPTY = Long.MIN_VALUE;
+
+  private long[] keys;
+  private int[] values;
+  private int mask;
+  private int size;
+
+  LongIntHashIndex(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+    allocate(capacity);
+  }
+
+  int size() {
+    return size;
+  }
+
+  int capacity() {
+    return keys.length;
+  }
+
+  int get(long key) {
+    int slot = slot(key);
+    while (true) {
+      long current = keys[slot];
+      if (current == key) {
+        return values[slot];
+      }
+      if (current == EMPTY) {
+        return MISSING;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  void put(long key, int value) {
+    if (key == EMPTY) {
+      throw new IllegalArgumentException("Reserved key: " + key);
+    }
+    if ((size + 1) * 2 > keys.length) {
+      rehash(keys.length << 1);
+    }
+    int slot = slot(key);
+    while (keys[slot] != EMPTY && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    if (keys[slot] == EMPTY) {
+      keys[slot] = key;
+      size++;
+    }
+    values[slot] = value;
+  }
+
+  int remove(long key) {
+    int slot = slot(key);
+    while (keys[slot] != key) {
+      if (keys[slot] == EMPTY) {
+        return MISSING;
+      }
+      slot = (slot + 1) & mask;
+    }
+    int removed = values[slot];
+    // Shift later entries of the probe run back so lookups never stop at the hole
+    int hole = slot;
+    int next = (hole + 1) & mask;
+    while (keys[next] != EMPTY) {
+      int home = slot(keys[next]);
+      if (((next - home) & mask) >= ((next - hole) & mask)) {
+        keys[hole] = keys[next];
+        values[hole] = values[next];
+        hole = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keys[hole] = EMPTY;
+    size--;
+    return removed;
+  }
+
+  void clear() {
+    Arrays.fill(keys, EMPTY);
+    size = 0;
+  }
+
+  long memoryBytes() {
+    return keys.length * (long) (Long.BYTES + Integer.BYTES);
+  }
+
+  private int slot(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32)) & mask;
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new int[capacity];
+    Arrays.fill(keys, EMPTY);
+    mask = capacity - 1;
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(capacity);
+    size = 0;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        put(oldKeys[i], oldValues[i]);
+      }
+    }
+  }
+}
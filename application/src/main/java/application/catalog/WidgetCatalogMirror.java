@@ -0,0 +1,416 @@
+package application.catalog;
+
+import application.repo.AuditRow;
+import application.repo.BulkAuditSummary;
+import application.repo.WidgetAuditReader;
+import application.repo.WidgetBulkReader;
+import application.repo.WidgetColumnBatch;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * In-memory columnar mirror of the whole widget catalog.
+ *
+ * The mirror is loaded once with a streaming scan and then kept current by tailing
+ * widgets_audit by audit_id. Audit rows carry the full row image, so replaying any contiguous
+ * suffix of the audit log in order converges to the committed state.
+ *
+ * A transaction can draw an audit id and commit after a refresh has moved past it, however long
+ * it runs. Each refresh therefore records the audit sequence position and then the xmax of a
+ * fresh snapshot: every id at or below that position was drawn by a transaction below that xmax,
+ * because audit ids are only drawn by triggers of transactions that have already written. Once
+ * pg_snapshot_xmin passes the recorded xmax, all of those transactions have ended, and one more
+ * refresh from the previous settled position picks up whatever they committed. Refreshes re-read
+ * from the last settled position, so the re-read window covers exactly the transactions still in
+ * flight. This relies on the sequence having no per-session cache, which would hand out ids
+ * drawn earlier.
+ *
+ * Bulk-maintenance transactions leave no per-row audit entries, only a summary whose id comes
+ * from the same sequence. Summaries are replayed in that order by re-reading their affected id
+ * ranges from the widgets table, so later audit rows still override them.
+ */
+public class WidgetCatalogMirror {
+
+  /** How long {@link #load()} waits for transactions that were running when it started. */
+  public static final Duration IN_FLIGHT_WAIT = Duration.ofMinutes(5);
+
+  private static final String AUDIT_SEQUENCE_POSITION =
+    "SELECT CASE WHEN is_called THEN last_value ELSE last_value - 1 END FROM public.widgets_audit_audit_id_seq";
+  private static final String SNAPSHOT_BOUNDS =
+    "SELECT pg_snapshot_xmin(s)::text::BIGINT, pg_snapshot_xmax(s)::text::BIGINT FROM pg_current_snapshot() s";
+
+  private static final int APPLY_BATCH = 10_000;
+  private static final int LOOKUP_SAMPLE_RATE = 64;
+
+  private final WidgetBulkReader widgetReader;
+  private final WidgetAuditReader auditReader;
+  private final JdbcTemplate jdbcTemplate;
+
+  private final StampedLock lock = new StampedLock();
+  private Columns columns = new Columns(16);
+
+  private volatile long lastAuditId;
+  private volatile long replayFrom;
+  private final Deque<Checkpoint> inFlight = new ArrayDeque<>();
+  private volatile long lastRefreshStartedAt;
+
+  private final LongAdder lookups = new LongAdder();
+  private final LongAdder sampledLookups = new LongAdder();
+  private final LongAdder sampledLookupNanos = new LongAdder();
+
+  public WidgetCatalogMirror(WidgetBulkReader widgetReader, WidgetAuditReader auditReader,
+                             JdbcTemplate jdbcTemplate) {
+    this.widgetReader = widgetReader;
+    this.auditReader = auditReader;
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Replace the mirror contents with a full scan of the widgets table.
+   * The audit sequence position is recorded first and the scan waits for every transaction that
+   * was running at that point, so audit ids up to it are reflected by the scan and changes made
+   * during the scan are replayed by the refresh that follows. Must not be called from a
+   * transaction that has written, which would wait for itself.
+   *
+   * @throws IllegalStateException if those transactions are still running after {@link #IN_FLIGHT_WAIT}
+   */
+  public synchronized void load() {
+    long started = System.currentTimeMillis();
+    Checkpoint start = checkpoint();
+    awaitTransactionsBelow(start.xmax());
+
+    Columns loaded = new Columns(1_024);
+    widgetReader.forEachBatch(WidgetBulkReader.DEFAULT_BATCH_SIZE, true, batch -> {
+      for (int i = 0; i < batch.size(); i++) {
+        loaded.upsert(batch.id()[i], batch.name()[i], batch.priceCents()[i], batch.quantity()[i],
+          batch.createdAtMicros()[i]);
+      }
+    });
+
+    long stamp = lock.writeLock();
+    try {
+      columns = loaded;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    inFlight.clear();
+    replayFrom = start.auditId();
+    lastAuditId = start.auditId();
+    lastRefreshStartedAt = started;
+    refresh();
+  }
+
+  /**
+   * Apply audit rows written since the last refresh, re-reading ids that transactions still in
+   * flight at earlier refreshes may have committed since.
+   *
+   * @return the number of audit rows and bulk summaries newer than the previous high-water mark
+   */
+  public synchronized int refresh() {
+    long started = System.currentTimeMillis();
+    long previousHighWater = lastAuditId;
+    long from = replayFrom;
+    Checkpoint checkpoint = checkpoint();
+    if (!inFlight.isEmpty() && inFlight.peekLast().xmax() == checkpoint.xmax()) {
+      // Settles at the same time as the newer position, so only the newer one is kept
+      inFlight.pollLast();
+    }
+    inFlight.addLast(checkpoint);
+    long settled = from;
+    while (!inFlight.isEmpty() && inFlight.peekFirst().xmax() <= checkpoint.xmin()) {
+      settled = Math.max(settled, inFlight.pollFirst().auditId());
+    }
+
+    long[] highWater = {previousHighWater};
+    int[] newRows = {0};
+    List<AuditRow> pending = new ArrayList<>();
+    List<BulkAuditSummary> summaries = auditReader.findBulkSummariesAfter(from);
+    int[] nextSummary = {0};
+
+    auditReader.forEachInAuditIdRange(from, Long.MAX_VALUE, row -> {
+      while (nextSummary[0] < summaries.size() && summaries.get(nextSummary[0]).summaryId() < row.auditId()) {
+        apply(pending);
+        pending.clear();
+        reload(summaries.get(nextSummary[0]++));
+      }
+      pending.add(row);
+      if (row.auditId() > previousHighWater) {
+        newRows[0]++;
+      }
+      highWater[0] = Math.max(highWater[0], row.auditId());
+      if (pending.size() >= APPLY_BATCH) {
+        apply(pending);
+        pending.clear();
+      }
+    });
+    apply(pending);
+    for (BulkAuditSummary summary : summaries.subList(nextSummary[0], summaries.size())) {
+      reload(summary);
+    }
+    for (BulkAuditSummary summary : summaries) {
+      if (summary.summaryId() > previousHighWater) {
+        newRows[0]++;
+      }
+      highWater[0] = Math.max(highWater[0], summary.summaryId());
+    }
+
+    lastAuditId = highWater[0];
+    replayFrom = settled;
+    lastRefreshStartedAt = started;
+    return newRows[0];
+  }
+
+  /**
+   * The audit sequence position, then the bounds of a snapshot taken after it was read.
+   */
+  private Checkpoint checkpoint() {
+    Long auditId = jdbcTemplate.queryForObject(AUDIT_SEQUENCE_POSITION, Long.class);
+    return jdbcTemplate.queryForObject(SNAPSHOT_BOUNDS,
+      (rs, rowNum) -> new Checkpoint(auditId == null ? 0 : auditId, rs.getLong(1), rs.getLong(2)));
+  }
+
+  private void awaitTransactionsBelow(long xmax) {
+    long deadline = System.nanoTime() + IN_FLIGHT_WAIT.toNanos();
+    while (checkpoint().xmin() < xmax) {
+      if (System.nanoTime() > deadline) {
+        throw new IllegalStateException("Transactions older than txid " + xmax + " are still running after "
+          + IN_FLIGHT_WAIT + "; cannot load the catalog mirror consistently");
+      }
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for in-flight transactions", e);
+      }
+    }
+  }
+
+  /**
+   * Replace the mirrored rows in a bulk summary's id ranges with the current table contents,
+   * removing ids that no longer exist.
+   */
+  private void reload(BulkAuditSummary summary) {
+    for (BulkAuditSummary.IdRange range : summary.widgetIds()) {
+      for (long lo = range.fromInclusive(); lo < range.toExclusive(); lo += APPLY_BATCH) {
+        long hi = Math.min(range.toExclusive(), lo + APPLY_BATCH);
+        Columns current = new Columns(16);
+        widgetReader.forEachBatchInIdRange(lo, hi, WidgetBulkReader.DEFAULT_BATCH_SIZE, true, batch -> {
+          for (int i = 0; i < batch.size(); i++) {
+            current.upsert(batch.id()[i], batch.name()[i], batch.priceCents()[i], batch.quantity()[i],
+              batch.createdAtMicros()[i]);
+          }
+        });
+        long stamp = lock.writeLock();
+        try {
+          for (long id = lo; id < hi; id++) {
+            CatalogEntry entry = current.get(id);
+            if (entry == null) {
+              columns.remove(id);
+            } else {
+              columns.upsert(id, entry.name(), entry.priceCents(), entry.quantity(), entry.createdAtMicros());
+            }
+          }
+        } finally {
+          lock.unlockWrite(stamp);
+        }
+      }
+    }
+  }
+
+  /**
+   * Look up one widget by id.
+   *
+   * @return the widget, or null if it is not in the catalog
+   */
+  public CatalogEntry find(long id) {
+    boolean sampled = ThreadLocalRandom.current().nextInt(LOOKUP_SAMPLE_RATE) == 0;
+    long started = sampled ? System.nanoTime() : 0;
+    CatalogEntry entry;
+    long stamp = lock.readLock();
+    try {
+      entry = columns.get(id);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+    lookups.increment();
+    if (sampled) {
+      sampledLookups.increment();
+      sampledLookupNanos.add(System.nanoTime() - started);
+    }
+    return entry;
+  }
+
+  /**
+   * Visit every widget under a consistent read lock. Refreshes wait until the scan completes.
+   */
+  public void forEach(CatalogRowConsumer consumer) {
+    long stamp = lock.readLock();
+    try {
+      columns.forEach(consumer);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  public int size() {
+    long stamp = lock.readLock();
+    try {
+      return columns.size;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  public long getLastAuditId() {
+    return lastAuditId;
+  }
+
+  public CatalogMirrorMetrics metrics() {
+    int widgets;
+    long memoryBytes;
+    long stamp = lock.readLock();
+    try {
+      widgets = columns.size;
+      memoryBytes = columns.memoryBytes();
+    } finally {
+      lock.unlockRead(stamp);
+    }
+    long refreshedAt = lastRefreshStartedAt;
+    long samples = sampledLookups.sum();
+    return new CatalogMirrorMetrics(
+      widgets,
+      memoryBytes,
+      lastAuditId,
+      replayFrom,
+      refreshedAt == 0 ? -1 : System.currentTimeMillis() - refreshedAt,
+      lookups.sum(),
+      samples == 0 ? 0 : (double) sampledLookupNanos.sum() / samples);
+  }
+
+  private void apply(List<AuditRow> rows) {
+    if (rows.isEmpty()) {
+      return;
+    }
+    long stamp = lock.writeLock();
+    try {
+      for (AuditRow row : rows) {
+        if (row.widgetId() == null) {
+          continue;
+        }
+        if ("DELETE".equals(row.operation())) {
+          columns.remove(row.widgetId());
+        } else {
+          columns.upsert(row.widgetId(), row.name(), WidgetColumnBatch.toCents(row.price()), row.quantity(),
+            WidgetColumnBatch.toEpochMicros(row.createdAt()));
+        }
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * @param auditId highest audit id drawn before the snapshot was taken
+   * @param xmin    oldest transaction still running in the snapshot
+   * @param xmax    first transaction id not yet assigned at the snapshot
+   */
+  private record Checkpoint(long auditId, long xmin, long xmax) {
+  }
+
+  /**
+   * Dense column store: slots [0, size) are live, and deletes move the last slot into the hole.
+   */
+  private static final class Columns {
+    private final LongIntHashIndex index;
+    private long[] ids;
+    private String[] names;
+    private long[] priceCents;
+    private int[] quantities;
+    private long[] createdAtMicros;
+    private int size;
+
+    Columns(int capacity) {
+      index = new LongIntHashIndex(capacity);
+      ids = new long[capacity];
+      names = new String[capacity];
+      priceCents = new long[capacity];
+      quantities = new int[capacity];
+      createdAtMicros = new long[capacity];
+    }
+
+    CatalogEntry get(long id) {
+      int slot = index.get(id);
+      if (slot == LongIntHashIndex.MISSING) {
+        return null;
+      }
+      return new CatalogEntry(id, names[slot], priceCents[slot], quantities[slot], createdAtMicros[slot]);
+    }
+
+    void upsert(long id, String name, long cents, int quantity, long createdAt) {
+      int slot = index.get(id);
+      if (slot == LongIntHashIndex.MISSING) {
+        if (size == ids.length) {
+          grow();
+        }
+        slot = size++;
+        ids[slot] = id;
+        index.put(id, slot);
+      }
+      names[slot] = name;
+      priceCents[slot] = cents;
+      quantities[slot] = quantity;
+      createdAtMicros[slot] = createdAt;
+    }
+
+    void remove(long id) {
+      int slot = index.remove(id);
+      if (slot == LongIntHashIndex.MISSING) {
+        return;
+      }
+      int last = --size;
+      if (slot != last) {
+        ids[slot] = ids[last];
+        names[slot] = names[last];
+        priceCents[slot] = priceCents[last];
+        quantities[slot] = quantities[last];
+        createdAtMicros[slot] = createdAtMicros[last];
+        index.put(ids[slot], slot);
+      }
+      names[last] = null;
+    }
+
+    void forEach(CatalogRowConsumer consumer) {
+      for (int slot = 0; slot < size; slot++) {
+        consumer.accept(ids[slot], names[slot], priceCents[slot], quantities[slot], createdAtMicros[slot]);
+      }
+    }
+
+    long memoryBytes() {
+      long bytes = index.memoryBytes()
+        + ids.length * (long) (Long.BYTES * 3 + Integer.BYTES + Integer.BYTES);
+      for (int slot = 0; slot < size; slot++) {
+        // String header plus compact (Latin-1) backing array; an estimate, not an exact measurement
+        bytes += names[slot] == null ? 0 : 40 + names[slot].length();
+      }
+      return bytes;
+    }
+
+    private void grow() {
+      int capacity = ids.length * 2;
+      ids = Arrays.copyOf(ids, capacity);
+      names = Arrays.copyOf(names, capacity);
+      priceCents = Arrays.copyOf(priceCents, capacity);
+      quantities = Arrays.copyOf(quantities, capacity);
+      createdAtMicros = Arrays.copyOf(createdAtMicros, capacity);
+    }
+  }
+}
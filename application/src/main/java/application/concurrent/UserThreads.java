@@ -0,0 +1,53 @@
+package application.concurrent;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor for per-user work such as simulated users or HTTP requests: one virtual thread per task
+ * on Java 21+, looked up reflectively because the build targets Java 17, and daemon platform
+ * threads otherwise.
+ */
+public final class UserThreads {
+
+  private UserThreads() {
+  }
+
+  /**
+   * @param threadNamePrefix name prefix for the platform threads used before Java 21
+   */
+  public static ExecutorService newExecutor(String threadNamePrefix) {
+    ExecutorService virtual = virtualThreadPerTaskExecutor();
+    if (virtual != null) {
+      return virtual;
+    }
+    AtomicInteger counter = new AtomicInteger();
+    ThreadFactory factory = runnable -> {
+      Thread thread = new Thread(runnable, threadNamePrefix + "-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+    return Executors.newCachedThreadPool(factory);
+  }
+
+  public static boolean virtualThreadsAvailable() {
+    try {
+      Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  private static ExecutorService virtualThreadPerTaskExecutor() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package application.ingest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Maps bearer tokens to the audit user they act as. Only SHA-256 digests of the tokens are kept,
+ * and lookups go by the digest of the presented token, so neither the stored tokens nor the time a
+ * lookup takes give away a valid token.
+ */
+final class BearerTokens {
+
+  private final Map<String, String> usersByDigest;
+
+  private BearerTokens(Map<String, String> usersByDigest) {
+    this.usersByDigest = usersByDigest;
+  }
+
+  /**
+   * @param spec comma-separated username:token pairs, e.g. "supplier_feed:s3cret,erp_sync:t0ken"
+   */
+  static BearerTokens parse(String spec) {
+    Map<String, String> users = new HashMap<>();
+    for (String entry : spec.split(",")) {
+      String trimmed = entry.trim();
+      if (trimmed.isEmpty()) {
+        continue;
+      }
+      int separator = trimmed.indexOf(':');
+      if (separator <= 0 || separator == trimmed.length() - 1) {
+        // Not echoed: the entry may contain a token
+        throw new IllegalArgumentException("Expected username:token pairs");
+      }
+      if (users.put(digest(trimmed.substring(separator + 1)), trimmed.substring(0, separator)) != null) {
+        throw new IllegalArgumentException("Duplicate token for user " + trimmed.substring(0, separator));
+      }
+    }
+    if (users.isEmpty()) {
+      throw new IllegalArgumentException("At least one username:token pair is required");
+    }
+    return new BearerTokens(Map.copyOf(users));
+  }
+
+  /**
+   * @param authorization value of the Authorization header, may be null
+   * @return the user the token belongs to, or null if the header is missing, malformed or unknown
+   */
+  String userFor(String authorization) {
+    if (authorization == null || !authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+      return null;
+    }
+    String token = authorization.substring(7).trim();
+    return token.isEmpty() ? null : usersByDigest.get(digest(token));
+  }
+
+  private static String digest(String token) {
+    try {
+      return HexFormat.of().formatHex(
+        MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package application.ingest;
+
+import application.repo.WidgetUpsert;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Walks the lines of a mapped chunk and turns each into a {@link WidgetUpsert}. One instance per
+ * parser thread: lines are copied into a reusable scratch array and numbers are parsed straight
+ * from its bytes, so the only per-row allocations are the name and the row itself.
+ */
+abstract class ChunkParser {
+
+  private byte[] line = new byte[256];
+
+  final void parse(ByteBuffer chunk, long chunkStart, ParsedChunk out) {
+    int limit = chunk.limit();
+    int position = 0;
+    while (position < limit) {
+      int end = position;
+      while (end < limit && chunk.get(end) != '\n') {
+        end++;
+      }
+      int length = end - position;
+      if (line.length < length) {
+        line = new byte[Math.max(length, line.length * 2)];
+      }
+      chunk.get(position, line, 0, length);
+      if (length > 0 && line[length - 1] == '\r') {
+        length--;
+      }
+      if (!isBlank(line, length)) {
+        try {
+          out.add(parseLine(line, length));
+        } catch (IllegalArgumentException e) {
+          out.reject(chunkStart + position, e.getMessage());
+        }
+      }
+      position = end + 1;
+    }
+  }
+
+  /**
+   * @throws IllegalArgumentException when the line is not a valid record
+   */
+  abstract WidgetUpsert parseLine(byte[] line, int length);
+
+  static WidgetUpsert row(String name, Integer quantity, BigDecimal price) {
+    if (name == null || name.isBlank()) {
+      throw new IllegalArgumentException("name is required");
+    }
+    if (quantity == null) {
+      throw new IllegalArgumentException("quantity is required");
+    }
+    if (price == null) {
+      throw new IllegalArgumentException("price is required");
+    }
+    return new WidgetUpsert(name, quantity, price);
+  }
+
+  static String string(byte[] bytes, int offset, int length) {
+    return new String(bytes, offset, length, StandardCharsets.UTF_8);
+  }
+
+  static int parseInt(byte[] bytes, int offset, int length) {
+    int from = skipSpaces(bytes, offset, offset + length);
+    int to = trimSpaces(bytes, from, offset + length);
+    boolean negative = from < to && bytes[from] == '-';
+    int i = negative ? from + 1 : from;
+    if (i == to) {
+      throw new NumberFormatException("Not an integer: '" + string(bytes, offset, length) + "'");
+    }
+    long value = 0;
+    for (; i < to; i++) {
+      int digit = bytes[i] - '0';
+      if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE) {
+        throw new NumberFormatException("Not an integer: '" + string(bytes, offset, length) + "'");
+      }
+      value = value * 10 + digit;
+    }
+    value = negative ? -value : value;
+    if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+      throw new NumberFormatException("Integer out of range: '" + string(bytes, offset, length) + "'");
+    }
+    return (int) value;
+  }
+
+  /**
+   * Plain decimals of up to 18 digits are built from an unscaled long; anything else
+   * (exponents, more digits) goes through the BigDecimal string constructor.
+   */
+  static BigDecimal parseDecimal(byte[] bytes, int offset, int length) {
+    int from = skipSpaces(bytes, offset, offset + length);
+    int to = trimSpaces(bytes, from, offset + length);
+    boolean negative = from < to && bytes[from] == '-';
+    int i = negative ? from + 1 : from;
+    long unscaled = 0;
+    int digits = 0;
+    int scale = -1;
+    for (; i < to; i++) {
+      byte b = bytes[i];
+      if (b == '.' && scale < 0) {
+        scale = 0;
+      } else if (b >= '0' && b <= '9' && digits < 18) {
+        unscaled = unscaled * 10 + (b - '0');
+        digits++;
+        if (scale >= 0) {
+          scale++;
+        }
+      } else {
+        return new BigDecimal(string(bytes, from, to - from));
+      }
+    }
+    if (digits == 0) {
+      throw new NumberFormatException("Not a number: '" + string(bytes, offset, length) + "'");
+    }
+    return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+  }
+
+  static boolean isBlank(byte[] bytes, int length) {
+    return skipSpaces(bytes, 0, length) == length;
+  }
+
+  private static int skipSpaces(byte[] bytes, int from, int to) {
+    while (from < to && (bytes[from] == ' ' || bytes[from] == '\t')) {
+      from++;
+    }
+    return from;
+  }
+
+  private static int trimSpaces(byte[] bytes, int from, int to) {
+    while (to > from && (bytes[to - 1] == ' ' || bytes[to - 1] == '\t')) {
+      to--;
+    }
+    return to;
+  }
+}
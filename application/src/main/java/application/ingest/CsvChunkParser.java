@@ -0,0 +1,111 @@
+package application.ingest;
+
+import application.repo.WidgetUpsert;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * RFC 4180 style CSV lines: comma separated, optionally double-quoted fields with "" as an
+ * escaped quote. Column positions come from the header, so extra columns are ignored.
+ */
+final class CsvChunkParser extends ChunkParser {
+
+  private final int nameColumn;
+  private final int quantityColumn;
+  private final int priceColumn;
+  private final int[] fieldOffset;
+  private final int[] fieldLength;
+  private byte[] fields = new byte[256];
+
+  private CsvChunkParser(int columns, int nameColumn, int quantityColumn, int priceColumn) {
+    this.nameColumn = nameColumn;
+    this.quantityColumn = quantityColumn;
+    this.priceColumn = priceColumn;
+    this.fieldOffset = new int[columns];
+    this.fieldLength = new int[columns];
+  }
+
+  /**
+   * @param header the header line, without its line break
+   */
+  static CsvChunkParser forHeader(byte[] header) {
+    String text = new String(header, StandardCharsets.UTF_8);
+    if (text.startsWith("\uFEFF")) {
+      text = text.substring(1);
+    }
+    List<String> columns = Arrays.stream(text.strip().split(",", -1))
+                                 .map(column -> column.strip().replace("\"", "").toLowerCase(Locale.ROOT))
+                                 .toList();
+    return new CsvChunkParser(columns.size(), column(columns, "name"), column(columns, "quantity"),
+      column(columns, "price"));
+  }
+
+  private static int column(List<String> columns, String name) {
+    int index = columns.indexOf(name);
+    if (index < 0) {
+      throw new IllegalArgumentException("CSV header has no '" + name + "' column: " + columns);
+    }
+    return index;
+  }
+
+  @Override
+  WidgetUpsert parseLine(byte[] line, int length) {
+    split(line, length);
+    return row(
+      string(fields, fieldOffset[nameColumn], fieldLength[nameColumn]),
+      parseInt(fields, fieldOffset[quantityColumn], fieldLength[quantityColumn]),
+      parseDecimal(fields, fieldOffset[priceColumn], fieldLength[priceColumn]));
+  }
+
+  private void split(byte[] line, int length) {
+    if (fields.length < length) {
+      fields = new byte[Math.max(length, fields.length * 2)];
+    }
+    int columns = fieldOffset.length;
+    int field = 0;
+    int out = 0;
+    int i = 0;
+    while (true) {
+      if (field == columns) {
+        throw new IllegalArgumentException("Expected " + columns + " columns but found more");
+      }
+      fieldOffset[field] = out;
+      if (i < length && line[i] == '"') {
+        i++;
+        while (true) {
+          if (i >= length) {
+            throw new IllegalArgumentException("Unterminated quoted field in column " + (field + 1));
+          }
+          byte b = line[i++];
+          if (b != '"') {
+            fields[out++] = b;
+          } else if (i < length && line[i] == '"') {
+            fields[out++] = '"';
+            i++;
+          } else {
+            break;
+          }
+        }
+        if (i < length && line[i] != ',') {
+          throw new IllegalArgumentException("Unexpected character after quoted field in column " + (field + 1));
+        }
+      } else {
+        while (i < length && line[i] != ',') {
+          fields[out++] = line[i++];
+        }
+      }
+      fieldLength[field] = out - fieldOffset[field];
+      field++;
+      if (i >= length) {
+        break;
+      }
+      i++;
+    }
+    if (field != columns) {
+      throw new IllegalArgumentException("Expected " + columns + " columns but found " + field);
+    }
+  }
+}
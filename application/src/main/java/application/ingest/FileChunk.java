@@ -0,0 +1,11 @@
+package application.ingest;
+
+/**
+ * Byte range [start, end) of the input file that starts and ends on a record boundary.
+ */
+record FileChunk(int index, long start, long end) {
+
+  int length() {
+    return Math.toIntExact(end - start);
+  }
+}
@@ -0,0 +1,54 @@
+package application.ingest;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a file into chunks of roughly equal size, each extended to the next line break so no
+ * record straddles two chunks. Only small windows around the split points are mapped here; the
+ * chunks themselves are mapped by the parsers.
+ *
+ * Records therefore must not contain raw line breaks, which rules out quoted multi-line CSV fields.
+ */
+final class FileChunker {
+
+  private static final int SCAN_WINDOW = 64 * 1024;
+
+  private FileChunker() {
+  }
+
+  static List<FileChunk> split(FileChannel channel, long start, long size, int chunkBytes) throws IOException {
+    List<FileChunk> chunks = new ArrayList<>();
+    long position = start;
+    while (position < size) {
+      long end = position + chunkBytes >= size ? size : nextLineStart(channel, position + chunkBytes - 1, size);
+      if (end - position > Integer.MAX_VALUE) {
+        throw new IOException("Line starting near offset " + position + " is too long to map");
+      }
+      chunks.add(new FileChunk(chunks.size(), position, end));
+      position = end;
+    }
+    return chunks;
+  }
+
+  /**
+   * Offset just past the first line break at or after {@code from}, or {@code size} if there is none.
+   */
+  static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+    long window = from;
+    while (window < size) {
+      int length = (int) Math.min(SCAN_WINDOW, size - window);
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, window, length);
+      for (int i = 0; i < length; i++) {
+        if (buffer.get(i) == '\n') {
+          return window + i + 1;
+        }
+      }
+      window += length;
+    }
+    return size;
+  }
+}
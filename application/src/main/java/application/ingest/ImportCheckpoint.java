@@ -0,0 +1,79 @@
+package application.ingest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records which chunks of an input file have been written, so an interrupted import resumes with
+ * the remaining chunks. The first line fingerprints the input (size, modification time, chunk
+ * size); if any of them changed, chunk boundaries may differ and the checkpoint is discarded.
+ * Each completed chunk appends its index and is forced to disk before the next is recorded.
+ *
+ * Resuming is safe even if a chunk was written but not yet recorded: rows are upserted by name,
+ * so writing a chunk twice leaves the same state and adds no audit rows the second time.
+ */
+final class ImportCheckpoint implements AutoCloseable {
+
+  private final Path file;
+  private final Set<Integer> done;
+  private final FileChannel channel;
+
+  private ImportCheckpoint(Path file, Set<Integer> done, FileChannel channel) {
+    this.file = file;
+    this.done = done;
+    this.channel = channel;
+  }
+
+  static ImportCheckpoint open(Path file, String fingerprint) throws IOException {
+    Set<Integer> done = new HashSet<>();
+    if (Files.exists(file)) {
+      List<String> lines = Files.readAllLines(file, StandardCharsets.US_ASCII);
+      if (!lines.isEmpty() && lines.get(0).equals(fingerprint)) {
+        for (String line : lines.subList(1, lines.size())) {
+          if (!line.isBlank()) {
+            done.add(Integer.parseInt(line.strip()));
+          }
+        }
+      }
+    }
+    if (done.isEmpty()) {
+      Files.writeString(file, fingerprint + "\n", StandardCharsets.US_ASCII);
+    }
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    return new ImportCheckpoint(file, done, channel);
+  }
+
+  static String fingerprint(Path input, long size, int chunkBytes) throws IOException {
+    return "v1 " + size + " " + Files.getLastModifiedTime(input).toMillis() + " " + chunkBytes;
+  }
+
+  boolean isDone(int chunkIndex) {
+    return done.contains(chunkIndex);
+  }
+
+  synchronized void markDone(int chunkIndex) throws IOException {
+    channel.write(ByteBuffer.wrap((chunkIndex + "\n").getBytes(StandardCharsets.US_ASCII)));
+    channel.force(false);
+  }
+
+  /**
+   * Remove the checkpoint once every chunk has been written.
+   */
+  void delete() throws IOException {
+    close();
+    Files.deleteIfExists(file);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
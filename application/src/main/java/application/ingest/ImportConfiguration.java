@@ -0,0 +1,43 @@
+package application.ingest;
+
+import application.audit.AuditContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Imports app.import.file once at startup, e.g.
+ * {@code java -jar application.jar --app.import.file=/feeds/supplier.ndjson --app.import.user=supplier_feed}.
+ * Rows are audited as app.import.user (default "widget_import").
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "app.import", name = "file")
+public class ImportConfiguration {
+
+  private static final Logger log = LoggerFactory.getLogger(ImportConfiguration.class);
+
+  @Bean
+  ApplicationRunner widgetImportRunner(WidgetImporter importer,
+                                       @Value("${app.import.file}") Path file,
+                                       @Value("${app.import.user:widget_import}") String user) {
+    return args -> {
+      ImportReport report = AuditContext.callAsUser(user, () -> importer.importFile(file));
+      log.info("Imported {} in {} ms: {} inserted, {} updated, {} unchanged, {} rejected, {} of {} chunks resumed",
+        file, report.elapsed().toMillis(), report.inserted(), report.updated(), report.unchanged(),
+        report.rowsRejected(), report.resumedChunks(), report.chunks());
+      report.stages().forEach(stage -> log.info("  {}: {} rows, {} MB/s, busy {} ms", stage.stage(), stage.rows(),
+        String.format("%.1f", stage.megabytesPerSecond(report.elapsed())), stage.busy().toMillis()));
+      report.errors().forEach(error -> log.warn("  chunk {} offset {}: {}", error.chunkIndex(), error.offset(),
+        error.message()));
+      if (!report.complete()) {
+        log.warn("Import incomplete; run it again to retry the failed chunks");
+      }
+    };
+  }
+}
@@ -0,0 +1,14 @@
+package application.ingest;
+
+/**
+ * A rejected row, or a whole chunk that could not be parsed or written.
+ *
+ * @param chunkIndex chunk the error belongs to
+ * @param offset     file offset of the rejected line, or -1 when the whole chunk failed
+ */
+public record ImportError(int chunkIndex, long offset, String message) {
+
+  public boolean chunkFailed() {
+    return offset < 0;
+  }
+}
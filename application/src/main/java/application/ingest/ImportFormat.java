@@ -0,0 +1,24 @@
+package application.ingest;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Supported feed layouts. Both are one record per line; CSV files start with a header naming the
+ * name, quantity and price columns, NDJSON lines are flat objects with those keys.
+ */
+public enum ImportFormat {
+  CSV,
+  NDJSON;
+
+  public static ImportFormat fromFileName(Path file) {
+    String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+    if (name.endsWith(".csv")) {
+      return CSV;
+    }
+    if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+      return NDJSON;
+    }
+    throw new IllegalArgumentException("Cannot tell the import format of " + file);
+  }
+}
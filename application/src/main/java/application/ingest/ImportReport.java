@@ -0,0 +1,19 @@
+package application.ingest;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of {@link WidgetImporter#importFile}.
+ *
+ * @param chunks        chunks the file was split into
+ * @param resumedChunks chunks skipped because an earlier, interrupted run had already written them
+ * @param rowsRejected  lines that could not be parsed; see {@link #errors()}
+ */
+public record ImportReport(int chunks, int resumedChunks, long rowsRejected, long inserted, long updated,
+                           long unchanged, List<StageStats> stages, List<ImportError> errors, Duration elapsed) {
+
+  public boolean complete() {
+    return errors.stream().noneMatch(ImportError::chunkFailed);
+  }
+}
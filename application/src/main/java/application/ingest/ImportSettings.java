@@ -0,0 +1,30 @@
+package application.ingest;
+
+import application.repo.WidgetUpsertOperations;
+
+/**
+ * Tuning of one import run.
+ *
+ * @param chunkBytes     target size of a file chunk; chunks end on the next line break after it
+ * @param parserThreads  chunks parsed concurrently
+ * @param writerThreads  writer connections upserting parsed chunks concurrently
+ * @param queueCapacity  parsed chunks that may wait for a writer before parsers block
+ * @param writeBatchSize rows per upsert statement
+ */
+public record ImportSettings(int chunkBytes, int parserThreads, int writerThreads, int queueCapacity,
+                             int writeBatchSize) {
+
+  public static final int DEFAULT_CHUNK_BYTES = 8 * 1024 * 1024;
+
+  public ImportSettings {
+    if (chunkBytes <= 0 || parserThreads <= 0 || writerThreads <= 0 || queueCapacity <= 0 || writeBatchSize <= 0) {
+      throw new IllegalArgumentException("Import settings must all be positive");
+    }
+  }
+
+  public static ImportSettings defaults() {
+    int cores = Runtime.getRuntime().availableProcessors();
+    return new ImportSettings(DEFAULT_CHUNK_BYTES, Math.max(1, cores / 2), Math.max(1, Math.min(4, cores / 2)), 4,
+      WidgetUpsertOperations.DEFAULT_UPSERT_BATCH_SIZE);
+  }
+}
@@ -0,0 +1,55 @@
+package application.ingest;
+
+import application.repo.WidgetRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Enables the NDJSON ingest endpoint with app.ingest.http.enabled=true, e.g.
+ * {@code --app.ingest.http.enabled=true --app.ingest.http.tokens=supplier_feed:s3cret}, then
+ * {@code curl -H 'Authorization: Bearer s3cret' --data-binary @feed.ndjson http://localhost:8080/widgets}.
+ * Listens on app.ingest.http.address (default 127.0.0.1) and app.ingest.http.port (default 8080).
+ *
+ * The endpoint speaks plain HTTP, so bearer tokens and feed contents cross the wire in clear text.
+ * Keep it on loopback behind a TLS-terminating reverse proxy; bind another address only when such a
+ * proxy reaches it over a trusted network.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "app.ingest.http", name = "enabled", havingValue = "true")
+public class IngestServerConfiguration {
+
+  @Bean
+  WidgetIngestServer widgetIngestServer(WidgetRepository widgetRepository,
+                                        @Value("${app.ingest.http.address:127.0.0.1}") String host,
+                                        @Value("${app.ingest.http.port:8080}") int port,
+                                        @Value("${app.ingest.http.tokens}") String tokens,
+                                        @Value("${app.ingest.http.batch-size:"
+                                          + WidgetIngestServer.DEFAULT_BATCH_SIZE + "}") int batchSize) {
+    return new WidgetIngestServer(widgetRepository, new InetSocketAddress(host, port), tokens, batchSize);
+  }
+
+  @Bean
+  SmartLifecycle widgetIngestServerLifecycle(WidgetIngestServer server) {
+    return new SmartLifecycle() {
+      @Override
+      public void start() {
+        server.start();
+      }
+
+      @Override
+      public void stop() {
+        server.stop();
+      }
+
+      @Override
+      public boolean isRunning() {
+        return server.isRunning();
+      }
+    };
+  }
+}
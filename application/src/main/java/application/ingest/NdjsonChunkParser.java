@@ -0,0 +1,258 @@
+package application.ingest;
+
+import application.repo.WidgetUpsert;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * One flat JSON object per line, e.g. {"name":"Bolt","quantity":12,"price":1.25}. Just enough
+ * JSON to read that shape without building a tree: other keys are skipped, prices may also be
+ * given as strings to keep exact decimals, and nested values of unknown keys are stepped over.
+ */
+final class NdjsonChunkParser extends ChunkParser {
+
+  private static final byte[] NAME = "name".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] QUANTITY = "quantity".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] PRICE = "price".getBytes(StandardCharsets.US_ASCII);
+
+  private byte[] line;
+  private int length;
+  private int position;
+  private byte[] text = new byte[64];
+  private int textLength;
+
+  @Override
+  WidgetUpsert parseLine(byte[] line, int length) {
+    this.line = line;
+    this.length = length;
+    this.position = 0;
+
+    String name = null;
+    Integer quantity = null;
+    BigDecimal price = null;
+    expect('{');
+    if (peek() == '}') {
+      position++;
+    } else {
+      while (true) {
+        readString();
+        expect(':');
+        if (keyIs(NAME)) {
+          name = peek() == 'n' ? readLiteral("null", null) : decodeString();
+        } else if (keyIs(QUANTITY)) {
+          int start = skipNumber();
+          quantity = parseInt(line, start, position - start);
+        } else if (keyIs(PRICE)) {
+          if (peek() == '"') {
+            readString();
+            price = parseDecimal(text, 0, textLength);
+          } else {
+            int start = skipNumber();
+            price = parseDecimal(line, start, position - start);
+          }
+        } else {
+          skipValue(0);
+        }
+        byte next = next();
+        if (next == '}') {
+          break;
+        }
+        if (next != ',') {
+          throw unexpected(next);
+        }
+      }
+    }
+    if (peek() != 0) {
+      throw new IllegalArgumentException("Trailing characters after JSON object at column " + (position + 1));
+    }
+    return row(name, quantity, price);
+  }
+
+  private boolean keyIs(byte[] key) {
+    return Arrays.equals(text, 0, textLength, key, 0, key.length);
+  }
+
+  private String decodeString() {
+    readString();
+    return string(text, 0, textLength);
+  }
+
+  /**
+   * Read a string into the scratch buffer as UTF-8, resolving escapes.
+   */
+  private void readString() {
+    expect('"');
+    textLength = 0;
+    while (true) {
+      if (position >= length) {
+        throw new IllegalArgumentException("Unterminated string");
+      }
+      byte b = line[position++];
+      if (b == '"') {
+        return;
+      }
+      if (b != '\\') {
+        append(b);
+        continue;
+      }
+      if (position >= length) {
+        throw new IllegalArgumentException("Unterminated escape");
+      }
+      byte escaped = line[position++];
+      switch (escaped) {
+        case '"', '\\', '/' -> append(escaped);
+        case 'b' -> append((byte) '\b');
+        case 'f' -> append((byte) '\f');
+        case 'n' -> append((byte) '\n');
+        case 'r' -> append((byte) '\r');
+        case 't' -> append((byte) '\t');
+        case 'u' -> appendCodePoint(readUnicodeEscape());
+        default -> throw new IllegalArgumentException("Invalid escape \\" + (char) escaped);
+      }
+    }
+  }
+
+  private int readUnicodeEscape() {
+    int unit = hex4();
+    if (Character.isHighSurrogate((char) unit) && position + 1 < length
+      && line[position] == '\\' && line[position + 1] == 'u') {
+      position += 2;
+      int low = hex4();
+      if (!Character.isLowSurrogate((char) low)) {
+        throw new IllegalArgumentException("Unpaired surrogate in \\u escape");
+      }
+      return Character.toCodePoint((char) unit, (char) low);
+    }
+    return unit;
+  }
+
+  private int hex4() {
+    if (position + 4 > length) {
+      throw new IllegalArgumentException("Truncated \\u escape");
+    }
+    int value = 0;
+    for (int i = 0; i < 4; i++) {
+      int digit = Character.digit(line[position++], 16);
+      if (digit < 0) {
+        throw new IllegalArgumentException("Invalid \\u escape");
+      }
+      value = value * 16 + digit;
+    }
+    return value;
+  }
+
+  private void appendCodePoint(int codePoint) {
+    byte[] encoded = new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8);
+    for (byte b : encoded) {
+      append(b);
+    }
+  }
+
+  private void append(byte b) {
+    if (textLength == text.length) {
+      text = Arrays.copyOf(text, text.length * 2);
+    }
+    text[textLength++] = b;
+  }
+
+  /**
+   * @return start of the number; {@link #position} ends just past it
+   */
+  private int skipNumber() {
+    peek();
+    int start = position;
+    while (position < length) {
+      byte b = line[position];
+      if ((b < '0' || b > '9') && b != '-' && b != '+' && b != '.' && b != 'e' && b != 'E') {
+        break;
+      }
+      position++;
+    }
+    if (start == position) {
+      throw unexpected(peek());
+    }
+    return start;
+  }
+
+  private void skipValue(int depth) {
+    if (depth > 32) {
+      throw new IllegalArgumentException("JSON nested too deeply");
+    }
+    byte b = peek();
+    switch (b) {
+      case '"' -> readString();
+      case 't' -> readLiteral("true", null);
+      case 'f' -> readLiteral("false", null);
+      case 'n' -> readLiteral("null", null);
+      case '{', '[' -> {
+        byte close = b == '{' ? (byte) '}' : (byte) ']';
+        position++;
+        if (peek() == close) {
+          position++;
+          return;
+        }
+        while (true) {
+          if (b == '{') {
+            readString();
+            expect(':');
+          }
+          skipValue(depth + 1);
+          byte next = next();
+          if (next == close) {
+            return;
+          }
+          if (next != ',') {
+            throw unexpected(next);
+          }
+        }
+      }
+      default -> skipNumber();
+    }
+  }
+
+  private <T> T readLiteral(String literal, T value) {
+    peek();
+    for (int i = 0; i < literal.length(); i++) {
+      if (position >= length || line[position++] != literal.charAt(i)) {
+        throw new IllegalArgumentException("Expected " + literal);
+      }
+    }
+    return value;
+  }
+
+  private void expect(char expected) {
+    byte b = next();
+    if (b != expected) {
+      throw unexpected(b);
+    }
+  }
+
+  /**
+   * Skip whitespace and consume the next byte, 0 at the end of the line.
+   */
+  private byte next() {
+    byte b = peek();
+    if (b != 0) {
+      position++;
+    }
+    return b;
+  }
+
+  /**
+   * Skip whitespace and return the next byte without consuming it, 0 at the end of the line.
+   */
+  private byte peek() {
+    while (position < length && (line[position] == ' ' || line[position] == '\t')) {
+      position++;
+    }
+    return position < length ? line[position] : 0;
+  }
+
+  private IllegalArgumentException unexpected(byte b) {
+    return new IllegalArgumentException(b == 0
+      ? "Unexpected end of line"
+      : "Unexpected '" + (char) b + "' at column " + position);
+  }
+}
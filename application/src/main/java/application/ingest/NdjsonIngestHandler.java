@@ -0,0 +1,295 @@
+package application.ingest;
+
+import application.audit.AuditContext;
+import application.repo.UpsertResult;
+import application.repo.WidgetRepository;
+import application.repo.WidgetUpsert;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.NestedExceptionUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Handles POST /widgets: an NDJSON body in the import format, upserted by name in batches as the
+ * body streams in, as the user the bearer token maps to.
+ *
+ * The response is NDJSON too, written while the request is still being read: one line per batch
+ * with its line range, upsert counts and rejected lines, then one summary line. A batch that fails
+ * to write ends the request; its line carries the error and the summary says the request was not
+ * complete, so the client can resend from the failed batch's first line.
+ */
+final class NdjsonIngestHandler implements HttpHandler {
+
+  static final int MAX_LINE_BYTES = 1 << 20;
+
+  private static final Logger log = LoggerFactory.getLogger(NdjsonIngestHandler.class);
+
+  private final WidgetRepository widgetRepository;
+  private final BearerTokens tokens;
+  private final int batchSize;
+
+  NdjsonIngestHandler(WidgetRepository widgetRepository, BearerTokens tokens, int batchSize) {
+    this.widgetRepository = widgetRepository;
+    this.tokens = tokens;
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public void handle(HttpExchange exchange) throws IOException {
+    try {
+      if (!"POST".equals(exchange.getRequestMethod())) {
+        exchange.getResponseHeaders().set("Allow", "POST");
+        reply(exchange, 405, "Use POST with an NDJSON body");
+        return;
+      }
+      String user = tokens.userFor(exchange.getRequestHeaders().getFirst("Authorization"));
+      if (user == null) {
+        exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+        reply(exchange, 401, "Missing or unknown bearer token");
+        return;
+      }
+      exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+      exchange.sendResponseHeaders(200, 0);
+      try (InputStream body = exchange.getRequestBody();
+           Writer out = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)) {
+        AuditContext.runAsUser(user, () -> ingest(body, out));
+      }
+    } catch (UncheckedIOException e) {
+      log.debug("Ingest request from {} aborted", exchange.getRemoteAddress(), e);
+      throw e.getCause();
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void ingest(InputStream body, Writer out) {
+    long started = System.nanoTime();
+    NdjsonChunkParser parser = new NdjsonChunkParser();
+    LineReader lines = new LineReader(body);
+    Batch batch = new Batch(batchSize);
+    long[] totals = new long[4];
+    long lineNumber = 0;
+    int batches = 0;
+    boolean complete = true;
+    try {
+      while (lines.next()) {
+        lineNumber++;
+        if (lines.truncated()) {
+          batch.reject(lineNumber, "Line longer than " + MAX_LINE_BYTES + " bytes");
+        } else if (!ChunkParser.isBlank(lines.line(), lines.length())) {
+          try {
+            batch.rows.add(parser.parseLine(lines.line(), lines.length()));
+          } catch (IllegalArgumentException e) {
+            batch.reject(lineNumber, e.getMessage());
+          }
+        }
+        if (batch.rows.size() + batch.rejected >= batchSize) {
+          complete = write(batch, batches++, lineNumber, totals, out);
+          if (!complete) {
+            break;
+          }
+          batch.reset(lineNumber + 1);
+        }
+      }
+      if (complete && (!batch.rows.isEmpty() || batch.rejected > 0)) {
+        complete = write(batch, batches++, lineNumber, totals, out);
+      }
+      out.write("{\"complete\":" + complete + ",\"batches\":" + batches + ",\"lines\":" + lineNumber
+        + ",\"inserted\":" + totals[0] + ",\"updated\":" + totals[1] + ",\"unchanged\":" + totals[2]
+        + ",\"rejected\":" + totals[3] + ",\"elapsedMs\":" + (System.nanoTime() - started) / 1_000_000 + "}\n");
+      out.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Upsert one batch and report it.
+   *
+   * @return false if the batch failed and the request should stop
+   */
+  private boolean write(Batch batch, int number, long lastLine, long[] totals, Writer out) throws IOException {
+    StringBuilder json = new StringBuilder(128)
+      .append("{\"batch\":").append(number)
+      .append(",\"firstLine\":").append(batch.firstLine)
+      .append(",\"lastLine\":").append(lastLine);
+    boolean written = true;
+    try {
+      UpsertResult result = batch.rows.isEmpty()
+        ? new UpsertResult(0, 0, 0, Duration.ZERO)
+        : widgetRepository.upsertByName(batch.rows, batchSize);
+      json.append(",\"inserted\":").append(result.inserted())
+        .append(",\"updated\":").append(result.updated())
+        .append(",\"unchanged\":").append(result.unchanged())
+        .append(",\"elapsedMs\":").append(result.elapsed().toMillis());
+      totals[0] += result.inserted();
+      totals[1] += result.updated();
+      totals[2] += result.unchanged();
+    } catch (RuntimeException e) {
+      log.warn("Ingest batch {} (lines {}..{}) failed", number, batch.firstLine, lastLine, e);
+      json.append(",\"error\":");
+      quote(json, NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+      written = false;
+    }
+    totals[3] += batch.rejected;
+    json.append(",\"rejected\":").append(batch.rejected).append(",\"errors\":[");
+    for (int i = 0; i < batch.errors.size(); i++) {
+      RejectedLine error = batch.errors.get(i);
+      json.append(i == 0 ? "" : ",").append("{\"line\":").append(error.line()).append(",\"message\":");
+      quote(json, error.message());
+      json.append('}');
+    }
+    out.write(json.append("]}\n").toString());
+    out.flush();
+    return written;
+  }
+
+  private static void reply(HttpExchange exchange, int status, String message) throws IOException {
+    byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static void quote(StringBuilder json, String value) {
+    if (value == null) {
+      json.append("null");
+      return;
+    }
+    json.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"' -> json.append("\\\"");
+        case '\\' -> json.append("\\\\");
+        case '\n' -> json.append("\\n");
+        case '\r' -> json.append("\\r");
+        case '\t' -> json.append("\\t");
+        default -> {
+          if (c < 0x20) {
+            json.append(String.format("\\u%04x", (int) c));
+          } else {
+            json.append(c);
+          }
+        }
+      }
+    }
+    json.append('"');
+  }
+
+  private record RejectedLine(long line, String message) {
+  }
+
+  private static final class Batch {
+    final List<WidgetUpsert> rows;
+    final List<RejectedLine> errors = new ArrayList<>();
+    long firstLine = 1;
+    long rejected;
+
+    Batch(int batchSize) {
+      rows = new ArrayList<>(batchSize);
+    }
+
+    void reject(long line, String message) {
+      rejected++;
+      if (errors.size() < ParsedChunk.MAX_ERRORS_PER_CHUNK) {
+        errors.add(new RejectedLine(line, message));
+      }
+    }
+
+    void reset(long nextLine) {
+      rows.clear();
+      errors.clear();
+      firstLine = nextLine;
+      rejected = 0;
+    }
+  }
+
+  /**
+   * Splits the body into lines in a reusable buffer. Lines longer than {@link #MAX_LINE_BYTES} are
+   * skipped and flagged as truncated instead of being buffered.
+   */
+  private static final class LineReader {
+    private final InputStream in;
+    private final byte[] buffer = new byte[64 * 1024];
+    private int position;
+    private int limit;
+    private byte[] line = new byte[256];
+    private int length;
+    private boolean truncated;
+
+    LineReader(InputStream in) {
+      this.in = in;
+    }
+
+    /**
+     * @return false at the end of the body
+     */
+    boolean next() throws IOException {
+      length = 0;
+      truncated = false;
+      boolean read = false;
+      while (true) {
+        if (position == limit) {
+          limit = Math.max(0, in.read(buffer));
+          position = 0;
+          if (limit == 0) {
+            return read;
+          }
+        }
+        read = true;
+        int start = position;
+        while (position < limit && buffer[position] != '\n') {
+          position++;
+        }
+        append(start, position - start);
+        if (position < limit) {
+          position++;
+          if (length > 0 && line[length - 1] == '\r') {
+            length--;
+          }
+          return true;
+        }
+      }
+    }
+
+    private void append(int from, int count) {
+      if (truncated || length + count > MAX_LINE_BYTES) {
+        truncated = true;
+        return;
+      }
+      if (line.length < length + count) {
+        line = Arrays.copyOf(line, Math.max(length + count, line.length * 2));
+      }
+      System.arraycopy(buffer, from, line, length, count);
+      length += count;
+    }
+
+    byte[] line() {
+      return line;
+    }
+
+    int length() {
+      return length;
+    }
+
+    boolean truncated() {
+      return truncated;
+    }
+  }
+}
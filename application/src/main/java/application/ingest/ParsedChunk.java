@@ -0,0 +1,60 @@
+package application.ingest;
+
+import application.repo.WidgetUpsert;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reusable buffer carrying one parsed chunk from a parser to a writer. A fixed set of these
+ * circulates between the two stages, which bounds memory and blocks parsers that run ahead.
+ */
+final class ParsedChunk {
+
+  static final int MAX_ERRORS_PER_CHUNK = 100;
+
+  private final ArrayList<WidgetUpsert> rows = new ArrayList<>();
+  private final List<ImportError> errors = new ArrayList<>();
+  private int index;
+  private long bytes;
+  private long rejected;
+
+  void reset(FileChunk chunk) {
+    rows.clear();
+    errors.clear();
+    index = chunk.index();
+    bytes = chunk.end() - chunk.start();
+    rejected = 0;
+  }
+
+  void add(WidgetUpsert row) {
+    rows.add(row);
+  }
+
+  void reject(long offset, String message) {
+    rejected++;
+    if (errors.size() < MAX_ERRORS_PER_CHUNK) {
+      errors.add(new ImportError(index, offset, message));
+    }
+  }
+
+  int index() {
+    return index;
+  }
+
+  long bytes() {
+    return bytes;
+  }
+
+  long rejected() {
+    return rejected;
+  }
+
+  List<WidgetUpsert> rows() {
+    return rows;
+  }
+
+  List<ImportError> errors() {
+    return errors;
+  }
+}
@@ -0,0 +1,19 @@
+package application.ingest;
+
+import java.time.Duration;
+
+/**
+ * Work done by one pipeline stage.
+ *
+ * @param busy time the stage's threads spent working, summed over threads; excludes queue waits
+ */
+public record StageStats(String stage, long rows, long bytes, Duration busy) {
+
+  public double rowsPerSecond(Duration elapsed) {
+    return rows / Math.max(1e-9, elapsed.toNanos() / 1e9);
+  }
+
+  public double megabytesPerSecond(Duration elapsed) {
+    return bytes / (1024.0 * 1024.0) / Math.max(1e-9, elapsed.toNanos() / 1e9);
+  }
+}
@@ -0,0 +1,258 @@
+package application.ingest;
+
+import application.audit.AuditContext;
+import application.audit.AuditContextExecutorService;
+import application.repo.UpsertResult;
+import application.repo.WidgetRepository;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Imports large CSV or NDJSON widget feeds.
+ *
+ * The file is split on line boundaries into chunks, which parser threads map and parse into a
+ * fixed pool of reusable {@link ParsedChunk} buffers. Parsed chunks go through a bounded queue to
+ * writer threads, each upserting on its own connection with
+ * {@link WidgetRepository#upsertByName}; when the writers fall behind, parsers block waiting for
+ * a free buffer. Writers run with the caller's {@link AuditContext} user, so the audit trail
+ * attributes imported rows to whoever started the import.
+ *
+ * Bad lines are rejected and reported without stopping the chunk. A chunk that fails as a whole
+ * is reported and left out of the checkpoint, so running the import again retries just the
+ * failed and unfinished chunks. If the same name occurs in several chunks, the order in which
+ * those chunks are applied is unspecified.
+ */
+@Component
+public class WidgetImporter {
+
+  private static final ParsedChunk END_OF_INPUT = new ParsedChunk();
+
+  private final WidgetRepository widgetRepository;
+
+  public WidgetImporter(WidgetRepository widgetRepository) {
+    this.widgetRepository = widgetRepository;
+  }
+
+  public ImportReport importFile(Path file) throws IOException {
+    return importFile(file, ImportFormat.fromFileName(file), ImportSettings.defaults());
+  }
+
+  /**
+   * Import a file, resuming from its checkpoint ({@code <file>.checkpoint}) if an earlier run with
+   * the same settings was interrupted. The checkpoint is removed once every chunk has been written.
+   */
+  public ImportReport importFile(Path file, ImportFormat format, ImportSettings settings) throws IOException {
+    long started = System.nanoTime();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      long dataStart = 0;
+      Supplier<ChunkParser> parsers = NdjsonChunkParser::new;
+      if (format == ImportFormat.CSV) {
+        dataStart = FileChunker.nextLineStart(channel, 0, size);
+        byte[] header = new byte[(int) dataStart];
+        channel.read(ByteBuffer.wrap(header), 0);
+        // Fail on a bad header here rather than once per parser thread
+        CsvChunkParser.forHeader(header);
+        parsers = () -> CsvChunkParser.forHeader(header);
+      }
+      List<FileChunk> chunks = FileChunker.split(channel, dataStart, size, settings.chunkBytes());
+      Duration splitTime = Duration.ofNanos(System.nanoTime() - started);
+
+      Path checkpointFile = file.resolveSibling(file.getFileName() + ".checkpoint");
+      try (ImportCheckpoint checkpoint = ImportCheckpoint.open(checkpointFile,
+        ImportCheckpoint.fingerprint(file, size, settings.chunkBytes()))) {
+        List<FileChunk> pending = chunks.stream().filter(chunk -> !checkpoint.isDone(chunk.index())).toList();
+        Pipeline pipeline = new Pipeline(channel, pending, parsers, checkpoint, settings);
+        pipeline.run();
+
+        List<ImportError> errors = new ArrayList<>(pipeline.errors);
+        errors.sort(Comparator.comparingInt(ImportError::chunkIndex).thenComparingLong(ImportError::offset));
+        ImportReport report = new ImportReport(chunks.size(), chunks.size() - pending.size(),
+          pipeline.rejected.sum(), pipeline.inserted.sum(), pipeline.updated.sum(), pipeline.unchanged.sum(),
+          List.of(
+            new StageStats("split", 0, size - dataStart, splitTime),
+            new StageStats("parse", pipeline.parsedRows.sum(), pipeline.parsedBytes.sum(),
+              Duration.ofNanos(pipeline.parseNanos.sum())),
+            new StageStats("write", pipeline.writtenRows.sum(), pipeline.writtenBytes.sum(),
+              Duration.ofNanos(pipeline.writeNanos.sum()))),
+          List.copyOf(errors), Duration.ofNanos(System.nanoTime() - started));
+        if (report.complete()) {
+          checkpoint.delete();
+        }
+        return report;
+      }
+    }
+  }
+
+  /**
+   * State of one run of the parse and write stages.
+   */
+  private final class Pipeline {
+    private final FileChannel channel;
+    private final List<FileChunk> pending;
+    private final Supplier<ChunkParser> parsers;
+    private final ImportCheckpoint checkpoint;
+    private final ImportSettings settings;
+    private final BlockingQueue<ParsedChunk> free;
+    private final BlockingQueue<ParsedChunk> parsed;
+    private final AtomicInteger nextChunk = new AtomicInteger();
+    private final List<ImportError> errors = Collections.synchronizedList(new ArrayList<>());
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder parsedRows = new LongAdder();
+    private final LongAdder parsedBytes = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder writtenRows = new LongAdder();
+    private final LongAdder writtenBytes = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final LongAdder inserted = new LongAdder();
+    private final LongAdder updated = new LongAdder();
+    private final LongAdder unchanged = new LongAdder();
+
+    Pipeline(FileChannel channel, List<FileChunk> pending, Supplier<ChunkParser> parsers,
+             ImportCheckpoint checkpoint, ImportSettings settings) {
+      this.channel = channel;
+      this.pending = pending;
+      this.parsers = parsers;
+      this.checkpoint = checkpoint;
+      this.settings = settings;
+      int buffers = settings.queueCapacity() + settings.parserThreads() + settings.writerThreads();
+      this.free = new ArrayBlockingQueue<>(buffers);
+      for (int i = 0; i < buffers; i++) {
+        free.add(new ParsedChunk());
+      }
+      this.parsed = new ArrayBlockingQueue<>(settings.queueCapacity());
+    }
+
+    void run() {
+      ExecutorService parserPool = Executors.newFixedThreadPool(settings.parserThreads(), threads("import-parser-"));
+      ExecutorService writerPool = new AuditContextExecutorService(
+        Executors.newFixedThreadPool(settings.writerThreads(), threads("import-writer-")));
+      try {
+        List<Future<?>> writers = new ArrayList<>();
+        for (int i = 0; i < settings.writerThreads(); i++) {
+          writers.add(writerPool.submit(this::write));
+        }
+        List<Future<?>> parserTasks = new ArrayList<>();
+        for (int i = 0; i < settings.parserThreads(); i++) {
+          parserTasks.add(parserPool.submit(this::parse));
+        }
+        awaitAll(parserTasks);
+        for (int i = 0; i < settings.writerThreads(); i++) {
+          put(parsed, END_OF_INPUT);
+        }
+        awaitAll(writers);
+      } finally {
+        parserPool.shutdownNow();
+        writerPool.shutdownNow();
+      }
+    }
+
+    private void parse() {
+      ChunkParser parser = parsers.get();
+      for (int i = nextChunk.getAndIncrement(); i < pending.size(); i = nextChunk.getAndIncrement()) {
+        FileChunk chunk = pending.get(i);
+        ParsedChunk buffer = take(free);
+        long begin = System.nanoTime();
+        buffer.reset(chunk);
+        try {
+          MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start(), chunk.length());
+          parser.parse(mapped, chunk.start(), buffer);
+        } catch (IOException | RuntimeException e) {
+          errors.add(new ImportError(chunk.index(), -1, "Parse failed: " + e.getMessage()));
+          put(free, buffer);
+          continue;
+        } finally {
+          parseNanos.add(System.nanoTime() - begin);
+        }
+        parsedRows.add(buffer.rows().size());
+        parsedBytes.add(buffer.bytes());
+        put(parsed, buffer);
+      }
+    }
+
+    private void write() {
+      for (ParsedChunk buffer = take(parsed); buffer != END_OF_INPUT; buffer = take(parsed)) {
+        long begin = System.nanoTime();
+        try {
+          errors.addAll(buffer.errors());
+          rejected.add(buffer.rejected());
+          if (!buffer.rows().isEmpty()) {
+            UpsertResult result = widgetRepository.upsertByName(buffer.rows(), settings.writeBatchSize());
+            inserted.add(result.inserted());
+            updated.add(result.updated());
+            unchanged.add(result.unchanged());
+          }
+          checkpoint.markDone(buffer.index());
+          writtenRows.add(buffer.rows().size());
+          writtenBytes.add(buffer.bytes());
+        } catch (IOException | RuntimeException e) {
+          errors.add(new ImportError(buffer.index(), -1, "Write failed: " + e.getMessage()));
+        } finally {
+          writeNanos.add(System.nanoTime() - begin);
+          put(free, buffer);
+        }
+      }
+    }
+  }
+
+  private static void awaitAll(List<Future<?>> futures) {
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while importing", e);
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Import stage failed", e.getCause());
+      }
+    }
+  }
+
+  private static ParsedChunk take(BlockingQueue<ParsedChunk> queue) {
+    try {
+      return queue.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while importing", e);
+    }
+  }
+
+  private static void put(BlockingQueue<ParsedChunk> queue, ParsedChunk chunk) {
+    try {
+      queue.put(chunk);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while importing", e);
+    }
+  }
+
+  private static ThreadFactory threads(String prefix) {
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
@@ -0,0 +1,85 @@
+package application.ingest;
+
+import application.concurrent.UserThreads;
+import application.repo.WidgetRepository;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Minimal HTTP endpoint through which upstream systems push widget changes, built on the JDK's
+ * built-in server so the application gains no web stack. Every request runs on its own virtual
+ * thread (platform threads before Java 21) and streams through {@link NdjsonIngestHandler}, so
+ * throughput comes from batched upserts per request and from many concurrent requests.
+ */
+public class WidgetIngestServer {
+
+  public static final String PATH = "/widgets";
+  public static final int DEFAULT_BATCH_SIZE = 1_000;
+
+  private static final int BACKLOG = 256;
+  private static final int STOP_GRACE_SECONDS = 5;
+
+  private final InetSocketAddress address;
+  private final NdjsonIngestHandler handler;
+  private HttpServer server;
+  private ExecutorService executor;
+
+  /**
+   * @param tokens    comma-separated username:token pairs; requests are audited as the token's user
+   * @param batchSize lines per upsert batch and per result line
+   */
+  public WidgetIngestServer(WidgetRepository widgetRepository, InetSocketAddress address, String tokens,
+                            int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+    }
+    this.address = address;
+    this.handler = new NdjsonIngestHandler(widgetRepository, BearerTokens.parse(tokens), batchSize);
+  }
+
+  public synchronized void start() {
+    if (server != null) {
+      return;
+    }
+    try {
+      server = HttpServer.create(address, BACKLOG);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not listen on " + address, e);
+    }
+    executor = UserThreads.newExecutor("widget-ingest");
+    server.createContext(PATH, handler);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  /**
+   * Stop accepting requests and give those in flight a few seconds to finish.
+   */
+  public synchronized void stop() {
+    if (server == null) {
+      return;
+    }
+    server.stop(STOP_GRACE_SECONDS);
+    executor.shutdownNow();
+    server = null;
+    executor = null;
+  }
+
+  public synchronized boolean isRunning() {
+    return server != null;
+  }
+
+  /**
+   * The bound port, useful when listening on port 0.
+   */
+  public synchronized int port() {
+    if (server == null) {
+      throw new IllegalStateException("Ingest server is not running");
+    }
+    return server.getAddress().getPort();
+  }
+}
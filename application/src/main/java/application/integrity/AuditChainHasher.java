@@ -0,0 +1,73 @@
+package application.integrity;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Java twin of the widgets_audit_hash_chain() trigger: builds the same canonical text of an audit
+ * row and hashes it with the previous link. Timestamps enter as epoch microseconds so the result
+ * does not depend on session time zones; the name is length-prefixed (in code points, as
+ * PostgreSQL's length() counts) so no separator inside it can shift the fields. The quantity and
+ * price before an update are appended only when either is set, so rows without them keep the
+ * canonical form they were first hashed with.
+ *
+ * Not thread-safe; use one instance per thread.
+ */
+public final class AuditChainHasher {
+
+  private static final byte[] NO_PREVIOUS = new byte[0];
+
+  private final MessageDigest sha256;
+  private final StringBuilder canonical = new StringBuilder(128);
+
+  public AuditChainHasher() {
+    try {
+      this.sha256 = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is required by every Java platform", e);
+    }
+  }
+
+  public byte[] hash(byte[] prevHash, long auditId, Long widgetId, char operation, String name,
+                     Long createdAtMicros, Integer quantity, BigDecimal price, long changedAtMicros,
+                     Integer changedById, Integer oldQuantity, BigDecimal oldPrice) {
+    String text = canonical(auditId, widgetId, operation, name, createdAtMicros, quantity, price,
+      changedAtMicros, changedById, oldQuantity, oldPrice);
+    sha256.reset();
+    sha256.update(prevHash == null ? NO_PREVIOUS : prevHash);
+    sha256.update(text.getBytes(StandardCharsets.UTF_8));
+    return sha256.digest();
+  }
+
+  String canonical(long auditId, Long widgetId, char operation, String name, Long createdAtMicros,
+                   Integer quantity, BigDecimal price, long changedAtMicros, Integer changedById,
+                   Integer oldQuantity, BigDecimal oldPrice) {
+    canonical.setLength(0);
+    canonical.append(auditId).append('|');
+    appendOrDash(widgetId).append('|');
+    canonical.append(operation).append('|');
+    if (name == null) {
+      canonical.append('-');
+    } else {
+      canonical.append(name.codePointCount(0, name.length())).append(':').append(name);
+    }
+    canonical.append('|');
+    appendOrDash(createdAtMicros).append('|');
+    appendOrDash(quantity).append('|');
+    appendOrDash(price == null ? null : price.toPlainString()).append('|');
+    canonical.append(changedAtMicros).append('|');
+    appendOrDash(changedById);
+    if (oldQuantity != null || oldPrice != null) {
+      canonical.append('|');
+      appendOrDash(oldQuantity).append('|');
+      appendOrDash(oldPrice == null ? null : oldPrice.toPlainString());
+    }
+    return canonical.toString();
+  }
+
+  private StringBuilder appendOrDash(Object value) {
+    return value == null ? canonical.append('-') : canonical.append(value);
+  }
+}
@@ -0,0 +1,550 @@
+package application.integrity;
+
+import application.archive.ArchiveSegment;
+import application.archive.AuditArchive;
+import application.archive.AuditSegmentFile;
+import application.model.AuditOperation;
+import application.repo.AuditRow;
+import application.repo.WidgetAuditReader;
+import application.repo.WidgetColumnBatch;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Verifies the per-widget hash chains of widgets_audit in parallel.
+ *
+ * The audit_id range is split fork-join style into chunks. Each leaf streams its chunk through a
+ * server-side cursor, recomputes every row hash and checks links between rows of the same chunk.
+ * A widget's first row in a chunk cannot be linked locally, so the leaf returns it as a "head",
+ * together with the widget's last hash as a "tail". Joining two adjacent results checks the right
+ * side's heads against the left side's tails. The work per row is constant and the stitching is
+ * proportional to widgets per chunk, so verification time scales with the number of workers until
+ * the database's I/O saturates.
+ *
+ * With an {@link AuditArchive} (app.audit.archive.enabled=true), {@link #verifyAll()} covers the
+ * archived history too: archive segments are verified as ranges of their own, ahead of the live
+ * table, so a widget's first live row links to its last archived row instead of counting as an
+ * widget. Archived and live rows whose audit_id ranges overlap, such as the rows an interrupted
+ * archival run left in both tiers, are merged into one range and checked once.
+ *
+ * Every worker holds a connection while it scans, so parallelism is capped at the Hikari pool size
+ * minus one, leaving a connection for the rest of the application. Memory is bounded by the widgets
+ * in flight rather than by rows: a range result keeps at most one head and one tail per distinct
+ * widget it saw, heads resolved while stitching are dropped and the right-hand result is cleared
+ * once merged. Each worker holds at most one result per level of the split, so the peak is about
+ * parallelism * log2(chunks) results, and the final result keeps one head and tail per widget in the
+ * range, roughly 200 bytes each.
+ *
+ * The chain is unkeyed, so it can't tell a chain recomputed after an edit, or one whose newest rows
+ * were deleted, from an untouched one. With a {@link ChainCheckpointStore}
+ * (app.audit.chain.checkpoint.directory and .key), every intact {@link #verifyAll()} records each
+ * widget's head and tail in a signed checkpoint outside the database, and later verifications check
+ * the rows it recorded in their range: a recorded tail must still exist with the same row_hash and a
+ * chain must not start after its recorded head. Rows older than app.audit.chain.checkpoint.purge-horizon
+ * (the retention period by default) may be gone. Rewrites of rows newer than the latest checkpoint
+ * are only caught by the next one.
+ */
+@Component
+public class AuditChainVerifier {
+
+  public static final int MAX_REPORTED_VIOLATIONS = 100;
+  public static final long DEFAULT_CHUNK_SIZE = 1_000_000;
+
+  private static final int FETCH_SIZE = 10_000;
+
+  private static final String SELECT_CHUNK =
+    "SELECT audit_id, widget_id, operation::TEXT, name, "
+      + "(extract(epoch FROM created_at) * 1000000)::BIGINT, quantity, price, "
+      + "(extract(epoch FROM changed_at) * 1000000)::BIGINT, changed_by_id, prev_hash, row_hash, "
+      + "old_quantity, old_price FROM public.widgets_audit WHERE audit_id BETWEEN ? AND ? ORDER BY audit_id";
+
+  private final DataSource dataSource;
+  private final AuditArchive archive;
+  private final ChainCheckpointStore checkpoints;
+  private final Duration purgeHorizon;
+  private final int parallelism;
+  private final long chunkSize;
+
+  @Autowired
+  public AuditChainVerifier(DataSource dataSource, ObjectProvider<AuditArchive> archive,
+                            ObjectProvider<ChainCheckpointStore> checkpoints,
+                            @Value("${app.audit.chain.checkpoint.purge-horizon:${app.audit.retention.retention:P365D}}")
+                            Duration purgeHorizon,
+                            @Value("${app.audit.chain.parallelism:0}") int parallelism,
+                            @Value("${app.audit.chain.chunk-size:" + DEFAULT_CHUNK_SIZE + "}") long chunkSize) {
+    this(dataSource, archive.getIfAvailable(), checkpoints.getIfAvailable(), purgeHorizon, parallelism, chunkSize);
+  }
+
+  public AuditChainVerifier(DataSource dataSource, int parallelism, long chunkSize) {
+    this(dataSource, (AuditArchive) null, parallelism, chunkSize);
+  }
+
+  /**
+   * @param archive     archived history to verify along with the live table; null for the live table alone
+   * @param parallelism workers, or 0 for one per core; either way at most the connection pool size minus one
+   */
+  public AuditChainVerifier(DataSource dataSource, AuditArchive archive, int parallelism, long chunkSize) {
+    this(dataSource, archive, null, Duration.ZERO, parallelism, chunkSize);
+  }
+
+  /**
+   * @param checkpoints  signed checkpoints to check against and record; null for none
+   * @param purgeHorizon age after which rows a checkpoint recorded may have been purged
+   */
+  public AuditChainVerifier(DataSource dataSource, AuditArchive archive, ChainCheckpointStore checkpoints,
+                            Duration purgeHorizon, int parallelism, long chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+    this.dataSource = dataSource;
+    this.archive = archive;
+    this.checkpoints = checkpoints;
+    this.purgeHorizon = purgeHorizon;
+    this.parallelism = Math.min(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+      maxParallelism(dataSource));
+    this.chunkSize = chunkSize;
+  }
+
+  private static int maxParallelism(DataSource dataSource) {
+    if (dataSource instanceof HikariDataSource hikari) {
+      return Math.max(1, hikari.getMaximumPoolSize() - 1);
+    }
+    return Integer.MAX_VALUE;
+  }
+
+  /**
+   * Verify the whole live table and, when there is an archive, every archived row. If the chains
+   * are intact and there is a checkpoint store, record a new checkpoint.
+   */
+  public ChainVerificationResult verifyAll() {
+    long[] bounds = new long[2];
+    try (Connection connection = dataSource.getConnection();
+         PreparedStatement statement = connection.prepareStatement(
+           "SELECT coalesce(min(audit_id), 1), coalesce(max(audit_id), 0) FROM public.widgets_audit");
+         ResultSet rs = statement.executeQuery()) {
+      rs.next();
+      bounds[0] = rs.getLong(1);
+      bounds[1] = rs.getLong(2);
+    } catch (SQLException e) {
+      throw new IllegalStateException("Could not read the audit_id range", e);
+    }
+    if (archive != null) {
+      for (ArchiveSegment segment : archive.segments()) {
+        bounds[0] = Math.min(bounds[0], segment.minAuditId());
+        bounds[1] = Math.max(bounds[1], segment.maxAuditId());
+      }
+    }
+    return verify(bounds[0], bounds[1], true);
+  }
+
+  /**
+   * Verify every row with fromAuditId &lt;= audit_id &lt;= toAuditId, archived or live. The first row of
+   * each widget in the range counts as an widget.
+   */
+  public ChainVerificationResult verify(long fromAuditId, long toAuditId) {
+    return verify(fromAuditId, toAuditId, false);
+  }
+
+  private ChainVerificationResult verify(long fromAuditId, long toAuditId, boolean recordCheckpoint) {
+    long started = System.nanoTime();
+    ChainCheckpoint checkpoint = checkpoints == null ? null : checkpoints.latest().orElse(null);
+    List<ArchiveSegment> segments = archive == null ? List.of() : archive.segments().stream()
+      .filter(segment -> segment.maxAuditId() >= fromAuditId && segment.minAuditId() <= toAuditId)
+      .toList();
+    RecursiveTask<Segment> task;
+    if (toAuditId < fromAuditId) {
+      task = new VerifyInOrder(List.of());
+    } else if (segments.isEmpty()) {
+      task = new VerifyRange(fromAuditId, toAuditId);
+    } else {
+      long archivedTo = Math.min(toAuditId, segments.stream().mapToLong(ArchiveSegment::maxAuditId).max().getAsLong());
+      List<RecursiveTask<Segment>> parts = archivedParts(segments, fromAuditId, archivedTo);
+      if (toAuditId > archivedTo) {
+        parts.add(new VerifyRange(archivedTo + 1, toAuditId));
+      }
+      task = new VerifyInOrder(parts);
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      Segment result = pool.invoke(task);
+      if (checkpoint != null) {
+        checkAnchors(checkpoint, result, fromAuditId, toAuditId);
+      }
+      if (recordCheckpoint && checkpoints != null && result.violationCount == 0) {
+        checkpoints.write(result.checkpoint(toAuditId));
+      }
+      long unlinked = result.heads.values().stream().filter(head -> head.prevHash() != null).count();
+      return new ChainVerificationResult(result.rows, result.heads.size(), unlinked, result.unhashed,
+        result.violationCount, List.copyOf(result.violations), parallelism,
+        Duration.ofNanos(System.nanoTime() - started));
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Check the heads and tails the checkpoint recorded in [from, to] against the verified result.
+   */
+  private void checkAnchors(ChainCheckpoint checkpoint, Segment result, long from, long to) {
+    long horizon = WidgetColumnBatch.toEpochMicros(OffsetDateTime.now().minus(purgeHorizon));
+    Map<Long, byte[]> rowHashes = rowHashes(checkpoint.widgets().stream()
+      .map(ChainCheckpoint.WidgetChain::tailAuditId)
+      .filter(auditId -> auditId >= from && auditId <= to)
+      .toList());
+    for (ChainCheckpoint.WidgetChain widget : checkpoint.widgets()) {
+      if (widget.tailAuditId() >= from && widget.tailAuditId() <= to) {
+        byte[] rowHash = rowHashes.get(widget.tailAuditId());
+        if (rowHash == null ? widget.tailChangedAtMicros() >= horizon : !Arrays.equals(rowHash, widget.tailHash())) {
+          result.report(
+            new ChainViolation(widget.tailAuditId(), widget.widgetId(), ChainViolation.CHECKPOINT_MISMATCH));
+        }
+      }
+      Head head = result.heads.get(widget.widgetId());
+      if (head != null && head.auditId() > widget.headAuditId() && widget.headAuditId() >= from
+        && widget.headChangedAtMicros() >= horizon) {
+        result.report(new ChainViolation(widget.headAuditId(), widget.widgetId(), ChainViolation.TRUNCATED));
+      }
+    }
+  }
+
+  /**
+   * The row_hash of each of the rows that still exists, live or archived. Archival appends before
+   * it deletes, so a row missing from the live table by the time it's read here is in the archive.
+   */
+  private Map<Long, byte[]> rowHashes(List<Long> auditIds) {
+    Map<Long, byte[]> rowHashes = new HashMap<>();
+    try (Connection connection = dataSource.getConnection();
+         PreparedStatement statement = connection.prepareStatement(
+           "SELECT audit_id, row_hash FROM public.widgets_audit WHERE audit_id = ANY(?)")) {
+      for (int i = 0; i < auditIds.size(); i += FETCH_SIZE) {
+        List<Long> batch = auditIds.subList(i, Math.min(auditIds.size(), i + FETCH_SIZE));
+        statement.setArray(1, connection.createArrayOf("int8", batch.toArray()));
+        try (ResultSet rs = statement.executeQuery()) {
+          while (rs.next()) {
+            rowHashes.put(rs.getLong(1), rs.getBytes(2));
+          }
+        }
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("Could not read checkpointed audit rows", e);
+    }
+    if (archive != null && rowHashes.size() < auditIds.size()) {
+      Set<Long> missing = new HashSet<>(auditIds);
+      missing.removeAll(rowHashes.keySet());
+      archive.scan(segment -> missing.stream()
+          .anyMatch(auditId -> auditId >= segment.minAuditId() && auditId <= segment.maxAuditId()),
+        row -> missing.contains(row.auditId()),
+        row -> rowHashes.put(row.auditId(), row.rowHash()));
+    }
+    return rowHashes;
+  }
+
+  /**
+   * One task per archived audit_id range within [from, to], in order. Segments whose ranges overlap
+   * each other, and live rows that fall inside an archived range, are merged into one range.
+   */
+  private List<RecursiveTask<Segment>> archivedParts(List<ArchiveSegment> segments, long from, long to) {
+    // Normally only rows an interrupted archival run did not delete, so few enough to hold
+    List<AuditRow> live = new JdbcTemplate(dataSource).query(
+      WidgetAuditReader.SELECT_AUDIT_ROWS + "WHERE a.audit_id BETWEEN ? AND ? ORDER BY a.audit_id",
+      WidgetAuditReader.AUDIT_ROW_MAPPER, from, to);
+
+    List<ArchivedRange> ranges = new ArrayList<>();
+    List<ArchiveSegment> sorted = new ArrayList<>(segments);
+    sorted.sort(Comparator.comparingLong(ArchiveSegment::minAuditId));
+    for (ArchiveSegment segment : sorted) {
+      ArchivedRange last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+      if (last != null && segment.minAuditId() <= last.last) {
+        last.segments.add(segment);
+        last.last = Math.max(last.last, segment.maxAuditId());
+      } else {
+        ranges.add(new ArchivedRange(from, to, segment));
+      }
+    }
+    // Live rows between archived ranges form ranges of their own, in audit_id order
+    List<RecursiveTask<Segment>> parts = new ArrayList<>();
+    ArchivedRange gap = null;
+    int next = 0;
+    for (AuditRow row : live) {
+      while (next < ranges.size() && ranges.get(next).last < row.auditId()) {
+        parts.add(ranges.get(next++));
+        gap = null;
+      }
+      if (next < ranges.size() && ranges.get(next).first <= row.auditId()) {
+        ranges.get(next).live.add(row);
+      } else {
+        if (gap == null) {
+          gap = new ArchivedRange(from, to, null);
+          parts.add(gap);
+        }
+        gap.live.add(row);
+      }
+    }
+    parts.addAll(ranges.subList(next, ranges.size()));
+    return parts;
+  }
+
+  /**
+   * Runs its parts in parallel and stitches their results in list order.
+   */
+  private static final class VerifyInOrder extends RecursiveTask<Segment> {
+    private final List<RecursiveTask<Segment>> parts;
+
+    VerifyInOrder(List<RecursiveTask<Segment>> parts) {
+      this.parts = parts;
+    }
+
+    @Override
+    protected Segment compute() {
+      invokeAll(parts);
+      Segment result = new Segment();
+      for (RecursiveTask<Segment> part : parts) {
+        result = result.stitch(part.join());
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Archive segments with overlapping audit_id ranges plus the live rows inside them, checked as one
+   * range. A row present in both tiers is checked once, from its live copy. Without a segment it
+   * holds live rows that fall between archived ranges.
+   */
+  private static final class ArchivedRange extends RecursiveTask<Segment> {
+    final List<ArchiveSegment> segments = new ArrayList<>();
+    final List<AuditRow> live = new ArrayList<>();
+    /** Rows outside the verified range are skipped. */
+    private final long from;
+    private final long to;
+    long first;
+    long last;
+
+    ArchivedRange(long from, long to, ArchiveSegment segment) {
+      this.from = from;
+      this.to = to;
+      if (segment != null) {
+        segments.add(segment);
+        first = segment.minAuditId();
+        last = segment.maxAuditId();
+      }
+    }
+
+    @Override
+    protected Segment compute() {
+      List<AuditRow> rows = new ArrayList<>(live);
+      for (ArchiveSegment segment : segments) {
+        for (AuditRow row : AuditSegmentFile.read(segment.file())) {
+          if (row.auditId() >= from && row.auditId() <= to) {
+            rows.add(row);
+          }
+        }
+      }
+      // Stable, so the live copy of a duplicated row stays first
+      rows.sort(Comparator.comparingLong(AuditRow::auditId));
+      Segment result = new Segment();
+      AuditChainHasher hasher = new AuditChainHasher();
+      long previous = Long.MIN_VALUE;
+      for (AuditRow row : rows) {
+        if (row.auditId() != previous) {
+          result.accept(hasher, row);
+          previous = row.auditId();
+        }
+      }
+      return result;
+    }
+  }
+
+  private final class VerifyRange extends RecursiveTask<Segment> {
+    private final long from;
+    private final long to;
+
+    VerifyRange(long from, long to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected Segment compute() {
+      if (to - from < chunkSize) {
+        return scan(from, to);
+      }
+      long middle = from + (to - from) / 2;
+      VerifyRange left = new VerifyRange(from, middle);
+      left.fork();
+      Segment right = new VerifyRange(middle + 1, to).compute();
+      return left.join().stitch(right);
+    }
+  }
+
+  private Segment scan(long from, long to) {
+    Segment segment = new Segment();
+    AuditChainHasher hasher = new AuditChainHasher();
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(false);
+      connection.setReadOnly(true);
+      try (PreparedStatement statement = connection.prepareStatement(SELECT_CHUNK)) {
+        statement.setFetchSize(FETCH_SIZE);
+        statement.setLong(1, from);
+        statement.setLong(2, to);
+        try (ResultSet rs = statement.executeQuery()) {
+          while (rs.next()) {
+            segment.accept(hasher, rs);
+          }
+        }
+      } finally {
+        connection.rollback();
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("Could not read audit rows " + from + ".." + to, e);
+    }
+    return segment;
+  }
+
+  /**
+   * Verification state of one contiguous audit_id range.
+   */
+  private static final class Segment {
+    long rows;
+    long unhashed;
+    long violationCount;
+    final List<ChainViolation> violations = new ArrayList<>();
+    /** First hashed row of each widget in the range: its link must match the tail of an earlier range. */
+    final Map<Long, Head> heads = new HashMap<>();
+    /** Last row of each widget in the range. */
+    final Map<Long, Tail> tails = new HashMap<>();
+
+    void accept(AuditChainHasher hasher, ResultSet rs) throws SQLException {
+      rows++;
+      long auditId = rs.getLong(1);
+      long widget = rs.getLong(2);
+      Long widgetId = rs.wasNull() ? null : widget;
+      byte[] prevHash = rs.getBytes(10);
+      byte[] rowHash = rs.getBytes(11);
+      if (rowHash == null) {
+        unhashed++;
+        return;
+      }
+
+      long createdAt = rs.getLong(5);
+      Long createdAtMicros = rs.wasNull() ? null : createdAt;
+      int quantity = rs.getInt(6);
+      Integer boxedQuantity = rs.wasNull() ? null : quantity;
+      BigDecimal price = rs.getBigDecimal(7);
+      long changedAtMicros = rs.getLong(8);
+      int changedBy = rs.getInt(9);
+      Integer changedById = rs.wasNull() ? null : changedBy;
+      int oldQuantity = rs.getInt(12);
+      Integer boxedOldQuantity = rs.wasNull() ? null : oldQuantity;
+      BigDecimal oldPrice = rs.getBigDecimal(13);
+
+      byte[] expected = hasher.hash(prevHash, auditId, widgetId, rs.getString(3).charAt(0), rs.getString(4),
+        createdAtMicros, boxedQuantity, price, changedAtMicros, changedById, boxedOldQuantity, oldPrice);
+      check(auditId, widgetId, changedAtMicros, prevHash, rowHash, expected);
+    }
+
+    void accept(AuditChainHasher hasher, AuditRow row) {
+      rows++;
+      if (row.rowHash() == null) {
+        unhashed++;
+        return;
+      }
+      long changedAtMicros = WidgetColumnBatch.toEpochMicros(row.changedAt());
+      byte[] expected = hasher.hash(row.prevHash(), row.auditId(), row.widgetId(),
+        AuditOperation.valueOf(row.operation()).getCode(), row.name(),
+        row.createdAt() == null ? null : WidgetColumnBatch.toEpochMicros(row.createdAt()),
+        row.quantity(), row.price(), changedAtMicros, row.changedById(), row.oldQuantity(), row.oldPrice());
+      check(row.auditId(), row.widgetId(), changedAtMicros, row.prevHash(), row.rowHash(), expected);
+    }
+
+    private void check(long auditId, Long widgetId, long changedAtMicros, byte[] prevHash, byte[] rowHash,
+                       byte[] expected) {
+      if (!Arrays.equals(expected, rowHash)) {
+        report(new ChainViolation(auditId, widgetId, ChainViolation.CONTENT_MISMATCH));
+      }
+
+      Tail previous = tails.get(widgetId);
+      if (previous == null) {
+        heads.put(widgetId, new Head(auditId, changedAtMicros, prevHash));
+      } else if (!Arrays.equals(previous.rowHash(), prevHash)) {
+        report(new ChainViolation(auditId, widgetId, ChainViolation.BROKEN_LINK));
+      }
+      tails.put(widgetId, new Tail(auditId, changedAtMicros, rowHash));
+    }
+
+    /**
+     * Join this range with the range immediately after it. Only the heads of widgets this range
+     * hasn't seen are carried over; the others are resolved here and dropped. The next range is
+     * cleared, as a finished task keeps its result reachable.
+     */
+    Segment stitch(Segment next) {
+      for (Map.Entry<Long, Head> entry : next.heads.entrySet()) {
+        Tail tail = tails.get(entry.getKey());
+        if (tail == null) {
+          heads.put(entry.getKey(), entry.getValue());
+        } else if (!Arrays.equals(tail.rowHash(), entry.getValue().prevHash())) {
+          report(new ChainViolation(entry.getValue().auditId(), entry.getKey(), ChainViolation.BROKEN_LINK));
+        }
+      }
+      tails.putAll(next.tails);
+      next.heads.clear();
+      next.tails.clear();
+      rows += next.rows;
+      unhashed += next.unhashed;
+      violationCount += next.violationCount;
+      for (ChainViolation violation : next.violations) {
+        if (violations.size() < MAX_REPORTED_VIOLATIONS) {
+          violations.add(violation);
+        }
+      }
+      return this;
+    }
+
+    ChainCheckpoint checkpoint(long throughAuditId) {
+      List<ChainCheckpoint.WidgetChain> widgets = new ArrayList<>(tails.size());
+      tails.forEach((widgetId, tail) -> {
+        Head head = heads.get(widgetId);
+        widgets.add(new ChainCheckpoint.WidgetChain(widgetId, head.auditId(), head.changedAtMicros(),
+          tail.auditId(), tail.changedAtMicros(), tail.rowHash()));
+      });
+      return new ChainCheckpoint(Instant.now(), throughAuditId, widgets);
+    }
+
+    void report(ChainViolation violation) {
+      violationCount++;
+      if (violations.size() < MAX_REPORTED_VIOLATIONS) {
+        violations.add(violation);
+      }
+    }
+  }
+
+  private record Head(long auditId, long changedAtMicros, byte[] prevHash) {
+  }
+
+  private record Tail(long auditId, long changedAtMicros, byte[] rowHash) {
+  }
+}
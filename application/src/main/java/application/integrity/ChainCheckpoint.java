@@ -0,0 +1,24 @@
+package application.integrity;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The ends of every widget's hash chain as of an intact verification, kept outside the database
+ * by {@link ChainCheckpointStore}. The chain itself is unkeyed: whoever can write widgets_audit can
+ * delete a widget's newest rows or recompute its chain after an edit, and the result verifies. Such
+ * rewrites change or remove the tail recorded here, and deleting a chain's oldest rows moves its head.
+ *
+ * @param throughAuditId the highest audit_id the verification covered
+ * @param widgets        one entry per widget with hashed rows
+ */
+public record ChainCheckpoint(Instant recordedAt, long throughAuditId, List<WidgetChain> widgets) {
+
+  /**
+   * @param headAuditId the widget's first remaining row
+   * @param tailAuditId the widget's last row, whose row_hash covers its whole chain
+   */
+  public record WidgetChain(Long widgetId, long headAuditId, long headChangedAtMicros,
+                            long tailAuditId, long tailChangedAtMicros, byte[] tailHash) {
+  }
+}
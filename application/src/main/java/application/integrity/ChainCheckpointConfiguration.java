@@ -0,0 +1,88 @@
+package application.integrity;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enables hash chain checkpoints with app.audit.chain.checkpoint.directory and
+ * app.audit.chain.checkpoint.key. Every app.audit.chain.checkpoint.interval-ms milliseconds
+ * (default daily) the whole audit history is verified and, if intact, a new checkpoint recorded.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "app.audit.chain.checkpoint", name = "directory")
+public class ChainCheckpointConfiguration {
+
+  @Bean
+  ChainCheckpointStore chainCheckpointStore(@Value("${app.audit.chain.checkpoint.directory}") Path directory,
+                                            @Value("${app.audit.chain.checkpoint.key}") String key) {
+    return new ChainCheckpointStore(directory, key.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Bean
+  SmartLifecycle chainCheckpointScheduler(AuditChainVerifier verifier,
+                                          @Value("${app.audit.chain.checkpoint.interval-ms:86400000}")
+                                          long intervalMs) {
+    return new CheckpointScheduler(verifier, intervalMs);
+  }
+
+  static final class CheckpointScheduler implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(CheckpointScheduler.class);
+
+    private final AuditChainVerifier verifier;
+    private final long intervalMs;
+    private ScheduledExecutorService scheduler;
+
+    CheckpointScheduler(AuditChainVerifier verifier, long intervalMs) {
+      this.verifier = verifier;
+      this.intervalMs = intervalMs;
+    }
+
+    @Override
+    public void start() {
+      scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "audit-chain-checkpoint");
+        thread.setDaemon(true);
+        return thread;
+      });
+      scheduler.scheduleWithFixedDelay(this::verify, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void verify() {
+      try {
+        ChainVerificationResult result = verifier.verifyAll();
+        if (result.intact()) {
+          log.info("Audit hash chains intact over {} rows; checkpoint recorded", result.rowsVerified());
+        } else {
+          log.error("Audit hash chains broken: {} violations, first {}; no checkpoint recorded",
+            result.violationCount(), result.violations());
+        }
+      } catch (RuntimeException e) {
+        log.warn("Audit chain verification failed; will retry", e);
+      }
+    }
+
+    @Override
+    public void stop() {
+      if (scheduler != null) {
+        scheduler.shutdownNow();
+        scheduler = null;
+      }
+    }
+
+    @Override
+    public boolean isRunning() {
+      return scheduler != null;
+    }
+  }
+}
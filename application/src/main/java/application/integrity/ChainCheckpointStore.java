@@ -0,0 +1,163 @@
+package application.integrity;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Keeps {@link ChainCheckpoint}s as files signed with HMAC-SHA256, so a checkpoint can't be forged
+ * by anyone who can only write the database. Put the directory on storage the database host can't
+ * write, such as a separate volume with write-once retention, and keep the key out of the database.
+ * Deleting the newest files falls back to an older checkpoint, which still catches rewrites of the
+ * history it covers. The most recent {@link #KEPT_CHECKPOINTS} files are kept.
+ */
+public class ChainCheckpointStore {
+
+  static final int MAGIC = 0x57434b50; // "WCKP"
+  static final int VERSION = 1;
+  static final int KEPT_CHECKPOINTS = 3;
+
+  private static final String ALGORITHM = "HmacSHA256";
+  private static final int SIGNATURE_LENGTH = 32;
+  private static final String PREFIX = "checkpoint-";
+  private static final String SUFFIX = ".chk";
+
+  private final Path directory;
+  private final SecretKeySpec key;
+
+  public ChainCheckpointStore(Path directory, byte[] key) {
+    if (key.length == 0) {
+      throw new IllegalArgumentException("A checkpoint signing key is required");
+    }
+    this.directory = directory;
+    this.key = new SecretKeySpec(key, ALGORITHM);
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not create checkpoint directory " + directory, e);
+    }
+  }
+
+  /**
+   * Sign and write the checkpoint, then drop all but the most recent files.
+   */
+  public void write(ChainCheckpoint checkpoint) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(checkpoint.recordedAt().toEpochMilli());
+      out.writeLong(checkpoint.throughAuditId());
+      out.writeInt(checkpoint.widgets().size());
+      for (ChainCheckpoint.WidgetChain widget : checkpoint.widgets()) {
+        out.writeBoolean(widget.widgetId() != null);
+        out.writeLong(widget.widgetId() == null ? 0 : widget.widgetId());
+        out.writeLong(widget.headAuditId());
+        out.writeLong(widget.headChangedAtMicros());
+        out.writeLong(widget.tailAuditId());
+        out.writeLong(widget.tailChangedAtMicros());
+        out.writeShort(widget.tailHash().length);
+        out.write(widget.tailHash());
+      }
+      out.write(sign(bytes.toByteArray()));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not encode checkpoint", e);
+    }
+
+    Path target = directory.resolve(PREFIX + String.format("%020d", checkpoint.recordedAt().toEpochMilli()) + SUFFIX);
+    Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+    try {
+      Files.write(temporary, bytes.toByteArray());
+      try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+        channel.force(true);
+      }
+      Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      try (FileChannel channel = FileChannel.open(directory.toAbsolutePath(), StandardOpenOption.READ)) {
+        channel.force(true);
+      }
+      List<Path> files = files();
+      for (Path old : files.subList(0, Math.max(0, files.size() - KEPT_CHECKPOINTS))) {
+        Files.delete(old);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write checkpoint " + target, e);
+    }
+  }
+
+  /**
+   * The most recently recorded checkpoint, if any.
+   *
+   * @throws IllegalStateException if its signature doesn't match the key
+   */
+  public Optional<ChainCheckpoint> latest() {
+    List<Path> files = files();
+    return files.isEmpty() ? Optional.empty() : Optional.of(read(files.get(files.size() - 1)));
+  }
+
+  private ChainCheckpoint read(Path file) {
+    try {
+      byte[] bytes = Files.readAllBytes(file);
+      int signed = bytes.length - SIGNATURE_LENGTH;
+      if (signed < 0 || !MessageDigest.isEqual(sign(Arrays.copyOf(bytes, signed)),
+        Arrays.copyOfRange(bytes, signed, bytes.length))) {
+        throw new IllegalStateException("Checkpoint " + file + " is not signed with the configured key");
+      }
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, signed));
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IllegalStateException("Unsupported checkpoint " + file);
+      }
+      Instant recordedAt = Instant.ofEpochMilli(in.readLong());
+      long throughAuditId = in.readLong();
+      int count = in.readInt();
+      List<ChainCheckpoint.WidgetChain> widgets = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        boolean hasWidget = in.readBoolean();
+        long widgetId = in.readLong();
+        widgets.add(new ChainCheckpoint.WidgetChain(hasWidget ? widgetId : null, in.readLong(), in.readLong(),
+          in.readLong(), in.readLong(), in.readNBytes(in.readUnsignedShort())));
+      }
+      return new ChainCheckpoint(recordedAt, throughAuditId, List.copyOf(widgets));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read checkpoint " + file, e);
+    }
+  }
+
+  private List<Path> files() {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(file -> {
+        String name = file.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+      }).sorted().toList();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not list checkpoints in " + directory, e);
+    }
+  }
+
+  private byte[] sign(byte[] content) {
+    try {
+      Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      return mac.doFinal(content);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("HMAC-SHA256 is not available", e);
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package application.integrity;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of a hash-chain verification.
+ *
+ * @param anchors         first remaining row of a widget's chain in the verified range; its own hash is checked,
+ *                        its link cannot be (earlier rows were purged, archived or lie outside the range)
+ * @param unlinkedAnchors anchors that are not the first row of their widget's chain: the rows before them were
+ *                        purged, lie outside the range, or were deleted. Verifying with the archive keeps archived
+ *                        history out of this count.
+ * @param unhashedRows    rows written before the hash chain existed
+ * @param violations      the first violations found, at most {@link AuditChainVerifier#MAX_REPORTED_VIOLATIONS}
+ */
+public record ChainVerificationResult(long rowsVerified, long anchors, long unlinkedAnchors, long unhashedRows,
+                                      long violationCount, List<ChainViolation> violations, int parallelism,
+                                      Duration elapsed) {
+
+  public boolean intact() {
+    return violationCount == 0;
+  }
+
+  public double rowsPerSecond() {
+    double seconds = elapsed.toNanos() / 1e9;
+    return seconds == 0 ? 0 : rowsVerified / seconds;
+  }
+}
@@ -0,0 +1,17 @@
+package application.integrity;
+
+/**
+ * An audit row that breaks its widget's hash chain.
+ *
+ * @param reason CONTENT_MISMATCH (row changed after it was written), BROKEN_LINK (a previous row of the
+ *               widget was altered, removed or inserted out of band), CHECKPOINT_MISMATCH (the widget's
+ *               last row in the latest {@link ChainCheckpoint} is gone or its chain was recomputed) or
+ *               TRUNCATED (the widget's chain now starts after the first row the checkpoint recorded)
+ */
+public record ChainViolation(long auditId, Long widgetId, String reason) {
+
+  public static final String CONTENT_MISMATCH = "CONTENT_MISMATCH";
+  public static final String BROKEN_LINK = "BROKEN_LINK";
+  public static final String CHECKPOINT_MISMATCH = "CHECKPOINT_MISMATCH";
+  public static final String TRUNCATED = "TRUNCATED";
+}
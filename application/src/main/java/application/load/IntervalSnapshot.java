@@ -0,0 +1,13 @@
+package application.load;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * One bucket of the load time series.
+ *
+ * @param offset           end of the bucket relative to the start of the run
+ * @param auditRowEstimate planner estimate of widgets_audit rows at the end of the bucket
+ */
+public record IntervalSnapshot(Duration offset, long auditRowEstimate, List<OperationStats> operations) {
+}
@@ -0,0 +1,250 @@
+package application.load;
+
+import application.audit.AuditContext;
+import application.concurrent.UserThreads;
+import application.model.Widget;
+import application.repo.WidgetAuditRepository;
+import application.repo.WidgetRepository;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Drives many simulated users against the repositories and records latency with HdrHistogram.
+ *
+ * Every user runs in its own thread, wraps each operation in {@link AuditContext#runAsUser} under
+ * its own name, and only updates, deletes and queries widgets it created itself, so users do not
+ * serialize on each other's row locks. A user's operations are due one think time apart, and
+ * latency counts from when an operation was due, so a stall is charged to every operation that
+ * should have run during it, not only to the one that hit it. Latencies are recorded per
+ * operation into interval recorders that are drained every report interval into a time series;
+ * in soak mode the series also carries the audit table size, showing how latency changes as
+ * widgets_audit grows.
+ */
+public class LoadGenerator {
+
+  private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+  private static final int OWNED_WIDGETS_PER_USER = 64;
+  private static final BigDecimal START_PRICE = new BigDecimal("10.00");
+
+  private final WidgetRepository widgetRepository;
+  private final WidgetAuditRepository widgetAuditRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final JdbcTemplate jdbcTemplate;
+
+  public LoadGenerator(WidgetRepository widgetRepository, WidgetAuditRepository widgetAuditRepository,
+                       TransactionTemplate transactionTemplate, JdbcTemplate jdbcTemplate) {
+    this.widgetRepository = widgetRepository;
+    this.widgetAuditRepository = widgetAuditRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public LoadReport run(LoadSettings settings, Consumer<IntervalSnapshot> listener) {
+    Run run = new Run(settings);
+    long started = System.nanoTime();
+    ExecutorService users = UserThreads.newExecutor("load-user");
+    try {
+      for (int user = 0; user < settings.users(); user++) {
+        String username = "load-user-" + user;
+        users.execute(() -> simulateUser(run, username));
+      }
+
+      long deadline = started + settings.duration().toNanos();
+      long intervalNanos = settings.reportInterval().toNanos();
+      long nextReport = started + intervalNanos;
+      while (System.nanoTime() < deadline) {
+        sleepNanos(Math.min(nextReport, deadline) - System.nanoTime());
+        if (System.nanoTime() >= nextReport) {
+          IntervalSnapshot snapshot = run.drain(started, auditRowEstimate());
+          listener.accept(snapshot);
+          nextReport += intervalNanos;
+          if (settings.soak() && snapshot.auditRowEstimate() >= settings.soakTargetAuditRows()) {
+            break;
+          }
+        }
+      }
+    } finally {
+      run.stopped = true;
+      users.shutdown();
+      try {
+        users.awaitTermination(30, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      users.shutdownNow();
+    }
+    IntervalSnapshot last = run.drain(started, auditRowEstimate());
+    listener.accept(last);
+    Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+    return new LoadReport(elapsed, settings.users(),
+      UserThreads.virtualThreadsAvailable() ? "virtual" : "platform", run.totals(elapsed), List.copyOf(run.intervals));
+  }
+
+  private void simulateUser(Run run, String username) {
+    Deque<Long> owned = new ArrayDeque<>();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long thinkNanos = run.settings.thinkTime().toNanos();
+    long sequence = 0;
+    long due = System.nanoTime();
+    while (!run.stopped && !Thread.currentThread().isInterrupted()) {
+      LoadOperation operation = run.settings.mix().pick(random.nextInt(run.settings.mix().totalWeight()));
+      if (owned.isEmpty()) {
+        operation = LoadOperation.INSERT;
+      }
+      String name = run.namePrefix + username + "-" + sequence++;
+      LoadOperation chosen = operation;
+      try {
+        AuditContext.runAsUser(username, () -> perform(chosen, name, owned, random));
+        // From when the operation was due, not when it started: a stall also delays the operations queued behind it
+        run.recorders.get(chosen).recordValue(
+          Math.min(MAX_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - due)));
+      } catch (RuntimeException e) {
+        run.errors.get(chosen).incrementAndGet();
+      }
+      if (thinkNanos > 0) {
+        due += thinkNanos;
+        sleepNanos(due - System.nanoTime());
+      } else {
+        due = System.nanoTime();
+      }
+    }
+  }
+
+  private void perform(LoadOperation operation, String name, Deque<Long> owned, ThreadLocalRandom random) {
+    switch (operation) {
+      case INSERT -> {
+        Widget widget = widgetRepository.save(
+          new Widget(name, OffsetDateTime.now(), random.nextInt(1, 1_000), START_PRICE));
+        owned.addLast(widget.getId());
+        if (owned.size() > OWNED_WIDGETS_PER_USER) {
+          owned.removeFirst();
+        }
+      }
+      case UPDATE -> {
+        Long id = pickOwned(owned, random);
+        Boolean found = transactionTemplate.execute(status -> widgetRepository.findById(id).map(widget -> {
+          widget.updateDetails(widget.getName(), widget.getQuantity() + 1, widget.getPrice());
+          return true;
+        }).orElse(false));
+        if (!Boolean.TRUE.equals(found)) {
+          owned.remove(id);
+        }
+      }
+      case DELETE -> {
+        Long id = pickOwned(owned, random);
+        owned.remove(id);
+        widgetRepository.deleteById(id);
+      }
+      case AUDIT_QUERY -> {
+        if (random.nextBoolean()) {
+          widgetAuditRepository.findByWidgetIdOrderByChangedAtDesc(pickOwned(owned, random));
+        } else {
+          widgetAuditRepository.findActivityByUser(AuditContext.getCurrentUser(),
+            OffsetDateTime.now().minusHours(1), null, 50);
+        }
+      }
+    }
+  }
+
+  private static Long pickOwned(Deque<Long> owned, ThreadLocalRandom random) {
+    int index = random.nextInt(owned.size());
+    for (Long id : owned) {
+      if (index-- == 0) {
+        return id;
+      }
+    }
+    throw new IllegalStateException("unreachable");
+  }
+
+  private long auditRowEstimate() {
+    Long estimate = jdbcTemplate.queryForObject(
+      "SELECT greatest(reltuples, 0)::BIGINT FROM pg_class WHERE oid = 'public.widgets_audit'::regclass", Long.class);
+    return estimate == null ? 0 : estimate;
+  }
+
+  private static void sleepNanos(long nanos) {
+    if (nanos <= 0) {
+      return;
+    }
+    try {
+      TimeUnit.NANOSECONDS.sleep(nanos);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static OperationStats stats(LoadOperation operation, Histogram histogram, long errors, Duration span) {
+    double seconds = Math.max(1e-9, span.toNanos() / 1e9);
+    return new OperationStats(operation, histogram.getTotalCount(), errors, histogram.getTotalCount() / seconds,
+      histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90), histogram.getValueAtPercentile(99),
+      histogram.getValueAtPercentile(99.9), histogram.getMaxValue());
+  }
+
+  /**
+   * Shared state of one run.
+   */
+  private static final class Run {
+    final LoadSettings settings;
+    final String namePrefix = "load-" + Long.toString(System.currentTimeMillis(), 36) + "-";
+    final Map<LoadOperation, Recorder> recorders = new EnumMap<>(LoadOperation.class);
+    final Map<LoadOperation, AtomicLong> errors = new EnumMap<>(LoadOperation.class);
+    final Map<LoadOperation, Histogram> cumulative = new EnumMap<>(LoadOperation.class);
+    final Map<LoadOperation, Long> reportedErrors = new EnumMap<>(LoadOperation.class);
+    final List<IntervalSnapshot> intervals = new ArrayList<>();
+    long lastDrainNanos;
+    volatile boolean stopped;
+
+    Run(LoadSettings settings) {
+      this.settings = settings;
+      for (LoadOperation operation : LoadOperation.values()) {
+        recorders.put(operation, new Recorder(MAX_TRACKABLE_MICROS, 3));
+        errors.put(operation, new AtomicLong());
+        cumulative.put(operation, new Histogram(MAX_TRACKABLE_MICROS, 3));
+        reportedErrors.put(operation, 0L);
+      }
+    }
+
+    IntervalSnapshot drain(long startedNanos, long auditRowEstimate) {
+      long now = System.nanoTime();
+      Duration span = Duration.ofNanos(now - (lastDrainNanos == 0 ? startedNanos : lastDrainNanos));
+      lastDrainNanos = now;
+      List<OperationStats> operations = new ArrayList<>();
+      for (LoadOperation operation : LoadOperation.values()) {
+        Histogram interval = recorders.get(operation).getIntervalHistogram();
+        cumulative.get(operation).add(interval);
+        long totalErrors = errors.get(operation).get();
+        long intervalErrors = totalErrors - reportedErrors.put(operation, totalErrors);
+        operations.add(stats(operation, interval, intervalErrors, span));
+      }
+      IntervalSnapshot snapshot = new IntervalSnapshot(Duration.ofNanos(now - startedNanos), auditRowEstimate,
+        List.copyOf(operations));
+      intervals.add(snapshot);
+      return snapshot;
+    }
+
+    List<OperationStats> totals(Duration elapsed) {
+      List<OperationStats> totals = new ArrayList<>();
+      for (LoadOperation operation : LoadOperation.values()) {
+        totals.add(stats(operation, cumulative.get(operation), errors.get(operation).get(), elapsed));
+      }
+      return List.copyOf(totals);
+    }
+  }
+}
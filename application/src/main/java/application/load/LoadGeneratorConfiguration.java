@@ -0,0 +1,62 @@
+package application.load;
+
+import application.repo.WidgetAuditRepository;
+import application.repo.WidgetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * Runs the load generator once at startup with app.load.enabled=true, e.g.
+ * {@code java -jar application.jar --app.load.enabled=true --app.load.users=2000 --app.load.duration=PT10M}.
+ * Set app.load.soak-target-audit-rows to keep going until widgets_audit reaches that size.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "app.load", name = "enabled", havingValue = "true")
+public class LoadGeneratorConfiguration {
+
+  private static final Logger log = LoggerFactory.getLogger(LoadGeneratorConfiguration.class);
+
+  @Bean
+  LoadGenerator loadGenerator(WidgetRepository widgetRepository, WidgetAuditRepository widgetAuditRepository,
+                              PlatformTransactionManager transactionManager, JdbcTemplate jdbcTemplate) {
+    return new LoadGenerator(widgetRepository, widgetAuditRepository, new TransactionTemplate(transactionManager),
+      jdbcTemplate);
+  }
+
+  @Bean
+  ApplicationRunner loadGeneratorRunner(LoadGenerator loadGenerator,
+                                        @Value("${app.load.users:1000}") int users,
+                                        @Value("${app.load.duration:PT5M}") Duration duration,
+                                        @Value("${app.load.mix:insert=40,update=30,delete=5,audit_query=25}") String mix,
+                                        @Value("${app.load.think-time:PT0.05S}") Duration thinkTime,
+                                        @Value("${app.load.report-interval:PT10S}") Duration reportInterval,
+                                        @Value("${app.load.soak-target-audit-rows:0}") long soakTargetAuditRows) {
+    LoadSettings settings = new LoadSettings(users, duration, LoadMix.parse(mix), thinkTime, reportInterval,
+      soakTargetAuditRows);
+    return args -> {
+      LoadReport report = loadGenerator.run(settings, snapshot -> {
+        log.info("t={}s audit rows~{}", snapshot.offset().toSeconds(), snapshot.auditRowEstimate());
+        snapshot.operations().forEach(stats -> log.info("  {}", format(stats)));
+      });
+      log.info("Load run finished: {} {} users, {} s", report.users(), report.threadKind(),
+        report.elapsed().toSeconds());
+      report.totals().forEach(stats -> log.info("  {}", format(stats)));
+    };
+  }
+
+  private static String format(OperationStats stats) {
+    return String.format("%-11s n=%d err=%d %.0f/s p50=%dus p90=%dus p99=%dus p99.9=%dus max=%dus",
+      stats.operation(), stats.count(), stats.errors(), stats.perSecond(), stats.p50Micros(), stats.p90Micros(),
+      stats.p99Micros(), stats.p999Micros(), stats.maxMicros());
+  }
+}
@@ -0,0 +1,56 @@
+package application.load;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Relative weights of the operations in a workload, e.g. "insert=40,update=30,delete=5,audit_query=25".
+ */
+public record LoadMix(int insertWeight, int updateWeight, int deleteWeight, int auditQueryWeight) {
+
+  public LoadMix {
+    if (insertWeight < 0 || updateWeight < 0 || deleteWeight < 0 || auditQueryWeight < 0) {
+      throw new IllegalArgumentException("Weights must not be negative");
+    }
+    if (insertWeight + updateWeight + deleteWeight + auditQueryWeight == 0) {
+      throw new IllegalArgumentException("At least one weight must be positive");
+    }
+  }
+
+  public static LoadMix parse(String spec) {
+    Map<LoadOperation, Integer> weights = new EnumMap<>(LoadOperation.class);
+    for (String part : spec.split(",")) {
+      String[] pair = part.trim().split("=");
+      if (pair.length != 2) {
+        throw new IllegalArgumentException("Expected operation=weight but got '" + part + "'");
+      }
+      try {
+        weights.put(LoadOperation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(pair[1].trim()));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Invalid load mix entry '" + part + "'", e);
+      }
+    }
+    return new LoadMix(weights.getOrDefault(LoadOperation.INSERT, 0), weights.getOrDefault(LoadOperation.UPDATE, 0),
+      weights.getOrDefault(LoadOperation.DELETE, 0), weights.getOrDefault(LoadOperation.AUDIT_QUERY, 0));
+  }
+
+  public int totalWeight() {
+    return insertWeight + updateWeight + deleteWeight + auditQueryWeight;
+  }
+
+  /**
+   * @param roll uniformly distributed in [0, totalWeight())
+   */
+  public LoadOperation pick(int roll) {
+    if (roll < insertWeight) {
+      return LoadOperation.INSERT;
+    }
+    roll -= insertWeight;
+    if (roll < updateWeight) {
+      return LoadOperation.UPDATE;
+    }
+    roll -= updateWeight;
+    return roll < deleteWeight ? LoadOperation.DELETE : LoadOperation.AUDIT_QUERY;
+  }
+}
@@ -0,0 +1,11 @@
+package application.load;
+
+/**
+ * The kinds of work a simulated user performs.
+ */
+public enum LoadOperation {
+  INSERT,
+  UPDATE,
+  DELETE,
+  AUDIT_QUERY
+}
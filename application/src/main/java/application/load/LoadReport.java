@@ -0,0 +1,15 @@
+package application.load;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Result of a load run: totals per operation plus the time series behind them.
+ */
+public record LoadReport(Duration elapsed, int users, String threadKind, List<OperationStats> totals,
+                         List<IntervalSnapshot> intervals) {
+
+  public OperationStats total(LoadOperation operation) {
+    return totals.stream().filter(stats -> stats.operation() == operation).findFirst().orElseThrow();
+  }
+}
@@ -0,0 +1,27 @@
+package application.load;
+
+import java.time.Duration;
+
+/**
+ * Shape of a load run.
+ *
+ * @param users                  concurrent simulated users, each on its own (virtual, where available) thread
+ * @param duration               run length; in soak mode the upper bound
+ * @param thinkTime              interval at which one user's operations are due; with zero, each starts when
+ *                               the previous one ends
+ * @param reportInterval         width of the throughput/latency time series buckets
+ * @param soakTargetAuditRows    soak mode only: stop once widgets_audit holds about this many rows (0 = no soak)
+ */
+public record LoadSettings(int users, Duration duration, LoadMix mix, Duration thinkTime, Duration reportInterval,
+                           long soakTargetAuditRows) {
+
+  public LoadSettings {
+    if (users <= 0) {
+      throw new IllegalArgumentException("users must be positive: " + users);
+    }
+  }
+
+  public boolean soak() {
+    return soakTargetAuditRows > 0;
+  }
+}
@@ -0,0 +1,8 @@
+package application.load;
+
+/**
+ * Latency percentiles (microseconds) and throughput of one operation over a time span.
+ */
+public record OperationStats(LoadOperation operation, long count, long errors, double perSecond,
+                             long p50Micros, long p90Micros, long p99Micros, long p999Micros, long maxMicros) {
+}
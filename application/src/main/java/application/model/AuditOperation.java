@@ -0,0 +1,29 @@
+package application.model;
+
+/**
+ * Audited operation types and their one-byte codes in widgets_audit.operation.
+ */
+public enum AuditOperation {
+  INSERT('I'),
+  UPDATE('U'),
+  DELETE('D');
+
+  private final char code;
+
+  AuditOperation(char code) {
+    this.code = code;
+  }
+
+  public char getCode() {
+    return code;
+  }
+
+  public static AuditOperation fromCode(char code) {
+    for (AuditOperation operation : values()) {
+      if (operation.code == code) {
+        return operation;
+      }
+    }
+    throw new IllegalArgumentException("Unknown audit operation code: " + code);
+  }
+}
@@ -0,0 +1,23 @@
+package application.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Maps the operation name exposed by {@link WidgetAudit} ("INSERT", "UPDATE", "DELETE")
+ * to the one-byte code stored in the database. Query parameters compared against the
+ * attribute are converted too, so repository finders keep accepting operation names.
+ */
+@Converter
+public class AuditOperationConverter implements AttributeConverter<String, Character> {
+
+  @Override
+  public Character convertToDatabaseColumn(String operation) {
+    return operation == null ? null : AuditOperation.valueOf(operation).getCode();
+  }
+
+  @Override
+  public String convertToEntityAttribute(Character code) {
+    return code == null ? null : AuditOperation.fromCode(code).name();
+  }
+}
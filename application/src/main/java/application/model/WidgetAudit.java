@@ -1,17 +1,22 @@
 package application.model;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.Formula;
 import org.hibernate.annotations.Immutable;
 import java.time.OffsetDateTime;
 
 /**
  * Read-only audit log entity. @Immutable ensures Hibernate will never
  * issue UPDATE or DELETE statements against this table, protecting audit integrity.
+ *
+ * The table stores the operation as a one-byte code and the user as an audit_users id;
+ * both are exposed here as their original strings.
  */
 @Entity
 @Immutable
@@ -22,7 +27,8 @@ public class WidgetAudit {
   @Column(name = "audit_id")
   private Long auditId;
 
-  @Column(nullable = false)
+  @Convert(converter = AuditOperationConverter.class)
+  @Column(nullable = false, columnDefinition = "\"char\"")
   private String operation;
 
   @Column(name = "widget_id")
@@ -43,7 +49,10 @@ public class WidgetAudit {
   @Column(name = "changed_at", nullable = false)
   private OffsetDateTime changedAt;
 
-  @Column(name = "changed_by")
+  @Column(name = "changed_by_id")
+  private Integer changedById;
+
+  @Formula("(SELECT u.username FROM audit_users u WHERE u.user_id = changed_by_id)")
   private String changedBy;
 
   protected WidgetAudit() {
@@ -81,6 +90,10 @@ public class WidgetAudit {
     return changedAt;
   }
 
+  public Integer getChangedById() {
+    return changedById;
+  }
+
   public String getChangedBy() {
     return changedBy;
   }
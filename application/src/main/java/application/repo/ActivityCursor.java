@@ -0,0 +1,36 @@
+package application.repo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position after the last entry of a user activity page, encoded as an opaque URL-safe token.
+ * The token carries the user it was issued for, so it cannot be replayed against another user.
+ */
+record ActivityCursor(String username, long changedAtMicros, long auditId) {
+
+  String encode() {
+    String raw = changedAtMicros + ":" + auditId + ":" + username;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static ActivityCursor decode(String token, String username) {
+    String[] parts;
+    try {
+      parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":", 3);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Malformed activity cursor", e);
+    }
+    if (parts.length != 3) {
+      throw new IllegalArgumentException("Malformed activity cursor");
+    }
+    if (!parts[2].equals(username)) {
+      throw new IllegalArgumentException("Activity cursor was issued for another user");
+    }
+    try {
+      return new ActivityCursor(username, Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Malformed activity cursor", e);
+    }
+  }
+}
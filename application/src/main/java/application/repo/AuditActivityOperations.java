@@ -0,0 +1,26 @@
+package application.repo;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Per-user audit queries for security reviews ("what did user X change in the last week"),
+ * served by idx_widgets_audit_user_activity on (changed_by_id, changed_at DESC, audit_id DESC).
+ */
+public interface AuditActivityOperations {
+
+  int MAX_ACTIVITY_PAGE_SIZE = 1_000;
+
+  /**
+   * One keyset page of the user's changes since {@code since}, newest first.
+   *
+   * @param cursor null for the first page, otherwise {@link UserActivityPage#nextCursor()} of the previous page
+   */
+  UserActivityPage findActivityByUser(String username, OffsetDateTime since, String cursor, int pageSize);
+
+  /**
+   * Counts per operation and distinct widgets touched by the user since {@code since}. Whole UTC days
+   * are summed from the per-day rollup, so the cost grows with the number of days rather than changes.
+   * Widgets touched is a HyperLogLog estimate, exact for small counts and within about 2% otherwise.
+   */
+  UserActivitySummary summarizeUserActivity(String username, OffsetDateTime since);
+}
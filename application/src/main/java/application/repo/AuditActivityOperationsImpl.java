@@ -0,0 +1,185 @@
+package application.repo;
+
+import application.model.AuditOperation;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Native implementation of {@link AuditActivityOperations}. The username is resolved to its
+ * audit_users id once, so every query is a range scan on one changed_by_id prefix of the index.
+ * Summaries add up the per-day rollup kept by application.activity.AuditActivityRollupJob.
+ */
+class AuditActivityOperationsImpl implements AuditActivityOperations {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  @Transactional(readOnly = true)
+  @SuppressWarnings("unchecked")
+  public UserActivityPage findActivityByUser(String username, OffsetDateTime since, String cursor, int pageSize) {
+    if (pageSize <= 0 || pageSize > MAX_ACTIVITY_PAGE_SIZE) {
+      throw new IllegalArgumentException(
+        "pageSize must be between 1 and " + MAX_ACTIVITY_PAGE_SIZE + ": " + pageSize);
+    }
+    ActivityCursor after = cursor == null ? null : ActivityCursor.decode(cursor, username);
+    Integer userId = findUserId(username);
+    if (userId == null) {
+      return new UserActivityPage(List.of(), null);
+    }
+
+    StringBuilder sql = new StringBuilder(
+      "SELECT audit_id, operation::TEXT, widget_id, changed_at FROM public.widgets_audit "
+        + "WHERE changed_by_id = :userId AND changed_at >= :since ");
+    if (after != null) {
+      sql.append("AND (changed_at, audit_id) < (:afterChangedAt, :afterAuditId) ");
+    }
+    sql.append("ORDER BY changed_at DESC, audit_id DESC LIMIT :limit");
+
+    Query query = entityManager.createNativeQuery(sql.toString())
+                               .setParameter("userId", userId)
+                               .setParameter("since", since)
+                               .setParameter("limit", pageSize + 1);
+    if (after != null) {
+      query.setParameter("afterChangedAt", fromMicros(after.changedAtMicros()))
+           .setParameter("afterAuditId", after.auditId());
+    }
+    List<UserActivityEntry> entries = ((List<Object[]>) query.getResultList()).stream()
+      .map(row -> new UserActivityEntry(
+        ((Number) row[0]).longValue(),
+        AuditOperation.fromCode(((String) row[1]).charAt(0)).name(),
+        row[2] == null ? null : ((Number) row[2]).longValue(),
+        toOffsetDateTime(row[3])))
+      .toList();
+
+    if (entries.size() <= pageSize) {
+      return new UserActivityPage(entries, null);
+    }
+    List<UserActivityEntry> page = entries.subList(0, pageSize);
+    UserActivityEntry last = page.get(pageSize - 1);
+    String next = new ActivityCursor(username, toMicros(last.changedAt()), last.auditId()).encode();
+    return new UserActivityPage(List.copyOf(page), next);
+  }
+
+  @Override
+  @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+  @SuppressWarnings("unchecked")
+  public UserActivitySummary summarizeUserActivity(String username, OffsetDateTime since) {
+    Integer userId = findUserId(username);
+    if (userId == null) {
+      return new UserActivitySummary(username, 0, 0, 0, 0, null, null);
+    }
+    // Whole UTC days from here on come from the rollup; the partial first day and the rows it hasn't folded
+    // in yet from widgets_audit. One snapshot, so a concurrent rollup run can't move rows between the two.
+    OffsetDateTime firstDay = since.withOffsetSameInstant(ZoneOffset.UTC).truncatedTo(ChronoUnit.DAYS);
+    if (firstDay.isBefore(since)) {
+      firstDay = firstDay.plusDays(1);
+    }
+    long rolledThrough = ((Number) entityManager.createNativeQuery(
+        "SELECT rolled_through FROM public.widgets_audit_user_daily_position")
+      .getSingleResult()).longValue();
+
+    ActivityTotals totals = new ActivityTotals();
+    List<Object[]> days = entityManager.createNativeQuery(
+        "SELECT inserted, updated, deleted, first_changed_at, last_changed_at, widget_sketch "
+          + "FROM public.widgets_audit_user_daily WHERE changed_by_id = :userId AND day >= :firstDay")
+      .setParameter("userId", userId)
+      .setParameter("firstDay", firstDay.toLocalDate())
+      .getResultList();
+    for (Object[] day : days) {
+      totals.add(day);
+      totals.widgets.merge(WidgetIdSketch.fromBytes((byte[]) day[5]));
+    }
+    List<Object[]> widgets = entityManager.createNativeQuery(
+        "SELECT count(*) FILTER (WHERE operation = 'I'), count(*) FILTER (WHERE operation = 'U'), "
+          + "count(*) FILTER (WHERE operation = 'D'), min(changed_at), max(changed_at), widget_id FROM ("
+          + "SELECT operation, widget_id, changed_at FROM public.widgets_audit "
+          + "WHERE changed_by_id = :userId AND changed_at >= :since AND changed_at < :firstDay "
+          + "UNION ALL "
+          + "SELECT operation, widget_id, changed_at FROM public.widgets_audit "
+          + "WHERE changed_by_id = :userId AND changed_at >= :firstDay AND audit_id > :rolledThrough"
+          + ") unrolled GROUP BY widget_id")
+      .setParameter("userId", userId)
+      .setParameter("since", since)
+      .setParameter("firstDay", firstDay)
+      .setParameter("rolledThrough", rolledThrough)
+      .getResultList();
+    for (Object[] widget : widgets) {
+      totals.add(widget);
+      if (widget[5] != null) {
+        totals.widgets.add(((Number) widget[5]).longValue());
+      }
+    }
+    return new UserActivitySummary(username, totals.inserts, totals.updates, totals.deletes,
+      totals.widgets.estimate(), totals.first, totals.last);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Integer findUserId(String username) {
+    List<Number> ids = entityManager
+      .createNativeQuery("SELECT user_id FROM public.audit_users WHERE username = :username")
+      .setParameter("username", username)
+      .getResultList();
+    return ids.isEmpty() ? null : ids.get(0).intValue();
+  }
+
+  /**
+   * Native timestamptz results arrive as Timestamp, Instant or OffsetDateTime depending on the
+   * driver's column metadata; normalize them all to UTC offsets.
+   */
+  static OffsetDateTime toOffsetDateTime(Object value) {
+    if (value == null) {
+      return null;
+    }
+    if (value instanceof OffsetDateTime offsetDateTime) {
+      return offsetDateTime;
+    }
+    if (value instanceof Instant instant) {
+      return instant.atOffset(ZoneOffset.UTC);
+    }
+    if (value instanceof Timestamp timestamp) {
+      return timestamp.toInstant().atOffset(ZoneOffset.UTC);
+    }
+    throw new IllegalArgumentException("Unexpected timestamp type " + value.getClass().getName());
+  }
+
+  private static long toMicros(OffsetDateTime time) {
+    return WidgetColumnBatch.toEpochMicros(time);
+  }
+
+  private static OffsetDateTime fromMicros(long micros) {
+    return Instant.EPOCH.plus(micros, ChronoUnit.MICROS).atOffset(ZoneOffset.UTC);
+  }
+
+  /**
+   * Sums rollup days and widgets_audit groups, both given as (inserts, updates, deletes, first, last, ...).
+   */
+  private static final class ActivityTotals {
+    private final WidgetIdSketch widgets = new WidgetIdSketch();
+    private long inserts;
+    private long updates;
+    private long deletes;
+    private OffsetDateTime first;
+    private OffsetDateTime last;
+
+    void add(Object[] row) {
+      inserts += ((Number) row[0]).longValue();
+      updates += ((Number) row[1]).longValue();
+      deletes += ((Number) row[2]).longValue();
+      OffsetDateTime rowFirst = toOffsetDateTime(row[3]);
+      OffsetDateTime rowLast = toOffsetDateTime(row[4]);
+      first = first == null || rowFirst.isBefore(first) ? rowFirst : first;
+      last = last == null || rowLast.isAfter(last) ? rowLast : last;
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package application.repo;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Listing projection of a widgets_audit row: just enough to render an audit trail entry.
+ */
+public record AuditEntrySummary(Long auditId, String operation, OffsetDateTime changedAt, String changedBy) {
+}
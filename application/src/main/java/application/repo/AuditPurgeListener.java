@@ -0,0 +1,22 @@
+package application.repo;
+
+import java.util.List;
+
+/**
+ * Told when the retention purge or archival has deleted audit rows from widgets_audit. Both remove
+ * the oldest rows first, so a listener only learns the highest audit_id a batch may have deleted.
+ */
+@FunctionalInterface
+public interface AuditPurgeListener {
+
+  AuditPurgeListener NONE = throughAuditId -> { };
+
+  /**
+   * Called after the deleting transaction committed.
+   */
+  void auditRowsPurged(long throughAuditId);
+
+  static AuditPurgeListener all(List<AuditPurgeListener> listeners) {
+    return throughAuditId -> listeners.forEach(listener -> listener.auditRowsPurged(throughAuditId));
+  }
+}
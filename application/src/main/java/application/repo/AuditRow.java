@@ -0,0 +1,20 @@
+package application.repo;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Unmanaged, immutable copy of a full widgets_audit row, produced by {@link WidgetAuditReader}
+ * without going through the persistence context.
+ *
+ * @param oldQuantity quantity before an update; null on insert and delete rows
+ * @param oldPrice    price before an update; null on insert and delete rows
+ * @param changedById audit_users id behind changedBy, which the hash chain covers
+ * @param prevHash    row_hash of the widget's previous audit row; null for the first row and unhashed rows
+ * @param rowHash     hash chain link of this row; null for rows written before the chain existed
+ */
+public record AuditRow(long auditId, String operation, Long widgetId, String name, OffsetDateTime createdAt,
+                       Integer quantity, BigDecimal price, OffsetDateTime changedAt, String changedBy,
+                       Integer oldQuantity, BigDecimal oldPrice,
+                       Integer changedById, byte[] prevHash, byte[] rowHash) {
+}
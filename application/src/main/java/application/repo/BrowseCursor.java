@@ -0,0 +1,44 @@
+package application.repo;
+
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position after the last widget of a browse page, encoded as an opaque URL-safe token.
+ * The token carries the sort key and direction it was issued for, so it cannot be replayed
+ * against a different ordering.
+ */
+record BrowseCursor(WidgetSortKey sortKey, Sort.Direction direction, long id, String value) {
+
+  String encode() {
+    String raw = sortKey.name() + ':' + direction.name() + ':' + id + ':' + value;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static BrowseCursor decode(String token, WidgetSortKey sortKey, Sort.Direction direction) {
+    String[] parts;
+    try {
+      parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":", 4);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Malformed browse cursor", e);
+    }
+    if (parts.length != 4) {
+      throw new IllegalArgumentException("Malformed browse cursor");
+    }
+    if (!sortKey.name().equals(parts[0]) || !direction.name().equals(parts[1])) {
+      throw new IllegalArgumentException("Browse cursor was issued for " + parts[0] + " " + parts[1]
+        + ", not " + sortKey + " " + direction);
+    }
+    try {
+      long id = Long.parseLong(parts[2]);
+      // Parsed here as well, so a bad value is rejected as a malformed cursor rather than failing the query
+      sortKey.parse(parts[3]);
+      return new BrowseCursor(sortKey, direction, id, parts[3]);
+    } catch (NumberFormatException | DateTimeParseException e) {
+      throw new IllegalArgumentException("Malformed browse cursor", e);
+    }
+  }
+}
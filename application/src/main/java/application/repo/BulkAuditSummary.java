@@ -0,0 +1,23 @@
+package application.repo;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * One widgets_audit_bulk_summary row: everything a bulk-maintenance transaction changed, in place
+ * of per-row audit entries.
+ *
+ * @param summaryId  drawn from the audit_id sequence at commit, so it orders with audit rows
+ * @param statements distinct SQL statements that changed rows
+ * @param widgetIds  affected widget ids as sorted, non-overlapping ranges
+ */
+public record BulkAuditSummary(long summaryId, long txid, OffsetDateTime changedAt, String changedBy, String reason,
+                               long inserted, long updated, long deleted, List<String> statements,
+                               List<IdRange> widgetIds) {
+
+  /**
+   * Widget ids fromInclusive &lt;= id &lt; toExclusive.
+   */
+  public record IdRange(long fromInclusive, long toExclusive) {
+  }
+}
@@ -0,0 +1,18 @@
+package application.repo;
+
+import java.time.Duration;
+
+/**
+ * Outcome of a chunked bulk mutation.
+ *
+ * @param rowsAffected total rows inserted, updated or deleted across all chunks
+ * @param chunks       number of id-range chunks or entity batches executed
+ * @param elapsed      wall-clock time spent on the whole operation
+ */
+public record BulkMutationResult(long rowsAffected, int chunks, Duration elapsed) {
+
+  public double rowsPerSecond() {
+    long millis = elapsed.toMillis();
+    return millis == 0 ? rowsAffected : rowsAffected * 1000.0 / millis;
+  }
+}
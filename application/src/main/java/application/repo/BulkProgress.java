@@ -0,0 +1,19 @@
+package application.repo;
+
+/**
+ * Snapshot of a chunked bulk mutation after one id-range chunk has committed.
+ *
+ * @param chunkStartId first widget id covered by the chunk (inclusive)
+ * @param chunkEndId   last widget id covered by the chunk (inclusive)
+ * @param chunkRows    rows affected by this chunk
+ * @param totalRows    rows affected so far, including this chunk
+ * @param chunksDone   number of chunks committed so far
+ * @param chunksTotal  total number of chunks planned for the id range
+ */
+public record BulkProgress(long chunkStartId, long chunkEndId, int chunkRows, long totalRows,
+                           int chunksDone, int chunksTotal) {
+
+  public double fractionComplete() {
+    return chunksTotal == 0 ? 1.0 : (double) chunksDone / chunksTotal;
+  }
+}
@@ -0,0 +1,15 @@
+package application.repo;
+
+/**
+ * Callback invoked after each committed chunk of a bulk mutation.
+ */
+@FunctionalInterface
+public interface BulkProgressListener {
+
+  void onChunk(BulkProgress progress);
+
+  static BulkProgressListener none() {
+    return progress -> {
+    };
+  }
+}
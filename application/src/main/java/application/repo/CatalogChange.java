@@ -0,0 +1,48 @@
+package application.repo;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Net change of one widget between two points in time.
+ *
+ * @param before    state at the start of the window; null for a created widget
+ * @param after     state at the end of the window; null for a deleted widget
+ * @param auditRows audit rows of the widget inside the window
+ */
+public record CatalogChange(long widgetId, Kind kind, WidgetState before, WidgetState after, long auditRows,
+                            OffsetDateTime firstChangedAt, OffsetDateTime lastChangedAt) {
+
+  public enum Kind {
+    CREATED,
+    DELETED,
+    MODIFIED
+  }
+
+  /**
+   * Columns whose value differs between {@link #before} and {@link #after}, in table order;
+   * empty unless the change is {@link Kind#MODIFIED}.
+   */
+  public List<String> changedColumns() {
+    List<String> columns = new ArrayList<>(3);
+    if (kind == Kind.MODIFIED) {
+      if (!Objects.equals(before.name(), after.name())) {
+        columns.add("name");
+      }
+      if (!Objects.equals(before.quantity(), after.quantity())) {
+        columns.add("quantity");
+      }
+      if (!samePrice(before.price(), after.price())) {
+        columns.add("price");
+      }
+    }
+    return columns;
+  }
+
+  private static boolean samePrice(BigDecimal a, BigDecimal b) {
+    return a == null ? b == null : b != null && a.compareTo(b) == 0;
+  }
+}
@@ -0,0 +1,112 @@
+package application.repo;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.function.Consumer;
+
+/**
+ * "What changed in the catalog between T1 and T2": created and deleted widgets and the per-column
+ * changes of modified ones, computed from widgets_audit in one statement and streamed.
+ *
+ * The window's audit rows are grouped by widget from an index-only scan of
+ * idx_widgets_audit_changed_at, which yields each widget's first and last audit_id; the last row is
+ * the state at T2, and the first row gives the state at T1: none after an insert, the deleted image
+ * after a delete, and after an update its old quantity and price plus the name of the widget's
+ * preceding audit row (a LATERAL lookup on idx_widgets_audit_widget_audit_id). Widgets whose state is
+ * the same at both ends, including those created and deleted inside the window, are dropped by the
+ * database. Only live audit rows are read: a before-image that retention purged or archived is
+ * reported with null columns.
+ */
+@Repository
+public class CatalogDiffReader {
+
+  private static final String SELECT_DIFF =
+    "SELECT d.* FROM ("
+      + "  SELECT w.widget_id, w.changes, w.first_changed_at, w.last_changed_at,"
+      + "    f.operation AS first_operation, l.operation AS last_operation,"
+      + "    CASE f.operation WHEN 'D' THEN f.name WHEN 'U' THEN p.name END AS before_name,"
+      + "    CASE f.operation WHEN 'D' THEN f.quantity WHEN 'U' THEN COALESCE(f.old_quantity, p.quantity) END"
+      + "      AS before_quantity,"
+      + "    CASE f.operation WHEN 'D' THEN f.price WHEN 'U' THEN COALESCE(f.old_price, p.price) END AS before_price,"
+      + "    CASE WHEN l.operation <> 'D' THEN l.name END AS after_name,"
+      + "    CASE WHEN l.operation <> 'D' THEN l.quantity END AS after_quantity,"
+      + "    CASE WHEN l.operation <> 'D' THEN l.price END AS after_price"
+      + "  FROM ("
+      + "    SELECT widget_id, min(audit_id) AS first_id, max(audit_id) AS last_id, count(*) AS changes,"
+      + "      min(changed_at) AS first_changed_at, max(changed_at) AS last_changed_at"
+      + "    FROM public.widgets_audit"
+      + "    WHERE changed_at > ? AND changed_at <= ? AND widget_id IS NOT NULL"
+      + "    GROUP BY widget_id"
+      + "  ) w"
+      + "  JOIN public.widgets_audit f ON f.audit_id = w.first_id"
+      + "  JOIN public.widgets_audit l ON l.audit_id = w.last_id"
+      + "  LEFT JOIN LATERAL ("
+      + "    SELECT b.name, b.quantity, b.price FROM public.widgets_audit b"
+      + "    WHERE f.operation = 'U' AND b.widget_id = w.widget_id AND b.audit_id < w.first_id"
+      + "    ORDER BY b.audit_id DESC LIMIT 1"
+      + "  ) p ON true"
+      + ") d "
+      + "WHERE (d.before_name, d.before_quantity, d.before_price)"
+      + "  IS DISTINCT FROM (d.after_name, d.after_quantity, d.after_price) "
+      + "ORDER BY d.widget_id";
+
+  private static final String COUNT_BULK_SUMMARIES =
+    "SELECT count(*) FROM public.widgets_audit_bulk_summary WHERE changed_at > ? AND changed_at <= ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public CatalogDiffReader(DataSource dataSource) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.jdbcTemplate.setFetchSize(Integer.parseInt(WidgetAuditRepository.FETCH_SIZE));
+  }
+
+  /**
+   * Stream the net change of every widget changed in the window (fromExclusive, toInclusive] of
+   * changed_at, in widget id order.
+   */
+  @Transactional(readOnly = true)
+  public CatalogDiffSummary diff(OffsetDateTime fromExclusive, OffsetDateTime toInclusive,
+                                 Consumer<CatalogChange> consumer) {
+    if (fromExclusive == null || toInclusive == null || !fromExclusive.isBefore(toInclusive)) {
+      throw new IllegalArgumentException("The diff window must start before it ends");
+    }
+    long started = System.nanoTime();
+    long[] counts = new long[CatalogChange.Kind.values().length];
+    jdbcTemplate.query(SELECT_DIFF, (RowCallbackHandler) rs -> {
+      CatalogChange change = mapRow(rs);
+      counts[change.kind().ordinal()]++;
+      consumer.accept(change);
+    }, fromExclusive, toInclusive);
+    Long bulkSummaries = jdbcTemplate.queryForObject(COUNT_BULK_SUMMARIES, Long.class, fromExclusive, toInclusive);
+    return new CatalogDiffSummary(counts[CatalogChange.Kind.CREATED.ordinal()],
+      counts[CatalogChange.Kind.DELETED.ordinal()], counts[CatalogChange.Kind.MODIFIED.ordinal()],
+      bulkSummaries, Duration.ofNanos(System.nanoTime() - started));
+  }
+
+  private static CatalogChange mapRow(ResultSet rs) throws SQLException {
+    char firstOperation = rs.getString("first_operation").charAt(0);
+    char lastOperation = rs.getString("last_operation").charAt(0);
+    CatalogChange.Kind kind = firstOperation == 'I' ? CatalogChange.Kind.CREATED
+      : lastOperation == 'D' ? CatalogChange.Kind.DELETED
+      : CatalogChange.Kind.MODIFIED;
+    WidgetState before = kind == CatalogChange.Kind.CREATED ? null
+      : state(rs.getString("before_name"), rs.getInt("before_quantity"), rs.wasNull(), rs.getBigDecimal("before_price"));
+    WidgetState after = kind == CatalogChange.Kind.DELETED ? null
+      : state(rs.getString("after_name"), rs.getInt("after_quantity"), rs.wasNull(), rs.getBigDecimal("after_price"));
+    return new CatalogChange(rs.getLong("widget_id"), kind, before, after, rs.getLong("changes"),
+      rs.getObject("first_changed_at", OffsetDateTime.class), rs.getObject("last_changed_at", OffsetDateTime.class));
+  }
+
+  private static WidgetState state(String name, int quantity, boolean quantityNull, BigDecimal price) {
+    return new WidgetState(name, quantityNull ? null : quantity, price);
+  }
+}
@@ -0,0 +1,21 @@
+package application.repo;
+
+import java.time.Duration;
+
+/**
+ * Totals of one catalog diff.
+ *
+ * @param bulkSummaries bulk-maintenance transactions committed inside the window; their row changes
+ *                      were not audited row by row and are missing from the diff
+ * @param elapsed       wall-clock time spent on the whole diff, including the consumer
+ */
+public record CatalogDiffSummary(long created, long deleted, long modified, long bulkSummaries, Duration elapsed) {
+
+  public long total() {
+    return created + deleted + modified;
+  }
+
+  public boolean complete() {
+    return bulkSummaries == 0;
+  }
+}
@@ -0,0 +1,15 @@
+package application.repo;
+
+/**
+ * Point-in-time counters of {@link WidgetAuditHistoryCache}.
+ *
+ * @param rowsLoaded audit rows read from the database, by full loads and top-ups together
+ */
+public record HistoryCacheStats(int entries, long weightBytes, long maxWeightBytes,
+                                long hits, long misses, long rowsLoaded, long evictions) {
+
+  public double hitRate() {
+    long lookups = hits + misses;
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+}
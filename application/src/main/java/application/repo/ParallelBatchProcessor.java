@@ -0,0 +1,126 @@
+package application.repo;
+
+import application.audit.AuditContext;
+import application.audit.AuditContextAspect;
+import application.audit.AuditContextExecutorService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Splits widget work into chunks and runs them on several connections at once, each chunk in its
+ * own transaction, attributed in widgets_audit to the {@link AuditContext} user of the caller.
+ *
+ * Parallelism defaults to the number of cores, capped one below the connection pool size so the
+ * workers cannot starve the rest of the application of connections. A failed chunk does not roll
+ * back the chunks that already committed; the first failure is rethrown once all chunks have
+ * finished, with later ones attached as suppressed exceptions.
+ *
+ * The chunk transactions run on the primary database, so the processor refuses to run in sharded mode.
+ */
+@Component
+public class ParallelBatchProcessor {
+
+  private final TransactionTemplate chunkTransaction;
+  private final AuditContextAspect auditContextAspect;
+  private final int parallelism;
+  private final boolean sharded;
+
+  public ParallelBatchProcessor(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                AuditContextAspect auditContextAspect,
+                                @Value("${app.batch.parallelism:0}") int parallelism,
+                                @Value(PrimaryOnlyWrites.SHARDED) boolean sharded) {
+    this.chunkTransaction = new TransactionTemplate(transactionManager);
+    this.auditContextAspect = auditContextAspect;
+    this.parallelism = parallelism > 0 ? parallelism : defaultParallelism(dataSource);
+    this.sharded = sharded;
+  }
+
+  public int parallelism() {
+    return parallelism;
+  }
+
+  /**
+   * @param items     work items, split into consecutive chunks of at most chunkSize
+   * @param chunkWork called once per chunk inside that chunk's transaction, on a worker thread
+   */
+  public <T> ParallelBatchResult process(List<T> items, int chunkSize, Consumer<List<T>> chunkWork) {
+    PrimaryOnlyWrites.check(sharded, "Parallel batch processing");
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+    long started = System.nanoTime();
+    int chunks = (items.size() + chunkSize - 1) / chunkSize;
+    int workers = Math.max(1, Math.min(parallelism, chunks));
+
+    ExecutorService executor = new AuditContextExecutorService(Executors.newFixedThreadPool(workers, daemonThreads()));
+    try {
+      List<Future<?>> futures = new ArrayList<>(chunks);
+      for (int from = 0; from < items.size(); from += chunkSize) {
+        List<T> chunk = items.subList(from, Math.min(items.size(), from + chunkSize));
+        futures.add(executor.submit(() -> chunkTransaction.executeWithoutResult(status -> {
+          auditContextAspect.setPostgresSessionUser();
+          chunkWork.accept(chunk);
+        })));
+      }
+      awaitAll(futures);
+    } finally {
+      executor.shutdownNow();
+    }
+    return new ParallelBatchResult(items.size(), chunks, workers, Duration.ofNanos(System.nanoTime() - started));
+  }
+
+  private static void awaitAll(List<Future<?>> futures) {
+    RuntimeException failure = null;
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for batch chunks", e);
+      } catch (ExecutionException e) {
+        RuntimeException cause = e.getCause() instanceof RuntimeException runtime
+          ? runtime : new IllegalStateException("Batch chunk failed", e.getCause());
+        if (failure == null) {
+          failure = cause;
+        } else {
+          failure.addSuppressed(cause);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private static int defaultParallelism(DataSource dataSource) {
+    int cores = Runtime.getRuntime().availableProcessors();
+    if (dataSource instanceof HikariDataSource hikari) {
+      return Math.max(1, Math.min(cores, hikari.getMaximumPoolSize() - 1));
+    }
+    return cores;
+  }
+
+  private static ThreadFactory daemonThreads() {
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, "parallel-batch-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
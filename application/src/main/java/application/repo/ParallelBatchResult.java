@@ -0,0 +1,13 @@
+package application.repo;
+
+import java.time.Duration;
+
+/**
+ * Outcome of {@link ParallelBatchProcessor#process}.
+ *
+ * @param items       items handed to the chunk work
+ * @param chunks      chunks, each committed in its own transaction
+ * @param parallelism worker threads, and so at most this many pooled connections in use
+ */
+public record ParallelBatchResult(int items, int chunks, int parallelism, Duration elapsed) {
+}
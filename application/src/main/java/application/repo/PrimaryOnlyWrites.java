@@ -0,0 +1,29 @@
+package application.repo;
+
+/**
+ * Guard for the write paths of {@link WidgetRepository} (save and delete, bulk chunks, upserts by
+ * name, stateless batches) and {@link ParallelBatchProcessor}. They run against the primary database
+ * only, so in sharded mode they would write widgets no shard owns and bypass name placement; there
+ * they are refused instead. {@link PrimaryOnlyWritesPostProcessor} applies it to the inherited
+ * Spring Data writes.
+ */
+final class PrimaryOnlyWrites {
+
+  /**
+   * Property placeholder for the fragments' constructor parameter, true in sharded mode.
+   */
+  static final String SHARDED = "${app.shard.enabled:false}";
+
+  private PrimaryOnlyWrites() {
+  }
+
+  /**
+   * @throws IllegalStateException in sharded mode
+   */
+  static void check(boolean sharded, String operation) {
+    if (sharded) {
+      throw new IllegalStateException(operation + " writes to the primary database only and is not available "
+        + "in sharded mode (app.shard.enabled=true); use ShardedWidgetRepository");
+    }
+  }
+}
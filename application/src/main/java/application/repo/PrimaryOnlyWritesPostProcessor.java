@@ -0,0 +1,58 @@
+package application.repo;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.env.Environment;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+
+/**
+ * Refuses the inherited Spring Data writes of {@link WidgetRepository} (save, saveAll, delete and
+ * their variants) in sharded mode, where they would write to the primary database that no shard
+ * reads. The fragments' own set-based writes check {@link PrimaryOnlyWrites} themselves.
+ */
+@Component
+class PrimaryOnlyWritesPostProcessor implements BeanPostProcessor {
+
+  private static final String SPRING_DATA_PACKAGE = "org.springframework.data.";
+
+  private final boolean sharded;
+
+  PrimaryOnlyWritesPostProcessor(Environment environment) {
+    this.sharded = environment.getProperty("app.shard.enabled", Boolean.class, false);
+  }
+
+  @Override
+  public Object postProcessBeforeInitialization(Object bean, String beanName) {
+    if (sharded && bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+      factoryBean.addRepositoryFactoryCustomizer(factory ->
+        factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) -> {
+          if (WidgetRepository.class.equals(repositoryInformation.getRepositoryInterface())) {
+            proxyFactory.addAdvice(refusePrimaryWrites());
+          }
+        }));
+    }
+    return bean;
+  }
+
+  static MethodInterceptor refusePrimaryWrites() {
+    return invocation -> {
+      Method method = invocation.getMethod();
+      if (isPrimaryWrite(method)) {
+        PrimaryOnlyWrites.check(true, "WidgetRepository." + method.getName());
+      }
+      return invocation.proceed();
+    };
+  }
+
+  /**
+   * True for the save and delete methods WidgetRepository inherits from Spring Data.
+   */
+  static boolean isPrimaryWrite(Method method) {
+    String name = method.getName();
+    return method.getDeclaringClass().getName().startsWith(SPRING_DATA_PACKAGE)
+      && (name.startsWith("save") || name.startsWith("delete"));
+  }
+}
@@ -0,0 +1,18 @@
+package application.repo;
+
+import java.time.Duration;
+
+/**
+ * Outcome of a bulk upsert by natural key.
+ *
+ * @param inserted  rows that did not exist and were inserted
+ * @param updated   existing rows whose quantity or price changed
+ * @param unchanged rows that already matched and were not written
+ * @param elapsed   wall-clock time spent on the whole upsert
+ */
+public record UpsertResult(int inserted, int updated, int unchanged, Duration elapsed) {
+
+  public int total() {
+    return inserted + updated + unchanged;
+  }
+}
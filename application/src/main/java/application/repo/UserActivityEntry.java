@@ -0,0 +1,9 @@
+package application.repo;
+
+import java.time.OffsetDateTime;
+
+/**
+ * One change made by a user, as listed by a per-user activity query.
+ */
+public record UserActivityEntry(long auditId, String operation, Long widgetId, OffsetDateTime changedAt) {
+}
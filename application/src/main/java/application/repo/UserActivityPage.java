@@ -0,0 +1,15 @@
+package application.repo;
+
+import java.util.List;
+
+/**
+ * One page of a user's activity, newest first.
+ *
+ * @param nextCursor opaque token for the following page, or null on the last page
+ */
+public record UserActivityPage(List<UserActivityEntry> entries, String nextCursor) {
+
+  public boolean hasNext() {
+    return nextCursor != null;
+  }
+}
@@ -0,0 +1,17 @@
+package application.repo;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Aggregated activity of one user since a point in time.
+ *
+ * @param widgetsTouched estimated from HyperLogLog sketches, see {@link WidgetIdSketch}
+ * @param firstChangeAt  null when the user made no changes in the window
+ */
+public record UserActivitySummary(String username, long inserts, long updates, long deletes, long widgetsTouched,
+                                  OffsetDateTime firstChangeAt, OffsetDateTime lastChangeAt) {
+
+  public long totalChanges() {
+    return inserts + updates + deletes;
+  }
+}
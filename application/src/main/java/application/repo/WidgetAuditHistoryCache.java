@@ -0,0 +1,191 @@
+package application.repo;
+
+import application.model.WidgetAudit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded per-widget cache of audit history in front of
+ * {@link WidgetAuditRepository#findByWidgetIdOrderByChangedAtDesc}.
+ *
+ * The application never updates audit rows and only ever appends them, so between deletions a
+ * cached history is never stale, only incomplete. A hit queries just the rows above the entry's
+ * audit_id high-water mark and appends them. That is safe because writes to one widget serialize on
+ * its row lock: a later commit for the same widget always draws a higher audit_id than any row
+ * already visible.
+ *
+ * Rows do get deleted: the retention purge and archival remove the oldest ones in batches. Both
+ * report each batch as an {@link AuditPurgeListener}, and the cache then drops every entry holding
+ * a row at or below the batch's highest audit_id, which costs one pass over the entries per batch.
+ * Rows changed or deleted any other way, by hand for instance, need {@link #invalidate} or
+ * {@link #clear}.
+ *
+ * Entries are evicted least-recently-used once their estimated heap weight exceeds
+ * app.audit.history-cache.max-weight-bytes.
+ */
+@Component
+public class WidgetAuditHistoryCache implements AuditPurgeListener {
+
+  public static final long DEFAULT_MAX_WEIGHT_BYTES = 64L * 1024 * 1024;
+
+  /**
+   * Same order as the repository query; audit_id breaks ties within one transaction.
+   */
+  private static final Comparator<WidgetAudit> NEWEST_FIRST = Comparator
+    .comparing(WidgetAudit::getChangedAt)
+    .thenComparing(WidgetAudit::getAuditId)
+    .reversed();
+
+  /**
+   * Rough retained size of one WidgetAudit with its boxed fields, offsets and strings (sans text).
+   */
+  private static final long ROW_OVERHEAD_BYTES = 320;
+  private static final long ENTRY_OVERHEAD_BYTES = 96;
+
+  private final WidgetAuditRepository widgetAuditRepository;
+  private final long maxWeightBytes;
+
+  private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+  private long weightBytes;
+  private long hits;
+  private long misses;
+  private long rowsLoaded;
+  private long evictions;
+
+  @Autowired
+  public WidgetAuditHistoryCache(WidgetAuditRepository widgetAuditRepository,
+                                 @Value("${app.audit.history-cache.max-weight-bytes:"
+                                   + DEFAULT_MAX_WEIGHT_BYTES + "}") long maxWeightBytes) {
+    if (maxWeightBytes <= 0) {
+      throw new IllegalArgumentException("maxWeightBytes must be positive: " + maxWeightBytes);
+    }
+    this.widgetAuditRepository = widgetAuditRepository;
+    this.maxWeightBytes = maxWeightBytes;
+  }
+
+  /**
+   * The full audit history of a widget, newest first. The returned list is unmodifiable.
+   */
+  public List<WidgetAudit> findByWidgetIdOrderByChangedAtDesc(long widgetId) {
+    Entry cached;
+    synchronized (this) {
+      cached = entries.get(widgetId);
+      if (cached == null) {
+        misses++;
+      } else {
+        hits++;
+      }
+    }
+
+    long highWater = cached == null ? 0 : cached.highWaterAuditId;
+    List<WidgetAudit> appended =
+      widgetAuditRepository.findByWidgetIdAndAuditIdGreaterThanOrderByAuditIdAsc(widgetId, highWater);
+    if (cached != null && appended.isEmpty()) {
+      return cached.newestFirst;
+    }
+
+    Entry updated = cached == null ? Entry.of(appended) : cached.append(appended);
+    synchronized (this) {
+      rowsLoaded += appended.size();
+      Entry current = entries.get(widgetId);
+      if (current != null && current.highWaterAuditId >= updated.highWaterAuditId) {
+        // a concurrent caller already stored at least as much
+        return current.newestFirst;
+      }
+      if (updated.weightBytes > maxWeightBytes) {
+        remove(widgetId);
+        return updated.newestFirst;
+      }
+      if (current != null) {
+        weightBytes -= current.weightBytes;
+      }
+      entries.put(widgetId, updated);
+      weightBytes += updated.weightBytes;
+      evictOverBudget();
+    }
+    return updated.newestFirst;
+  }
+
+  public synchronized void invalidate(long widgetId) {
+    remove(widgetId);
+  }
+
+  /**
+   * Drop the histories that may hold a purged row.
+   */
+  @Override
+  public synchronized void auditRowsPurged(long throughAuditId) {
+    Iterator<Map.Entry<Long, Entry>> iterator = entries.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Entry entry = iterator.next().getValue();
+      if (entry.lowestAuditId <= throughAuditId) {
+        weightBytes -= entry.weightBytes;
+        iterator.remove();
+      }
+    }
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+    weightBytes = 0;
+  }
+
+  public synchronized HistoryCacheStats stats() {
+    return new HistoryCacheStats(entries.size(), weightBytes, maxWeightBytes, hits, misses, rowsLoaded, evictions);
+  }
+
+  private void remove(long widgetId) {
+    Entry removed = entries.remove(widgetId);
+    if (removed != null) {
+      weightBytes -= removed.weightBytes;
+    }
+  }
+
+  private void evictOverBudget() {
+    Iterator<Map.Entry<Long, Entry>> eldestFirst = entries.entrySet().iterator();
+    while (weightBytes > maxWeightBytes && eldestFirst.hasNext()) {
+      weightBytes -= eldestFirst.next().getValue().weightBytes;
+      eldestFirst.remove();
+      evictions++;
+    }
+  }
+
+  static long weigh(WidgetAudit row) {
+    String name = row.getName();
+    String changedBy = row.getChangedBy();
+    return ROW_OVERHEAD_BYTES
+      + (name == null ? 0 : name.length() * 2L)
+      + (changedBy == null ? 0 : changedBy.length() * 2L);
+  }
+
+  private record Entry(List<WidgetAudit> newestFirst, long lowestAuditId, long highWaterAuditId, long weightBytes) {
+
+    static Entry of(List<WidgetAudit> ascending) {
+      return new Entry(List.of(), Long.MAX_VALUE, 0, ENTRY_OVERHEAD_BYTES).append(ascending);
+    }
+
+    Entry append(List<WidgetAudit> ascending) {
+      List<WidgetAudit> merged = new ArrayList<>(newestFirst.size() + ascending.size());
+      merged.addAll(newestFirst);
+      merged.addAll(ascending);
+      merged.sort(NEWEST_FIRST);
+      long weight = weightBytes;
+      long lowest = lowestAuditId;
+      long highWater = highWaterAuditId;
+      for (WidgetAudit row : ascending) {
+        weight += weigh(row);
+        lowest = Math.min(lowest, row.getAuditId());
+        highWater = Math.max(highWater, row.getAuditId());
+      }
+      return new Entry(List.copyOf(merged), lowest, highWater, weight);
+    }
+  }
+}
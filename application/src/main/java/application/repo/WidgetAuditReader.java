@@ -0,0 +1,113 @@
+package application.repo;
+
+import application.model.AuditOperation;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Lightweight bulk read path for widgets_audit.
+ *
+ * Rows are mapped straight from the JDBC cursor into {@link AuditRow} records and handed to the
+ * caller one at a time, so no entity, persistence-context entry or result list is retained.
+ * Methods are transactional because PostgreSQL only honours the fetch size (a server-side cursor)
+ * when autocommit is off.
+ */
+@Repository
+public class WidgetAuditReader {
+
+  public static final String SELECT_AUDIT_ROWS =
+    "SELECT a.audit_id, a.operation, a.widget_id, a.name, a.created_at, a.quantity, a.price, "
+      + "a.changed_at, u.username, a.old_quantity, a.old_price, "
+      + "a.changed_by_id, a.prev_hash, a.row_hash "
+      + "FROM public.widgets_audit a LEFT JOIN public.audit_users u ON u.user_id = a.changed_by_id ";
+
+  public static final RowMapper<AuditRow> AUDIT_ROW_MAPPER = WidgetAuditReader::mapRow;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public WidgetAuditReader(DataSource dataSource) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.jdbcTemplate.setFetchSize(Integer.parseInt(WidgetAuditRepository.FETCH_SIZE));
+  }
+
+  /**
+   * Stream every audit row changed after the given instant, in audit_id order.
+   */
+  @Transactional(readOnly = true)
+  public void forEachChangedAfter(OffsetDateTime changedAt, Consumer<AuditRow> consumer) {
+    jdbcTemplate.query(SELECT_AUDIT_ROWS + "WHERE a.changed_at > ? ORDER BY a.audit_id",
+      (RowCallbackHandler) rs -> consumer.accept(mapRow(rs, 0)), changedAt);
+  }
+
+  /**
+   * Stream audit rows with fromExclusive &lt; audit_id &lt;= toInclusive, in audit_id order.
+   */
+  @Transactional(readOnly = true)
+  public void forEachInAuditIdRange(long fromExclusive, long toInclusive, Consumer<AuditRow> consumer) {
+    jdbcTemplate.query(SELECT_AUDIT_ROWS + "WHERE a.audit_id > ? AND a.audit_id <= ? ORDER BY a.audit_id",
+      (RowCallbackHandler) rs -> consumer.accept(mapRow(rs, 0)), fromExclusive, toInclusive);
+  }
+
+  /**
+   * Bulk-maintenance summaries with summary_id &gt; fromExclusive, in summary_id order.
+   */
+  @Transactional(readOnly = true)
+  public List<BulkAuditSummary> findBulkSummariesAfter(long fromExclusive) {
+    return jdbcTemplate.query(
+      "SELECT s.summary_id, s.txid, s.changed_at, u.username, s.reason, s.inserted, s.updated, s.deleted, "
+        + "s.statements, "
+        + "ARRAY(SELECT lower(r) FROM unnest(s.widget_ids) r ORDER BY lower(r)), "
+        + "ARRAY(SELECT upper(r) FROM unnest(s.widget_ids) r ORDER BY lower(r)) "
+        + "FROM public.widgets_audit_bulk_summary s "
+        + "JOIN public.audit_users u ON u.user_id = s.changed_by_id "
+        + "WHERE s.summary_id > ? ORDER BY s.summary_id",
+      (rs, rowNum) -> {
+        Long[] lower = (Long[]) rs.getArray(10).getArray();
+        Long[] upper = (Long[]) rs.getArray(11).getArray();
+        List<BulkAuditSummary.IdRange> ranges = new ArrayList<>(lower.length);
+        for (int i = 0; i < lower.length; i++) {
+          ranges.add(new BulkAuditSummary.IdRange(lower[i], upper[i]));
+        }
+        return new BulkAuditSummary(rs.getLong(1), rs.getLong(2), rs.getObject(3, OffsetDateTime.class),
+          rs.getString(4), rs.getString(5), rs.getLong(6), rs.getLong(7), rs.getLong(8),
+          List.of((String[]) rs.getArray(9).getArray()), List.copyOf(ranges));
+      }, fromExclusive);
+  }
+
+  static AuditRow mapRow(ResultSet rs, int rowNum) throws SQLException {
+    long widgetId = rs.getLong(3);
+    Long boxedWidgetId = rs.wasNull() ? null : widgetId;
+    int quantity = rs.getInt(6);
+    Integer boxedQuantity = rs.wasNull() ? null : quantity;
+    int oldQuantity = rs.getInt(10);
+    Integer boxedOldQuantity = rs.wasNull() ? null : oldQuantity;
+    int changedById = rs.getInt(12);
+    Integer boxedChangedById = rs.wasNull() ? null : changedById;
+    return new AuditRow(
+      rs.getLong(1),
+      AuditOperation.fromCode(rs.getString(2).charAt(0)).name(),
+      boxedWidgetId,
+      rs.getString(4),
+      rs.getObject(5, OffsetDateTime.class),
+      boxedQuantity,
+      rs.getBigDecimal(7),
+      rs.getObject(8, OffsetDateTime.class),
+      rs.getString(9),
+      boxedOldQuantity,
+      rs.getBigDecimal(11),
+      boxedChangedById,
+      rs.getBytes(13),
+      rs.getBytes(14));
+  }
+}
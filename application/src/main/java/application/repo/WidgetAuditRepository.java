@@ -1,23 +1,72 @@
 package application.repo;
 
 import application.model.WidgetAudit;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.time.OffsetDateTime;
 import java.util.List;
 
-public interface WidgetAuditRepository extends JpaRepository<WidgetAudit, Long> {
+/**
+ * Audit rows are immutable, so every finder is read-only: Hibernate skips the dirty-checking
+ * snapshot for returned entities and fetches in larger JDBC batches.
+ */
+public interface WidgetAuditRepository extends JpaRepository<WidgetAudit, Long>, AuditActivityOperations {
 
+  String FETCH_SIZE = "500";
+
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE)
+  })
   List<WidgetAudit> findByWidgetIdOrderByChangedAtDesc(Long widgetId);
 
+  /**
+   * The rows of one widget's history appended after the given audit_id. Serves incremental
+   * top-ups of {@link WidgetAuditHistoryCache} from idx_widgets_audit_widget_audit_id.
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE)
+  })
+  List<WidgetAudit> findByWidgetIdAndAuditIdGreaterThanOrderByAuditIdAsc(Long widgetId, Long auditId);
+
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE)
+  })
   List<WidgetAudit> findByOperationOrderByChangedAtDesc(String operation);
 
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE)
+  })
   List<WidgetAudit> findByChangedAtAfterOrderByChangedAtDesc(OffsetDateTime changedAt);
 
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE)
+  })
   @Query("SELECT wa FROM WidgetAudit wa WHERE wa.widgetId = ?1 AND wa.operation = ?2 ORDER BY wa.changedAt DESC")
   List<WidgetAudit> findByWidgetIdAndOperation(Long widgetId, String operation);
 
   long countByOperation(String operation);
-}
 
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE))
+  @Query("SELECT new application.repo.AuditEntrySummary(wa.auditId, wa.operation, wa.changedAt, wa.changedBy) "
+    + "FROM WidgetAudit wa WHERE wa.widgetId = ?1 ORDER BY wa.changedAt DESC")
+  List<AuditEntrySummary> findSummariesByWidgetId(Long widgetId);
+
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE))
+  @Query("SELECT new application.repo.AuditEntrySummary(wa.auditId, wa.operation, wa.changedAt, wa.changedBy) "
+    + "FROM WidgetAudit wa WHERE wa.operation = ?1 ORDER BY wa.changedAt DESC")
+  List<AuditEntrySummary> findSummariesByOperation(String operation);
+
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE))
+  @Query("SELECT new application.repo.AuditEntrySummary(wa.auditId, wa.operation, wa.changedAt, wa.changedBy) "
+    + "FROM WidgetAudit wa WHERE wa.changedAt > ?1 ORDER BY wa.changedAt DESC")
+  List<AuditEntrySummary> findSummariesByChangedAtAfter(OffsetDateTime changedAt);
+}
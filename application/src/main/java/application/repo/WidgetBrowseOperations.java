@@ -0,0 +1,22 @@
+package application.repo;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * Seek-based (keyset) browsing of the widget catalog.
+ *
+ * Unlike offset paging, each page starts from the position encoded in the previous page's
+ * cursor, so fetching page 10,000 costs the same index range scan as fetching page 1.
+ */
+public interface WidgetBrowseOperations {
+
+  int MAX_PAGE_SIZE = 1_000;
+
+  /**
+   * Fetch one page of widgets ordered by {@code sortKey}, then id, in the given direction.
+   *
+   * @param cursor   null for the first page, otherwise {@link WidgetPage#nextCursor()} of the previous page
+   * @param pageSize number of widgets per page, at most {@link #MAX_PAGE_SIZE}
+   */
+  WidgetPage browse(WidgetSortKey sortKey, Sort.Direction direction, String cursor, int pageSize);
+}
@@ -0,0 +1,58 @@
+package application.repo;
+
+import application.model.Widget;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Native implementation of {@link WidgetBrowseOperations} using row-value comparison,
+ * which PostgreSQL turns into a single range condition on the (column, id) index.
+ */
+class WidgetBrowseOperationsImpl implements WidgetBrowseOperations {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  @Transactional(readOnly = true)
+  @SuppressWarnings("unchecked")
+  public WidgetPage browse(WidgetSortKey sortKey, Sort.Direction direction, String cursor, int pageSize) {
+    if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+      throw new IllegalArgumentException("pageSize must be between 1 and " + MAX_PAGE_SIZE + ": " + pageSize);
+    }
+    String column = sortKey.column();
+    String order = direction.isAscending() ? "ASC" : "DESC";
+    BrowseCursor after = cursor == null ? null : BrowseCursor.decode(cursor, sortKey, direction);
+
+    StringBuilder sql = new StringBuilder("SELECT * FROM public.widgets ");
+    if (after != null) {
+      sql.append("WHERE (").append(column).append(", id) ")
+         .append(direction.isAscending() ? '>' : '<')
+         .append(" (:value, :id) ");
+    }
+    sql.append("ORDER BY ").append(column).append(' ').append(order)
+       .append(", id ").append(order)
+       .append(" LIMIT :limit");
+
+    Query query = entityManager.createNativeQuery(sql.toString(), Widget.class)
+                               .setParameter("limit", pageSize + 1);
+    if (after != null) {
+      query.setParameter("value", sortKey.parse(after.value()))
+           .setParameter("id", after.id());
+    }
+    List<Widget> widgets = query.getResultList();
+
+    if (widgets.size() <= pageSize) {
+      return new WidgetPage(widgets, null);
+    }
+    List<Widget> page = widgets.subList(0, pageSize);
+    Widget last = page.get(pageSize - 1);
+    String next = new BrowseCursor(sortKey, direction, last.getId(), sortKey.format(last)).encode();
+    return new WidgetPage(List.copyOf(page), next);
+  }
+}
@@ -0,0 +1,71 @@
+package application.repo;
+
+import java.math.BigDecimal;
+
+/**
+ * Set-based bulk mutations on the widgets table.
+ *
+ * Each operation runs one UPDATE or DELETE statement per id-range chunk, and each chunk commits
+ * in its own transaction. This keeps row locks and WAL bursts bounded by the chunk size. The
+ * audit trigger still fires for every affected row, attributed to the current AuditContext user.
+ * A failure leaves previously committed chunks in place; the overloads taking an id range can
+ * limit an operation to part of the table, e.g. to finish a failed run. Not available in sharded
+ * mode, where the chunks would only cover the primary database.
+ */
+public interface WidgetBulkOperations {
+
+  int DEFAULT_CHUNK_SIZE = 10_000;
+
+  /**
+   * Multiply every widget price by (1 + percent / 100), rounded to cents.
+   * Rows whose rounded price would not change are left untouched. A change that would take the
+   * highest or lowest price past NUMERIC(10, 2) is rejected before any chunk runs.
+   *
+   * @param percent   percentage change, e.g. 5 for +5% or -10 for -10%
+   * @param chunkSize width of each id-range chunk
+   * @param listener  progress callback, invoked after each chunk commits
+   * @return the number of rows changed and the time taken
+   * @throws IllegalArgumentException if percent is null or a repriced price would overflow
+   */
+  BulkMutationResult repriceByPercent(BigDecimal percent, int chunkSize, BulkProgressListener listener);
+
+  /**
+   * {@link #repriceByPercent(BigDecimal, int, BulkProgressListener)} for widgets with ids from
+   * {@code firstId} to {@code lastId}, inclusive.
+   */
+  BulkMutationResult repriceByPercent(BigDecimal percent, long firstId, long lastId, int chunkSize,
+                                      BulkProgressListener listener);
+
+  /**
+   * Add {@code amount} to the quantity of every widget whose quantity is below {@code threshold}.
+   *
+   * @param threshold exclusive quantity threshold
+   * @param amount    quantity to add
+   * @param chunkSize width of each id-range chunk
+   * @param listener  progress callback, invoked after each chunk commits
+   * @return the number of rows changed and the time taken
+   */
+  BulkMutationResult restockBelow(int threshold, int amount, int chunkSize, BulkProgressListener listener);
+
+  /**
+   * {@link #restockBelow(int, int, int, BulkProgressListener)} for widgets with ids from
+   * {@code firstId} to {@code lastId}, inclusive.
+   */
+  BulkMutationResult restockBelow(int threshold, int amount, long firstId, long lastId, int chunkSize,
+                                  BulkProgressListener listener);
+
+  /**
+   * Delete every widget with zero quantity.
+   *
+   * @param chunkSize width of each id-range chunk
+   * @param listener  progress callback, invoked after each chunk commits
+   * @return the number of rows deleted and the time taken
+   */
+  BulkMutationResult purgeOutOfStock(int chunkSize, BulkProgressListener listener);
+
+  /**
+   * {@link #purgeOutOfStock(int, BulkProgressListener)} for widgets with ids from {@code firstId}
+   * to {@code lastId}, inclusive.
+   */
+  BulkMutationResult purgeOutOfStock(long firstId, long lastId, int chunkSize, BulkProgressListener listener);
+}
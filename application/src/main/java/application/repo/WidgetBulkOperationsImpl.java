@@ -0,0 +1,156 @@
+package application.repo;
+
+import application.audit.AuditContextAspect;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Chunked implementation of {@link WidgetBulkOperations}.
+ *
+ * The id range [min(id), max(id)] is walked in fixed-width chunks. Every chunk runs in a new
+ * transaction that first sets 'app.current_user', so the audit trigger attributes each row
+ * to the caller's AuditContext user exactly as a repository save would.
+ */
+class WidgetBulkOperationsImpl implements WidgetBulkOperations {
+
+  private static final BigDecimal ONE_HUNDRED = BigDecimal.valueOf(100);
+  /** Largest value of the NUMERIC(10, 2) price column. */
+  private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  private final TransactionTemplate chunkTransaction;
+  private final boolean sharded;
+
+  WidgetBulkOperationsImpl(PlatformTransactionManager transactionManager,
+                           @Value(PrimaryOnlyWrites.SHARDED) boolean sharded) {
+    this.chunkTransaction = new TransactionTemplate(transactionManager);
+    this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.sharded = sharded;
+  }
+
+  @Override
+  public BulkMutationResult repriceByPercent(BigDecimal percent, int chunkSize, BulkProgressListener listener) {
+    return repriceByPercent(percent, Long.MIN_VALUE, Long.MAX_VALUE, chunkSize, listener);
+  }
+
+  @Override
+  public BulkMutationResult repriceByPercent(BigDecimal percent, long firstId, long lastId, int chunkSize,
+                                             BulkProgressListener listener) {
+    if (percent == null) {
+      throw new IllegalArgumentException("percent is required");
+    }
+    BigDecimal factor = BigDecimal.ONE.add(percent.divide(ONE_HUNDRED, MathContext.DECIMAL64));
+    checkRepricedRange(factor, percent, firstId, lastId);
+    return runChunked(
+      "UPDATE public.widgets SET price = round(price * :factor, 2) "
+        + "WHERE id BETWEEN :lo AND :hi AND round(price * :factor, 2) <> price",
+      Map.of("factor", factor), firstId, lastId, chunkSize, listener);
+  }
+
+  @Override
+  public BulkMutationResult restockBelow(int threshold, int amount, int chunkSize, BulkProgressListener listener) {
+    return restockBelow(threshold, amount, Long.MIN_VALUE, Long.MAX_VALUE, chunkSize, listener);
+  }
+
+  @Override
+  public BulkMutationResult restockBelow(int threshold, int amount, long firstId, long lastId, int chunkSize,
+                                         BulkProgressListener listener) {
+    if (amount == 0) {
+      return new BulkMutationResult(0, 0, Duration.ZERO);
+    }
+    return runChunked(
+      "UPDATE public.widgets SET quantity = quantity + :amount "
+        + "WHERE id BETWEEN :lo AND :hi AND quantity < :threshold",
+      Map.of("amount", amount, "threshold", threshold), firstId, lastId, chunkSize, listener);
+  }
+
+  @Override
+  public BulkMutationResult purgeOutOfStock(int chunkSize, BulkProgressListener listener) {
+    return purgeOutOfStock(Long.MIN_VALUE, Long.MAX_VALUE, chunkSize, listener);
+  }
+
+  @Override
+  public BulkMutationResult purgeOutOfStock(long firstId, long lastId, int chunkSize, BulkProgressListener listener) {
+    return runChunked(
+      "DELETE FROM public.widgets WHERE id BETWEEN :lo AND :hi AND quantity = 0",
+      Map.of(), firstId, lastId, chunkSize, listener);
+  }
+
+  /**
+   * Fail before the first chunk rather than on a numeric overflow partway through the run.
+   * The rounding matches round(numeric, 2), which rounds half away from zero.
+   */
+  private void checkRepricedRange(BigDecimal factor, BigDecimal percent, long firstId, long lastId) {
+    Object[] prices = chunkTransaction.execute(status -> (Object[]) entityManager.createNativeQuery(
+        "SELECT max(price), min(price) FROM public.widgets WHERE id BETWEEN :first AND :last")
+      .setParameter("first", firstId)
+      .setParameter("last", lastId)
+      .getSingleResult());
+    for (Object price : prices == null ? new Object[0] : prices) {
+      if (price != null) {
+        BigDecimal repriced = ((BigDecimal) price).multiply(factor).setScale(2, RoundingMode.HALF_UP);
+        if (repriced.abs().compareTo(MAX_PRICE) > 0) {
+          throw new IllegalArgumentException("Repricing by " + percent + "% would take the price " + price
+            + " to " + repriced + ", beyond " + MAX_PRICE);
+        }
+      }
+    }
+  }
+
+  private BulkMutationResult runChunked(String sql, Map<String, Object> params, long firstId, long lastId,
+                                        int chunkSize, BulkProgressListener listener) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+    PrimaryOnlyWrites.check(sharded, "Bulk widget maintenance");
+    long started = System.nanoTime();
+
+    Object[] bounds = chunkTransaction.execute(status -> (Object[]) entityManager.createNativeQuery(
+        "SELECT min(id), max(id) FROM public.widgets WHERE id BETWEEN :first AND :last")
+      .setParameter("first", firstId)
+      .setParameter("last", lastId)
+      .getSingleResult());
+    if (bounds == null || bounds[0] == null) {
+      return new BulkMutationResult(0, 0, Duration.ofNanos(System.nanoTime() - started));
+    }
+    long minId = ((Number) bounds[0]).longValue();
+    long maxId = ((Number) bounds[1]).longValue();
+    int chunksTotal = (int) Math.min(Integer.MAX_VALUE, (maxId - minId) / chunkSize + 1);
+
+    long totalRows = 0;
+    int chunksDone = 0;
+    for (long lo = minId; lo <= maxId; lo += chunkSize) {
+      long hi = Math.min(maxId, lo + chunkSize - 1);
+      long chunkLo = lo;
+      Integer chunkRows = chunkTransaction.execute(status -> {
+        AuditContextAspect.applySessionSettings(entityManager);
+        Query query = entityManager.createNativeQuery(sql)
+                                   .setParameter("lo", chunkLo)
+                                   .setParameter("hi", hi);
+        params.forEach(query::setParameter);
+        return query.executeUpdate();
+      });
+      int rows = chunkRows == null ? 0 : chunkRows;
+      totalRows += rows;
+      chunksDone++;
+      listener.onChunk(new BulkProgress(chunkLo, hi, rows, totalRows, chunksDone, chunksTotal));
+      if (hi == maxId) {
+        break;
+      }
+    }
+    return new BulkMutationResult(totalRows, chunksDone, Duration.ofNanos(System.nanoTime() - started));
+  }
+}
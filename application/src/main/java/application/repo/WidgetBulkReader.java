@@ -0,0 +1,82 @@
+package application.repo;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.util.function.Consumer;
+
+/**
+ * Allocation-light full scan of the widgets table.
+ *
+ * Rows are read from a server-side cursor that fetches one batch per round trip and copied
+ * into a single reusable {@link WidgetColumnBatch}. Price and creation time are converted to cents and epoch
+ * microseconds in SQL, so the JDBC driver parses them straight into primitives.
+ */
+@Repository
+public class WidgetBulkReader {
+
+  public static final int DEFAULT_BATCH_SIZE = 4_096;
+
+  private static final String SELECT_COLUMNS =
+    "SELECT id, (price * 100)::BIGINT, quantity, (extract(epoch FROM created_at) * 1000000)::BIGINT";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public WidgetBulkReader(DataSource dataSource) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  /**
+   * Stream every widget, in id order, through one reusable batch.
+   * The consumer must not retain the batch or its arrays; they are overwritten by the next batch.
+   *
+   * @param batchSize rows per batch handed to the consumer
+   * @param withNames whether to read names; skipping them avoids the only per-row allocation
+   * @param consumer  invoked once per filled batch and once for the final partial batch
+   * @return the number of rows read
+   */
+  @Transactional(readOnly = true)
+  public long forEachBatch(int batchSize, boolean withNames, Consumer<WidgetColumnBatch> consumer) {
+    return scan(batchSize, withNames, "", consumer);
+  }
+
+  /**
+   * Stream the widgets with fromInclusive &lt;= id &lt; toExclusive, in id order, like {@link #forEachBatch}.
+   */
+  @Transactional(readOnly = true)
+  public long forEachBatchInIdRange(long fromInclusive, long toExclusive, int batchSize, boolean withNames,
+                                    Consumer<WidgetColumnBatch> consumer) {
+    return scan(batchSize, withNames, " WHERE id >= ? AND id < ?", consumer, fromInclusive, toExclusive);
+  }
+
+  private long scan(int batchSize, boolean withNames, String where, Consumer<WidgetColumnBatch> consumer,
+                    Object... args) {
+    WidgetColumnBatch batch = new WidgetColumnBatch(batchSize);
+    long[] rows = new long[1];
+    String sql = SELECT_COLUMNS + (withNames ? ", name" : "") + " FROM public.widgets" + where + " ORDER BY id";
+    jdbcTemplate.query(connection -> {
+      PreparedStatement statement = connection.prepareStatement(sql);
+      statement.setFetchSize(batchSize);
+      for (int i = 0; i < args.length; i++) {
+        statement.setObject(i + 1, args[i]);
+      }
+      return statement;
+    }, (RowCallbackHandler) rs -> {
+      batch.add(rs.getLong(1), rs.getLong(2), rs.getInt(3), rs.getLong(4), withNames ? rs.getString(5) : null);
+      rows[0]++;
+      if (batch.isFull()) {
+        consumer.accept(batch);
+        batch.clear();
+      }
+    });
+    if (batch.size() > 0) {
+      consumer.accept(batch);
+      batch.clear();
+    }
+    return rows[0];
+  }
+}
@@ -0,0 +1,99 @@
+package application.repo;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+
+/**
+ * Reusable columnar batch of widget rows held in primitive arrays.
+ *
+ * Prices are whole cents and creation times are microseconds since the epoch, so reading a
+ * batch allocates no BigDecimal, OffsetDateTime or boxed Integer. The backing arrays are
+ * exposed directly and are only valid for indexes below {@link #size()} until the batch is
+ * refilled. Names are the driver's own String instances; they are unique per widget, so there
+ * is nothing to share between rows, and callers that do not need them should not read them.
+ */
+public final class WidgetColumnBatch {
+
+  private final long[] id;
+  private final long[] priceCents;
+  private final int[] quantity;
+  private final long[] createdAtMicros;
+  private final String[] name;
+  private int size;
+
+  public WidgetColumnBatch(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.id = new long[capacity];
+    this.priceCents = new long[capacity];
+    this.quantity = new int[capacity];
+    this.createdAtMicros = new long[capacity];
+    this.name = new String[capacity];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int capacity() {
+    return id.length;
+  }
+
+  public boolean isFull() {
+    return size == id.length;
+  }
+
+  public long[] id() {
+    return id;
+  }
+
+  public long[] priceCents() {
+    return priceCents;
+  }
+
+  public int[] quantity() {
+    return quantity;
+  }
+
+  public long[] createdAtMicros() {
+    return createdAtMicros;
+  }
+
+  public String[] name() {
+    return name;
+  }
+
+  /**
+   * Append one row. The caller must check {@link #isFull()} first.
+   *
+   * @param widgetName widget name, or null when names were not requested
+   */
+  public void add(long widgetId, long widgetPriceCents, int widgetQuantity, long widgetCreatedAtMicros,
+                  String widgetName) {
+    id[size] = widgetId;
+    priceCents[size] = widgetPriceCents;
+    quantity[size] = widgetQuantity;
+    createdAtMicros[size] = widgetCreatedAtMicros;
+    name[size] = widgetName;
+    size++;
+  }
+
+  public void clear() {
+    Arrays.fill(name, 0, size, null);
+    size = 0;
+  }
+
+  public static long toCents(BigDecimal price) {
+    return price.movePointRight(2).longValueExact();
+  }
+
+  public static BigDecimal fromCents(long cents) {
+    return BigDecimal.valueOf(cents, 2);
+  }
+
+  public static long toEpochMicros(OffsetDateTime time) {
+    return Math.addExact(Math.multiplyExact(time.toEpochSecond(), 1_000_000L), time.getNano() / 1_000);
+  }
+}
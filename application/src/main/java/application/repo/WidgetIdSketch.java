@@ -0,0 +1,108 @@
+package application.repo;
+
+import java.nio.ByteBuffer;
+
+/**
+ * HyperLogLog sketch of a set of widget ids, as kept per user and day in widgets_audit_user_daily.
+ * Sketches merge by taking the larger register, so distinct widgets over many days can be estimated
+ * from the day rows alone. 2,048 registers give a standard error of about 2%; small sets are counted
+ * almost exactly. Stored as 3 bytes per register in use while that is smaller than the 2,048 registers.
+ */
+public final class WidgetIdSketch {
+
+  static final int PRECISION = 11;
+  static final int REGISTERS = 1 << PRECISION;
+
+  private static final int SPARSE_ENTRY_BYTES = 3;
+
+  private final byte[] registers = new byte[REGISTERS];
+
+  public void add(long widgetId) {
+    long hash = mix(widgetId);
+    int index = (int) (hash >>> (Long.SIZE - PRECISION));
+    // The low bit set below the shifted hash caps the rank at 64 - PRECISION + 1
+    byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+    if (registers[index] < rank) {
+      registers[index] = rank;
+    }
+  }
+
+  public void merge(WidgetIdSketch other) {
+    for (int i = 0; i < REGISTERS; i++) {
+      if (registers[i] < other.registers[i]) {
+        registers[i] = other.registers[i];
+      }
+    }
+  }
+
+  /**
+   * Estimated number of distinct widget ids added, with linear counting for small sets.
+   */
+  public long estimate() {
+    double sum = 0;
+    int zeros = 0;
+    for (byte register : registers) {
+      sum += 1.0 / (1L << register);
+      if (register == 0) {
+        zeros++;
+      }
+    }
+    double estimate = 0.7213 / (1 + 1.079 / REGISTERS) * REGISTERS * REGISTERS / sum;
+    if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+      estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  public byte[] toBytes() {
+    int used = 0;
+    for (byte register : registers) {
+      if (register != 0) {
+        used++;
+      }
+    }
+    if (used * SPARSE_ENTRY_BYTES >= REGISTERS) {
+      return registers.clone();
+    }
+    ByteBuffer sparse = ByteBuffer.allocate(used * SPARSE_ENTRY_BYTES);
+    for (int i = 0; i < REGISTERS; i++) {
+      if (registers[i] != 0) {
+        sparse.putShort((short) i).put(registers[i]);
+      }
+    }
+    return sparse.array();
+  }
+
+  /**
+   * @throws IllegalArgumentException if the bytes are not a sketch written by {@link #toBytes()}
+   */
+  public static WidgetIdSketch fromBytes(byte[] bytes) {
+    WidgetIdSketch sketch = new WidgetIdSketch();
+    if (bytes.length == REGISTERS) {
+      System.arraycopy(bytes, 0, sketch.registers, 0, REGISTERS);
+      return sketch;
+    }
+    if (bytes.length % SPARSE_ENTRY_BYTES != 0) {
+      throw new IllegalArgumentException("Not a widget id sketch: " + bytes.length + " bytes");
+    }
+    ByteBuffer sparse = ByteBuffer.wrap(bytes);
+    while (sparse.hasRemaining()) {
+      int index = sparse.getShort();
+      if (index < 0 || index >= REGISTERS) {
+        throw new IllegalArgumentException("Not a widget id sketch: register " + index);
+      }
+      sketch.registers[index] = sparse.get();
+    }
+    return sketch;
+  }
+
+  /**
+   * SplitMix64 finalizer: widget ids are sequential, and the register index comes from the top bits.
+   */
+  private static long mix(long value) {
+    long z = value + 0x9e3779b97f4a7c15L;
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,18 @@
+package application.repo;
+
+import application.model.Widget;
+
+import java.util.List;
+
+/**
+ * One page of a keyset browse.
+ *
+ * @param widgets    widgets on this page, in browse order
+ * @param nextCursor opaque token for the following page, or null on the last page
+ */
+public record WidgetPage(List<Widget> widgets, String nextCursor) {
+
+  public boolean hasNext() {
+    return nextCursor != null;
+  }
+}
@@ -3,6 +3,10 @@ package application.repo;
 import application.model.Widget;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface WidgetRepository extends JpaRepository<Widget, Long> {
-}
+import java.util.Optional;
+
+public interface WidgetRepository extends JpaRepository<Widget, Long>, WidgetBulkOperations,
+  WidgetSearchOperations, WidgetBrowseOperations, WidgetUpsertOperations, WidgetStatelessOperations {
 
+  Optional<Widget> findByName(String name);
+}
@@ -0,0 +1,11 @@
+package application.repo;
+
+import java.math.BigDecimal;
+
+/**
+ * One ranked result of a widget name search.
+ *
+ * @param score trigram similarity between the query and the name, from 0 to 1
+ */
+public record WidgetSearchHit(Long id, String name, Integer quantity, BigDecimal price, double score) {
+}
@@ -0,0 +1,34 @@
+package application.repo;
+
+import java.util.List;
+
+/**
+ * Case-insensitive name search over widgets. Every search returns at most {@code limit} hits, and
+ * each hit carries its trigram similarity to the search text.
+ */
+public interface WidgetSearchOperations {
+
+  int MAX_SEARCH_LIMIT = 1_000;
+
+  /**
+   * Widgets whose name contains the fragment, most similar first. Served by the pg_trgm GIN index,
+   * which needs at least one whole trigram: fragments shorter than 3 characters cannot use it. Only
+   * the first 2,000 matches found are ranked, so for very common fragments the page holds the best of
+   * those rather than of every match; lookups stay bounded however many widgets match.
+   */
+  List<WidgetSearchHit> searchByNameContaining(String fragment, int limit);
+
+  /**
+   * Widgets whose name starts with the prefix, in name order. Served by the text_pattern_ops
+   * index on lower(name), so prefixes of any length are a single index range.
+   */
+  List<WidgetSearchHit> searchByNamePrefix(String prefix, int limit);
+
+  /**
+   * Widgets whose name is similar to the query, tolerating typos, best match first. Only names
+   * above the threshold are ranked, which the trigram index finds without scoring the rest.
+   *
+   * @param minSimilarity trigram similarity threshold between 0 and 1 (pg_trgm's default is 0.3)
+   */
+  List<WidgetSearchHit> searchByNameSimilarTo(String query, double minSimilarity, int limit);
+}
@@ -0,0 +1,100 @@
+package application.repo;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Native implementation of {@link WidgetSearchOperations} over the pg_trgm GIN index and the
+ * text_pattern_ops btree on lower(name).
+ */
+class WidgetSearchOperationsImpl implements WidgetSearchOperations {
+
+  private static final String SELECT_HITS =
+    "SELECT id, name, quantity, price, similarity(name, :query) AS score FROM public.widgets ";
+
+  /**
+   * Substring matches ranked per search. Past this many, the page is the best of the first ones found.
+   */
+  static final int CONTAINING_CANDIDATES = 2 * MAX_SEARCH_LIMIT;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<WidgetSearchHit> searchByNameContaining(String fragment, int limit) {
+    // Ranking every match would fetch and score all of them; the inner LIMIT stops the heap scan early instead
+    return search("SELECT * FROM (" + SELECT_HITS + "WHERE name ILIKE :pattern ESCAPE '!' LIMIT "
+        + CONTAINING_CANDIDATES + ") candidates ORDER BY score DESC, id LIMIT :limit",
+      fragment, "%" + escapeLike(fragment) + "%", limit);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<WidgetSearchHit> searchByNamePrefix(String prefix, int limit) {
+    // Matches the text_pattern_ops index on lower(name), which serves both the range and the order
+    return search(SELECT_HITS + "WHERE lower(name) LIKE lower(:pattern) ESCAPE '!' "
+        + "ORDER BY lower(name) USING ~<~, id LIMIT :limit",
+      prefix, escapeLike(prefix) + "%", limit);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<WidgetSearchHit> searchByNameSimilarTo(String query, double minSimilarity, int limit) {
+    if (minSimilarity < 0 || minSimilarity > 1) {
+      throw new IllegalArgumentException("minSimilarity must be between 0 and 1: " + minSimilarity);
+    }
+    // The % operator reads its threshold from a setting, scoped here to the current transaction
+    entityManager.createNativeQuery("SELECT set_config('pg_trgm.similarity_threshold', :threshold, true)")
+                 .setParameter("threshold", Double.toString(minSimilarity))
+                 .getSingleResult();
+    return search(SELECT_HITS + "WHERE name % :pattern ORDER BY score DESC, id LIMIT :limit",
+      query, query, limit);
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<WidgetSearchHit> search(String sql, String query, String pattern, int limit) {
+    if (query == null || query.isEmpty()) {
+      throw new IllegalArgumentException("Search text must not be empty");
+    }
+    if (limit <= 0 || limit > MAX_SEARCH_LIMIT) {
+      throw new IllegalArgumentException("limit must be between 1 and " + MAX_SEARCH_LIMIT + ": " + limit);
+    }
+    List<Object[]> rows = entityManager.createNativeQuery(sql)
+                                       .setParameter("query", query)
+                                       .setParameter("pattern", pattern)
+                                       .setParameter("limit", limit)
+                                       .getResultList();
+    return rows.stream()
+               .map(row -> new WidgetSearchHit(
+                 ((Number) row[0]).longValue(),
+                 (String) row[1],
+                 ((Number) row[2]).intValue(),
+                 (BigDecimal) row[3],
+                 ((Number) row[4]).doubleValue()))
+               .toList();
+  }
+
+  /**
+   * Escape LIKE wildcards so user input is matched literally. '!' is used as the escape
+   * character rather than a backslash, which would need escaping again inside the SQL literal.
+   */
+  static String escapeLike(String text) {
+    if (text == null) {
+      return null;
+    }
+    StringBuilder escaped = new StringBuilder(text.length() + 8);
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '!' || c == '%' || c == '_') {
+        escaped.append('!');
+      }
+      escaped.append(c);
+    }
+    return escaped.toString();
+  }
+}
@@ -0,0 +1,65 @@
+package application.repo;
+
+import application.model.Widget;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Columns a widget listing can be browsed by. Each is paired with id as a tiebreaker.
+ */
+public enum WidgetSortKey {
+  CREATED_AT("created_at") {
+    @Override
+    String format(Widget widget) {
+      return widget.getCreatedAt().toString();
+    }
+
+    @Override
+    Object parse(String value) {
+      return OffsetDateTime.parse(value);
+    }
+  },
+  PRICE("price") {
+    @Override
+    String format(Widget widget) {
+      return widget.getPrice().toPlainString();
+    }
+
+    @Override
+    Object parse(String value) {
+      return new BigDecimal(value);
+    }
+  },
+  NAME("name") {
+    @Override
+    String format(Widget widget) {
+      return widget.getName();
+    }
+
+    @Override
+    Object parse(String value) {
+      return value;
+    }
+  };
+
+  private final String column;
+
+  WidgetSortKey(String column) {
+    this.column = column;
+  }
+
+  String column() {
+    return column;
+  }
+
+  /**
+   * Render the sort column of a widget for a cursor token.
+   */
+  abstract String format(Widget widget);
+
+  /**
+   * Parse a cursor value back into a query parameter of the column's type.
+   */
+  abstract Object parse(String value);
+}
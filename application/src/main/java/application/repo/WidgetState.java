@@ -0,0 +1,10 @@
+package application.repo;
+
+import java.math.BigDecimal;
+
+/**
+ * The audited columns of a widget at one point in time, as recorded in widgets_audit.
+ * A column is null when the audit log no longer holds its value.
+ */
+public record WidgetState(String name, Integer quantity, BigDecimal price) {
+}
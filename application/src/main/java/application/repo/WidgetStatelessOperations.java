@@ -0,0 +1,35 @@
+package application.repo;
+
+import application.model.Widget;
+
+/**
+ * Explicit inserts, updates and deletes of detached widgets through a Hibernate StatelessSession,
+ * for batch jobs that touch far more widgets than a persistence context should hold.
+ *
+ * Nothing is cached and nothing is dirty-checked: each call writes exactly the given widgets, every
+ * column of them, in JDBC batches of {@code batchSize} statements, and keeps no reference to them
+ * afterwards. Widgets are pulled from the iterable one batch at a time, so memory stays flat however
+ * many there are. Batches join the caller's transaction if there is one; otherwise each batch commits
+ * on its own. The audit trigger attributes every row to the current AuditContext user. Not available
+ * in sharded mode, which places widgets through ShardedWidgetRepository.
+ */
+public interface WidgetStatelessOperations {
+
+  int DEFAULT_STATELESS_BATCH_SIZE = 500;
+
+  /**
+   * Insert new widgets and set their generated ids. widgets.id is an identity column, so Hibernate
+   * must read each key back and sends the inserts one by one; only the transactions are batched.
+   */
+  BulkMutationResult insertStateless(Iterable<Widget> widgets, int batchSize);
+
+  /**
+   * Overwrite existing widgets with the given state.
+   */
+  BulkMutationResult updateStateless(Iterable<Widget> widgets, int batchSize);
+
+  /**
+   * Delete widgets by id.
+   */
+  BulkMutationResult deleteStateless(Iterable<Widget> widgets, int batchSize);
+}
@@ -0,0 +1,98 @@
+package application.repo;
+
+import application.audit.AuditContextAspect;
+import application.model.Widget;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+
+/**
+ * StatelessSession implementation of {@link WidgetStatelessOperations}.
+ *
+ * Each batch opens a stateless session on the JDBC connection of the current JPA transaction,
+ * obtained through DataSourceUtils, after setting 'app.current_user' on it through the entity
+ * manager. Both therefore see the same connection and transaction, and Spring commits or rolls
+ * back the batch as usual.
+ */
+class WidgetStatelessOperationsImpl implements WidgetStatelessOperations {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  private final SessionFactory sessionFactory;
+  private final DataSource dataSource;
+  private final TransactionTemplate batchTransaction;
+  private final boolean sharded;
+
+  WidgetStatelessOperationsImpl(EntityManagerFactory entityManagerFactory, DataSource dataSource,
+                                PlatformTransactionManager transactionManager,
+                                @Value(PrimaryOnlyWrites.SHARDED) boolean sharded) {
+    this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    this.dataSource = dataSource;
+    this.batchTransaction = new TransactionTemplate(transactionManager);
+    this.sharded = sharded;
+  }
+
+  @Override
+  public BulkMutationResult insertStateless(Iterable<Widget> widgets, int batchSize) {
+    return inBatches(widgets, batchSize, StatelessSession::insert);
+  }
+
+  @Override
+  public BulkMutationResult updateStateless(Iterable<Widget> widgets, int batchSize) {
+    return inBatches(widgets, batchSize, StatelessSession::update);
+  }
+
+  @Override
+  public BulkMutationResult deleteStateless(Iterable<Widget> widgets, int batchSize) {
+    return inBatches(widgets, batchSize, StatelessSession::delete);
+  }
+
+  private BulkMutationResult inBatches(Iterable<Widget> widgets, int batchSize,
+                                       BiConsumer<StatelessSession, Widget> operation) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+    }
+    PrimaryOnlyWrites.check(sharded, "Stateless batch writes");
+    long started = System.nanoTime();
+    Iterator<Widget> remaining = widgets.iterator();
+    long rows = 0;
+    int batches = 0;
+    while (remaining.hasNext()) {
+      Integer written = batchTransaction.execute(status -> {
+        AuditContextAspect.applySessionSettings(entityManager);
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (StatelessSession session = sessionFactory.withStatelessOptions().connection(connection)
+                                                      .openStatelessSession()) {
+          session.setJdbcBatchSize(batchSize);
+          int count = 0;
+          while (count < batchSize && remaining.hasNext()) {
+            operation.accept(session, remaining.next());
+            count++;
+          }
+          // A stateless session never flushes and discards a pending batch on close
+          ((SharedSessionContractImplementor) session).getJdbcCoordinator().executeBatch();
+          return count;
+        } finally {
+          DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+      });
+      rows += written == null ? 0 : written;
+      batches++;
+    }
+    return new BulkMutationResult(rows, batches, Duration.ofNanos(System.nanoTime() - started));
+  }
+}
@@ -0,0 +1,9 @@
+package application.repo;
+
+import java.math.BigDecimal;
+
+/**
+ * One incoming widget of a catalog feed, identified by its unique name.
+ */
+public record WidgetUpsert(String name, int quantity, BigDecimal price) {
+}
@@ -0,0 +1,24 @@
+package application.repo;
+
+import java.util.List;
+
+/**
+ * Bulk upsert of widgets keyed by their unique name.
+ *
+ * Each batch is one INSERT ... ON CONFLICT (name) DO UPDATE ... WHERE statement fed from arrays,
+ * and rows whose quantity and price already match are not touched at all. The audit trigger
+ * therefore records only true inserts and real changes. Widgets are written in name order, so
+ * concurrent upserts of overlapping names wait for each other instead of deadlocking. Batches
+ * join the caller's transaction if there is one; otherwise each batch commits on its own. Not
+ * available in sharded mode, where a name must be written to the shard its hash selects.
+ */
+public interface WidgetUpsertOperations {
+
+  int DEFAULT_UPSERT_BATCH_SIZE = 1_000;
+
+  /**
+   * Insert new widgets and update changed ones. If a name occurs more than once in
+   * {@code widgets}, the last occurrence wins.
+   */
+  UpsertResult upsertByName(List<WidgetUpsert> widgets, int batchSize);
+}
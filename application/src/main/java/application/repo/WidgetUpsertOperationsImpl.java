@@ -0,0 +1,113 @@
+package application.repo;
+
+import application.audit.AuditContextAspect;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC implementation of {@link WidgetUpsertOperations}. A whole batch is bound as three
+ * arrays and expanded with unnest(), so the statement text and plan are the same for every
+ * batch size and the database sees one round trip per batch.
+ */
+class WidgetUpsertOperationsImpl implements WidgetUpsertOperations {
+
+  private static final String UPSERT_SQL =
+    "INSERT INTO public.widgets AS w (name, quantity, price) "
+      + "SELECT * FROM unnest(?::TEXT[], ?::INTEGER[], ?::NUMERIC[]) "
+      + "ON CONFLICT (name) DO UPDATE SET quantity = EXCLUDED.quantity, price = EXCLUDED.price "
+      + "WHERE (w.quantity, w.price) IS DISTINCT FROM (EXCLUDED.quantity, EXCLUDED.price) "
+      + "RETURNING (xmax = 0) AS inserted";
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate batchTransaction;
+  private final boolean sharded;
+
+  WidgetUpsertOperationsImpl(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             @Value(PrimaryOnlyWrites.SHARDED) boolean sharded) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.batchTransaction = new TransactionTemplate(transactionManager);
+    this.sharded = sharded;
+  }
+
+  @Override
+  public UpsertResult upsertByName(List<WidgetUpsert> widgets, int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+    }
+    PrimaryOnlyWrites.check(sharded, "Upsert by name");
+    long started = System.nanoTime();
+
+    // ON CONFLICT cannot update the same row twice in one statement, so collapse duplicates first
+    Map<String, WidgetUpsert> byName = new LinkedHashMap<>();
+    for (WidgetUpsert widget : widgets) {
+      if (widget.name() == null || widget.price() == null) {
+        throw new IllegalArgumentException("Widget name and price are required: " + widget);
+      }
+      byName.put(widget.name(), widget);
+    }
+    // Rows are locked in array order; one order for every caller keeps overlapping upserts from deadlocking
+    List<WidgetUpsert> unique = new ArrayList<>(byName.values());
+    unique.sort(Comparator.comparing(WidgetUpsert::name));
+
+    int inserted = 0;
+    int updated = 0;
+    for (int from = 0; from < unique.size(); from += batchSize) {
+      List<WidgetUpsert> batch = unique.subList(from, Math.min(unique.size(), from + batchSize));
+      int[] counts = batchTransaction.execute(status -> {
+        AuditContextAspect.applySessionSettings(entityManager);
+        return upsertBatch(batch);
+      });
+      inserted += counts[0];
+      updated += counts[1];
+    }
+    return new UpsertResult(inserted, updated, unique.size() - inserted - updated,
+      Duration.ofNanos(System.nanoTime() - started));
+  }
+
+  /**
+   * @return {inserted, updated} row counts for the batch
+   */
+  private int[] upsertBatch(List<WidgetUpsert> batch) {
+    String[] names = new String[batch.size()];
+    Integer[] quantities = new Integer[batch.size()];
+    BigDecimal[] prices = new BigDecimal[batch.size()];
+    for (int i = 0; i < batch.size(); i++) {
+      WidgetUpsert widget = batch.get(i);
+      names[i] = widget.name();
+      quantities[i] = widget.quantity();
+      prices[i] = widget.price();
+    }
+    return jdbcTemplate.execute((ConnectionCallback<int[]>) connection -> {
+      try (PreparedStatement statement = connection.prepareStatement(UPSERT_SQL)) {
+        statement.setArray(1, connection.createArrayOf("text", names));
+        statement.setArray(2, connection.createArrayOf("int4", quantities));
+        statement.setArray(3, connection.createArrayOf("numeric", prices));
+        int[] counts = new int[2];
+        try (ResultSet rs = statement.executeQuery()) {
+          while (rs.next()) {
+            counts[rs.getBoolean(1) ? 0 : 1]++;
+          }
+        }
+        return counts;
+      }
+    });
+  }
+}
@@ -0,0 +1,47 @@
+package application.retention;
+
+/**
+ * AIMD batch sizing for the retention purge: the batch grows by a fixed step while statements stay
+ * under the latency target and replicas keep up, and is halved as soon as either signal degrades.
+ * While replication lag is over its limit the purge also backs off before the next batch.
+ */
+final class AdaptiveThrottle {
+
+  private final int minBatchSize;
+  private final int maxBatchSize;
+  private final int increaseStep;
+  private final long targetLatencyNanos;
+  private final long maxLagBytes;
+  private final long lagBackoffMillis;
+
+  private int batchSize;
+
+  AdaptiveThrottle(RetentionSettings settings) {
+    this.minBatchSize = settings.minBatchSize();
+    this.maxBatchSize = settings.maxBatchSize();
+    this.increaseStep = Math.max(1, settings.minBatchSize());
+    this.targetLatencyNanos = settings.targetLatency().toNanos();
+    this.maxLagBytes = settings.maxReplicationLagBytes();
+    this.lagBackoffMillis = settings.lagBackoff().toMillis();
+    this.batchSize = settings.initialBatchSize();
+  }
+
+  int batchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Adjust the batch size after a batch.
+   *
+   * @return milliseconds to wait before the next batch
+   */
+  long afterBatch(long latencyNanos, long replicationLagBytes) {
+    boolean lagging = replicationLagBytes > maxLagBytes;
+    if (lagging || latencyNanos > targetLatencyNanos) {
+      batchSize = Math.max(minBatchSize, batchSize / 2);
+    } else {
+      batchSize = Math.min(maxBatchSize, batchSize + increaseStep);
+    }
+    return lagging ? lagBackoffMillis : 0;
+  }
+}
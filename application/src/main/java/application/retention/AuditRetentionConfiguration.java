@@ -0,0 +1,105 @@
+package application.retention;
+
+import application.repo.AuditPurgeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enables the background audit retention purge with app.audit.retention.enabled=true.
+ * A run starts every app.audit.retention.interval-ms milliseconds unless the job is paused.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "app.audit.retention", name = "enabled", havingValue = "true")
+public class AuditRetentionConfiguration {
+
+  @Bean
+  AuditRetentionJob auditRetentionJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                      ObjectProvider<AuditPurgeListener> purgeListeners,
+                                      @Value("${app.audit.retention.retention:P365D}") Duration retention,
+                                      @Value("${app.audit.retention.initial-batch-size:1000}") int initialBatchSize,
+                                      @Value("${app.audit.retention.min-batch-size:100}") int minBatchSize,
+                                      @Value("${app.audit.retention.max-batch-size:20000}") int maxBatchSize,
+                                      @Value("${app.audit.retention.target-latency:PT0.2S}") Duration targetLatency,
+                                      @Value("${app.audit.retention.max-replication-lag-bytes:67108864}") long maxLag,
+                                      @Value("${app.audit.retention.lag-backoff:PT1S}") Duration lagBackoff) {
+    return new AuditRetentionJob(jdbcTemplate, new TransactionTemplate(transactionManager),
+      ReplicationLagProbe.postgres(jdbcTemplate),
+      new RetentionSettings(retention, initialBatchSize, minBatchSize, maxBatchSize, targetLatency, maxLag,
+        lagBackoff),
+      AuditPurgeListener.all(purgeListeners.orderedStream().toList()));
+  }
+
+  @Bean
+  SmartLifecycle auditRetentionScheduler(AuditRetentionJob job,
+                                         @Value("${app.audit.retention.interval-ms:3600000}") long intervalMs) {
+    return new RetentionScheduler(job, intervalMs);
+  }
+
+  static final class RetentionScheduler implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(RetentionScheduler.class);
+
+    private final AuditRetentionJob job;
+    private final long intervalMs;
+    private ScheduledExecutorService scheduler;
+
+    RetentionScheduler(AuditRetentionJob job, long intervalMs) {
+      this.job = job;
+      this.intervalMs = intervalMs;
+    }
+
+    @Override
+    public void start() {
+      scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "audit-retention");
+        thread.setDaemon(true);
+        return thread;
+      });
+      scheduler.scheduleWithFixedDelay(this::purge, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void purge() {
+      if (job.isPaused()) {
+        return;
+      }
+      try {
+        RetentionRunResult result = job.run(progress -> log.debug(
+          "Retention purge {}% ({} rows, {} rows/s, batch {}, replica lag {} bytes)",
+          Math.round(progress.fractionComplete() * 100), progress.rowsDeleted(),
+          Math.round(progress.rowsPerSecond()), progress.batchSize(), progress.replicationLagBytes()));
+        if (result.rowsDeleted() > 0) {
+          log.info("Retention purge {}: deleted {} audit rows in {} ms ({} rows/s)", result.status(),
+            result.rowsDeleted(), result.elapsed().toMillis(), Math.round(result.rowsPerSecond()));
+        }
+      } catch (RuntimeException e) {
+        log.warn("Audit retention purge failed; will resume from its checkpoint", e);
+      }
+    }
+
+    @Override
+    public void stop() {
+      if (scheduler != null) {
+        scheduler.shutdownNow();
+        scheduler = null;
+      }
+    }
+
+    @Override
+    public boolean isRunning() {
+      return scheduler != null;
+    }
+  }
+}
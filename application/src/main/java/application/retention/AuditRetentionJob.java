@@ -0,0 +1,252 @@
+package application.retention;
+
+import application.repo.AuditPurgeListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Purges audit rows older than the retention window in small keyset batches by audit_id.
+ *
+ * Each batch deletes at most batchSize eligible rows above the previous batch's last audit_id and
+ * records the new position in audit_retention_checkpoint in the same transaction, so locks, WAL
+ * bursts and replica apply work stay proportional to one batch. Batch size follows
+ * {@link AdaptiveThrottle}. Pausing is recorded in the checkpoint, so it holds across restarts and
+ * for every process sharing the database: runs stop after their current batch and do nothing until
+ * {@link #resume()}, after which the next {@link #run()} continues from the checkpoint with the same
+ * cutoff. A run interrupted by a crash or shutdown resumes the same way without being paused.
+ * Every committed batch is reported to the {@link AuditPurgeListener}.
+ */
+public class AuditRetentionJob {
+
+  public static final String JOB_NAME = "widgets_audit_retention";
+
+  static final String RUNNING = "RUNNING";
+  static final String PAUSED = "PAUSED";
+  static final String COMPLETED = "COMPLETED";
+
+  private static final String DELETE_BATCH =
+    "WITH doomed AS ("
+      + "  SELECT audit_id FROM public.widgets_audit"
+      + "  WHERE audit_id > ? AND audit_id <= ? AND changed_at < ?"
+      + "  ORDER BY audit_id LIMIT ?"
+      + "), deleted AS ("
+      + "  DELETE FROM public.widgets_audit a USING doomed d WHERE a.audit_id = d.audit_id RETURNING 1"
+      + ") "
+      + "SELECT (SELECT count(*) FROM deleted), (SELECT max(audit_id) FROM doomed)";
+
+  /**
+   * Only {@link #resume()} clears PAUSED, so a pause from another thread or process survives the run's own saves.
+   */
+  private static final String SAVE_CHECKPOINT =
+    "INSERT INTO public.audit_retention_checkpoint AS c "
+      + "(job_name, cutoff, last_audit_id, target_audit_id, rows_deleted, status, updated_at) "
+      + "VALUES (?, ?, ?, ?, ?, ?, now()) "
+      + "ON CONFLICT (job_name) DO UPDATE SET cutoff = EXCLUDED.cutoff, last_audit_id = EXCLUDED.last_audit_id, "
+      + "target_audit_id = EXCLUDED.target_audit_id, rows_deleted = EXCLUDED.rows_deleted, "
+      + "status = CASE WHEN c.status = 'PAUSED' THEN c.status ELSE EXCLUDED.status END, updated_at = now() "
+      + "RETURNING status";
+
+  /**
+   * Without a checkpoint yet, the placeholder has nothing left to purge, so resuming it completes at once.
+   */
+  private static final String SAVE_PAUSED =
+    "INSERT INTO public.audit_retention_checkpoint "
+      + "(job_name, cutoff, last_audit_id, target_audit_id, rows_deleted, status, updated_at) "
+      + "VALUES (?, '-infinity', 0, 0, 0, 'PAUSED', now()) "
+      + "ON CONFLICT (job_name) DO UPDATE SET status = 'PAUSED', updated_at = now()";
+
+  private static final String SAVE_RESUMED =
+    "UPDATE public.audit_retention_checkpoint SET status = 'RUNNING', updated_at = now() "
+      + "WHERE job_name = ? AND status = 'PAUSED'";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ReplicationLagProbe lagProbe;
+  private final RetentionSettings settings;
+  private final AuditPurgeListener purgeListener;
+
+  private volatile boolean paused;
+  private volatile RetentionProgress progress;
+
+  public AuditRetentionJob(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                           ReplicationLagProbe lagProbe, RetentionSettings settings) {
+    this(jdbcTemplate, transactionTemplate, lagProbe, settings, AuditPurgeListener.NONE);
+  }
+
+  public AuditRetentionJob(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                           ReplicationLagProbe lagProbe, RetentionSettings settings,
+                           AuditPurgeListener purgeListener) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.lagProbe = lagProbe;
+    this.settings = settings;
+    this.purgeListener = purgeListener;
+  }
+
+  /**
+   * Stop after the current batch; the run returns PAUSED and later runs, here or after a restart, do
+   * nothing until {@link #resume()}.
+   */
+  public void pause() {
+    paused = true;
+    jdbcTemplate.update(SAVE_PAUSED, JOB_NAME);
+  }
+
+  public void resume() {
+    jdbcTemplate.update(SAVE_RESUMED, JOB_NAME);
+    paused = false;
+  }
+
+  /**
+   * Whether the job is paused, as recorded in the checkpoint.
+   */
+  public boolean isPaused() {
+    Checkpoint checkpoint = loadCheckpoint();
+    paused = checkpoint != null && checkpoint.status().equals(PAUSED);
+    return paused;
+  }
+
+  /**
+   * The latest progress of the current or last run in this process, or null before the first batch.
+   */
+  public RetentionProgress progress() {
+    return progress;
+  }
+
+  public RetentionRunResult run() {
+    return run(progress -> { });
+  }
+
+  /**
+   * Resume an unfinished run from its checkpoint, or start a new one purging rows older than the retention.
+   */
+  public RetentionRunResult run(Consumer<RetentionProgress> listener) {
+    Checkpoint checkpoint = loadCheckpoint();
+    // The checkpoint decides, so a resume() from another process is honored too
+    paused = checkpoint != null && checkpoint.status().equals(PAUSED);
+    if (paused) {
+      return result(PAUSED, 0, System.nanoTime());
+    }
+    if (checkpoint == null || checkpoint.status().equals(COMPLETED)) {
+      OffsetDateTime cutoff = OffsetDateTime.now().minus(settings.retention());
+      checkpoint = new Checkpoint(cutoff, 0, eligibleUpTo(cutoff), 0, RUNNING);
+    }
+    return purge(checkpoint, listener);
+  }
+
+  /**
+   * Start a new run with an explicit cutoff, discarding any unfinished checkpoint. Does nothing while paused.
+   */
+  public RetentionRunResult purgeChangedBefore(OffsetDateTime cutoff, Consumer<RetentionProgress> listener) {
+    if (isPaused()) {
+      return result(PAUSED, 0, System.nanoTime());
+    }
+    return purge(new Checkpoint(cutoff, 0, eligibleUpTo(cutoff), 0, RUNNING), listener);
+  }
+
+  private RetentionRunResult purge(Checkpoint checkpoint, Consumer<RetentionProgress> listener) {
+    long started = System.nanoTime();
+    AdaptiveThrottle throttle = new AdaptiveThrottle(settings);
+    long lastAuditId = checkpoint.lastAuditId();
+    long totalDeleted = checkpoint.rowsDeleted();
+    long deletedThisRun = 0;
+
+    while (lastAuditId < checkpoint.targetAuditId()) {
+      if (paused || Thread.currentThread().isInterrupted()) {
+        // An interrupted run is left RUNNING, so the next run after a shutdown picks it up again
+        saveCheckpoint(checkpoint.cutoff(), lastAuditId, checkpoint.targetAuditId(), totalDeleted,
+          paused ? PAUSED : RUNNING);
+        return result(PAUSED, deletedThisRun, started);
+      }
+
+      long from = lastAuditId;
+      long total = totalDeleted;
+      int batchSize = throttle.batchSize();
+      long batchStarted = System.nanoTime();
+      long[] batch = transactionTemplate.execute(status -> {
+        long[] outcome = jdbcTemplate.queryForObject(DELETE_BATCH, (rs, rowNum) -> {
+          long maxId = rs.getLong(2);
+          return new long[] {rs.getLong(1), rs.wasNull() ? checkpoint.targetAuditId() : maxId};
+        }, from, checkpoint.targetAuditId(), checkpoint.cutoff(), batchSize);
+        String saved = saveCheckpoint(checkpoint.cutoff(), outcome[1], checkpoint.targetAuditId(),
+          total + outcome[0], RUNNING);
+        if (saved.equals(PAUSED)) {
+          paused = true;
+        }
+        return outcome;
+      });
+      long latencyNanos = System.nanoTime() - batchStarted;
+
+      if (batch[0] > 0) {
+        purgeListener.auditRowsPurged(batch[1]);
+      }
+      lastAuditId = batch[1];
+      totalDeleted += batch[0];
+      deletedThisRun += batch[0];
+      long lagBytes = lagProbe.replicationLagBytes();
+      long waitMillis = throttle.afterBatch(latencyNanos, lagBytes);
+
+      progress = new RetentionProgress(deletedThisRun, lastAuditId, checkpoint.targetAuditId(), batchSize, lagBytes,
+        Duration.ofNanos(System.nanoTime() - started));
+      listener.accept(progress);
+
+      if (waitMillis > 0) {
+        try {
+          Thread.sleep(waitMillis);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    String saved = saveCheckpoint(checkpoint.cutoff(), lastAuditId, checkpoint.targetAuditId(), totalDeleted,
+      COMPLETED);
+    if (saved.equals(PAUSED)) {
+      paused = true;
+    }
+    return result(saved, deletedThisRun, started);
+  }
+
+  /**
+   * Upper bound of the keyset walk: rows appended after the run started are never eligible for it.
+   */
+  private long eligibleUpTo(OffsetDateTime cutoff) {
+    Long max = jdbcTemplate.queryForObject(
+      "SELECT max(audit_id) FROM public.widgets_audit WHERE changed_at < ?", Long.class, cutoff);
+    return max == null ? 0 : max;
+  }
+
+  private Checkpoint loadCheckpoint() {
+    List<Checkpoint> rows = jdbcTemplate.query(
+      "SELECT cutoff, last_audit_id, target_audit_id, rows_deleted, status "
+        + "FROM public.audit_retention_checkpoint WHERE job_name = ?",
+      (rs, rowNum) -> new Checkpoint(rs.getObject(1, OffsetDateTime.class), rs.getLong(2), rs.getLong(3),
+        rs.getLong(4), rs.getString(5)),
+      JOB_NAME);
+    return rows.isEmpty() ? null : rows.get(0);
+  }
+
+  /**
+   * @return the status stored, which stays PAUSED once paused
+   */
+  private String saveCheckpoint(OffsetDateTime cutoff, long lastAuditId, long targetAuditId, long rowsDeleted,
+                                String status) {
+    return jdbcTemplate.queryForObject(SAVE_CHECKPOINT, String.class, JOB_NAME, cutoff, lastAuditId, targetAuditId,
+      rowsDeleted, status);
+  }
+
+  private static RetentionRunResult result(String status, long deleted, long startedNanos) {
+    Duration elapsed = Duration.ofNanos(System.nanoTime() - startedNanos);
+    double seconds = elapsed.toNanos() / 1e9;
+    return new RetentionRunResult(status, deleted, elapsed, seconds == 0 ? 0 : deleted / seconds);
+  }
+
+  private record Checkpoint(OffsetDateTime cutoff, long lastAuditId, long targetAuditId, long rowsDeleted,
+                            String status) {
+  }
+}
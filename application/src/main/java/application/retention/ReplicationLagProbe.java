@@ -0,0 +1,22 @@
+package application.retention;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Reports how far the slowest streaming replica is behind the primary, in WAL bytes.
+ */
+@FunctionalInterface
+public interface ReplicationLagProbe {
+
+  long replicationLagBytes();
+
+  /**
+   * Reads pg_stat_replication on the primary. Without replicas (or without pg_monitor privileges,
+   * which hides the LSN columns) this reports 0, so only statement latency drives the throttle.
+   */
+  static ReplicationLagProbe postgres(JdbcTemplate jdbcTemplate) {
+    return () -> jdbcTemplate.queryForObject(
+      "SELECT coalesce(max(pg_wal_lsn_diff(pg_current_wal_lsn(), replay_lsn)), 0)::BIGINT "
+        + "FROM pg_stat_replication", Long.class);
+  }
+}
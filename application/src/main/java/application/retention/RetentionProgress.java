@@ -0,0 +1,22 @@
+package application.retention;
+
+import java.time.Duration;
+
+/**
+ * Snapshot of a retention run, reported after every batch.
+ *
+ * @param lastAuditId   keyset position: every eligible row up to here has been deleted
+ * @param targetAuditId highest audit_id that was eligible when the run started
+ */
+public record RetentionProgress(long rowsDeleted, long lastAuditId, long targetAuditId, int batchSize,
+                                long replicationLagBytes, Duration elapsed) {
+
+  public double rowsPerSecond() {
+    double seconds = elapsed.toNanos() / 1e9;
+    return seconds == 0 ? 0 : rowsDeleted / seconds;
+  }
+
+  public double fractionComplete() {
+    return targetAuditId <= 0 ? 1.0 : Math.min(1.0, (double) lastAuditId / targetAuditId);
+  }
+}
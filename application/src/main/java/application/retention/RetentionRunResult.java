@@ -0,0 +1,12 @@
+package application.retention;
+
+import java.time.Duration;
+
+/**
+ * Outcome of {@link AuditRetentionJob#run()}.
+ *
+ * @param status      COMPLETED, or PAUSED when the run stopped early and can be resumed
+ * @param rowsDeleted rows deleted by this invocation (not by earlier, resumed-from invocations)
+ */
+public record RetentionRunResult(String status, long rowsDeleted, Duration elapsed, double rowsPerSecond) {
+}
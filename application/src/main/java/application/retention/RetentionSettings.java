@@ -0,0 +1,26 @@
+package application.retention;
+
+import java.time.Duration;
+
+/**
+ * Tuning of {@link AuditRetentionJob}.
+ *
+ * @param retention              audit rows older than this are purged
+ * @param targetLatency          batches slower than this shrink the batch size
+ * @param maxReplicationLagBytes replay lag of the slowest replica above which the purge backs off
+ * @param lagBackoff             pause between batches while replicas are lagging
+ */
+public record RetentionSettings(Duration retention, int initialBatchSize, int minBatchSize, int maxBatchSize,
+                                Duration targetLatency, long maxReplicationLagBytes, Duration lagBackoff) {
+
+  public RetentionSettings {
+    if (minBatchSize <= 0 || initialBatchSize < minBatchSize || maxBatchSize < initialBatchSize) {
+      throw new IllegalArgumentException("Batch sizes must satisfy 0 < min <= initial <= max");
+    }
+  }
+
+  public static RetentionSettings defaults() {
+    return new RetentionSettings(Duration.ofDays(365), 1_000, 100, 20_000,
+      Duration.ofMillis(200), 64L * 1024 * 1024, Duration.ofSeconds(1));
+  }
+}
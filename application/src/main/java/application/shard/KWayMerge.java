@@ -0,0 +1,41 @@
+package application.shard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Merges per-shard results that are each already sorted into one sorted list, looking at
+ * only the head of every input (O(total * log k) for k shards).
+ */
+final class KWayMerge {
+
+  private KWayMerge() {
+  }
+
+  static <T> List<T> merge(List<? extends List<T>> sortedInputs, Comparator<? super T> order, int limit) {
+    PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(1, sortedInputs.size()),
+      (a, b) -> order.compare(a.value, b.value));
+    for (List<T> input : sortedInputs) {
+      Iterator<T> iterator = input.iterator();
+      if (iterator.hasNext()) {
+        heads.add(new Head<>(iterator.next(), iterator));
+      }
+    }
+
+    List<T> merged = new ArrayList<>();
+    while (merged.size() < limit && !heads.isEmpty()) {
+      Head<T> head = heads.poll();
+      merged.add(head.value);
+      if (head.rest.hasNext()) {
+        heads.add(new Head<>(head.rest.next(), head.rest));
+      }
+    }
+    return merged;
+  }
+
+  private record Head<T>(T value, Iterator<T> rest) {
+  }
+}
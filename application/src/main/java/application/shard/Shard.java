@@ -0,0 +1,14 @@
+package application.shard;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * One Postgres node of the sharded widget store. Shard {@code index} of {@code N} owns every
+ * widget whose id satisfies {@code floorMod(id - 1, N) == index}, together with its audit rows.
+ */
+public record Shard(int index, DataSource dataSource, JdbcTemplate jdbcTemplate,
+                    TransactionTemplate transactionTemplate) {
+}
@@ -0,0 +1,156 @@
+package application.shard;
+
+import application.audit.AuditContext;
+import application.audit.AuditContextAspect;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * The set of shards plus the routing and scatter-gather plumbing shared by the sharded repositories.
+ *
+ * Ids are allocated by each shard's own sequences, interleaved with INCREMENT BY N so that shard
+ * {@code i} only ever hands out ids congruent to {@code i + 1} modulo N. An id is therefore globally
+ * unique and names its shard without any lookup table.
+ *
+ * New widgets are placed by a hash of their name, so every widget with a given name lives on the same
+ * shard and each shard's uq_widgets_name index keeps names unique across the cluster. Like the shard
+ * order, the hash ({@link String#hashCode()}, fixed by the language specification) must not change
+ * once data has been written.
+ */
+public class ShardCluster implements AutoCloseable {
+
+  static final List<String> INTERLEAVED_SEQUENCES = List.of("widgets_id_seq", "widgets_audit_audit_id_seq");
+
+  private final List<Shard> shards;
+  private final ExecutorService scatterPool;
+
+  public ShardCluster(List<Shard> shards) {
+    if (shards.isEmpty()) {
+      throw new IllegalArgumentException("At least one shard is required");
+    }
+    this.shards = List.copyOf(shards);
+    this.scatterPool = Executors.newFixedThreadPool(shards.size(), runnable -> {
+      Thread thread = new Thread(runnable, "shard-scatter");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public int size() {
+    return shards.size();
+  }
+
+  public List<Shard> shards() {
+    return shards;
+  }
+
+  /**
+   * The shard that owns the given widget id.
+   */
+  public Shard shardFor(long widgetId) {
+    return shards.get(Math.floorMod(widgetId - 1, shards.size()));
+  }
+
+  /**
+   * The shard that owns the given widget name and receives every widget created with it.
+   */
+  public Shard shardForName(String name) {
+    return shards.get(Math.floorMod(name.hashCode(), shards.size()));
+  }
+
+  /**
+   * Run work in one transaction on the given shard, with 'app.current_user' set from the AuditContext
+   * exactly as AuditContextAspect does for the primary database.
+   */
+  public <T> T inTransaction(Shard shard, Function<JdbcTemplate, T> work) {
+    String user = AuditContextAspect.resolveCurrentUser();
+    return shard.transactionTemplate().execute(status -> {
+      shard.jdbcTemplate().queryForObject(AuditContextAspect.SET_CURRENT_USER_SQL, String.class, user);
+      return work.apply(shard.jdbcTemplate());
+    });
+  }
+
+  /**
+   * Run the query on every shard in parallel and return the results in shard order.
+   * The caller's AuditContext user is carried over to the worker threads.
+   */
+  public <T> List<T> scatter(Function<Shard, T> query) {
+    String user = AuditContext.getCurrentUser();
+    List<Future<T>> futures = new ArrayList<>(shards.size());
+    for (Shard shard : shards) {
+      futures.add(scatterPool.submit(() -> {
+        if (user == null) {
+          return query.apply(shard);
+        }
+        List<T> holder = new ArrayList<>(1);
+        AuditContext.runAsUser(user, () -> holder.add(query.apply(shard)));
+        return holder.get(0);
+      }));
+    }
+
+    List<T> results = new ArrayList<>(shards.size());
+    try {
+      for (Future<T> future : futures) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      futures.forEach(future -> future.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for shards", e);
+    } catch (ExecutionException e) {
+      futures.forEach(future -> future.cancel(true));
+      if (e.getCause() instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw new IllegalStateException("Shard query failed", e.getCause());
+    }
+    return results;
+  }
+
+  /**
+   * Make every shard's id sequences interleaved. Idempotent; a shard whose sequences are already
+   * interleaved for a different position (shard list reordered) is rejected.
+   */
+  void configureIdAllocation() {
+    int count = shards.size();
+    for (Shard shard : shards) {
+      long residue = Math.floorMod(shard.index() + 1, count);
+      for (String sequence : INTERLEAVED_SEQUENCES) {
+        SequenceState state = shard.jdbcTemplate().queryForObject(
+          "SELECT increment_by, last_value FROM pg_sequences WHERE schemaname = 'public' AND sequencename = ?",
+          (rs, rowNum) -> new SequenceState(rs.getLong(1), (Long) rs.getObject(2)), sequence);
+        if (state.incrementBy() == count) {
+          if (state.lastValue() != null && Math.floorMod(state.lastValue(), count) != residue) {
+            throw new IllegalStateException("Sequence " + sequence + " on shard " + shard.index()
+              + " is interleaved for another shard position; was the shard list reordered?");
+          }
+          continue;
+        }
+        long next = state.lastValue() == null ? 1 : state.lastValue() + 1;
+        next += Math.floorMod(residue - next, count);
+        shard.jdbcTemplate().execute(
+          "ALTER SEQUENCE public." + sequence + " INCREMENT BY " + count + " RESTART WITH " + next);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws Exception {
+    scatterPool.shutdownNow();
+    for (Shard shard : shards) {
+      if (shard.dataSource() instanceof AutoCloseable closeable) {
+        closeable.close();
+      }
+    }
+  }
+
+  private record SequenceState(long incrementBy, Long lastValue) {
+  }
+}
@@ -0,0 +1,88 @@
+package application.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import liquibase.integration.spring.SpringLiquibase;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Enables sharded mode with app.shard.enabled=true. app.shard.urls lists the JDBC URLs of the
+ * shards; their order is the shard index and must not change once data has been written.
+ * Every shard gets the full Liquibase changelog and interleaved id sequences at startup.
+ *
+ * Sharded mode adds {@link ShardedWidgetRepository} and {@link ShardedWidgetAuditRepository};
+ * the JPA repositories keep using the primary datasource. Their writes (save and delete, bulk chunks,
+ * upserts by name, stateless batches) and ParallelBatchProcessor refuse to run in sharded mode, and
+ * the file importer, the ingest endpoint and the load generator, which are built on them, cannot be
+ * enabled together with it.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "app.shard", name = "enabled", havingValue = "true")
+public class ShardConfiguration {
+
+  @Bean(destroyMethod = "close")
+  ShardCluster shardCluster(@Value("${app.shard.urls}") List<String> urls,
+                            @Value("${app.shard.username}") String username,
+                            @Value("${app.shard.password}") String password,
+                            @Value("${app.shard.pool-size:10}") int poolSize,
+                            @Value("${spring.liquibase.change-log}") String changeLog,
+                            ResourceLoader resourceLoader,
+                            Environment environment) {
+    if (environment.containsProperty("app.import.file")
+        || environment.getProperty("app.ingest.http.enabled", Boolean.class, false)
+        || environment.getProperty("app.load.enabled", Boolean.class, false)) {
+      throw new IllegalStateException("app.import.file, app.ingest.http.enabled and app.load.enabled write to "
+        + "the primary database only and cannot be combined with app.shard.enabled=true");
+    }
+    List<Shard> shards = new ArrayList<>(urls.size());
+    for (int i = 0; i < urls.size(); i++) {
+      HikariDataSource dataSource = DataSourceBuilder.create()
+        .type(HikariDataSource.class)
+        .url(urls.get(i).trim())
+        .username(username)
+        .password(password)
+        .build();
+      dataSource.setPoolName("shard-" + i);
+      dataSource.setMaximumPoolSize(poolSize);
+      migrate(dataSource, changeLog, resourceLoader);
+      shards.add(new Shard(i, dataSource, new JdbcTemplate(dataSource),
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource))));
+    }
+    ShardCluster cluster = new ShardCluster(shards);
+    cluster.configureIdAllocation();
+    return cluster;
+  }
+
+  @Bean
+  ShardedWidgetRepository shardedWidgetRepository(ShardCluster shardCluster) {
+    return new ShardedWidgetRepository(shardCluster);
+  }
+
+  @Bean
+  ShardedWidgetAuditRepository shardedWidgetAuditRepository(ShardCluster shardCluster) {
+    return new ShardedWidgetAuditRepository(shardCluster);
+  }
+
+  private static void migrate(HikariDataSource dataSource, String changeLog, ResourceLoader resourceLoader) {
+    SpringLiquibase liquibase = new SpringLiquibase();
+    liquibase.setDataSource(dataSource);
+    liquibase.setChangeLog(changeLog);
+    liquibase.setResourceLoader(resourceLoader);
+    try {
+      liquibase.afterPropertiesSet();
+    } catch (Exception e) {
+      throw new IllegalStateException("Liquibase migration failed on " + dataSource.getJdbcUrl(), e);
+    }
+  }
+}
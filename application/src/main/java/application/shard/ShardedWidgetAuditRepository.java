@@ -0,0 +1,59 @@
+package application.shard;
+
+import application.model.AuditOperation;
+import application.repo.AuditRow;
+import application.repo.WidgetAuditReader;
+
+import java.time.OffsetDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Audit queries for sharded mode. A widget's audit rows live on the widget's shard, so per-widget
+ * queries are routed; time-window queries and counts run on all shards in parallel and are merged.
+ */
+public class ShardedWidgetAuditRepository {
+
+  /**
+   * Newest first; audit_id breaks ties between rows committed in the same instant.
+   */
+  static final Comparator<AuditRow> NEWEST_FIRST =
+    Comparator.comparing(AuditRow::changedAt).thenComparingLong(AuditRow::auditId).reversed();
+
+  private final ShardCluster cluster;
+
+  public ShardedWidgetAuditRepository(ShardCluster cluster) {
+    this.cluster = cluster;
+  }
+
+  public List<AuditRow> findByWidgetId(long widgetId) {
+    return cluster.shardFor(widgetId).jdbcTemplate().query(
+      WidgetAuditReader.SELECT_AUDIT_ROWS + "WHERE a.widget_id = ? ORDER BY a.audit_id",
+      WidgetAuditReader.AUDIT_ROW_MAPPER, widgetId);
+  }
+
+  /**
+   * The newest {@code limit} audit rows across all shards changed after the given instant.
+   * Every shard returns at most {@code limit} rows already in order, which are then k-way merged.
+   */
+  public List<AuditRow> findByChangedAtAfterOrderByChangedAtDesc(OffsetDateTime changedAt, int limit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("limit must be positive: " + limit);
+    }
+    List<List<AuditRow>> perShard = cluster.scatter(shard -> shard.jdbcTemplate().query(
+      WidgetAuditReader.SELECT_AUDIT_ROWS
+        + "WHERE a.changed_at > ? ORDER BY a.changed_at DESC, a.audit_id DESC LIMIT ?",
+      WidgetAuditReader.AUDIT_ROW_MAPPER, changedAt, limit));
+    return KWayMerge.merge(perShard, NEWEST_FIRST, limit);
+  }
+
+  /**
+   * @param operation INSERT, UPDATE or DELETE
+   */
+  public long countByOperation(String operation) {
+    String code = String.valueOf(AuditOperation.valueOf(operation).getCode());
+    return cluster.scatter(shard -> shard.jdbcTemplate().queryForObject(
+      "SELECT count(*) FROM public.widgets_audit WHERE operation = ?::\"char\"", Long.class, code))
+      .stream().mapToLong(Long::longValue).sum();
+  }
+}
@@ -0,0 +1,75 @@
+package application.shard;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Widget access for sharded mode. Single-widget operations are routed to the owning shard by id;
+ * inserts go to the shard selected by the name's hash and take their id from that shard's
+ * interleaved sequence. Since a name is only ever written to its own shard, that shard's
+ * uq_widgets_name index rejects a duplicate exactly as it would on a single database. A rename is
+ * therefore only accepted if the new name hashes to the shard that already holds the widget.
+ */
+public class ShardedWidgetRepository {
+
+  private static final String SELECT_WIDGET = "SELECT id, name, created_at, quantity, price FROM public.widgets ";
+
+  private static final RowMapper<WidgetRow> WIDGET_ROW_MAPPER = (rs, rowNum) -> new WidgetRow(
+    rs.getLong(1), rs.getString(2), rs.getObject(3, OffsetDateTime.class), rs.getInt(4), rs.getBigDecimal(5));
+
+  private final ShardCluster cluster;
+
+  public ShardedWidgetRepository(ShardCluster cluster) {
+    this.cluster = cluster;
+  }
+
+  public WidgetRow save(String name, int quantity, BigDecimal price) {
+    if (name == null) {
+      throw new IllegalArgumentException("Widget name is required");
+    }
+    return cluster.inTransaction(cluster.shardForName(name), jdbc -> jdbc.queryForObject(
+      "INSERT INTO public.widgets (name, quantity, price) VALUES (?, ?, ?) "
+        + "RETURNING id, name, created_at, quantity, price",
+      WIDGET_ROW_MAPPER, name, quantity, price));
+  }
+
+  public Optional<WidgetRow> findById(long id) {
+    List<WidgetRow> rows = cluster.shardFor(id).jdbcTemplate().query(SELECT_WIDGET + "WHERE id = ?",
+      WIDGET_ROW_MAPPER, id);
+    return rows.stream().findFirst();
+  }
+
+  /**
+   * @return false if the widget does not exist
+   * @throws IllegalArgumentException if the new name belongs to another shard than the widget
+   */
+  public boolean updateDetails(long id, String name, int quantity, BigDecimal price) {
+    if (name == null) {
+      throw new IllegalArgumentException("Widget name is required");
+    }
+    Shard owner = cluster.shardFor(id);
+    if (cluster.shardForName(name) != owner) {
+      throw new IllegalArgumentException("Cannot rename widget " + id + " to '" + name + "': the name belongs to shard "
+        + cluster.shardForName(name).index() + " but the widget lives on shard " + owner.index());
+    }
+    return cluster.inTransaction(owner, jdbc -> jdbc.update(
+      "UPDATE public.widgets SET name = ?, quantity = ?, price = ? WHERE id = ?", name, quantity, price, id)) > 0;
+  }
+
+  /**
+   * @return false if the widget does not exist
+   */
+  public boolean deleteById(long id) {
+    return cluster.inTransaction(cluster.shardFor(id), jdbc -> jdbc.update(
+      "DELETE FROM public.widgets WHERE id = ?", id)) > 0;
+  }
+
+  public long count() {
+    return cluster.scatter(shard -> shard.jdbcTemplate().queryForObject(
+      "SELECT count(*) FROM public.widgets", Long.class)).stream().mapToLong(Long::longValue).sum();
+  }
+}
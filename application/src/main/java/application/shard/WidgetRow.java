@@ -0,0 +1,10 @@
+package application.shard;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * A widget as stored on one shard.
+ */
+public record WidgetRow(long id, String name, OffsetDateTime createdAt, int quantity, BigDecimal price) {
+}
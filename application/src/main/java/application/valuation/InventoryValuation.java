@@ -0,0 +1,15 @@
+package application.valuation;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Total inventory value, overall and per price band.
+ *
+ * @param auditPosition highest audit_id or bulk summary_id reflected in the totals
+ * @param widgets       number of widgets
+ * @param value         sum of quantity * price over all widgets
+ * @param segments      one entry per price band, in ascending price order
+ */
+public record InventoryValuation(long auditPosition, long widgets, BigDecimal value, List<SegmentValuation> segments) {
+}
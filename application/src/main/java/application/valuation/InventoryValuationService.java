@@ -0,0 +1,462 @@
+package application.valuation;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Near real-time inventory value, sum(quantity * price), overall and per price band.
+ *
+ * Running totals are kept current by tailing widgets_audit by audit_id and applying each row's value
+ * delta: insert rows add their image, delete rows subtract it, and update rows move the old quantity and
+ * price out of their band and the new ones into theirs.
+ *
+ * A transaction can draw an audit id and commit after a refresh has moved past it, however long it runs.
+ * As in the catalog mirror, each refresh records the audit sequence position and then the xmax of a fresh
+ * snapshot; once pg_snapshot_xmin passes that xmax, every id up to the position is settled, and refreshes
+ * re-read everything above the last settled position. Deltas are not idempotent, so unlike the mirror the
+ * ids already applied above that position are remembered and skipped. The set only covers the re-read
+ * range, so it stays as small as the window of transactions in flight.
+ *
+ * {@link #reconcile()} recomputes the totals with a full scan of widgets, split into id ranges that
+ * several connections sum under one exported snapshot. On the coordinating connection the running totals
+ * are caught up in that same snapshot, so both sides describe exactly the same committed state and any
+ * difference is drift, such as a change made with triggers disabled. The recompute then replaces the
+ * running totals. Bulk-maintenance summaries carry no per-row values, so they force such a recompute
+ * as well.
+ */
+public class InventoryValuationService {
+
+  /** How long the first {@link #reconcile()} waits for transactions that were running when it started. */
+  public static final Duration IN_FLIGHT_WAIT = Duration.ofMinutes(5);
+  public static final String DEFAULT_PRICE_BANDS = "10,100,1000";
+
+  private static final int FETCH_SIZE = 10_000;
+  private static final long MIN_RANGE_SIZE = 10_000;
+  private static final int RANGES_PER_WORKER = 8;
+
+  private static final String AUDIT_SEQUENCE_POSITION =
+    "SELECT CASE WHEN is_called THEN last_value ELSE last_value - 1 END FROM public.widgets_audit_audit_id_seq";
+  private static final String SNAPSHOT_BOUNDS =
+    "SELECT pg_snapshot_xmin(s)::text::BIGINT, pg_snapshot_xmax(s)::text::BIGINT FROM pg_current_snapshot() s";
+  private static final String SELECT_AUDIT_DELTAS =
+    "SELECT audit_id, operation::TEXT, quantity, price, old_quantity, old_price "
+      + "FROM public.widgets_audit WHERE audit_id > ? ORDER BY audit_id";
+  private static final String SELECT_SUMMARY_IDS =
+    "SELECT summary_id FROM public.widgets_audit_bulk_summary WHERE summary_id > ? ORDER BY summary_id";
+  private static final String SUM_RANGE =
+    "SELECT width_bucket(price, ?::NUMERIC[]), count(*), sum(quantity * price) "
+      + "FROM public.widgets WHERE id >= ? AND id < ? GROUP BY 1";
+
+  private final DataSource dataSource;
+  private final BigDecimal[] bounds;
+  private final int parallelism;
+
+  /** Audit and summary ids above replayFrom that the running totals already include. */
+  private final TreeSet<Long> appliedIds = new TreeSet<>();
+  /** Positions recorded by earlier refreshes whose transactions may still be running. */
+  private final Deque<Checkpoint> inFlight = new ArrayDeque<>();
+  private ValuationTotals totals;
+  private long lastAuditId;
+  private long replayFrom;
+  private boolean rebaseNeeded = true;
+  private volatile InventoryValuation current;
+
+  /**
+   * @param priceBands  strictly ascending prices at which a new band starts; n bounds give n + 1 bands
+   * @param parallelism connections used by {@link #reconcile()}; 0 for min(4, available processors)
+   */
+  public InventoryValuationService(DataSource dataSource, List<BigDecimal> priceBands, int parallelism) {
+    if (priceBands.isEmpty()) {
+      throw new IllegalArgumentException("At least one price band bound is required");
+    }
+    for (int i = 1; i < priceBands.size(); i++) {
+      if (priceBands.get(i - 1).compareTo(priceBands.get(i)) >= 0) {
+        throw new IllegalArgumentException("Price bands must be strictly ascending: " + priceBands);
+      }
+    }
+    this.dataSource = dataSource;
+    this.bounds = priceBands.toArray(new BigDecimal[0]);
+    this.parallelism = parallelism > 0 ? parallelism : Math.min(4, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * The latest valuation, or null before the first {@link #reconcile()}.
+   */
+  public InventoryValuation current() {
+    return current;
+  }
+
+  /**
+   * Apply audit rows written since the last refresh. Falls back to {@link #reconcile()} before the first
+   * load and whenever a change cannot be applied as a delta.
+   *
+   * @return the number of audit rows and bulk summaries applied
+   */
+  public synchronized int refresh() {
+    if (totals == null || rebaseNeeded) {
+      reconcile();
+      return 0;
+    }
+    int applied;
+    try (Connection connection = openReadOnly(Connection.TRANSACTION_READ_COMMITTED)) {
+      try {
+        Checkpoint checkpoint = checkpoint(connection);
+        inFlight(checkpoint);
+        applied = catchUp(connection, checkpoint.xmin());
+      } finally {
+        connection.rollback();
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("Could not read audit rows after " + lastAuditId, e);
+    }
+    if (rebaseNeeded) {
+      reconcile();
+    } else {
+      current = totals.toValuation(bounds, lastAuditId);
+    }
+    return applied;
+  }
+
+  /**
+   * Recompute the valuation with a parallel full scan, compare it with the running totals caught up to the
+   * same snapshot, and replace them with the recompute. The first call waits for the transactions running
+   * when it started, like {@link application.catalog.WidgetCatalogMirror#load()}, so it must not be called
+   * from a transaction that has written.
+   *
+   * @throws IllegalStateException if those transactions are still running after {@link #IN_FLIGHT_WAIT}
+   */
+  public synchronized ReconciliationResult reconcile() {
+    long started = System.nanoTime();
+    Checkpoint position;
+    try (Connection connection = openReadOnly(Connection.TRANSACTION_READ_COMMITTED)) {
+      try {
+        position = checkpoint(connection);
+        if (totals == null) {
+          awaitTransactionsBelow(connection, position.xmax());
+        }
+      } finally {
+        connection.rollback();
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("Could not read the audit position", e);
+    }
+    AtomicInteger threads = new AtomicInteger();
+    ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+      Thread thread = new Thread(runnable, "valuation-recompute-" + threads.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    try (Connection connection = openReadOnly(Connection.TRANSACTION_REPEATABLE_READ)) {
+      try {
+        String snapshot;
+        long snapshotXmin;
+        long minId;
+        long maxId;
+        try (Statement statement = connection.createStatement()) {
+          try (ResultSet rs = statement.executeQuery("SELECT pg_export_snapshot()")) {
+            rs.next();
+            snapshot = rs.getString(1);
+          }
+          try (ResultSet rs = statement.executeQuery(SNAPSHOT_BOUNDS)) {
+            rs.next();
+            snapshotXmin = rs.getLong(1);
+          }
+          try (ResultSet rs = statement.executeQuery(
+            "SELECT coalesce(min(id), 1), coalesce(max(id), 0) FROM public.widgets")) {
+            rs.next();
+            minId = rs.getLong(1);
+            maxId = rs.getLong(2);
+          }
+        }
+
+        Queue<long[]> ranges = split(minId, maxId);
+        List<Future<ValuationTotals>> sums = new ArrayList<>();
+        for (int i = 0; i < Math.min(parallelism, ranges.size()); i++) {
+          sums.add(workers.submit(() -> sumRanges(snapshot, ranges)));
+        }
+
+        // Meanwhile bring the running totals up to the workers' snapshot
+        boolean compared = totals != null && !rebaseNeeded;
+        if (totals == null) {
+          resetPosition(connection, position.auditId());
+        } else {
+          inFlight(position);
+          catchUp(connection, snapshotXmin);
+        }
+        compared &= !rebaseNeeded;
+
+        ValuationTotals recomputed = new ValuationTotals(bounds.length + 1);
+        for (Future<ValuationTotals> sum : sums) {
+          recomputed.addAll(await(sum));
+        }
+        InventoryValuation valuation = recomputed.toValuation(bounds, lastAuditId);
+        List<SegmentDrift> drift = compared ? compare(totals.toValuation(bounds, lastAuditId), valuation) : List.of();
+
+        totals = recomputed;
+        rebaseNeeded = false;
+        current = valuation;
+        return new ReconciliationResult(valuation, compared, drift, sums.size(),
+          Duration.ofNanos(System.nanoTime() - started));
+      } finally {
+        connection.rollback();
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("Could not recompute the inventory valuation", e);
+    } finally {
+      workers.shutdownNow();
+    }
+  }
+
+  private Connection openReadOnly(int isolation) throws SQLException {
+    Connection connection = dataSource.getConnection();
+    try {
+      connection.setAutoCommit(false);
+      connection.setReadOnly(true);
+      connection.setTransactionIsolation(isolation);
+      return connection;
+    } catch (SQLException e) {
+      connection.close();
+      throw e;
+    }
+  }
+
+  /**
+   * The audit sequence position, then the bounds of a snapshot taken after it was read. Every id up to the
+   * position was drawn by a transaction below the xmax, since audit ids are only drawn by triggers of
+   * transactions that have already written. Needs a connection that takes a snapshot per statement.
+   */
+  private static Checkpoint checkpoint(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      long auditId;
+      try (ResultSet rs = statement.executeQuery(AUDIT_SEQUENCE_POSITION)) {
+        rs.next();
+        auditId = rs.getLong(1);
+      }
+      try (ResultSet rs = statement.executeQuery(SNAPSHOT_BOUNDS)) {
+        rs.next();
+        return new Checkpoint(auditId, rs.getLong(1), rs.getLong(2));
+      }
+    }
+  }
+
+  private void inFlight(Checkpoint checkpoint) {
+    if (!inFlight.isEmpty() && inFlight.peekLast().xmax() == checkpoint.xmax()) {
+      // Settles at the same time as the newer position, so only the newer one is kept
+      inFlight.pollLast();
+    }
+    inFlight.addLast(checkpoint);
+  }
+
+  private static void awaitTransactionsBelow(Connection connection, long xmax) throws SQLException {
+    long deadline = System.nanoTime() + IN_FLIGHT_WAIT.toNanos();
+    while (checkpoint(connection).xmin() < xmax) {
+      if (System.nanoTime() > deadline) {
+        throw new IllegalStateException("Transactions older than txid " + xmax + " are still running after "
+          + IN_FLIGHT_WAIT + "; cannot load the inventory valuation consistently");
+      }
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for in-flight transactions", e);
+      }
+    }
+  }
+
+  /**
+   * Apply every audit row and summary above the settled position that is not yet in the running totals,
+   * then settle the positions whose transactions have all ended by the reading snapshot's xmin.
+   */
+  private int catchUp(Connection connection, long xmin) throws SQLException {
+    long from = replayFrom;
+    int applied = 0;
+    try (PreparedStatement statement = connection.prepareStatement(SELECT_SUMMARY_IDS)) {
+      statement.setLong(1, from);
+      try (ResultSet rs = statement.executeQuery()) {
+        while (rs.next()) {
+          if (markApplied(rs.getLong(1))) {
+            applied++;
+            rebaseNeeded = true;
+          }
+        }
+      }
+    }
+    try (PreparedStatement statement = connection.prepareStatement(SELECT_AUDIT_DELTAS)) {
+      statement.setFetchSize(FETCH_SIZE);
+      statement.setLong(1, from);
+      try (ResultSet rs = statement.executeQuery()) {
+        while (rs.next()) {
+          if (markApplied(rs.getLong(1))) {
+            applyDelta(rs);
+            applied++;
+          }
+        }
+      }
+    }
+    while (!inFlight.isEmpty() && inFlight.peekFirst().xmax() <= xmin) {
+      replayFrom = Math.max(replayFrom, inFlight.pollFirst().auditId());
+    }
+    appliedIds.headSet(replayFrom, true).clear();
+    return applied;
+  }
+
+  private boolean markApplied(long id) {
+    if (!appliedIds.add(id)) {
+      return false;
+    }
+    lastAuditId = Math.max(lastAuditId, id);
+    return true;
+  }
+
+  private void applyDelta(ResultSet rs) throws SQLException {
+    BigDecimal quantity = rs.getBigDecimal(3);
+    BigDecimal price = rs.getBigDecimal(4);
+    switch (rs.getString(2)) {
+      case "I" -> add(quantity, price, 1);
+      case "D" -> add(quantity, price, -1);
+      default -> {
+        BigDecimal oldQuantity = rs.getBigDecimal(5);
+        BigDecimal oldPrice = rs.getBigDecimal(6);
+        if (oldQuantity == null || oldPrice == null) {
+          // Written before update rows recorded their old values
+          rebaseNeeded = true;
+          return;
+        }
+        add(oldQuantity, oldPrice, -1);
+        add(quantity, price, 1);
+      }
+    }
+  }
+
+  private void add(BigDecimal quantity, BigDecimal price, int sign) {
+    BigDecimal value = quantity.multiply(price);
+    totals.add(segment(price), sign, sign < 0 ? value.negate() : value);
+  }
+
+  /**
+   * The band of a price, numbered like width_bucket(price, bounds): the number of bounds &lt;= price.
+   */
+  private int segment(BigDecimal price) {
+    int index = Arrays.binarySearch(bounds, price);
+    return index >= 0 ? index + 1 : -index - 1;
+  }
+
+  /**
+   * Start tailing from a settled position: every id up to it is reflected by the snapshot, and the ids
+   * above it that the snapshot sees are treated as applied.
+   */
+  private void resetPosition(Connection connection, long settled) throws SQLException {
+    appliedIds.clear();
+    inFlight.clear();
+    replayFrom = settled;
+    lastAuditId = settled;
+    try (PreparedStatement statement = connection.prepareStatement(
+      "SELECT audit_id FROM public.widgets_audit WHERE audit_id > ? "
+        + "UNION ALL SELECT summary_id FROM public.widgets_audit_bulk_summary WHERE summary_id > ?")) {
+      statement.setLong(1, settled);
+      statement.setLong(2, settled);
+      try (ResultSet rs = statement.executeQuery()) {
+        while (rs.next()) {
+          markApplied(rs.getLong(1));
+        }
+      }
+    }
+  }
+
+  private Queue<long[]> split(long minId, long maxId) {
+    Queue<long[]> ranges = new ConcurrentLinkedQueue<>();
+    if (maxId < minId) {
+      return ranges;
+    }
+    long span = maxId - minId + 1;
+    long size = Math.max(MIN_RANGE_SIZE, -Math.floorDiv(-span, (long) parallelism * RANGES_PER_WORKER));
+    for (long from = minId; from <= maxId; from += size) {
+      ranges.add(new long[] {from, Math.min(maxId + 1, from + size)});
+    }
+    return ranges;
+  }
+
+  /**
+   * Sum id ranges from the queue on one connection that imports the coordinator's snapshot.
+   */
+  private ValuationTotals sumRanges(String snapshot, Queue<long[]> ranges) {
+    ValuationTotals sums = new ValuationTotals(bounds.length + 1);
+    try (Connection connection = openReadOnly(Connection.TRANSACTION_REPEATABLE_READ)) {
+      try {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("SET TRANSACTION SNAPSHOT '" + snapshot + "'");
+        }
+        try (PreparedStatement statement = connection.prepareStatement(SUM_RANGE)) {
+          statement.setArray(1, connection.createArrayOf("numeric", bounds));
+          for (long[] range = ranges.poll(); range != null; range = ranges.poll()) {
+            statement.setLong(2, range[0]);
+            statement.setLong(3, range[1]);
+            try (ResultSet rs = statement.executeQuery()) {
+              while (rs.next()) {
+                sums.add(rs.getInt(1), rs.getLong(2), rs.getBigDecimal(3));
+              }
+            }
+          }
+        }
+      } finally {
+        connection.rollback();
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("Could not sum widget values in snapshot " + snapshot, e);
+    }
+    return sums;
+  }
+
+  private static ValuationTotals await(Future<ValuationTotals> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while recomputing the inventory valuation", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException("Inventory valuation recompute failed", e.getCause());
+    }
+  }
+
+  /**
+   * @param auditId highest audit id drawn before the snapshot was taken
+   * @param xmin    oldest transaction still running in the snapshot
+   * @param xmax    first transaction id not yet assigned at the snapshot
+   */
+  private record Checkpoint(long auditId, long xmin, long xmax) {
+  }
+
+  private static List<SegmentDrift> compare(InventoryValuation running, InventoryValuation recomputed) {
+    List<SegmentDrift> drift = new ArrayList<>();
+    for (int i = 0; i < running.segments().size(); i++) {
+      SegmentValuation before = running.segments().get(i);
+      SegmentValuation after = recomputed.segments().get(i);
+      if (before.widgets() != after.widgets() || before.value().compareTo(after.value()) != 0) {
+        drift.add(new SegmentDrift(before, after));
+      }
+    }
+    return List.copyOf(drift);
+  }
+}
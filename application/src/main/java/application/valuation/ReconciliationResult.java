@@ -0,0 +1,21 @@
+package application.valuation;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of {@link InventoryValuationService#reconcile()}.
+ *
+ * @param recomputed valuation from the full scan, now also the running totals
+ * @param compared   false when there were no comparable running totals: the first load, or a rebase
+ *                   forced by a bulk-maintenance summary or an update row without old values
+ * @param drift      bands where the running totals differed from the recompute; empty if not compared
+ * @param workers    connections that scanned widgets in parallel
+ */
+public record ReconciliationResult(InventoryValuation recomputed, boolean compared, List<SegmentDrift> drift,
+                                   int workers, Duration elapsed) {
+
+  public boolean drifted() {
+    return !drift.isEmpty();
+  }
+}
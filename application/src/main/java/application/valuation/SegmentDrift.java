@@ -0,0 +1,17 @@
+package application.valuation;
+
+import java.math.BigDecimal;
+
+/**
+ * A price band whose incrementally maintained totals disagreed with a full recompute of the same snapshot.
+ */
+public record SegmentDrift(SegmentValuation running, SegmentValuation recomputed) {
+
+  public long widgetDifference() {
+    return recomputed.widgets() - running.widgets();
+  }
+
+  public BigDecimal valueDifference() {
+    return recomputed.value().subtract(running.value());
+  }
+}
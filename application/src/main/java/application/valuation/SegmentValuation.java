@@ -0,0 +1,14 @@
+package application.valuation;
+
+import java.math.BigDecimal;
+
+/**
+ * Inventory value of one price band.
+ *
+ * @param fromInclusive lowest price in the band, or null for the band below the first bound
+ * @param toExclusive   price the next band starts at, or null for the band above the last bound
+ * @param widgets       number of widgets priced in the band
+ * @param value         sum of quantity * price over those widgets
+ */
+public record SegmentValuation(BigDecimal fromInclusive, BigDecimal toExclusive, long widgets, BigDecimal value) {
+}
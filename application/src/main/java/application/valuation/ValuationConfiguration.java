@@ -0,0 +1,109 @@
+package application.valuation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enables the inventory valuation with app.valuation.enabled=true.
+ * The totals are recomputed once the context has started (after Liquibase), refreshed from the audit
+ * log every app.valuation.refresh-interval-ms milliseconds and reconciled against a full parallel
+ * recompute every app.valuation.reconcile-interval-ms milliseconds. Bands are set with
+ * app.valuation.price-bands, a comma-separated list of ascending prices.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "app.valuation", name = "enabled", havingValue = "true")
+public class ValuationConfiguration {
+
+  @Bean
+  InventoryValuationService inventoryValuationService(
+    DataSource dataSource,
+    @Value("${app.valuation.price-bands:" + InventoryValuationService.DEFAULT_PRICE_BANDS + "}") List<BigDecimal> priceBands,
+    @Value("${app.valuation.parallelism:0}") int parallelism) {
+    return new InventoryValuationService(dataSource, priceBands, parallelism);
+  }
+
+  @Bean
+  SmartLifecycle inventoryValuationScheduler(
+    InventoryValuationService service,
+    @Value("${app.valuation.refresh-interval-ms:1000}") long refreshIntervalMs,
+    @Value("${app.valuation.reconcile-interval-ms:3600000}") long reconcileIntervalMs) {
+    return new ValuationScheduler(service, refreshIntervalMs, reconcileIntervalMs);
+  }
+
+  static final class ValuationScheduler implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(ValuationScheduler.class);
+
+    private final InventoryValuationService service;
+    private final long refreshIntervalMs;
+    private final long reconcileIntervalMs;
+    private ScheduledExecutorService scheduler;
+
+    ValuationScheduler(InventoryValuationService service, long refreshIntervalMs, long reconcileIntervalMs) {
+      this.service = service;
+      this.refreshIntervalMs = refreshIntervalMs;
+      this.reconcileIntervalMs = reconcileIntervalMs;
+    }
+
+    @Override
+    public void start() {
+      service.reconcile();
+      // One thread: refreshes and reconciliations never overlap
+      scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-valuation");
+        thread.setDaemon(true);
+        return thread;
+      });
+      scheduler.scheduleWithFixedDelay(this::refresh, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+      scheduler.scheduleWithFixedDelay(this::reconcile, reconcileIntervalMs, reconcileIntervalMs,
+        TimeUnit.MILLISECONDS);
+    }
+
+    private void refresh() {
+      try {
+        service.refresh();
+      } catch (RuntimeException e) {
+        log.warn("Inventory valuation refresh failed; will retry", e);
+      }
+    }
+
+    private void reconcile() {
+      try {
+        ReconciliationResult result = service.reconcile();
+        for (SegmentDrift drift : result.drift()) {
+          log.warn("Inventory valuation drifted in band [{}, {}): {} widgets, {} value; corrected from full recompute",
+            drift.running().fromInclusive(), drift.running().toExclusive(), drift.widgetDifference(),
+            drift.valueDifference());
+        }
+        log.info("Inventory valuation reconciled at audit position {} in {} ms with {} workers",
+          result.recomputed().auditPosition(), result.elapsed().toMillis(), result.workers());
+      } catch (RuntimeException e) {
+        log.warn("Inventory valuation reconcile failed; will retry", e);
+      }
+    }
+
+    @Override
+    public void stop() {
+      if (scheduler != null) {
+        scheduler.shutdownNow();
+        scheduler = null;
+      }
+    }
+
+    @Override
+    public boolean isRunning() {
+      return scheduler != null;
+    }
+  }
+}
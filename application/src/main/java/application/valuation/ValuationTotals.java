@@ -0,0 +1,48 @@
+package application.valuation;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Mutable widget counts and values per price band. Not thread-safe.
+ */
+final class ValuationTotals {
+
+  private final long[] widgets;
+  private final BigDecimal[] values;
+
+  ValuationTotals(int segments) {
+    widgets = new long[segments];
+    values = new BigDecimal[segments];
+    Arrays.fill(values, BigDecimal.ZERO);
+  }
+
+  void add(int segment, long widgetDelta, BigDecimal valueDelta) {
+    widgets[segment] += widgetDelta;
+    values[segment] = values[segment].add(valueDelta);
+  }
+
+  void addAll(ValuationTotals other) {
+    for (int i = 0; i < widgets.length; i++) {
+      add(i, other.widgets[i], other.values[i]);
+    }
+  }
+
+  /**
+   * @param bounds ascending price bounds; segment i covers bounds[i - 1] &lt;= price &lt; bounds[i]
+   */
+  InventoryValuation toValuation(BigDecimal[] bounds, long auditPosition) {
+    List<SegmentValuation> segments = new ArrayList<>(widgets.length);
+    long totalWidgets = 0;
+    BigDecimal totalValue = BigDecimal.ZERO;
+    for (int i = 0; i < widgets.length; i++) {
+      segments.add(new SegmentValuation(i == 0 ? null : bounds[i - 1], i == bounds.length ? null : bounds[i],
+        widgets[i], values[i]));
+      totalWidgets += widgets[i];
+      totalValue = totalValue.add(values[i]);
+    }
+    return new InventoryValuation(auditPosition, totalWidgets, totalValue, List.copyOf(segments));
+  }
+}
@@ -0,0 +1,118 @@
+package application;
+
+import application.audit.AuditContextAspect;
+import application.model.Widget;
+import application.model.WidgetAudit;
+import liquibase.change.ChangeFactory;
+import liquibase.change.core.RawSQLChange;
+import liquibase.precondition.PreconditionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApplicationRuntimeHintsTest {
+
+  private final RuntimeHints hints = new RuntimeHints();
+
+  ApplicationRuntimeHintsTest() {
+    new ApplicationRuntimeHints().registerHints(hints, getClass().getClassLoader());
+  }
+
+  @Test
+  void testEntitiesAreReflectivelyAccessible() {
+    assertTrue(RuntimeHintsPredicates.reflection().onType(Widget.class).test(hints));
+    assertTrue(RuntimeHintsPredicates.reflection().onType(WidgetAudit.class).test(hints));
+    assertTrue(RuntimeHintsPredicates.reflection().onField(WidgetAudit.class, "changedBy").test(hints));
+  }
+
+  @Test
+  void testAspectAdviceIsInvocable() throws NoSuchMethodException {
+    assertTrue(RuntimeHintsPredicates.reflection()
+      .onMethod(AuditContextAspect.class.getMethod("setPostgresSessionUser")).test(hints));
+  }
+
+  @Test
+  void testLiquibaseChangelogsAndChangeTypesAreIncluded() {
+    assertTrue(RuntimeHintsPredicates.resource().forResource("db/changelog/db.changelog-master.xml").test(hints));
+    assertTrue(RuntimeHintsPredicates.resource()
+      .forResource("www.liquibase.org/xml/ns/dbchangelog/dbchangelog-4.27.xsd").test(hints));
+    assertTrue(RuntimeHintsPredicates.reflection().onType(RawSQLChange.class)
+      .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS).test(hints));
+  }
+
+  /**
+   * Every change and precondition tag in the changelogs is instantiated reflectively by Liquibase,
+   * so a tag added to a changeset without a matching hint only fails in the native image.
+   */
+  @Test
+  void testEveryChangeAndPreconditionInTheChangelogsIsRegistered() throws Exception {
+    Set<String> missing = new TreeSet<>();
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    Resource[] changelogs = new PathMatchingResourcePatternResolver().getResources("classpath:db/changelog/*.xml");
+    assertTrue(changelogs.length > 1);
+
+    for (Resource changelog : changelogs) {
+      try (InputStream in = changelog.getInputStream()) {
+        Element root = factory.newDocumentBuilder().parse(in).getDocumentElement();
+        for (Element changeSet : children(root, "changeSet")) {
+          for (Element child : children(changeSet, null)) {
+            switch (child.getLocalName()) {
+              case "comment", "validCheckSum" -> { }
+              case "preConditions" -> collectPreconditions(child, changelog, missing);
+              default -> checkRegistered(ChangeFactory.getInstance().create(child.getLocalName()).getClass(),
+                changelog, child, missing);
+            }
+          }
+        }
+      }
+    }
+
+    assertTrue(missing.isEmpty(), () -> "Missing reflection hints: " + missing);
+  }
+
+  @Test
+  void testVirtualThreadLookupIsRegistered() {
+    assertTrue(RuntimeHintsPredicates.reflection().onType(Executors.class).test(hints));
+  }
+
+  private void collectPreconditions(Element container, Resource changelog, Set<String> missing) {
+    checkRegistered(PreconditionFactory.getInstance().create(container.getLocalName()).getClass(),
+      changelog, container, missing);
+    for (Element precondition : children(container, null)) {
+      collectPreconditions(precondition, changelog, missing);
+    }
+  }
+
+  private void checkRegistered(Class<?> type, Resource changelog, Element element, Set<String> missing) {
+    if (!RuntimeHintsPredicates.reflection().onType(type)
+      .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS).test(hints)) {
+      missing.add(changelog.getFilename() + " <" + element.getLocalName() + "> " + type.getName());
+    }
+  }
+
+  private static Iterable<Element> children(Element parent, String localName) {
+    List<Element> elements = new ArrayList<>();
+    for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+      if (node instanceof Element element && (localName == null || localName.equals(element.getLocalName()))) {
+        elements.add(element);
+      }
+    }
+    return elements;
+  }
+}
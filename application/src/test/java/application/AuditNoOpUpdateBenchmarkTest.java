@@ -0,0 +1,77 @@
+package application;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Replays an update-heavy workload in which most updates rewrite unchanged values, and compares
+ * audit row count and WAL volume between the conditional UPDATE trigger and an unconditional one.
+ * Disabled by default; run with: mvn test -Dtest=AuditNoOpUpdateBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AuditNoOpUpdateBenchmarkTest {
+
+  private static final int WIDGETS = 20_000;
+  private static final int ROUNDS = 5;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void compareAuditVolumeWithAndWithoutWhenClause() {
+    jdbcTemplate.update(
+      "INSERT INTO public.widgets (name, quantity, price) "
+        + "SELECT 'noop-bench-' || g, 10, 1.00 FROM generate_series(1, ?) g", WIDGETS);
+
+    long[] conditional = replay();
+
+    jdbcTemplate.execute("DROP TRIGGER widgets_audit_update_trigger ON public.widgets");
+    jdbcTemplate.execute("CREATE TRIGGER widgets_audit_update_trigger AFTER UPDATE ON public.widgets "
+      + "FOR EACH ROW EXECUTE FUNCTION public.audit_widgets_changes()");
+    long[] unconditional;
+    try {
+      unconditional = replay();
+    } finally {
+      jdbcTemplate.execute("DROP TRIGGER widgets_audit_update_trigger ON public.widgets");
+      jdbcTemplate.execute("CREATE TRIGGER widgets_audit_update_trigger AFTER UPDATE ON public.widgets "
+        + "FOR EACH ROW WHEN (OLD.* IS DISTINCT FROM NEW.*) EXECUTE FUNCTION public.audit_widgets_changes()");
+    }
+
+    System.out.printf("unconditional trigger: audit rows=%,d wal=%,d bytes%n", unconditional[0], unconditional[1]);
+    System.out.printf("conditional trigger:   audit rows=%,d wal=%,d bytes%n", conditional[0], conditional[1]);
+    System.out.printf("audit rows saved: %.1f%%, WAL saved: %.1f%%%n",
+      100.0 * (unconditional[0] - conditional[0]) / unconditional[0],
+      100.0 * (unconditional[1] - conditional[1]) / unconditional[1]);
+
+    assertTrue(conditional[0] < unconditional[0]);
+  }
+
+  /**
+   * Each round rewrites every widget; only one widget in five actually changes quantity.
+   *
+   * @return audit rows written and WAL bytes generated during the replay
+   */
+  private long[] replay() {
+    long auditBefore = jdbcTemplate.queryForObject("SELECT count(*) FROM public.widgets_audit", Long.class);
+    String walBefore = jdbcTemplate.queryForObject("SELECT pg_current_wal_lsn()::text", String.class);
+    for (int round = 0; round < ROUNDS; round++) {
+      jdbcTemplate.update(
+        "UPDATE public.widgets SET quantity = CASE WHEN id % 5 = ? THEN quantity + 1 ELSE quantity END, "
+          + "price = price WHERE name LIKE 'noop-bench-%'", round);
+    }
+    long auditAfter = jdbcTemplate.queryForObject("SELECT count(*) FROM public.widgets_audit", Long.class);
+    Long walBytes = jdbcTemplate.queryForObject(
+      "SELECT pg_wal_lsn_diff(pg_current_wal_lsn(), ?::pg_lsn)::bigint", Long.class, walBefore);
+    return new long[] {auditAfter - auditBefore, walBytes == null ? 0 : walBytes};
+  }
+}
@@ -70,9 +70,9 @@ class IntegrationTest {
     long initialCount = widgetRepository.count();
 
     // Create multiple widgets
-    Widget w1 = new Widget("Bulk1", OffsetDateTime.now(), 10, new BigDecimal("10.00"));
-    Widget w2 = new Widget("Bulk2", OffsetDateTime.now(), 20, new BigDecimal("20.00"));
-    Widget w3 = new Widget("Bulk3", OffsetDateTime.now(), 30, new BigDecimal("30.00"));
+    Widget w1 = new Widget("Integration Bulk1", OffsetDateTime.now(), 10, new BigDecimal("10.00"));
+    Widget w2 = new Widget("Integration Bulk2", OffsetDateTime.now(), 20, new BigDecimal("20.00"));
+    Widget w3 = new Widget("Integration Bulk3", OffsetDateTime.now(), 30, new BigDecimal("30.00"));
 
     List<Widget> saved = widgetRepository.saveAll(List.of(w1, w2, w3));
     assertEquals(3, saved.size());
@@ -110,7 +110,7 @@ class IntegrationTest {
   void testDataIntegrity() {
     // Test that timestamps are preserved
     OffsetDateTime specificTime = OffsetDateTime.parse("2026-02-19T10:30:00Z");
-    Widget widget = new Widget("Timestamp Test", specificTime, 1, new BigDecimal("1.00"));
+    Widget widget = new Widget("Integration Timestamp Test", specificTime, 1, new BigDecimal("1.00"));
 
     Widget saved = widgetRepository.save(widget);
     Widget fetched = widgetRepository.findById(saved.getId()).orElseThrow();
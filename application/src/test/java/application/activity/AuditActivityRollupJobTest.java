@@ -0,0 +1,131 @@
+package application.activity;
+
+import application.TestcontainersConfiguration;
+import application.audit.AuditContext;
+import application.model.Widget;
+import application.repo.UserActivitySummary;
+import application.repo.WidgetAuditRepository;
+import application.repo.WidgetRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the per-user activity rollup.
+ * Not @Transactional: the rollup only folds in committed audit rows.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class AuditActivityRollupJobTest {
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private WidgetAuditRepository widgetAuditRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Test
+  void testSummariesAddUpRollupDaysAndRowsNotRolledUpYet() {
+    String user = "rollup_summary_user";
+    OffsetDateTime since = OffsetDateTime.now().minusDays(3);
+    List<Widget> widgets = AuditContext.runAsUser(user, () -> widgetRepository.saveAll(List.of(
+      new Widget("Rollup Summary 1", OffsetDateTime.now(), 1, new BigDecimal("1.00")),
+      new Widget("Rollup Summary 2", OffsetDateTime.now(), 2, new BigDecimal("1.00")),
+      new Widget("Rollup Summary 3", OffsetDateTime.now(), 3, new BigDecimal("1.00")))));
+    UserActivitySummary unrolled = widgetAuditRepository.summarizeUserActivity(user, since);
+
+    AuditActivityRollupJob job = newJob(2);
+    assertTrue(job.run() >= 3);
+    Map<String, Object> day = jdbcTemplate.queryForMap(
+      "SELECT sum(inserted) AS inserted FROM public.widgets_audit_user_daily "
+        + "WHERE changed_by_id = (SELECT user_id FROM public.audit_users WHERE username = ?)", user);
+    assertEquals(3L, ((Number) day.get("inserted")).longValue());
+    assertEquals(summary(3, 0, 0, 3), counts(unrolled));
+    assertEquals(counts(unrolled), counts(widgetAuditRepository.summarizeUserActivity(user, since)));
+
+    AuditContext.runAsUser(user, () -> {
+      Widget first = widgets.get(0);
+      first.updateDetails(first.getName(), 10, first.getPrice());
+      widgetRepository.save(first);
+      widgetRepository.delete(widgets.get(1));
+    });
+    UserActivitySummary mixed = widgetAuditRepository.summarizeUserActivity(user, since);
+    assertEquals(summary(3, 1, 1, 3), counts(mixed));
+    assertEquals(unrolled.firstChangeAt(), mixed.firstChangeAt());
+
+    job.run();
+    assertEquals(0, job.run(), "Rows are folded in once");
+    assertEquals(counts(mixed), counts(widgetAuditRepository.summarizeUserActivity(user, since)));
+  }
+
+  @Test
+  void testWaitsForTransactionsThatCommitAfterLaterAuditIds() throws SQLException {
+    String user = "rollup_late_user";
+    OffsetDateTime since = OffsetDateTime.now().minusHours(1);
+    AuditActivityRollupJob job = newJob(AuditActivityRollupJob.DEFAULT_BATCH_SIZE);
+    job.run();
+    // Registered up front, or the open transaction's audit_users row would block the neighbour's insert
+    jdbcTemplate.queryForObject("SELECT public.audit_user_id(?)", Integer.class, user);
+
+    try (Connection late = dataSource.getConnection()) {
+      late.setAutoCommit(false);
+      try (PreparedStatement actAs = late.prepareStatement("SELECT set_config('app.current_user', ?, true)");
+           Statement insert = late.createStatement()) {
+        actAs.setString(1, user);
+        actAs.execute();
+        insert.executeUpdate("INSERT INTO widgets (name, quantity, price) VALUES ('Rollup Late', 1, 1.00)");
+      }
+      AuditContext.runAsUser(user, () -> widgetRepository.save(
+        new Widget("Rollup Late Neighbour", OffsetDateTime.now(), 1, new BigDecimal("1.00"))));
+
+      assertEquals(0, job.run(), "The open transaction holds an audit id below the neighbour's");
+      assertEquals(0, job.run());
+      assertEquals(1, widgetAuditRepository.summarizeUserActivity(user, since).inserts());
+
+      late.commit();
+    }
+    assertTrue(job.run() >= 2);
+    UserActivitySummary summary = widgetAuditRepository.summarizeUserActivity(user, since);
+    assertEquals(2, summary.inserts());
+    assertEquals(2, summary.widgetsTouched());
+  }
+
+  private AuditActivityRollupJob newJob(int batchSize) {
+    return new AuditActivityRollupJob(jdbcTemplate, new TransactionTemplate(transactionManager), batchSize);
+  }
+
+  private static List<Long> counts(UserActivitySummary summary) {
+    return summary(summary.inserts(), summary.updates(), summary.deletes(), summary.widgetsTouched());
+  }
+
+  private static List<Long> summary(long inserts, long updates, long deletes, long widgetsTouched) {
+    return List.of(inserts, updates, deletes, widgetsTouched);
+  }
+}
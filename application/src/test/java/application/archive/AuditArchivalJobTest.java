@@ -0,0 +1,92 @@
+package application.archive;
+
+import application.TestcontainersConfiguration;
+import application.model.Widget;
+import application.repo.AuditRow;
+import application.repo.WidgetRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for audit archival and query-through.
+ * Not @Transactional: archival deletes committed rows in its own statements.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class AuditArchivalJobTest {
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void testOldRowsMoveToArchiveAndStayQueryable() {
+    Widget widget = widgetRepository.saveAndFlush(
+      new Widget("Archive Test", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+    widget.updateDetails("Archive Test", 2, new BigDecimal("1.00"));
+    widget = widgetRepository.saveAndFlush(widget);
+    long widgetId = widget.getId();
+    jdbcTemplate.update("UPDATE public.widgets_audit SET changed_at = changed_at - interval '200 days' "
+      + "WHERE widget_id = ?", widget.getId());
+    widget.updateDetails("Archive Test", 3, new BigDecimal("1.00"));
+    widgetRepository.saveAndFlush(widget);
+
+    AuditArchive archive = new AuditArchive(directory);
+    AuditQueryService queries = new AuditQueryService(archive, jdbcTemplate);
+    List<Long> before = queries.findByWidgetIdOrderByChangedAtDesc(widget.getId()).stream()
+      .map(AuditRow::auditId).toList();
+    long insertsBefore = queries.countByOperation("INSERT");
+
+    ArchivalResult result = new AuditArchivalJob(archive, jdbcTemplate, AuditArchivalJob.DEFAULT_RETENTION, 1)
+      .run();
+
+    assertTrue(result.rowsArchived() >= 2);
+    assertEquals(result.rowsArchived(), result.segmentsWritten(), "One row per segment with segmentRows = 1");
+    assertEquals(1, jdbcTemplate.queryForObject(
+      "SELECT count(*) FROM public.widgets_audit WHERE widget_id = ?", Integer.class, widget.getId()),
+      "Only the recent UPDATE should stay live");
+
+    List<AuditRow> after = queries.findByWidgetIdOrderByChangedAtDesc(widget.getId());
+    assertEquals(before, after.stream().map(AuditRow::auditId).toList());
+    assertEquals(3, after.get(0).quantity(), "The live row is the newest");
+    assertEquals("INSERT", after.get(2).operation());
+    assertEquals(1, after.get(1).oldQuantity(), "Archived updates keep their old values");
+    assertEquals(0, new BigDecimal("1.00").compareTo(after.get(1).oldPrice()));
+    assertEquals(insertsBefore, queries.countByOperation("INSERT"));
+    assertTrue(queries.findByChangedAtAfterOrderByChangedAtDesc(OffsetDateTime.now().minusDays(300)).stream()
+      .anyMatch(row -> row.widgetId() == widgetId && row.operation().equals("INSERT")));
+  }
+
+  @Test
+  void testRowsInBothTiersAreReturnedOnce() {
+    Widget widget = widgetRepository.saveAndFlush(
+      new Widget("Archive Duplicate", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+    AuditArchive archive = new AuditArchive(directory);
+    AuditQueryService queries = new AuditQueryService(archive, jdbcTemplate);
+    long insertsBefore = queries.countByOperation("INSERT");
+
+    // simulate a run interrupted between writing the segment and deleting the rows
+    archive.append(queries.findByWidgetIdOrderByChangedAtDesc(widget.getId()));
+
+    assertEquals(1, queries.findByWidgetIdOrderByChangedAtDesc(widget.getId()).size());
+    assertEquals(insertsBefore, queries.countByOperation("INSERT"));
+  }
+}
@@ -0,0 +1,224 @@
+package application.archive;
+
+import application.repo.AuditRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditSegmentFileTest {
+
+  private static final OffsetDateTime T0 = OffsetDateTime.of(2024, 1, 1, 12, 0, 0, 123_456_000, ZoneOffset.UTC);
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void testRoundTripPreservesRows() {
+    byte[] insertHash = hash(1);
+    byte[] updateHash = hash(2);
+    byte[] deleteHash = hash(3);
+    List<AuditRow> rows = List.of(
+      new AuditRow(10, "INSERT", 7L, "Sprocket", T0, 5, new BigDecimal("19.99"), T0, "alice",
+        null, null, 1, null, insertHash),
+      new AuditRow(11, "UPDATE", 7L, "Sprocket", T0, 6, new BigDecimal("-0.50"), T0.plusSeconds(1), "bob",
+        5, new BigDecimal("19.99"), 2, insertHash, updateHash),
+      new AuditRow(15, "DELETE", 3L, null, null, null, null, T0.minusSeconds(5), null,
+        null, null, null, hash(9), deleteHash),
+      new AuditRow(16, "INSERT", 900L, "Ünïcode", T0, 0, new BigDecimal("0.00"), T0.plusDays(1), "alice",
+        null, null, 1, null, null));
+
+    ArchiveSegment written = AuditSegmentFile.write(directory.resolve("s.wac"), rows);
+    List<AuditRow> read = AuditSegmentFile.read(written.file());
+
+    assertEquals(rows.size(), read.size());
+    for (int i = 0; i < rows.size(); i++) {
+      AuditRow expected = rows.get(i);
+      AuditRow actual = read.get(i);
+      assertEquals(expected.auditId(), actual.auditId());
+      assertEquals(expected.operation(), actual.operation());
+      assertEquals(expected.widgetId(), actual.widgetId());
+      assertEquals(expected.name(), actual.name());
+      assertEquals(expected.quantity(), actual.quantity());
+      assertEquals(expected.price(), actual.price());
+      assertEquals(expected.changedBy(), actual.changedBy());
+      assertEquals(expected.oldQuantity(), actual.oldQuantity());
+      assertEquals(expected.oldPrice(), actual.oldPrice());
+      assertEquals(expected.changedById(), actual.changedById());
+      assertArrayEquals(expected.prevHash(), actual.prevHash());
+      assertArrayEquals(expected.rowHash(), actual.rowHash());
+      assertTrue(expected.changedAt().isEqual(actual.changedAt()));
+      assertTrue(expected.createdAt() == null ? actual.createdAt() == null
+        : expected.createdAt().isEqual(actual.createdAt()));
+    }
+  }
+
+  @Test
+  void testReadsSegmentsWrittenBeforeOldValues() throws IOException {
+    AuditRow row = new AuditRow(3, "UPDATE", 7L, "Sprocket", T0, 6, new BigDecimal("2.00"), T0, "bob",
+      5, new BigDecimal("1.00"), null, null, null);
+    Path current = AuditSegmentFile.write(directory.resolve("v3.wac"), List.of(row)).file();
+    Path legacy = rewriteAsVersion(current, directory.resolve("v2.wac"), 2, 10);
+
+    AuditRow read = AuditSegmentFile.read(legacy).get(0);
+
+    assertEquals(2, AuditSegmentFile.readMetadata(legacy).version());
+    assertEquals(row.quantity(), read.quantity());
+    assertEquals(row.changedBy(), read.changedBy());
+    assertNull(read.oldQuantity());
+    assertNull(read.oldPrice());
+  }
+
+  @Test
+  void testReadsSegmentsWrittenBeforeTheHashChain() throws IOException {
+    AuditRow row = new AuditRow(3, "UPDATE", 7L, "Sprocket", T0, 6, new BigDecimal("2.00"), T0, "bob",
+      5, new BigDecimal("1.00"), 2, hash(1), hash(2));
+    Path current = AuditSegmentFile.write(directory.resolve("v4.wac"), List.of(row)).file();
+    Path legacy = rewriteAsVersion(current, directory.resolve("v3.wac"), 3, 12);
+
+    AuditRow read = AuditSegmentFile.read(legacy).get(0);
+
+    assertEquals(3, AuditSegmentFile.readMetadata(legacy).version());
+    assertEquals(row.oldQuantity(), read.oldQuantity());
+    assertEquals(row.changedBy(), read.changedBy());
+    assertNull(read.changedById());
+    assertNull(read.prevHash());
+    assertNull(read.rowHash());
+  }
+
+  @Test
+  void testHeaderMetadata() {
+    List<AuditRow> rows = List.of(
+      new AuditRow(1, "INSERT", 40L, "a", T0, 1, BigDecimal.ONE, T0.plusSeconds(3), "u", null, null, null, null, null),
+      new AuditRow(2, "UPDATE", 12L, "a", T0, 1, BigDecimal.ONE, T0, "u", null, null, null, null, null),
+      new AuditRow(9, "UPDATE", 25L, "a", T0, 1, BigDecimal.ONE, T0.plusSeconds(1), "u", null, null, null, null, null));
+
+    AuditSegmentFile.write(directory.resolve("m.wac"), rows);
+    ArchiveSegment segment = AuditSegmentFile.readMetadata(directory.resolve("m.wac"));
+
+    assertEquals(3, segment.rowCount());
+    assertEquals(1, segment.minAuditId());
+    assertEquals(9, segment.maxAuditId());
+    assertEquals(12, segment.minWidgetId());
+    assertEquals(40, segment.maxWidgetId());
+    assertTrue(T0.isEqual(segment.minChangedAt()));
+    assertTrue(T0.plusSeconds(3).isEqual(segment.maxChangedAt()));
+    assertEquals(1, segment.insertCount());
+    assertEquals(2, segment.updateCount());
+    assertEquals(0, segment.deleteCount());
+    assertTrue(segment.mayContainWidget(25));
+    assertFalse(segment.mayContainWidget(41));
+    assertFalse(segment.mayContainChangedAfter(T0.plusSeconds(3)));
+  }
+
+  @Test
+  void testWidgetIdFilterRulesOutWidgetsInsideTheRange() {
+    // Every other widget id across a wide range, as when one segment spans a busy catalog
+    List<AuditRow> rows = new ArrayList<>();
+    for (int i = 1; i <= 20_000; i++) {
+      rows.add(new AuditRow(i, "UPDATE", 2L * i, "w", T0, 1, BigDecimal.ONE, T0, "u", null, null, null, null, null));
+    }
+    AuditSegmentFile.write(directory.resolve("f.wac"), rows);
+    ArchiveSegment segment = AuditSegmentFile.readMetadata(directory.resolve("f.wac"));
+
+    for (int i = 1; i <= 20_000; i++) {
+      assertTrue(segment.mayContainWidget(2L * i), "No false negatives");
+    }
+    int falsePositives = 0;
+    for (int i = 0; i < 20_000; i++) {
+      if (segment.mayContainWidget(2L * i + 1)) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives < 20_000 * 0.03, falsePositives + " of 20000 absent widgets not ruled out");
+    assertEquals(25_000, segment.widgetIds().sizeInBytes());
+  }
+
+  @Test
+  void testCompressesRepetitiveHistory() throws Exception {
+    List<AuditRow> rows = new ArrayList<>();
+    for (int i = 1; i <= 10_000; i++) {
+      rows.add(new AuditRow(i, "UPDATE", (long) (i % 100), "Widget " + (i % 100), T0, i % 50,
+        new BigDecimal("9.99"), T0.plusSeconds(i), "catalog_sync", null, null, null, null, null));
+    }
+
+    AuditSegmentFile.write(directory.resolve("c.wac"), rows);
+
+    assertTrue(Files.size(directory.resolve("c.wac")) < 10_000 * 8,
+      "Expected well under 8 bytes per row, got " + Files.size(directory.resolve("c.wac")));
+  }
+
+  @Test
+  void testRejectsUnorderedRows() {
+    List<AuditRow> rows = List.of(
+      new AuditRow(2, "INSERT", 1L, "a", T0, 1, BigDecimal.ONE, T0, "u", null, null, null, null, null),
+      new AuditRow(1, "INSERT", 1L, "a", T0, 1, BigDecimal.ONE, T0, "u", null, null, null, null, null));
+
+    assertThrows(IllegalArgumentException.class, () -> AuditSegmentFile.write(directory.resolve("x.wac"), rows));
+    assertThrows(IllegalArgumentException.class, () -> AuditSegmentFile.write(directory.resolve("y.wac"), List.of()));
+  }
+
+  @Test
+  void testArchiveReopensIndexFromHeaders() {
+    AuditArchive archive = new AuditArchive(directory);
+    archive.append(List.of(
+      new AuditRow(5, "INSERT", 1L, "a", T0, 1, BigDecimal.ONE, T0, "u", null, null, null, null, null)));
+    archive.append(List.of(
+      new AuditRow(1, "INSERT", 2L, "b", T0, 1, BigDecimal.ONE, T0, "u", null, null, null, null, null)));
+
+    AuditArchive reopened = new AuditArchive(directory);
+
+    assertEquals(2, reopened.segments().size());
+    assertEquals(1, reopened.segments().get(0).minAuditId(), "Segments are indexed in audit_id order");
+    assertEquals(2, reopened.rowCount());
+    assertEquals(1, reopened.findAll(segment -> segment.mayContainWidget(2), row -> row.widgetId() == 2).size());
+  }
+
+  private static byte[] hash(int seed) {
+    byte[] hash = new byte[32];
+    Arrays.fill(hash, (byte) seed);
+    return hash;
+  }
+
+  /**
+   * Copy a segment as an older format version would have written it: the same header and filter,
+   * followed by only the column blocks that version had.
+   */
+  static Path rewriteAsVersion(Path source, Path target, int version, int blocks) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(source)));
+         DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target)))) {
+      out.writeInt(in.readInt());
+      in.readInt();
+      out.writeInt(version);
+      in.readInt();
+      out.writeInt(blocks);
+      out.write(in.readNBytes(Integer.BYTES + 6 * Long.BYTES + 3 * Integer.BYTES));
+      WidgetIdFilter filter = WidgetIdFilter.read(in);
+      if (version >= 2) {
+        filter.write(out);
+      }
+      for (int i = 0; i < blocks; i++) {
+        int raw = in.readInt();
+        int compressed = in.readInt();
+        out.writeInt(raw);
+        out.writeInt(compressed);
+        out.write(in.readNBytes(compressed));
+      }
+    }
+    return target;
+  }
+}
@@ -3,7 +3,19 @@ package application.audit;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.AfterEach;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * Test suite for AuditContext thread-local user management.
@@ -116,6 +128,78 @@ class AuditContextTest {
 
     assertThat(AuditContext.getCurrentUser()).isNull();
   }
-}
 
+  @Test
+  void testRunAsUserReturnsSupplierResult() {
+    String seen = AuditContext.runAsUser("carol", AuditContext::getCurrentUser);
+
+    assertThat(seen).isEqualTo("carol");
+    assertThat(AuditContext.getCurrentUser()).isNull();
+  }
+
+  @Test
+  void testCallAsUserPassesCheckedExceptionsThrough() {
+    assertThatThrownBy(() -> AuditContext.callAsUser("dave", () -> {
+      throw new IOException("boom");
+    })).isInstanceOf(IOException.class);
+
+    assertThat(AuditContext.getCurrentUser()).isNull();
+  }
+
+  @Test
+  void testWrapCarriesUserToPooledThreadAndRestoresIt() throws Exception {
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+    try {
+      Future<String> wrapped = AuditContext.runAsUser("erin",
+        () -> pool.submit(AuditContext.wrap(() -> AuditContext.getCurrentUser())));
+      assertThat(wrapped.get(5, TimeUnit.SECONDS)).isEqualTo("erin");
+
+      // The same pooled thread must not keep the user for the next, unwrapped task
+      assertThat(pool.submit(AuditContext::getCurrentUser).get(5, TimeUnit.SECONDS)).isNull();
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  void testExecutorServiceWrapperPropagatesToCompletableFutures() throws Exception {
+    ExecutorService pool = new AuditContextExecutorService(Executors.newFixedThreadPool(2));
+    try {
+      List<String> seen = AuditContext.callAsUser("frank", () -> List.of(
+        CompletableFuture.supplyAsync(AuditContext::getCurrentUser, pool).join(),
+        pool.invokeAll(List.<Callable<String>>of(AuditContext::getCurrentUser)).get(0).get()));
+      assertThat(seen).containsExactly("frank", "frank");
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  void testTaskDecoratorCapturesUserAtDecorationTime() {
+    String[] seen = new String[1];
+    Runnable decorated = AuditContext.runAsUser("grace",
+      () -> new AuditContextTaskDecorator().decorate(() -> seen[0] = AuditContext.getCurrentUser()));
+
+    decorated.run();
 
+    assertThat(seen[0]).isEqualTo("grace");
+    assertThat(AuditContext.getCurrentUser()).isNull();
+  }
+
+  @Test
+  void testBulkMaintenanceScopeSetsReasonOnlyForItsOwnFrame() {
+    List<Supplier<String>> captured = new ArrayList<>();
+    AuditContext.runAsBulkMaintenance("admin", "reprice", () -> {
+      assertThat(AuditContext.getCurrentUser()).isEqualTo("admin");
+      assertThat(AuditContext.getBulkMaintenanceReason()).isEqualTo("reprice");
+
+      AuditContext.runAsUser("alice", () -> assertThat(AuditContext.getBulkMaintenanceReason()).isNull());
+      captured.add(AuditContext.wrapSupplier(AuditContext::getBulkMaintenanceReason));
+    });
+
+    assertThat(AuditContext.getBulkMaintenanceReason()).isNull();
+    assertThat(captured.get(0).get()).as("Wrapped tasks keep the bulk scope").isEqualTo("reprice");
+    assertThatThrownBy(() -> AuditContext.runAsBulkMaintenance("admin", " ", () -> { }))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+}
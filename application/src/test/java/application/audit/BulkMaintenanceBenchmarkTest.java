@@ -0,0 +1,77 @@
+package application.audit;
+
+import application.TestcontainersConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Compares a mass UPDATE with per-row auditing, in bulk-maintenance mode, and with the widgets triggers
+ * disabled, commit included. Disabled by default; run with:
+ * mvn test -Dtest=BulkMaintenanceBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BulkMaintenanceBenchmarkTest {
+
+  private static final int WIDGETS = 50_000;
+  private static final int ITERATIONS = 5;
+  private static final String UPDATE =
+    "UPDATE public.widgets SET quantity = quantity + 1 WHERE name LIKE 'bulk-bench-%'";
+
+  @Autowired
+  private AuditContextAspect auditContextAspect;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @AfterEach
+  void deleteBenchmarkWidgets() {
+    AuditContext.runAsBulkMaintenance("bulk_bench", "benchmark cleanup",
+      () -> inTransaction(() -> jdbcTemplate.update("DELETE FROM public.widgets WHERE name LIKE 'bulk-bench-%'")));
+  }
+
+  @Test
+  void compareBulkModeWithPerRowAuditing() {
+    jdbcTemplate.execute("GRANT audit_bulk_maintainer TO CURRENT_USER");
+    jdbcTemplate.update("INSERT INTO public.widgets (name, quantity, price) "
+      + "SELECT 'bulk-bench-' || g, 1, 1.00 FROM generate_series(1, ?) g", WIDGETS);
+
+    for (int i = 0; i < ITERATIONS; i++) {
+      measure("untriggered", () -> inTransaction(() -> {
+        jdbcTemplate.execute("SET LOCAL session_replication_role = replica");
+        jdbcTemplate.update(UPDATE);
+      }));
+      measure("per-row", () -> inTransaction(() -> jdbcTemplate.update(UPDATE)));
+      measure("bulk", () -> AuditContext.runAsBulkMaintenance("bulk_bench", "benchmark",
+        () -> inTransaction(() -> jdbcTemplate.update(UPDATE))));
+    }
+  }
+
+  private void measure(String label, Runnable update) {
+    jdbcTemplate.execute("VACUUM public.widgets");
+    long started = System.nanoTime();
+    update.run();
+    long nanos = System.nanoTime() - started;
+    System.out.printf("%-11s elapsed=%dms us/row=%.1f%n", label, nanos / 1_000_000, nanos / 1_000.0 / WIDGETS);
+  }
+
+  private void inTransaction(Runnable work) {
+    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+      auditContextAspect.setPostgresSessionUser();
+      work.run();
+    });
+  }
+}
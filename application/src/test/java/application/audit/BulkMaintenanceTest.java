@@ -0,0 +1,218 @@
+package application.audit;
+
+import application.TestcontainersConfiguration;
+import application.catalog.WidgetCatalogMirror;
+import application.model.Widget;
+import application.repo.BulkAuditSummary;
+import application.repo.WidgetAuditReader;
+import application.repo.WidgetBulkReader;
+import application.repo.WidgetRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for bulk-maintenance mode.
+ * Not @Transactional: summaries are written by a deferred trigger at commit.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class BulkMaintenanceTest {
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private WidgetAuditReader widgetAuditReader;
+
+  @Autowired
+  private WidgetBulkReader widgetBulkReader;
+
+  @Autowired
+  private AuditContextAspect auditContextAspect;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Test
+  void testBulkChangesWriteOneSummaryInsteadOfRowAudits() {
+    grantBulkMaintainer();
+    List<Long> ids = createWidgets("Bulk Reprice", 5);
+    long auditRowsBefore = countAudits(ids);
+    long lastSummary = lastSummaryId();
+
+    AuditContext.runAsBulkMaintenance("bulk_admin", "double prices for Q3", () -> inTransaction(() -> {
+      jdbcTemplate.update("UPDATE widgets SET price = price * 2 WHERE name LIKE 'Bulk Reprice %'");
+      jdbcTemplate.update("DELETE FROM widgets WHERE id = ?", ids.get(4));
+    }));
+
+    assertEquals(auditRowsBefore, countAudits(ids), "No per-row audit entries in bulk mode");
+    List<BulkAuditSummary> summaries = widgetAuditReader.findBulkSummariesAfter(lastSummary);
+    assertEquals(1, summaries.size(), "One summary per transaction");
+    BulkAuditSummary summary = summaries.get(0);
+    assertEquals("bulk_admin", summary.changedBy());
+    assertEquals("double prices for Q3", summary.reason());
+    assertEquals(0, summary.inserted());
+    assertEquals(5, summary.updated());
+    assertEquals(1, summary.deleted());
+    assertEquals(2, summary.statements().size());
+    assertEquals(List.of(new BulkAuditSummary.IdRange(ids.get(0), ids.get(4) + 1)), summary.widgetIds());
+  }
+
+  @Test
+  void testStatementsAreRecordedOnceAndRolledBackWithTheirSavepoint() {
+    grantBulkMaintainer();
+    List<Long> ids = createWidgets("Bulk Savepoint", 3);
+    long lastSummary = lastSummaryId();
+    String restock = "UPDATE widgets SET quantity = quantity + 1 WHERE id = ?";
+
+    AuditContext.runAsBulkMaintenance("bulk_admin", "restock", () -> inTransaction(() -> {
+      jdbcTemplate.execute("SAVEPOINT before_restock");
+      jdbcTemplate.update(restock, ids.get(0));
+      jdbcTemplate.execute("ROLLBACK TO SAVEPOINT before_restock");
+      jdbcTemplate.update(restock, ids.get(1));
+      jdbcTemplate.update(restock, ids.get(2));
+    }));
+
+    List<BulkAuditSummary> summaries = widgetAuditReader.findBulkSummariesAfter(lastSummary);
+    assertEquals(1, summaries.size());
+    assertEquals(1, summaries.get(0).statements().size(), "The repeated statement is recorded once");
+    assertEquals(2, summaries.get(0).updated());
+    assertEquals(List.of(new BulkAuditSummary.IdRange(ids.get(1), ids.get(2) + 1)), summaries.get(0).widgetIds());
+  }
+
+  @Test
+  void testLoginWithoutTheRoleCannotEnableBulkMode() throws SQLException {
+    List<Long> ids = createWidgets("Bulk Denied", 1);
+    long lastSummary = lastSummaryId();
+    jdbcTemplate.execute("DO $$ BEGIN IF NOT EXISTS (SELECT 1 FROM pg_roles WHERE rolname = 'bulk_outsider') "
+      + "THEN CREATE ROLE bulk_outsider; END IF; END $$");
+    jdbcTemplate.execute("GRANT SELECT, UPDATE ON public.widgets TO bulk_outsider");
+
+    try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+      connection.setAutoCommit(false);
+      try {
+        // Rolled back with the transaction, so the pooled connection gets its own login back
+        statement.execute("SET SESSION AUTHORIZATION bulk_outsider");
+        // Naming a user is not enough, whatever the name
+        statement.execute("SELECT set_config('app.current_user', 'bulk_admin', true), "
+          + "set_config('app.audit_bulk_reason', 'sneaky', true)");
+        SQLException denied = assertThrows(SQLException.class,
+          () -> statement.executeUpdate("UPDATE public.widgets SET quantity = 42 WHERE id = " + ids.get(0)));
+        assertEquals("42501", denied.getSQLState());
+        assertTrue(denied.getMessage().contains("bulk maintenance"), denied.getMessage());
+      } finally {
+        connection.rollback();
+        connection.setAutoCommit(true);
+      }
+    }
+
+    assertEquals(0, jdbcTemplate.queryForObject("SELECT quantity FROM widgets WHERE id = ?", Integer.class, ids.get(0)));
+    assertTrue(widgetAuditReader.findBulkSummariesAfter(lastSummary).isEmpty());
+  }
+
+  @Test
+  void testWritesOutsideBulkModeDoNotTouchBulkTables() {
+    List<Long> ids = createWidgets("Bulk Off", 3);
+    long lastSummary = lastSummaryId();
+
+    inTransaction(() -> {
+      jdbcTemplate.update("UPDATE widgets SET quantity = quantity + 1 WHERE id = ANY(?)", (Object) ids.toArray(new Long[0]));
+      assertEquals(0, jdbcTemplate.queryForObject(
+        "SELECT count(*) FROM widgets_audit_bulk_pending_rows WHERE txid = pg_current_xact_id()::TEXT::BIGINT",
+        Integer.class));
+    });
+
+    assertTrue(widgetAuditReader.findBulkSummariesAfter(lastSummary).isEmpty());
+  }
+
+  @Test
+  void testNestedUserScopeIsAuditedNormally() {
+    grantBulkMaintainer();
+    List<Long> ids = createWidgets("Bulk Nested", 1);
+    long auditRowsBefore = countAudits(ids);
+
+    AuditContext.runAsBulkMaintenance("bulk_admin", "nested", () -> AuditContext.runAsUser("alice",
+      () -> inTransaction(() -> jdbcTemplate.update("UPDATE widgets SET quantity = 9 WHERE id = ?", ids.get(0)))));
+
+    assertEquals(auditRowsBefore + 1, countAudits(ids));
+  }
+
+  @Test
+  void testCatalogMirrorReloadsBulkChangedRanges() {
+    grantBulkMaintainer();
+    List<Long> ids = createWidgets("Bulk Mirror", 3);
+    WidgetCatalogMirror mirror = new WidgetCatalogMirror(widgetBulkReader, widgetAuditReader, jdbcTemplate);
+    mirror.load();
+
+    AuditContext.runAsBulkMaintenance("bulk_admin", "restock", () -> inTransaction(() -> {
+      jdbcTemplate.update("UPDATE widgets SET quantity = quantity + 100 WHERE name LIKE 'Bulk Mirror %'");
+      jdbcTemplate.update("DELETE FROM widgets WHERE id = ?", ids.get(2));
+    }));
+    mirror.refresh();
+
+    assertEquals(100, mirror.find(ids.get(0)).quantity());
+    assertEquals(101, mirror.find(ids.get(1)).quantity());
+    assertNull(mirror.find(ids.get(2)));
+
+    // Replaying the window again must not resurrect the older audit images
+    mirror.refresh();
+    assertEquals(101, mirror.find(ids.get(1)).quantity());
+    assertNull(mirror.find(ids.get(2)));
+  }
+
+  private void inTransaction(Runnable work) {
+    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+      auditContextAspect.setPostgresSessionUser();
+      work.run();
+    });
+  }
+
+  private void grantBulkMaintainer() {
+    jdbcTemplate.execute("GRANT audit_bulk_maintainer TO CURRENT_USER");
+  }
+
+  private List<Long> createWidgets(String prefix, int count) {
+    List<Long> ids = new ArrayList<>();
+    String suffix = Long.toString(System.nanoTime(), 36);
+    for (int i = 0; i < count; i++) {
+      Widget widget = widgetRepository.save(
+        new Widget(prefix + " " + suffix + " " + i, OffsetDateTime.now(), i, new BigDecimal("1.00")));
+      ids.add(widget.getId());
+    }
+    return ids;
+  }
+
+  private long countAudits(List<Long> ids) {
+    return jdbcTemplate.queryForObject("SELECT count(*) FROM widgets_audit WHERE widget_id = ANY(?)", Long.class,
+      (Object) ids.toArray(new Long[0]));
+  }
+
+  private long lastSummaryId() {
+    return jdbcTemplate.queryForObject("SELECT coalesce(max(summary_id), 0) FROM widgets_audit_bulk_summary",
+      Long.class);
+  }
+}
@@ -0,0 +1,78 @@
+package application.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntHashIndexTest {
+
+  @Test
+  void testPutGetAndOverwrite() {
+    LongIntHashIndex index = new LongIntHashIndex(4);
+    index.put(10L, 1);
+    index.put(20L, 2);
+    index.put(10L, 3);
+
+    assertEquals(2, index.size());
+    assertEquals(3, index.get(10L));
+    assertEquals(2, index.get(20L));
+    assertEquals(LongIntHashIndex.MISSING, index.get(30L));
+  }
+
+  @Test
+  void testRemove() {
+    LongIntHashIndex index = new LongIntHashIndex(4);
+    index.put(1L, 100);
+
+    assertEquals(100, index.remove(1L));
+    assertEquals(LongIntHashIndex.MISSING, index.remove(1L));
+    assertEquals(LongIntHashIndex.MISSING, index.get(1L));
+    assertEquals(0, index.size());
+  }
+
+  @Test
+  void testGrowsBeyondInitialCapacity() {
+    LongIntHashIndex index = new LongIntHashIndex(2);
+    for (int i = 0; i < 10_000; i++) {
+      index.put(i, i);
+    }
+    assertEquals(10_000, index.size());
+    assertTrue(index.capacity() >= 20_000);
+    for (int i = 0; i < 10_000; i++) {
+      assertEquals(i, index.get(i));
+    }
+  }
+
+  @Test
+  void testRandomOperationsMatchHashMap() {
+    LongIntHashIndex index = new LongIntHashIndex(16);
+    Map<Long, Integer> expected = new HashMap<>();
+    Random random = new Random(42);
+
+    for (int i = 0; i < 200_000; i++) {
+      long key = random.nextInt(5_000);
+      if (random.nextBoolean()) {
+        index.put(key, i);
+        expected.put(key, i);
+      } else {
+        Integer removed = expected.remove(key);
+        assertEquals(removed == null ? LongIntHashIndex.MISSING : removed, index.remove(key));
+      }
+    }
+
+    assertEquals(expected.size(), index.size());
+    for (long key = 0; key < 5_000; key++) {
+      assertEquals(expected.getOrDefault(key, LongIntHashIndex.MISSING), index.get(key));
+    }
+  }
+
+  @Test
+  void testRejectsReservedKey() {
+    LongIntHashIndex index = new LongIntHashIndex(4);
+    assertThrows(IllegalArgumentException.class, () -> index.put(Long.MIN_VALUE, 1));
+  }
+}
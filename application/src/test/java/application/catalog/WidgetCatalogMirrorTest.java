@@ -0,0 +1,144 @@
+package application.catalog;
+
+import application.TestcontainersConfiguration;
+import application.model.Widget;
+import application.repo.WidgetAuditReader;
+import application.repo.WidgetBulkReader;
+import application.repo.WidgetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class WidgetCatalogMirrorTest {
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private WidgetBulkReader widgetBulkReader;
+
+  @Autowired
+  private WidgetAuditReader widgetAuditReader;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private DataSource dataSource;
+
+  private WidgetCatalogMirror mirror;
+
+  @BeforeEach
+  void loadMirror() {
+    mirror = new WidgetCatalogMirror(widgetBulkReader, widgetAuditReader, jdbcTemplate);
+    mirror.load();
+  }
+
+  @Test
+  void testLoadMirrorsEveryWidget() {
+    assertEquals(widgetRepository.count(), mirror.size());
+  }
+
+  @Test
+  void testRefreshAppliesInsertsUpdatesAndDeletes() {
+    Widget inserted = widgetRepository.saveAndFlush(
+      new Widget("Mirror Insert", OffsetDateTime.now(), 5, new BigDecimal("5.25")));
+    Widget deleted = widgetRepository.saveAndFlush(
+      new Widget("Mirror Delete", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+    mirror.refresh();
+    assertNotNull(mirror.find(deleted.getId()));
+
+    inserted.updateDetails("Mirror Update", 6, new BigDecimal("6.50"));
+    widgetRepository.saveAndFlush(inserted);
+    widgetRepository.delete(deleted);
+    int newRows = mirror.refresh();
+
+    assertEquals(2, newRows);
+    CatalogEntry entry = mirror.find(inserted.getId());
+    assertNotNull(entry);
+    assertEquals("Mirror Update", entry.name());
+    assertEquals(650L, entry.priceCents());
+    assertEquals(6, entry.quantity());
+    assertNull(mirror.find(deleted.getId()));
+    assertEquals(widgetRepository.count(), mirror.size());
+  }
+
+  @Test
+  void testRefreshIsIdempotent() {
+    Widget saved = widgetRepository.saveAndFlush(
+      new Widget("Mirror Replay", OffsetDateTime.now(), 3, new BigDecimal("3.00")));
+    mirror.refresh();
+    int sizeAfterFirst = mirror.size();
+
+    assertEquals(0, mirror.refresh());
+    assertEquals(sizeAfterFirst, mirror.size());
+    assertEquals(300L, mirror.find(saved.getId()).priceCents());
+  }
+
+  @Test
+  void testAppliesTransactionsThatCommitLongAfterDrawingTheirAuditId() throws SQLException {
+    Widget widget = widgetRepository.saveAndFlush(
+      new Widget("Mirror Late Commit", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+    mirror.refresh();
+
+    try (Connection late = dataSource.getConnection()) {
+      late.setAutoCommit(false);
+      try (PreparedStatement update = late.prepareStatement("UPDATE widgets SET quantity = 77 WHERE id = ?")) {
+        update.setLong(1, widget.getId());
+        update.executeUpdate();
+      }
+      Long lateAuditId = jdbcTemplate.queryForObject(
+        "SELECT last_value FROM widgets_audit_audit_id_seq", Long.class);
+
+      // Move far past the open transaction's audit id, refreshing along the way
+      jdbcTemplate.queryForList("SELECT nextval('widgets_audit_audit_id_seq') FROM generate_series(1, 5000)");
+      widgetRepository.saveAndFlush(new Widget("Mirror Late Neighbour", OffsetDateTime.now(), 2, new BigDecimal("2.00")));
+      mirror.refresh();
+      mirror.refresh();
+      assertEquals(1, mirror.find(widget.getId()).quantity());
+      assertTrue(mirror.metrics().replayFromAuditId() < lateAuditId,
+        "Ids the open transaction may have drawn stay in the replay range");
+
+      late.commit();
+    }
+    mirror.refresh();
+
+    assertEquals(77, mirror.find(widget.getId()).quantity());
+    mirror.refresh();
+    CatalogMirrorMetrics metrics = mirror.metrics();
+    assertEquals(metrics.lastAuditId(), metrics.replayFromAuditId(), "Nothing is in flight any more");
+  }
+
+  @Test
+  void testScanAndMetrics() {
+    long[] visited = new long[1];
+    mirror.forEach((id, name, priceCents, quantity, createdAtMicros) -> visited[0]++);
+    assertEquals(mirror.size(), visited[0]);
+
+    for (int i = 0; i < 1_000; i++) {
+      mirror.find(i);
+    }
+    CatalogMirrorMetrics metrics = mirror.metrics();
+    assertEquals(mirror.size(), metrics.widgets());
+    assertEquals(1_000, metrics.lookups());
+    assertTrue(metrics.memoryBytes() > 0);
+    assertTrue(metrics.refreshLagMillis() >= 0);
+    assertEquals(mirror.getLastAuditId(), metrics.lastAuditId());
+  }
+}
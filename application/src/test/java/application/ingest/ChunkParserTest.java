@@ -0,0 +1,116 @@
+package application.ingest;
+
+import application.repo.WidgetUpsert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkParserTest {
+
+  @Test
+  void testCsvUsesHeaderOrderAndQuotedFields() {
+    CsvChunkParser parser = CsvChunkParser.forHeader(bytes("﻿price, Name ,quantity,colour"));
+
+    ParsedChunk out = parse(parser, "1.25,\"Bolt, \"\"hex\"\"\",12,grey\r\n\n9,Nut,3,\n");
+
+    assertEquals(List.of(
+      new WidgetUpsert("Bolt, \"hex\"", 12, new BigDecimal("1.25")),
+      new WidgetUpsert("Nut", 3, new BigDecimal("9"))), out.rows());
+    assertEquals(0, out.rejected());
+  }
+
+  @Test
+  void testCsvRejectsBadLinesWithOffsets() {
+    CsvChunkParser parser = CsvChunkParser.forHeader(bytes("name,quantity,price"));
+
+    ParsedChunk out = parse(parser, "A,1,1.00\nB,lots,1.00\n\"C,1,1.00\nD,1\nE,2,2.00\n");
+
+    assertEquals(List.of("A", "E"), out.rows().stream().map(WidgetUpsert::name).toList());
+    assertEquals(3, out.rejected());
+    assertEquals(List.of(1009L, 1021L, 1031L), out.errors().stream().map(ImportError::offset).toList());
+  }
+
+  @Test
+  void testCsvHeaderMustNameRequiredColumns() {
+    assertThrows(IllegalArgumentException.class, () -> CsvChunkParser.forHeader(bytes("name,qty,price")));
+  }
+
+  @Test
+  void testNdjsonSkipsUnknownKeysAndDecodesEscapes() {
+    ParsedChunk out = parse(new NdjsonChunkParser(),
+      "{\"id\":7,\"tags\":[\"a\",{\"b\":null}],\"name\":\"Caf\\u00e9 \\\"Z\\\" \\ud83d\\ude00\",\"quantity\":-2,\"price\":\"10.10\"}\n"
+        + " { \"price\" : 1e2 , \"name\" : \"Gear\", \"quantity\": 4, \"ok\": true }\n");
+
+    assertEquals(List.of(
+      new WidgetUpsert("Café \"Z\" 😀", -2, new BigDecimal("10.10")),
+      new WidgetUpsert("Gear", 4, new BigDecimal("1E+2"))), out.rows());
+  }
+
+  @Test
+  void testNdjsonRejectsMalformedAndIncompleteObjects() {
+    ParsedChunk out = parse(new NdjsonChunkParser(),
+      "{\"name\":\"A\",\"quantity\":1}\n{\"name\":\"B\",\"quantity\":1,\"price\":1}x\n{\"name\":\"C\"\n[]\n");
+
+    assertTrue(out.rows().isEmpty());
+    assertEquals(4, out.rejected());
+    assertEquals("price is required", out.errors().get(0).message());
+  }
+
+  @Test
+  void testDecimalFastPathMatchesBigDecimal() {
+    for (String value : List.of("0", "0.5", "-12.340", "123456789012345678", "1234567890123456789.5", " 7.25 ")) {
+      byte[] bytes = bytes(value);
+      assertEquals(new BigDecimal(value.strip()), ChunkParser.parseDecimal(bytes, 0, bytes.length), value);
+    }
+    assertThrows(NumberFormatException.class, () -> ChunkParser.parseInt(bytes("99999999999"), 0, 11));
+  }
+
+  @Test
+  void testChunksEndOnLineBreaks(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("feed.csv");
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      text.append("line-").append(i).append('\n');
+    }
+    Files.writeString(file, text);
+
+    try (FileChannel channel = FileChannel.open(file)) {
+      List<FileChunk> chunks = FileChunker.split(channel, 0, channel.size(), 50);
+
+      assertEquals(0, chunks.get(0).start());
+      assertEquals(channel.size(), chunks.get(chunks.size() - 1).end());
+      for (int i = 0; i < chunks.size(); i++) {
+        FileChunk chunk = chunks.get(i);
+        assertEquals(i, chunk.index());
+        assertTrue(chunk.length() >= 50 || i == chunks.size() - 1);
+        if (i > 0) {
+          assertEquals(chunks.get(i - 1).end(), chunk.start());
+        }
+        ByteBuffer last = ByteBuffer.allocate(1);
+        channel.read(last, chunk.end() - 1);
+        assertEquals('\n', last.get(0));
+      }
+    }
+  }
+
+  private static ParsedChunk parse(ChunkParser parser, String text) {
+    ParsedChunk out = new ParsedChunk();
+    out.reset(new FileChunk(0, 1000, 1000 + text.length()));
+    parser.parse(ByteBuffer.wrap(bytes(text)), 1000, out);
+    return out;
+  }
+
+  private static byte[] bytes(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+}
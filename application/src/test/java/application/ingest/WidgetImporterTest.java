@@ -0,0 +1,88 @@
+package application.ingest;
+
+import application.TestcontainersConfiguration;
+import application.audit.AuditContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the parallel file import.
+ * Not @Transactional: writers commit on their own connections.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class WidgetImporterTest {
+
+  private static final ImportSettings SMALL_CHUNKS = new ImportSettings(1024, 3, 2, 2, 50);
+
+  @Autowired
+  private WidgetImporter importer;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void testImportsCsvInParallelChunksAsCallingUser() throws Exception {
+    StringBuilder csv = new StringBuilder("name,quantity,price\n");
+    for (int i = 0; i < 300; i++) {
+      csv.append("Import Csv ").append(i).append(',').append(i).append(",1.50\n");
+    }
+    csv.append("Import Csv broken,many,1.50\n");
+    Path file = Files.writeString(directory.resolve("feed.csv"), csv);
+
+    ImportReport report = AuditContext.callAsUser("import_feed_user",
+      () -> importer.importFile(file, ImportFormat.CSV, SMALL_CHUNKS));
+
+    assertTrue(report.chunks() > 5, "Small chunks split the file several times");
+    assertEquals(300, report.inserted());
+    assertEquals(1, report.rowsRejected());
+    assertTrue(report.complete());
+    assertEquals(1, report.errors().size());
+    assertEquals(300, report.stages().get(2).rows());
+    assertFalse(Files.exists(directory.resolve("feed.csv.checkpoint")), "Checkpoint removed after success");
+    List<String> users = jdbcTemplate.queryForList(
+      "SELECT DISTINCT u.username FROM widgets_audit a JOIN audit_users u ON u.user_id = a.changed_by_id "
+        + "WHERE a.name LIKE 'Import Csv %'", String.class);
+    assertEquals(List.of("import_feed_user"), users);
+  }
+
+  @Test
+  void testResumesFromCheckpointAndSkipsFinishedChunks() throws Exception {
+    StringBuilder ndjson = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      ndjson.append("{\"name\":\"Import Json ").append(i).append("\",\"quantity\":").append(i)
+            .append(",\"price\":2.25}\n");
+    }
+    Path file = Files.writeString(directory.resolve("feed.ndjson"), ndjson);
+    Files.writeString(directory.resolve("feed.ndjson.checkpoint"),
+      ImportCheckpoint.fingerprint(file, Files.size(file), SMALL_CHUNKS.chunkBytes()) + "\n0\n");
+
+    ImportReport resumed = importer.importFile(file, ImportFormat.NDJSON, SMALL_CHUNKS);
+
+    assertEquals(1, resumed.resumedChunks());
+    assertTrue(resumed.inserted() > 0 && resumed.inserted() < 200, "Rows of the finished chunk are not written");
+    assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM widgets WHERE name = 'Import Json 0'",
+      Integer.class));
+
+    ImportReport rerun = importer.importFile(file, ImportFormat.NDJSON, SMALL_CHUNKS);
+
+    assertEquals(0, rerun.resumedChunks(), "A completed import leaves no checkpoint behind");
+    assertEquals(200 - resumed.inserted(), rerun.inserted());
+    assertEquals(resumed.inserted(), rerun.unchanged());
+  }
+}
@@ -0,0 +1,106 @@
+package application.ingest;
+
+import application.TestcontainersConfiguration;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark client for the ingest endpoint: several concurrent streams push new widgets, then the
+ * same feed again with one widget in ten changed.
+ * Disabled by default; run with: mvn test -Dtest=WidgetIngestServerBenchmarkTest -Dbenchmark=true
+ * (-Dbenchmark.widgets=... -Dbenchmark.clients=... to change the load).
+ */
+@SpringBootTest(properties = {
+  "app.ingest.http.enabled=true",
+  "app.ingest.http.address=127.0.0.1",
+  "app.ingest.http.port=0",
+  "app.ingest.http.tokens=ingest_bench:bench-token"
+})
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class WidgetIngestServerBenchmarkTest {
+
+  @Autowired
+  private WidgetIngestServer server;
+
+  @Test
+  void benchmarkConcurrentStreams() {
+    int widgets = Integer.getInteger("benchmark.widgets", 400_000);
+    int clients = Integer.getInteger("benchmark.clients", 8);
+    HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    long[] load = run(client, widgets, clients, 0);
+    report("initial load", widgets, load);
+    assertEquals(widgets, load[0]);
+
+    long[] refeed = run(client, widgets, clients, 10);
+    report("re-feed 10% changed", widgets, refeed);
+    assertEquals(widgets / 10, refeed[1]);
+  }
+
+  /**
+   * @param changeEvery give every n-th widget a new quantity; 0 for none
+   * @return inserted, updated, unchanged and elapsed nanoseconds
+   */
+  private long[] run(HttpClient client, int widgets, int clients, int changeEvery) {
+    List<byte[]> bodies = new ArrayList<>();
+    for (int c = 0; c < clients; c++) {
+      StringBuilder body = new StringBuilder();
+      for (int i = c; i < widgets; i += clients) {
+        int quantity = changeEvery > 0 && i % changeEvery == 0 ? i % 100 + 1 : i % 100;
+        body.append("{\"name\":\"ingest-bench-").append(i).append("\",\"quantity\":").append(quantity)
+          .append(",\"price\":\"").append(i % 10_000 / 100).append('.').append(String.format("%02d", i % 100))
+          .append("\"}\n");
+      }
+      bodies.add(body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    long started = System.nanoTime();
+    List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+    for (byte[] body : bodies) {
+      responses.add(client.sendAsync(HttpRequest.newBuilder(
+            URI.create("http://127.0.0.1:" + server.port() + WidgetIngestServer.PATH))
+          .header("Authorization", "Bearer bench-token")
+          .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+          .build(),
+        HttpResponse.BodyHandlers.ofString()));
+    }
+    long[] totals = new long[4];
+    for (CompletableFuture<HttpResponse<String>> response : responses) {
+      HttpResponse<String> done = response.join();
+      assertEquals(200, done.statusCode());
+      List<String> lines = done.body().lines().toList();
+      DocumentContext summary = JsonPath.parse(lines.get(lines.size() - 1));
+      assertTrue(summary.read("$.complete", Boolean.class), lines.get(lines.size() - 1));
+      totals[0] += summary.read("$.inserted", Long.class);
+      totals[1] += summary.read("$.updated", Long.class);
+      totals[2] += summary.read("$.unchanged", Long.class);
+    }
+    totals[3] = System.nanoTime() - started;
+    return totals;
+  }
+
+  private static void report(String label, int widgets, long[] totals) {
+    double seconds = totals[3] / 1e9;
+    System.out.printf("%-20s %,9d widgets in %6.2f s = %,9.0f widgets/s (%,d inserted, %,d updated, %,d unchanged)%n",
+      label, widgets, seconds, widgets / seconds, totals[0], totals[1], totals[2]);
+  }
+}
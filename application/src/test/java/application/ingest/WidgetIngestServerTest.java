@@ -0,0 +1,134 @@
+package application.ingest;
+
+import application.TestcontainersConfiguration;
+import application.model.Widget;
+import application.repo.WidgetRepository;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+  "app.ingest.http.enabled=true",
+  "app.ingest.http.address=127.0.0.1",
+  "app.ingest.http.port=0",
+  "app.ingest.http.tokens=supplier_feed:feed-token,erp_sync:erp-token",
+  "app.ingest.http.batch-size=2"
+})
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class WidgetIngestServerTest {
+
+  private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+  @Autowired
+  private WidgetIngestServer server;
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void testStreamsPerBatchResultsAndUpserts() throws Exception {
+    widgetRepository.saveAndFlush(new Widget("Ingest Existing", OffsetDateTime.now(), 1,
+      new BigDecimal("1.00")));
+
+    HttpResponse<String> response = post("feed-token", """
+      {"name":"Ingest Bolt","quantity":10,"price":"1.25"}
+      {"name":"Ingest Nut","quantity":20,"price":0.5}
+
+      {"name":"Ingest Existing","quantity":2,"price":"1.00"}
+      {"name":"Ingest Washer","quantity":"many","price":1}
+      {"name":"Ingest Washer","quantity":30,"price":0.1}
+      """);
+
+    assertEquals(200, response.statusCode());
+    assertEquals("application/x-ndjson", response.headers().firstValue("Content-Type").orElseThrow());
+    List<String> lines = response.body().lines().toList();
+    assertEquals(4, lines.size(), String.join("\n", lines));
+
+    DocumentContext first = JsonPath.parse(lines.get(0));
+    assertEquals(1, (int) first.read("$.firstLine"));
+    assertEquals(2, (int) first.read("$.lastLine"));
+    assertEquals(2, (int) first.read("$.inserted"));
+
+    DocumentContext second = JsonPath.parse(lines.get(1));
+    assertEquals(1, (int) second.read("$.updated"));
+    assertEquals(1, (int) second.read("$.rejected"));
+    assertEquals(5, (int) second.read("$.errors[0].line"));
+
+    DocumentContext summary = JsonPath.parse(lines.get(3));
+    assertTrue(summary.read("$.complete", Boolean.class));
+    assertEquals(3, (int) summary.read("$.batches"));
+    assertEquals(6, (int) summary.read("$.lines"));
+    assertEquals(3, (int) summary.read("$.inserted"));
+    assertEquals(1, (int) summary.read("$.updated"));
+    assertEquals(1, (int) summary.read("$.rejected"));
+
+    Widget existing = widgetRepository.findByName("Ingest Existing").orElseThrow();
+    assertEquals(2, existing.getQuantity());
+    assertEquals(0, new BigDecimal("0.10").compareTo(widgetRepository.findByName("Ingest Washer").orElseThrow()
+      .getPrice()));
+  }
+
+  @Test
+  void testAuditsAsTheTokensUser() throws Exception {
+    assertEquals(200, post("erp-token", "{\"name\":\"Ingest Audited\",\"quantity\":1,\"price\":2}\n").statusCode());
+
+    String changedBy = jdbcTemplate.queryForObject(
+      "SELECT u.username FROM widgets_audit a JOIN audit_users u ON u.user_id = a.changed_by_id "
+        + "WHERE a.widget_id = (SELECT id FROM widgets WHERE name = 'Ingest Audited')", String.class);
+    assertEquals("erp_sync", changedBy);
+  }
+
+  @Test
+  void testRejectsUnknownTokensAndOtherMethods() throws Exception {
+    HttpResponse<String> unauthorized = post("wrong-token", "{\"name\":\"Ingest Denied\",\"quantity\":1,\"price\":1}\n");
+    assertEquals(401, unauthorized.statusCode());
+    assertEquals("Bearer", unauthorized.headers().firstValue("WWW-Authenticate").orElseThrow());
+    assertTrue(widgetRepository.findByName("Ingest Denied").isEmpty());
+
+    HttpResponse<String> get = client.send(HttpRequest.newBuilder(uri())
+      .header("Authorization", "Bearer feed-token").GET().build(), HttpResponse.BodyHandlers.ofString());
+    assertEquals(405, get.statusCode());
+  }
+
+  @Test
+  void testTokensNeedUserAndToken() {
+    assertThrows(IllegalArgumentException.class, () -> BearerTokens.parse("no-separator"));
+    assertThrows(IllegalArgumentException.class, () -> BearerTokens.parse(" , "));
+    BearerTokens tokens = BearerTokens.parse("alice:a:b");
+    assertEquals("alice", tokens.userFor("bearer a:b"));
+    assertNull(tokens.userFor("Basic a:b"));
+    assertNull(tokens.userFor(null));
+  }
+
+  private HttpResponse<String> post(String token, String body) throws Exception {
+    HttpRequest request = HttpRequest.newBuilder(uri())
+      .header("Authorization", "Bearer " + token)
+      .header("Content-Type", "application/x-ndjson")
+      .POST(HttpRequest.BodyPublishers.ofString(body))
+      .build();
+    return client.send(request, HttpResponse.BodyHandlers.ofString());
+  }
+
+  private URI uri() {
+    return URI.create("http://127.0.0.1:" + server.port() + WidgetIngestServer.PATH);
+  }
+}
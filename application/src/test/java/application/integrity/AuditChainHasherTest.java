@@ -0,0 +1,53 @@
+package application.integrity;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditChainHasherTest {
+
+  @Test
+  void testCanonicalFormMatchesTriggerLayout() {
+    AuditChainHasher hasher = new AuditChainHasher();
+
+    assertEquals("12|7|U|8:Sprocket|1700000000000000|5|19.90|1700000001000000|3",
+      hasher.canonical(12, 7L, 'U', "Sprocket", 1_700_000_000_000_000L, 5, new BigDecimal("19.90"),
+        1_700_000_001_000_000L, 3, null, null));
+    assertEquals("1|-|D|-|-|-|-|0|-", hasher.canonical(1, null, 'D', null, null, null, null, 0, null, null, null));
+  }
+
+  @Test
+  void testOldValuesAreAppendedOnlyWhenSet() {
+    AuditChainHasher hasher = new AuditChainHasher();
+
+    assertEquals("12|7|U|8:Sprocket|1700000000000000|5|19.90|1700000001000000|3|4|18.50",
+      hasher.canonical(12, 7L, 'U', "Sprocket", 1_700_000_000_000_000L, 5, new BigDecimal("19.90"),
+        1_700_000_001_000_000L, 3, 4, new BigDecimal("18.50")));
+    assertEquals("2|7|U|-|-|-|-|0|-|-|1.00",
+      hasher.canonical(2, 7L, 'U', null, null, null, null, 0, null, null, new BigDecimal("1.00")));
+  }
+
+  @Test
+  void testNameLengthCountsCodePoints() {
+    AuditChainHasher hasher = new AuditChainHasher();
+
+    String canonical = hasher.canonical(1, 1L, 'I', "a|😀", null, null, null, 0, null, null, null);
+
+    assertTrue(canonical.contains("|3:a|😀|"), canonical);
+  }
+
+  @Test
+  void testHashDependsOnPreviousLink() {
+    AuditChainHasher hasher = new AuditChainHasher();
+    byte[] first = hasher.hash(null, 1, 1L, 'I', "w", 0L, 1, BigDecimal.ONE, 0, 1, null, null);
+    byte[] linked = hasher.hash(first, 2, 1L, 'U', "w", 0L, 2, BigDecimal.ONE, 1, 1, 1, BigDecimal.ONE);
+    byte[] relinked = hasher.hash(new byte[32], 2, 1L, 'U', "w", 0L, 2, BigDecimal.ONE, 1, 1, 1, BigDecimal.ONE);
+
+    assertEquals(32, first.length);
+    assertFalse(java.util.Arrays.equals(linked, relinked));
+    assertArrayEquals(first, hasher.hash(new byte[0], 1, 1L, 'I', "w", 0L, 1, BigDecimal.ONE, 0, 1, null, null),
+      "A missing previous link hashes like an empty one");
+  }
+}
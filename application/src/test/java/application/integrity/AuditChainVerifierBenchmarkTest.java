@@ -0,0 +1,56 @@
+package application.integrity;
+
+import application.TestcontainersConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verification throughput against worker count at two million hashed audit rows.
+ * Disabled by default; run with: mvn test -Dtest=AuditChainVerifierBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AuditChainVerifierBenchmarkTest {
+
+  private static final int WIDGETS = 500_000;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Test
+  void verificationScalesWithWorkers() {
+    jdbcTemplate.update("INSERT INTO public.widgets (name, quantity, price) "
+      + "SELECT 'chain-bench-' || g, 1, 1.00 FROM generate_series(1, ?) g", WIDGETS);
+    for (int round = 2; round <= 4; round++) {
+      jdbcTemplate.update("UPDATE public.widgets SET quantity = ? WHERE name LIKE 'chain-bench-%'", round);
+    }
+    jdbcTemplate.execute("VACUUM ANALYZE public.widgets_audit");
+
+    int cores = Runtime.getRuntime().availableProcessors();
+    double baseline = 0;
+    for (int workers = 1; workers <= cores; workers *= 2) {
+      ChainVerificationResult result = new AuditChainVerifier(dataSource, workers, 100_000).verifyAll();
+      assertTrue(result.intact(), () -> "Violations: " + result.violations());
+      if (workers == 1) {
+        baseline = result.rowsPerSecond();
+      }
+      System.out.printf("workers=%-3d rows=%d anchors=%d in %d ms (%.0f rows/s, %.2fx)%n", result.parallelism(),
+        result.rowsVerified(), result.anchors(), result.elapsed().toMillis(), result.rowsPerSecond(),
+        result.rowsPerSecond() / baseline);
+    }
+  }
+}
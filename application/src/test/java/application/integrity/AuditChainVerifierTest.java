@@ -0,0 +1,257 @@
+package application.integrity;
+
+import application.TestcontainersConfiguration;
+import application.archive.AuditArchive;
+import application.model.Widget;
+import application.repo.AuditRow;
+import application.repo.WidgetAuditReader;
+import application.repo.WidgetColumnBatch;
+import application.repo.WidgetRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the audit hash chain trigger and its parallel verifier.
+ * Tiny chunks force many boundaries, so most links are checked by the stitching step.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class AuditChainVerifierTest {
+
+  private static final byte[] CHECKPOINT_KEY = "test-signing-key".getBytes(StandardCharsets.UTF_8);
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Test
+  void testTriggerLinksRowsPerWidget() {
+    Widget widget = createWidgetWithHistory("Chain Links", 2);
+
+    List<byte[][]> links = jdbcTemplate.query(
+      "SELECT prev_hash, row_hash FROM public.widgets_audit WHERE widget_id = ? ORDER BY audit_id",
+      (rs, rowNum) -> new byte[][] {rs.getBytes(1), rs.getBytes(2)}, widget.getId());
+
+    assertEquals(3, links.size());
+    assertNull(links.get(0)[0], "The INSERT row starts the chain");
+    assertArrayEquals(links.get(0)[1], links.get(1)[0]);
+    assertArrayEquals(links.get(1)[1], links.get(2)[0]);
+  }
+
+  @Test
+  void testIntactChainsVerifyAcrossChunkBoundaries() {
+    long from = nextAuditId();
+    for (int i = 0; i < 4; i++) {
+      createWidgetWithHistory("Chain Intact " + i, 3);
+    }
+    long to = lastAuditId();
+
+    ChainVerificationResult result = new AuditChainVerifier(dataSource, 4, 3).verify(from, to);
+
+    assertTrue(result.intact(), () -> "Unexpected violations: " + result.violations());
+    assertEquals(16, result.rowsVerified());
+    assertEquals(4, result.anchors(), "One anchor per widget");
+    assertEquals(0, result.unhashedRows());
+  }
+
+  @Test
+  void testParallelismLeavesAConnectionForTheApplication() {
+    int poolSize = ((HikariDataSource) dataSource).getMaximumPoolSize();
+
+    ChainVerificationResult result = new AuditChainVerifier(dataSource, poolSize * 4, 3).verify(1, 0);
+
+    assertEquals(poolSize - 1, result.parallelism());
+  }
+
+  @Test
+  void testDetectsEditedRow() {
+    long from = nextAuditId();
+    Widget widget = createWidgetWithHistory("Chain Edited", 3);
+    long to = lastAuditId();
+    long edited = jdbcTemplate.queryForObject(
+      "SELECT audit_id FROM public.widgets_audit WHERE widget_id = ? ORDER BY audit_id OFFSET 1 LIMIT 1",
+      Long.class, widget.getId());
+    jdbcTemplate.update("UPDATE public.widgets_audit SET quantity = quantity + 1000 WHERE audit_id = ?", edited);
+
+    ChainVerificationResult result = new AuditChainVerifier(dataSource, 2, 2).verify(from, to);
+
+    assertEquals(1, result.violationCount());
+    assertEquals(new ChainViolation(edited, widget.getId(), ChainViolation.CONTENT_MISMATCH),
+      result.violations().get(0));
+  }
+
+  @Test
+  void testDetectsEditedOldValues() {
+    long from = nextAuditId();
+    Widget widget = createWidgetWithHistory("Chain Old Values", 2);
+    long to = lastAuditId();
+    long edited = jdbcTemplate.queryForObject(
+      "SELECT max(audit_id) FROM public.widgets_audit WHERE widget_id = ?", Long.class, widget.getId());
+    // The previous row this one repeats is gone, as after a retention purge
+    jdbcTemplate.update("DELETE FROM public.widgets_audit WHERE widget_id = ? AND audit_id < ?", widget.getId(), edited);
+    jdbcTemplate.update("UPDATE public.widgets_audit SET old_price = old_price + 1 WHERE audit_id = ?", edited);
+
+    ChainVerificationResult result = new AuditChainVerifier(dataSource, 2, 2).verify(from, to);
+
+    assertEquals(1, result.violationCount());
+    assertEquals(new ChainViolation(edited, widget.getId(), ChainViolation.CONTENT_MISMATCH),
+      result.violations().get(0));
+  }
+
+  @Test
+  void testDetectsRemovedRowInTheMiddleOfAChain() {
+    long from = nextAuditId();
+    Widget widget = createWidgetWithHistory("Chain Removed", 3);
+    long to = lastAuditId();
+    List<Long> auditIds = jdbcTemplate.queryForList(
+      "SELECT audit_id FROM public.widgets_audit WHERE widget_id = ? ORDER BY audit_id", Long.class, widget.getId());
+    jdbcTemplate.update("DELETE FROM public.widgets_audit WHERE audit_id = ?", auditIds.get(1));
+
+    ChainVerificationResult result = new AuditChainVerifier(dataSource, 2, 1).verify(from, to);
+
+    assertEquals(1, result.violationCount());
+    assertEquals(new ChainViolation(auditIds.get(2), widget.getId(), ChainViolation.BROKEN_LINK),
+      result.violations().get(0));
+  }
+
+  @Test
+  void testVerifiesArchivedHistoryLinkedToLiveRows(@TempDir Path directory) {
+    long from = nextAuditId();
+    Widget widget = createWidgetWithHistory("Chain Archived", 3);
+    long to = lastAuditId();
+    List<AuditRow> history = history(widget);
+    AuditArchive archive = new AuditArchive(directory);
+    archive.append(history.subList(0, 2));
+
+    // Appended but not yet purged, as when archival stops between the two steps
+    ChainVerificationResult inBothTiers = new AuditChainVerifier(dataSource, archive, 2, 2).verify(from, to);
+    jdbcTemplate.update("DELETE FROM public.widgets_audit WHERE widget_id = ? AND audit_id <= ?",
+      widget.getId(), history.get(1).auditId());
+    ChainVerificationResult liveOnly = new AuditChainVerifier(dataSource, 2, 2).verify(from, to);
+    ChainVerificationResult archived = new AuditChainVerifier(dataSource, archive, 2, 2).verify(from, to);
+
+    assertTrue(inBothTiers.intact(), () -> "Unexpected violations: " + inBothTiers.violations());
+    assertEquals(4, inBothTiers.rowsVerified(), "Rows in both tiers are verified once");
+    assertTrue(liveOnly.intact());
+    assertEquals(2, liveOnly.rowsVerified());
+    assertEquals(1, liveOnly.unlinkedAnchors(), "Without the archive the purged prefix can't be told from a deletion");
+    assertTrue(archived.intact(), () -> "Unexpected violations: " + archived.violations());
+    assertEquals(4, archived.rowsVerified());
+    assertEquals(0, archived.unlinkedAnchors());
+  }
+
+  @Test
+  void testDetectsRowMissingFromTheArchive(@TempDir Path directory) {
+    long from = nextAuditId();
+    Widget widget = createWidgetWithHistory("Chain Archive Gap", 3);
+    long to = lastAuditId();
+    List<AuditRow> history = history(widget);
+    AuditArchive archive = new AuditArchive(directory);
+    archive.append(List.of(history.get(0), history.get(2)));
+    jdbcTemplate.update("DELETE FROM public.widgets_audit WHERE widget_id = ? AND audit_id <= ?",
+      widget.getId(), history.get(2).auditId());
+
+    ChainVerificationResult result = new AuditChainVerifier(dataSource, archive, 2, 1).verify(from, to);
+
+    assertEquals(1, result.violationCount());
+    assertEquals(new ChainViolation(history.get(2).auditId(), widget.getId(), ChainViolation.BROKEN_LINK),
+      result.violations().get(0));
+  }
+
+  @Test
+  void testCheckpointCatchesDeletedNewestRows(@TempDir Path directory) {
+    long from = nextAuditId();
+    Widget widget = createWidgetWithHistory("Chain Checkpoint Tail", 3);
+    long to = lastAuditId();
+    ChainCheckpointStore store = new ChainCheckpointStore(directory, CHECKPOINT_KEY);
+    store.write(checkpoint(widget, to));
+    AuditChainVerifier verifier = new AuditChainVerifier(dataSource, null, store, Duration.ofDays(1), 2, 2);
+
+    ChainVerificationResult untouched = verifier.verify(from, to);
+    // The newest row goes and the chain that remains still links
+    jdbcTemplate.update("DELETE FROM public.widgets_audit WHERE audit_id = ?", to);
+    ChainVerificationResult withoutCheckpoint = new AuditChainVerifier(dataSource, 2, 2).verify(from, to);
+    ChainVerificationResult result = verifier.verify(from, to);
+
+    assertTrue(untouched.intact(), () -> "Unexpected violations: " + untouched.violations());
+    assertTrue(withoutCheckpoint.intact());
+    assertEquals(List.of(new ChainViolation(to, widget.getId(), ChainViolation.CHECKPOINT_MISMATCH)),
+      result.violations());
+  }
+
+  @Test
+  void testCheckpointCatchesDeletedOldestRows(@TempDir Path directory) {
+    long from = nextAuditId();
+    Widget widget = createWidgetWithHistory("Chain Checkpoint Head", 3);
+    long to = lastAuditId();
+    ChainCheckpointStore store = new ChainCheckpointStore(directory, CHECKPOINT_KEY);
+    store.write(checkpoint(widget, to));
+    jdbcTemplate.update("DELETE FROM public.widgets_audit WHERE audit_id = ?", from);
+
+    ChainVerificationResult result =
+      new AuditChainVerifier(dataSource, null, store, Duration.ofDays(1), 2, 2).verify(from, to);
+    // Rows older than the purge horizon may have been removed by retention
+    ChainVerificationResult purged =
+      new AuditChainVerifier(dataSource, null, store, Duration.ZERO, 2, 2).verify(from, to);
+
+    assertEquals(List.of(new ChainViolation(from, widget.getId(), ChainViolation.TRUNCATED)), result.violations());
+    assertTrue(purged.intact(), () -> "Unexpected violations: " + purged.violations());
+  }
+
+  /**
+   * The checkpoint an intact verification would record for this widget.
+   */
+  private ChainCheckpoint checkpoint(Widget widget, long throughAuditId) {
+    List<AuditRow> history = history(widget);
+    AuditRow head = history.get(0);
+    AuditRow tail = history.get(history.size() - 1);
+    return new ChainCheckpoint(Instant.now(), throughAuditId, List.of(new ChainCheckpoint.WidgetChain(
+      widget.getId(), head.auditId(), WidgetColumnBatch.toEpochMicros(head.changedAt()),
+      tail.auditId(), WidgetColumnBatch.toEpochMicros(tail.changedAt()), tail.rowHash())));
+  }
+
+  private List<AuditRow> history(Widget widget) {
+    return jdbcTemplate.query(WidgetAuditReader.SELECT_AUDIT_ROWS + "WHERE a.widget_id = ? ORDER BY a.audit_id",
+      WidgetAuditReader.AUDIT_ROW_MAPPER, widget.getId());
+  }
+
+  private Widget createWidgetWithHistory(String name, int updates) {
+    Widget widget = widgetRepository.saveAndFlush(new Widget(name, OffsetDateTime.now(), 0, new BigDecimal("1.00")));
+    for (int quantity = 1; quantity <= updates; quantity++) {
+      widget.updateDetails(name, quantity, widget.getPrice());
+      widget = widgetRepository.saveAndFlush(widget);
+    }
+    return widget;
+  }
+
+  private long nextAuditId() {
+    return lastAuditId() + 1;
+  }
+
+  private long lastAuditId() {
+    return jdbcTemplate.queryForObject("SELECT coalesce(max(audit_id), 0) FROM public.widgets_audit", Long.class);
+  }
+}
@@ -0,0 +1,87 @@
+package application.integrity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChainCheckpointStoreTest {
+
+  private static final byte[] KEY = "test-signing-key".getBytes(StandardCharsets.UTF_8);
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void testLatestReturnsTheNewestCheckpoint() {
+    ChainCheckpointStore store = new ChainCheckpointStore(directory, KEY);
+    assertTrue(store.latest().isEmpty());
+
+    store.write(checkpoint(Instant.ofEpochMilli(1_000), 10));
+    store.write(checkpoint(Instant.ofEpochMilli(2_000), 20));
+    ChainCheckpoint latest = store.latest().orElseThrow();
+
+    assertEquals(20, latest.throughAuditId());
+    assertEquals(Instant.ofEpochMilli(2_000), latest.recordedAt());
+    assertEquals(2, latest.widgets().size());
+    ChainCheckpoint.WidgetChain widget = latest.widgets().get(0);
+    assertEquals(7L, widget.widgetId());
+    assertEquals(1, widget.headAuditId());
+    assertEquals(100, widget.headChangedAtMicros());
+    assertEquals(20, widget.tailAuditId());
+    assertEquals(200, widget.tailChangedAtMicros());
+    assertArrayEquals(hash(20), widget.tailHash());
+    assertNull(latest.widgets().get(1).widgetId());
+  }
+
+  @Test
+  void testKeepsOnlyTheMostRecentFiles() throws IOException {
+    ChainCheckpointStore store = new ChainCheckpointStore(directory, KEY);
+    for (int i = 1; i <= ChainCheckpointStore.KEPT_CHECKPOINTS + 2; i++) {
+      store.write(checkpoint(Instant.ofEpochMilli(i * 1_000L), i));
+    }
+
+    try (Stream<Path> files = Files.list(directory)) {
+      assertEquals(ChainCheckpointStore.KEPT_CHECKPOINTS, files.count());
+    }
+    assertEquals(ChainCheckpointStore.KEPT_CHECKPOINTS + 2, store.latest().orElseThrow().throughAuditId());
+  }
+
+  @Test
+  void testRejectsEditedOrForeignCheckpoints() throws IOException {
+    new ChainCheckpointStore(directory, KEY).write(checkpoint(Instant.ofEpochMilli(1_000), 10));
+    Path file;
+    try (Stream<Path> files = Files.list(directory)) {
+      file = files.findFirst().orElseThrow();
+    }
+
+    ChainCheckpointStore otherKey = new ChainCheckpointStore(directory, "another-key".getBytes(StandardCharsets.UTF_8));
+    assertThrows(IllegalStateException.class, otherKey::latest);
+
+    byte[] bytes = Files.readAllBytes(file);
+    bytes[20] ^= 1;
+    Files.write(file, bytes);
+    assertThrows(IllegalStateException.class, () -> new ChainCheckpointStore(directory, KEY).latest());
+  }
+
+  private static ChainCheckpoint checkpoint(Instant recordedAt, long throughAuditId) {
+    return new ChainCheckpoint(recordedAt, throughAuditId, List.of(
+      new ChainCheckpoint.WidgetChain(7L, 1, 100, throughAuditId, 200, hash(throughAuditId)),
+      new ChainCheckpoint.WidgetChain(null, 2, 100, 3, 100, hash(3))));
+  }
+
+  private static byte[] hash(long seed) {
+    byte[] hash = new byte[32];
+    Arrays.fill(hash, (byte) seed);
+    return hash;
+  }
+}
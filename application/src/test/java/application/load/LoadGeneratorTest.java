@@ -0,0 +1,105 @@
+package application.load;
+
+import application.TestcontainersConfiguration;
+import application.repo.WidgetAuditRepository;
+import application.repo.WidgetRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Short multi-user run against the test container.
+ * Not @Transactional: every simulated user commits its own work.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class LoadGeneratorTest {
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private WidgetAuditRepository widgetAuditRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void testRunsMixedWorkloadAndReportsPercentiles() {
+    LoadGenerator generator = new LoadGenerator(widgetRepository, widgetAuditRepository,
+      new TransactionTemplate(transactionManager), jdbcTemplate);
+    LoadSettings settings = new LoadSettings(20, Duration.ofSeconds(3),
+      LoadMix.parse("insert=40,update=30,delete=5,audit_query=25"),
+      Duration.ofMillis(5), Duration.ofSeconds(1), 0);
+
+    List<IntervalSnapshot> snapshots = new ArrayList<>();
+    LoadReport report = generator.run(settings, snapshots::add);
+
+    assertEquals(20, report.users());
+    assertFalse(snapshots.isEmpty());
+    assertEquals(snapshots, report.intervals());
+    for (LoadOperation operation : LoadOperation.values()) {
+      OperationStats total = report.total(operation);
+      assertEquals(0, total.errors(), operation + " failed");
+      if (operation != LoadOperation.DELETE) {
+        assertTrue(total.count() > 0, operation + " never ran");
+      }
+      if (total.count() > 0) {
+        assertTrue(total.p50Micros() <= total.p99Micros());
+        assertTrue(total.p99Micros() <= total.maxMicros());
+      }
+    }
+    Integer audited = jdbcTemplate.queryForObject(
+      "SELECT count(*) FROM widgets_audit WHERE changed_by_id = (SELECT user_id FROM audit_users WHERE username = 'load-user-0')",
+      Integer.class);
+    assertTrue(audited > 0, "Audit rows carry the simulated user's name");
+  }
+
+  @Test
+  void testStallIsChargedToOperationsThatWereDueDuringIt() {
+    LoadGenerator generator = new LoadGenerator(widgetRepository, widgetAuditRepository,
+      new TransactionTemplate(transactionManager), jdbcTemplate);
+    LoadSettings settings = new LoadSettings(2, Duration.ofSeconds(4), LoadMix.parse("insert=1"),
+      Duration.ofMillis(10), Duration.ofSeconds(1), 0);
+    // Blocks every insert for a second; only one operation per user is in flight while it lasts
+    CompletableFuture<Void> stall = CompletableFuture.runAsync(() -> {
+      sleep(Duration.ofSeconds(1));
+      new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+        jdbcTemplate.execute("LOCK TABLE public.widgets IN EXCLUSIVE MODE");
+        sleep(Duration.ofSeconds(1));
+      });
+    });
+
+    LoadReport report = generator.run(settings, snapshot -> { });
+    stall.join();
+
+    OperationStats inserts = report.total(LoadOperation.INSERT);
+    assertTrue(inserts.maxMicros() >= 900_000, "max=" + inserts.maxMicros());
+    // About a quarter of the scheduled inserts fall into the stall
+    assertTrue(inserts.p90Micros() >= 200_000, "p90=" + inserts.p90Micros());
+  }
+
+  private static void sleep(Duration duration) {
+    try {
+      Thread.sleep(duration.toMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
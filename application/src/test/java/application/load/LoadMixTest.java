@@ -0,0 +1,68 @@
+package application.load;
+
+import application.concurrent.UserThreads;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadMixTest {
+
+  @Test
+  void testParsesWeightsInAnyOrderAndCase() {
+    LoadMix mix = LoadMix.parse("Audit_Query=25, insert=40,update=30,delete=5");
+
+    assertEquals(new LoadMix(40, 30, 5, 25), mix);
+    assertEquals(100, mix.totalWeight());
+  }
+
+  @Test
+  void testMissingOperationsDefaultToZero() {
+    assertEquals(new LoadMix(1, 0, 0, 0), LoadMix.parse("insert=1"));
+  }
+
+  @Test
+  void testPicksByCumulativeWeight() {
+    LoadMix mix = new LoadMix(40, 30, 5, 25);
+
+    assertEquals(LoadOperation.INSERT, mix.pick(0));
+    assertEquals(LoadOperation.INSERT, mix.pick(39));
+    assertEquals(LoadOperation.UPDATE, mix.pick(40));
+    assertEquals(LoadOperation.UPDATE, mix.pick(69));
+    assertEquals(LoadOperation.DELETE, mix.pick(70));
+    assertEquals(LoadOperation.DELETE, mix.pick(74));
+    assertEquals(LoadOperation.AUDIT_QUERY, mix.pick(75));
+    assertEquals(LoadOperation.AUDIT_QUERY, mix.pick(99));
+  }
+
+  @Test
+  void testZeroWeightOperationIsNeverPicked() {
+    LoadMix mix = new LoadMix(1, 0, 0, 1);
+
+    assertEquals(LoadOperation.INSERT, mix.pick(0));
+    assertEquals(LoadOperation.AUDIT_QUERY, mix.pick(1));
+  }
+
+  @Test
+  void testRejectsInvalidMixes() {
+    assertThrows(IllegalArgumentException.class, () -> new LoadMix(0, 0, 0, 0));
+    assertThrows(IllegalArgumentException.class, () -> new LoadMix(-1, 1, 0, 0));
+    assertThrows(IllegalArgumentException.class, () -> LoadMix.parse("insert"));
+    assertThrows(IllegalArgumentException.class, () -> LoadMix.parse("upsert=3"));
+    assertThrows(IllegalArgumentException.class, () -> LoadMix.parse("insert=many"));
+  }
+
+  @Test
+  void testUserExecutorRunsTasksOnThisRuntime() throws Exception {
+    ExecutorService executor = UserThreads.newExecutor("load-user");
+    try {
+      Future<String> result = executor.submit(() -> "ran");
+      assertEquals("ran", result.get(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package application.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditOperationConverterTest {
+
+  private final AuditOperationConverter converter = new AuditOperationConverter();
+
+  @Test
+  void testConvertsOperationNamesToCodes() {
+    assertEquals('I', converter.convertToDatabaseColumn("INSERT"));
+    assertEquals('U', converter.convertToDatabaseColumn("UPDATE"));
+    assertEquals('D', converter.convertToDatabaseColumn("DELETE"));
+  }
+
+  @Test
+  void testConvertsCodesToOperationNames() {
+    assertEquals("INSERT", converter.convertToEntityAttribute('I'));
+    assertEquals("UPDATE", converter.convertToEntityAttribute('U'));
+    assertEquals("DELETE", converter.convertToEntityAttribute('D'));
+  }
+
+  @Test
+  void testRoundTripsEveryOperation() {
+    for (AuditOperation operation : AuditOperation.values()) {
+      Character code = converter.convertToDatabaseColumn(operation.name());
+      assertEquals(operation.name(), converter.convertToEntityAttribute(code));
+    }
+  }
+
+  @Test
+  void testNullsPassThrough() {
+    assertNull(converter.convertToDatabaseColumn(null));
+    assertNull(converter.convertToEntityAttribute(null));
+  }
+
+  @Test
+  void testRejectsUnknownValues() {
+    assertThrows(IllegalArgumentException.class, () -> converter.convertToDatabaseColumn("MERGE"));
+    assertThrows(IllegalArgumentException.class, () -> converter.convertToEntityAttribute('X'));
+  }
+}
@@ -68,5 +68,10 @@ class WidgetAuditTest {
     WidgetAudit audit = new WidgetAudit();
     assertNull(audit.getChangedBy());
   }
-}
 
+  @Test
+  void testGetChangedById() {
+    WidgetAudit audit = new WidgetAudit();
+    assertNull(audit.getChangedById());
+  }
+}
@@ -0,0 +1,28 @@
+package application.repo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActivityCursorTest {
+
+  @Test
+  void testRoundTrip() {
+    ActivityCursor cursor = new ActivityCursor("svc:importer", 1_700_000_000_123_456L, 42);
+
+    assertEquals(cursor, ActivityCursor.decode(cursor.encode(), "svc:importer"));
+  }
+
+  @Test
+  void testRejectsCursorOfAnotherUser() {
+    String token = new ActivityCursor("alice", 1, 2).encode();
+
+    assertThrows(IllegalArgumentException.class, () -> ActivityCursor.decode(token, "bob"));
+  }
+
+  @Test
+  void testRejectsMalformedTokens() {
+    assertThrows(IllegalArgumentException.class, () -> ActivityCursor.decode("%%%", "alice"));
+    assertThrows(IllegalArgumentException.class, () -> ActivityCursor.decode("YWxpY2U", "alice"));
+  }
+}
@@ -0,0 +1,63 @@
+package application.repo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BrowseCursorTest {
+
+  @Test
+  void testRoundTrip() {
+    BrowseCursor cursor = new BrowseCursor(WidgetSortKey.NAME, Sort.Direction.ASC, 42L, "gear: large / 50%");
+
+    BrowseCursor decoded = BrowseCursor.decode(cursor.encode(), WidgetSortKey.NAME, Sort.Direction.ASC);
+
+    assertEquals(cursor, decoded);
+  }
+
+  @Test
+  void testTokenIsUrlSafe() {
+    String token = new BrowseCursor(WidgetSortKey.PRICE, Sort.Direction.DESC, 7L, "19.99").encode();
+    assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+  }
+
+  @Test
+  void testRejectsCursorForDifferentOrdering() {
+    String token = new BrowseCursor(WidgetSortKey.PRICE, Sort.Direction.ASC, 1L, "1.00").encode();
+
+    assertThrows(IllegalArgumentException.class,
+      () -> BrowseCursor.decode(token, WidgetSortKey.NAME, Sort.Direction.ASC));
+    assertThrows(IllegalArgumentException.class,
+      () -> BrowseCursor.decode(token, WidgetSortKey.PRICE, Sort.Direction.DESC));
+  }
+
+  @Test
+  void testRejectsMalformedTokens() {
+    assertThrows(IllegalArgumentException.class,
+      () -> BrowseCursor.decode("not base64!", WidgetSortKey.NAME, Sort.Direction.ASC));
+    assertThrows(IllegalArgumentException.class,
+      () -> BrowseCursor.decode("Zm9v", WidgetSortKey.NAME, Sort.Direction.ASC));
+  }
+
+  @Test
+  void testRejectsValuesTheSortKeyCannotParse() {
+    String price = new BrowseCursor(WidgetSortKey.PRICE, Sort.Direction.ASC, 1L, "cheap").encode();
+    String createdAt = new BrowseCursor(WidgetSortKey.CREATED_AT, Sort.Direction.ASC, 1L, "yesterday").encode();
+
+    IllegalArgumentException badPrice = assertThrows(IllegalArgumentException.class,
+      () -> BrowseCursor.decode(price, WidgetSortKey.PRICE, Sort.Direction.ASC));
+    assertEquals("Malformed browse cursor", badPrice.getMessage());
+    IllegalArgumentException badTime = assertThrows(IllegalArgumentException.class,
+      () -> BrowseCursor.decode(createdAt, WidgetSortKey.CREATED_AT, Sort.Direction.ASC));
+    assertEquals("Malformed browse cursor", badTime.getMessage());
+  }
+
+  @Test
+  void testSortKeysParseTheirOwnFormat() {
+    assertEquals(new java.math.BigDecimal("19.99"), WidgetSortKey.PRICE.parse("19.99"));
+    assertEquals(java.time.OffsetDateTime.parse("2026-01-01T10:00:00.123456Z"),
+      WidgetSortKey.CREATED_AT.parse("2026-01-01T10:00:00.123456Z"));
+    assertEquals("alpha", WidgetSortKey.NAME.parse("alpha"));
+  }
+}
@@ -0,0 +1,151 @@
+package application.repo;
+
+import application.TestcontainersConfiguration;
+import application.model.Widget;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Not @Transactional: every change commits in its own transaction, so its changed_at falls
+ * between the clock_timestamp() window bounds taken around it.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class CatalogDiffReaderTest {
+
+  @Autowired
+  private CatalogDiffReader catalogDiffReader;
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void testReportsNetChangesInsideTheWindow() {
+    Widget renamed = save(new Widget("Diff Renamed", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+    Widget repriced = save(new Widget("Diff Repriced", OffsetDateTime.now(), 2, new BigDecimal("2.00")));
+    Widget reverted = save(new Widget("Diff Reverted", OffsetDateTime.now(), 3, new BigDecimal("3.00")));
+    Widget deleted = save(new Widget("Diff Deleted", OffsetDateTime.now(), 4, new BigDecimal("4.00")));
+    Widget untouched = save(new Widget("Diff Untouched", OffsetDateTime.now(), 5, new BigDecimal("5.00")));
+    OffsetDateTime from = clock();
+
+    renamed.updateDetails("Diff Renamed Twice", 1, renamed.getPrice());
+    save(renamed);
+    renamed.updateDetails("Diff Renamed Again", 10, renamed.getPrice());
+    save(renamed);
+    repriced.updateDetails(repriced.getName(), 2, new BigDecimal("2.50"));
+    save(repriced);
+    reverted.updateDetails(reverted.getName(), 30, reverted.getPrice());
+    save(reverted);
+    reverted.updateDetails(reverted.getName(), 3, reverted.getPrice());
+    save(reverted);
+    widgetRepository.delete(deleted);
+    Widget created = save(new Widget("Diff Created", OffsetDateTime.now(), 6, new BigDecimal("6.00")));
+    Widget transient_ = save(new Widget("Diff Transient", OffsetDateTime.now(), 7, new BigDecimal("7.00")));
+    widgetRepository.delete(transient_);
+    OffsetDateTime to = clock();
+
+    untouched.updateDetails(untouched.getName(), 50, untouched.getPrice());
+    save(untouched);
+
+    Map<Long, CatalogChange> changes = diff(from, to);
+    assertEquals(Set.of(renamed.getId(), repriced.getId(), deleted.getId(), created.getId()), changes.keySet());
+
+    CatalogChange rename = changes.get(renamed.getId());
+    assertEquals(CatalogChange.Kind.MODIFIED, rename.kind());
+    assertEquals(2, rename.auditRows());
+    assertEquals("Diff Renamed", rename.before().name());
+    assertEquals("Diff Renamed Again", rename.after().name());
+    assertEquals(List.of("name", "quantity"), rename.changedColumns());
+
+    CatalogChange reprice = changes.get(repriced.getId());
+    assertEquals(List.of("price"), reprice.changedColumns());
+    assertEquals(0, new BigDecimal("2.00").compareTo(reprice.before().price()));
+    assertEquals(0, new BigDecimal("2.50").compareTo(reprice.after().price()));
+
+    CatalogChange deletion = changes.get(deleted.getId());
+    assertEquals(CatalogChange.Kind.DELETED, deletion.kind());
+    assertEquals("Diff Deleted", deletion.before().name());
+    assertNull(deletion.after());
+
+    CatalogChange creation = changes.get(created.getId());
+    assertEquals(CatalogChange.Kind.CREATED, creation.kind());
+    assertNull(creation.before());
+    assertEquals(6, creation.after().quantity());
+    assertTrue(creation.changedColumns().isEmpty());
+  }
+
+  @Test
+  void testSummarizesAndFlagsBulkMaintenance() {
+    OffsetDateTime from = clock();
+    save(new Widget("Diff Summary", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+    OffsetDateTime to = clock();
+    Long summaryId = jdbcTemplate.queryForObject("INSERT INTO public.widgets_audit_bulk_summary "
+      + "(txid, changed_at, changed_by_id, reason, inserted, updated, deleted, widget_ids, statements) "
+      + "VALUES (0, ?, public.audit_user_id('diff_test'), 'diff test', 0, 1, 0, '{}', '{}') RETURNING summary_id",
+      Long.class, to);
+    try {
+      CatalogDiffSummary summary = catalogDiffReader.diff(from, to, change -> { });
+      assertTrue(summary.created() >= 1);
+      assertEquals(1, summary.bulkSummaries());
+      assertFalse(summary.complete());
+    } finally {
+      jdbcTemplate.update("DELETE FROM public.widgets_audit_bulk_summary WHERE summary_id = ?", summaryId);
+    }
+
+    assertThrows(InvalidDataAccessApiUsageException.class, () -> catalogDiffReader.diff(to, from, change -> { }));
+  }
+
+  @Test
+  void testFallsBackToOldValuesWhenThePrecedingRowIsGone() {
+    Widget widget = save(new Widget("Diff Purged History", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+    jdbcTemplate.update("DELETE FROM public.widgets_audit WHERE widget_id = ?", widget.getId());
+    OffsetDateTime from = clock();
+    widget.updateDetails(widget.getName(), 2, widget.getPrice());
+    save(widget);
+    OffsetDateTime to = clock();
+
+    CatalogChange change = diff(from, to).get(widget.getId());
+    assertEquals(CatalogChange.Kind.MODIFIED, change.kind());
+    assertNull(change.before().name(), "The name before the window is no longer in the audit log");
+    assertEquals(1, change.before().quantity());
+    assertEquals(2, change.after().quantity());
+    assertTrue(change.changedColumns().contains("quantity"));
+  }
+
+  private Map<Long, CatalogChange> diff(OffsetDateTime from, OffsetDateTime to) {
+    Map<Long, CatalogChange> changes = new LinkedHashMap<>();
+    catalogDiffReader.diff(from, to, change -> {
+      if (change.after() != null ? change.after().name().startsWith("Diff ")
+        : change.before().name().startsWith("Diff ")) {
+        changes.put(change.widgetId(), change);
+      }
+    });
+    return changes;
+  }
+
+  private Widget save(Widget widget) {
+    return widgetRepository.saveAndFlush(widget);
+  }
+
+  private OffsetDateTime clock() {
+    return jdbcTemplate.queryForObject("SELECT clock_timestamp()", OffsetDateTime.class);
+  }
+}
@@ -0,0 +1,77 @@
+package application.repo;
+
+import application.TestcontainersConfiguration;
+import application.audit.AuditContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for chunked parallel batch work.
+ * Not @Transactional: every chunk commits on its own worker connection.
+ */
+@SpringBootTest(properties = "app.batch.parallelism=4")
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class ParallelBatchProcessorTest {
+
+  @Autowired
+  private ParallelBatchProcessor processor;
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void testChunksRunInParallelAndKeepCallerAttribution() {
+    List<WidgetUpsert> widgets = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      widgets.add(new WidgetUpsert("Parallel Batch " + i, i, new BigDecimal("2.50")));
+    }
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    ParallelBatchResult result = AuditContext.runAsUser("parallel_batch_user",
+      () -> processor.process(widgets, 25, chunk -> {
+        threads.add(Thread.currentThread().getName());
+        widgetRepository.upsertByName(chunk, chunk.size());
+      }));
+
+    assertEquals(200, result.items());
+    assertEquals(8, result.chunks());
+    assertEquals(4, result.parallelism());
+    assertTrue(threads.stream().allMatch(name -> name.startsWith("parallel-batch-")));
+    List<String> auditUsers = jdbcTemplate.queryForList(
+      "SELECT DISTINCT u.username FROM widgets_audit a JOIN audit_users u ON u.user_id = a.changed_by_id "
+        + "WHERE a.name LIKE 'Parallel Batch %'", String.class);
+    assertEquals(List.of("parallel_batch_user"), auditUsers);
+    assertEquals(200, jdbcTemplate.queryForObject(
+      "SELECT count(*) FROM widgets_audit WHERE name LIKE 'Parallel Batch %' AND operation = 'I'", Integer.class));
+  }
+
+  @Test
+  void testFailedChunkIsRethrownAfterOtherChunksCommit() {
+    List<Integer> items = List.of(1, 2, 3, 4);
+
+    IllegalStateException failure = assertThrows(IllegalStateException.class,
+      () -> processor.process(items, 1, chunk -> {
+        if (chunk.get(0) % 2 == 0) {
+          throw new IllegalStateException("chunk " + chunk.get(0));
+        }
+      }));
+
+    assertEquals(1, failure.getSuppressed().length);
+  }
+}
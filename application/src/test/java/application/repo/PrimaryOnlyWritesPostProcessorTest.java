@@ -0,0 +1,55 @@
+package application.repo;
+
+import application.model.Widget;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.lang.reflect.Proxy;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimaryOnlyWritesPostProcessorTest {
+
+  @Test
+  void testClassifiesInheritedSaveAndDeleteAsPrimaryWrites() throws NoSuchMethodException {
+    assertTrue(isPrimaryWrite("save", Object.class));
+    assertTrue(isPrimaryWrite("saveAll", Iterable.class));
+    assertTrue(isPrimaryWrite("saveAndFlush", Object.class));
+    assertTrue(isPrimaryWrite("deleteById", Object.class));
+    assertTrue(isPrimaryWrite("deleteAllInBatch"));
+
+    assertFalse(isPrimaryWrite("findById", Object.class));
+    assertFalse(isPrimaryWrite("findByName", String.class));
+    assertFalse(isPrimaryWrite("count"));
+    // Fragments check PrimaryOnlyWrites themselves
+    assertFalse(isPrimaryWrite("upsertByName", List.class, int.class));
+  }
+
+  @Test
+  void testRefusesWritesButLetsReadsThrough() {
+    WidgetRepository repository = guarded();
+
+    IllegalStateException refused = assertThrows(IllegalStateException.class,
+      () -> repository.save(new Widget("Sharded Save", OffsetDateTime.now())));
+    assertTrue(refused.getMessage().startsWith("WidgetRepository.save writes to the primary database only"));
+    assertThrows(IllegalStateException.class, () -> repository.deleteById(1L));
+    assertEquals(Optional.empty(), repository.findById(1L));
+  }
+
+  private static boolean isPrimaryWrite(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+    return PrimaryOnlyWritesPostProcessor.isPrimaryWrite(WidgetRepository.class.getMethod(name, parameterTypes));
+  }
+
+  private static WidgetRepository guarded() {
+    Object target = Proxy.newProxyInstance(WidgetRepository.class.getClassLoader(),
+      new Class<?>[] {WidgetRepository.class},
+      (proxy, method, args) -> method.getReturnType() == Optional.class ? Optional.empty() : null);
+    ProxyFactory proxyFactory = new ProxyFactory(target);
+    proxyFactory.addInterface(WidgetRepository.class);
+    proxyFactory.addAdvice(PrimaryOnlyWritesPostProcessor.refusePrimaryWrites());
+    return (WidgetRepository) proxyFactory.getProxy();
+  }
+}
@@ -0,0 +1,64 @@
+package application.repo;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The parts of a text-format EXPLAIN (ANALYZE, BUFFERS) that the plan regression suite asserts on.
+ *
+ * @param indexes        indexes read by any index, index-only or bitmap index scan node
+ * @param seqScanned     tables read by a (parallel) sequential scan
+ * @param sharedBuffers  shared hit + read buffers of the top plan node, which include its children;
+ *                       -1 when the plan was not executed
+ * @param executionMs    server-side execution time; -1 when the plan was not executed
+ */
+record QueryPlan(Set<String> indexes, Set<String> seqScanned, long sharedBuffers, double executionMs, String text) {
+
+  private static final Pattern INDEX_SCAN = Pattern.compile("Index (?:Only )?Scan (?:Backward )?using (\\S+) on");
+  private static final Pattern BITMAP_INDEX_SCAN = Pattern.compile("Bitmap Index Scan on (\\S+)");
+  private static final Pattern SEQ_SCAN = Pattern.compile("Seq Scan on (\\S+)");
+  private static final Pattern SHARED_BUFFERS = Pattern.compile("Buffers: shared(?: hit=(\\d+))?(?: read=(\\d+))?");
+  private static final Pattern EXECUTION_TIME = Pattern.compile("Execution Time: ([\\d.]+) ms");
+
+  static QueryPlan parse(List<String> lines) {
+    Set<String> indexes = new LinkedHashSet<>();
+    Set<String> seqScanned = new LinkedHashSet<>();
+    long sharedBuffers = -1;
+    double executionMs = -1;
+    for (String line : lines) {
+      collect(INDEX_SCAN, line, indexes);
+      collect(BITMAP_INDEX_SCAN, line, indexes);
+      collect(SEQ_SCAN, line, seqScanned);
+      Matcher buffers = SHARED_BUFFERS.matcher(line);
+      // The first Buffers line belongs to the top node; planning buffers are reported after the tree
+      if (sharedBuffers < 0 && buffers.find()) {
+        sharedBuffers = parseLong(buffers.group(1)) + parseLong(buffers.group(2));
+      }
+      Matcher execution = EXECUTION_TIME.matcher(line);
+      if (execution.find()) {
+        executionMs = Double.parseDouble(execution.group(1));
+      }
+    }
+    return new QueryPlan(Set.copyOf(indexes), Set.copyOf(seqScanned), sharedBuffers, executionMs,
+      String.join("\n", lines));
+  }
+
+  private static void collect(Pattern pattern, String line, Set<String> names) {
+    Matcher matcher = pattern.matcher(line);
+    if (matcher.find()) {
+      names.add(unqualified(matcher.group(1)));
+    }
+  }
+
+  private static String unqualified(String name) {
+    int dot = name.lastIndexOf('.');
+    return dot < 0 ? name : name.substring(dot + 1);
+  }
+
+  private static long parseLong(String value) {
+    return value == null ? 0 : Long.parseLong(value);
+  }
+}
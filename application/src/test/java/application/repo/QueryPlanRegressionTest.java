@@ -0,0 +1,227 @@
+package application.repo;
+
+import application.TestcontainersConfiguration;
+import application.repo.StatementCapture.CapturedStatement;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Query-plan regression suite for {@link WidgetAuditRepository} and {@link CatalogDiffReader}: every query runs
+ * against 10M widgets and 100M skewed audit rows, and its EXPLAIN (ANALYZE, BUFFERS) must use the
+ * expected index, stay off sequential scans of widgets_audit and fit buffer and latency budgets.
+ *
+ * The SQL and parameters are captured from the real repository call, then PREPAREd and EXECUTEd
+ * six times so the last plan is the one a pooled connection settles on once the driver switches
+ * to server-side prepared statements. Budgets scale with the rows a query is expected to return;
+ * -Dplans.latencyFactor loosens the latency half on slow machines.
+ *
+ * Disabled by default; run with: mvn test -Dtest=QueryPlanRegressionTest -Dplans=true
+ * (-Dplans.widgets=... -Dplans.auditRows=... for a smaller data set).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+@EnabledIfSystemProperty(named = "plans", matches = "true")
+class QueryPlanRegressionTest {
+
+  private static final int EXECUTIONS = 6;
+  // One heap page plus the three-page audit_users lookup of the changed_by formula per returned row
+  private static final int BUFFERS_PER_ROW = 5;
+  private static final int BASE_BUFFERS = 100;
+  private static final double BASE_MILLIS = 20;
+  private static final double MILLIS_PER_ROW = 0.01;
+  private static final Pattern AUDIT_TABLE = Pattern.compile("\\bwidgets_audit\\b");
+
+  @TestConfiguration(proxyBeanMethods = false)
+  static class CaptureConfiguration {
+
+    @Bean
+    static BeanPostProcessor statementCapture() {
+      return new BeanPostProcessor() {
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+          return bean instanceof DataSource dataSource && !(bean instanceof StatementCapture)
+            ? new StatementCapture(dataSource) : bean;
+        }
+      };
+    }
+  }
+
+  /**
+   * @param indexes      indexes the plan must use; empty for a query that has no selective
+   *                     predicate by design, which is only EXPLAINed and reported
+   * @param expectedRows rows the query returns (or reads through its index) in the generated data
+   */
+  private record PlanCase(String name, Runnable call, Set<String> indexes, double expectedRows) {
+
+    long maxBuffers() {
+      return BASE_BUFFERS + (long) (expectedRows * BUFFERS_PER_ROW);
+    }
+
+    double maxMillis() {
+      double latencyFactor = Double.parseDouble(System.getProperty("plans.latencyFactor", "1"));
+      return (BASE_MILLIS + expectedRows * MILLIS_PER_ROW) * latencyFactor;
+    }
+  }
+
+  @Autowired
+  private WidgetAuditRepository widgetAuditRepository;
+
+  @Autowired
+  private CatalogDiffReader catalogDiffReader;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @TestFactory
+  Stream<DynamicTest> repositoryQueriesKeepTheirPlans() {
+    long widgets = Long.getLong("plans.widgets", 10_000_000);
+    long auditRows = Long.getLong("plans.auditRows", 100_000_000);
+    int parallelism = Integer.getInteger("plans.parallelism", Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+    long started = System.nanoTime();
+    SyntheticAuditData.Dataset data = new SyntheticAuditData(jdbcTemplate, parallelism).generate(widgets, auditRows);
+    System.out.printf("generated %,d widgets and %,d audit rows in %,d s%n",
+      widgets, auditRows, (System.nanoTime() - started) / 1_000_000_000);
+
+    return cases(data).stream().map(planCase -> DynamicTest.dynamicTest(planCase.name(), () -> verify(planCase)));
+  }
+
+  private List<PlanCase> cases(SyntheticAuditData.Dataset data) {
+    Set<String> byWidget = Set.of("idx_widgets_audit_widget_audit_id");
+    Set<String> byChangedAt = Set.of("idx_widgets_audit_changed_at");
+    Set<String> byUser = Set.of("idx_widgets_audit_user_activity");
+    OffsetDateTime lastHour = data.generatedAt().minusHours(1);
+    OffsetDateTime lastMonth = data.generatedAt().minusDays(30);
+    long recentHotAuditId = data.maxAuditId() - data.auditRows() / 1_000;
+
+    return List.of(
+      new PlanCase("findById",
+        () -> widgetAuditRepository.findById(data.maxAuditId()), Set.of("widgets_audit_pkey"), 1),
+      new PlanCase("findByWidgetIdOrderByChangedAtDesc (cold widget)",
+        () -> widgetAuditRepository.findByWidgetIdOrderByChangedAtDesc(data.coldWidgetId()),
+        byWidget, data.coldWidgetRows()),
+      new PlanCase("findByWidgetIdOrderByChangedAtDesc (hot widget)",
+        () -> widgetAuditRepository.findByWidgetIdOrderByChangedAtDesc(data.hotWidgetId()),
+        byWidget, data.hotWidgetRows()),
+      new PlanCase("findByWidgetIdAndAuditIdGreaterThanOrderByAuditIdAsc (hot widget)",
+        () -> widgetAuditRepository.findByWidgetIdAndAuditIdGreaterThanOrderByAuditIdAsc(
+          data.hotWidgetId(), recentHotAuditId),
+        byWidget, data.hotWidgetRows() / 1_000),
+      new PlanCase("findByWidgetIdAndOperation (cold widget)",
+        () -> widgetAuditRepository.findByWidgetIdAndOperation(data.coldWidgetId(), "UPDATE"),
+        byWidget, data.coldWidgetRows()),
+      new PlanCase("findSummariesByWidgetId (hot widget)",
+        () -> widgetAuditRepository.findSummariesByWidgetId(data.hotWidgetId()),
+        byWidget, data.hotWidgetRows()),
+      new PlanCase("findByChangedAtAfterOrderByChangedAtDesc (last hour)",
+        () -> widgetAuditRepository.findByChangedAtAfterOrderByChangedAtDesc(lastHour),
+        byChangedAt, data.rowsChangedAfter(lastHour)),
+      new PlanCase("findSummariesByChangedAtAfter (last hour)",
+        () -> widgetAuditRepository.findSummariesByChangedAtAfter(lastHour),
+        byChangedAt, data.rowsChangedAfter(lastHour)),
+      // Each changed widget costs its first and last row by primary key plus the before-image lookup
+      new PlanCase("CatalogDiffReader.diff (last hour)",
+        () -> catalogDiffReader.diff(lastHour, data.generatedAt(), change -> { }),
+        Set.of("idx_widgets_audit_changed_at", "widgets_audit_pkey", "idx_widgets_audit_widget_audit_id"),
+        data.rowsChangedAfter(lastHour) * 3),
+      new PlanCase("findActivityByUser (heavy user, first page)",
+        () -> widgetAuditRepository.findActivityByUser(data.heavyUser(), lastMonth, null, 100),
+        byUser, 101),
+      new PlanCase("summarizeUserActivity (light user, last month)",
+        () -> widgetAuditRepository.summarizeUserActivity(data.lightUser(), lastMonth),
+        byUser, data.lightUserRows() * 30 / 365),
+      // Operation has three values and no index of its own; these scan by design and are only reported
+      new PlanCase("findByOperationOrderByChangedAtDesc",
+        () -> widgetAuditRepository.findByOperationOrderByChangedAtDesc("DELETE"), Set.of(), 0),
+      new PlanCase("findSummariesByOperation",
+        () -> widgetAuditRepository.findSummariesByOperation("DELETE"), Set.of(), 0),
+      new PlanCase("countByOperation",
+        () -> widgetAuditRepository.countByOperation("DELETE"), Set.of(), 0));
+  }
+
+  private void verify(PlanCase planCase) {
+    List<CapturedStatement> statements = StatementCapture.capture(
+      sql -> sql.toLowerCase(Locale.ROOT).startsWith("select") && AUDIT_TABLE.matcher(sql).find(), planCase.call());
+    assertFalse(statements.isEmpty(), planCase.name() + " sent no widgets_audit query");
+
+    for (CapturedStatement statement : statements) {
+      if (planCase.indexes().isEmpty()) {
+        QueryPlan plan = explain(statement, false).get(0);
+        System.out.printf("%n== %s (not executed)%n%s%n", planCase.name(), plan.text());
+        continue;
+      }
+      List<QueryPlan> plans = explain(statement, true);
+      QueryPlan first = plans.get(0);
+      QueryPlan settled = plans.get(plans.size() - 1);
+      System.out.printf("%n== %s: %,d buffers (budget %,d), %.2f ms (budget %.2f)%n%s%n",
+        planCase.name(), settled.sharedBuffers(), planCase.maxBuffers(), settled.executionMs(),
+        planCase.maxMillis(), settled.text());
+
+      for (QueryPlan plan : List.of(first, settled)) {
+        String kind = plan == first ? "custom plan" : "plan after " + (EXECUTIONS - 1) + " executions";
+        assertTrue(plan.indexes().containsAll(planCase.indexes()),
+          planCase.name() + ": " + kind + " does not use " + planCase.indexes() + "\n" + plan.text());
+        assertFalse(plan.seqScanned().contains("widgets_audit"),
+          planCase.name() + ": " + kind + " scans widgets_audit sequentially\n" + plan.text());
+      }
+      assertTrue(settled.sharedBuffers() <= planCase.maxBuffers(),
+        planCase.name() + " touched " + settled.sharedBuffers() + " buffers, budget " + planCase.maxBuffers());
+      assertTrue(settled.executionMs() <= planCase.maxMillis(),
+        planCase.name() + " took " + settled.executionMs() + " ms, budget " + planCase.maxMillis());
+    }
+  }
+
+  /**
+   * PREPARE the statement on one connection and EXPLAIN its execution: once without ANALYZE, or
+   * {@link #EXECUTIONS} times with ANALYZE so the plan cache can settle on a generic plan.
+   */
+  private List<QueryPlan> explain(CapturedStatement statement, boolean analyze) {
+    return jdbcTemplate.execute((ConnectionCallback<List<QueryPlan>>) connection -> {
+      List<QueryPlan> plans = new ArrayList<>();
+      try (Statement sql = connection.createStatement()) {
+        sql.execute("PREPARE plan_case AS " + statement.numberedSql());
+        try {
+          String execute = "EXECUTE plan_case" + (statement.parameters().isEmpty() ? "" : "(" + statement.literalArguments() + ")");
+          int runs = analyze ? EXECUTIONS : 1;
+          for (int i = 0; i < runs; i++) {
+            List<String> lines = new ArrayList<>();
+            try (ResultSet rows = sql.executeQuery(
+              (analyze ? "EXPLAIN (ANALYZE, BUFFERS) " : "EXPLAIN ") + execute)) {
+              while (rows.next()) {
+                lines.add(rows.getString(1));
+              }
+            }
+            plans.add(QueryPlan.parse(lines));
+          }
+        } finally {
+          sql.execute("DEALLOCATE plan_case");
+        }
+      }
+      return plans;
+    });
+  }
+}
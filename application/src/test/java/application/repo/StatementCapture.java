@@ -0,0 +1,181 @@
+package application.repo;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * DataSource wrapper that records the SQL text and bound parameters of statements prepared on
+ * the current thread, so tests can EXPLAIN exactly what a repository method sends.
+ *
+ * While capturing, matching SELECT statements are rewritten to {@code SELECT * FROM (...) LIMIT 0}:
+ * the caller still gets a result set of the right shape but the database does no real work,
+ * which keeps capturing cheap even for queries that would return millions of rows.
+ */
+class StatementCapture extends DelegatingDataSource {
+
+  private static final ThreadLocal<Capture> CURRENT = new ThreadLocal<>();
+
+  StatementCapture(DataSource target) {
+    super(target);
+  }
+
+  /**
+   * A captured statement with its positional parameters (index 0 holds the first '?').
+   */
+  record CapturedStatement(String sql, List<Object> parameters) {
+
+    /**
+     * The statement with its '?' placeholders numbered $1..$n, suitable for PREPARE.
+     */
+    String numberedSql() {
+      StringBuilder numbered = new StringBuilder(sql.length() + 16);
+      boolean quoted = false;
+      int next = 1;
+      for (int i = 0; i < sql.length(); i++) {
+        char c = sql.charAt(i);
+        if (c == '\'') {
+          quoted = !quoted;
+        }
+        if (c == '?' && !quoted) {
+          numbered.append('$').append(next++);
+        } else {
+          numbered.append(c);
+        }
+      }
+      return numbered.toString();
+    }
+
+    /**
+     * The parameters as SQL literals, for EXECUTE name(...).
+     */
+    String literalArguments() {
+      List<String> literals = new ArrayList<>(parameters.size());
+      for (Object value : parameters) {
+        literals.add(toLiteral(value));
+      }
+      return String.join(", ", literals);
+    }
+
+    private static String toLiteral(Object value) {
+      if (value == null) {
+        return "NULL";
+      }
+      if (value instanceof Number || value instanceof Boolean) {
+        return value.toString();
+      }
+      if (value instanceof Timestamp timestamp) {
+        return quote(timestamp.toInstant().toString()) + "::TIMESTAMPTZ";
+      }
+      if (value instanceof OffsetDateTime time) {
+        return quote(time.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)) + "::TIMESTAMPTZ";
+      }
+      if (value instanceof Instant instant) {
+        return quote(instant.toString()) + "::TIMESTAMPTZ";
+      }
+      return quote(value.toString());
+    }
+
+    private static String quote(String text) {
+      return "'" + text.replace("'", "''") + "'";
+    }
+  }
+
+  private static final class Capture {
+    final Predicate<String> filter;
+    final List<String> sql = new ArrayList<>();
+    final List<Map<Integer, Object>> parameters = new ArrayList<>();
+
+    Capture(Predicate<String> filter) {
+      this.filter = filter;
+    }
+  }
+
+  /**
+   * Run work on this thread and return the statements it prepared whose SQL matches the filter.
+   * Exceptions from the work are swallowed: with the rewritten statements returning no rows,
+   * single-result calls are expected to fail after their SQL has been captured.
+   */
+  static List<CapturedStatement> capture(Predicate<String> filter, Runnable work) {
+    Capture capture = new Capture(filter);
+    CURRENT.set(capture);
+    try {
+      work.run();
+    } catch (RuntimeException expected) {
+      // The statement has been recorded by the time the empty result is rejected
+    } finally {
+      CURRENT.remove();
+    }
+    List<CapturedStatement> statements = new ArrayList<>(capture.sql.size());
+    for (int i = 0; i < capture.sql.size(); i++) {
+      // Parameters are bound by position from 1; a missing index would be a gap in the statement
+      statements.add(new CapturedStatement(capture.sql.get(i),
+        Collections.unmodifiableList(new ArrayList<>(capture.parameters.get(i).values()))));
+    }
+    return statements;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return wrap(super.getConnection());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return wrap(super.getConnection(username, password));
+  }
+
+  private static Connection wrap(Connection connection) {
+    InvocationHandler handler = (proxy, method, args) -> {
+      Capture capture = CURRENT.get();
+      if (capture != null && method.getName().equals("prepareStatement") && capture.filter.test((String) args[0])) {
+        String sql = (String) args[0];
+        args[0] = "SELECT * FROM (" + sql + ") captured LIMIT 0";
+        PreparedStatement statement = (PreparedStatement) invoke(connection, method, args);
+        Map<Integer, Object> parameters = new TreeMap<>();
+        capture.sql.add(sql);
+        capture.parameters.add(parameters);
+        return recording(statement, parameters);
+      }
+      return invoke(connection, method, args);
+    };
+    return (Connection) Proxy.newProxyInstance(
+      StatementCapture.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+  }
+
+  private static PreparedStatement recording(PreparedStatement statement, Map<Integer, Object> parameters) {
+    InvocationHandler handler = (proxy, method, args) -> {
+      if (method.getName().startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+        parameters.put(index, method.getName().equals("setNull") ? null : args[1]);
+      }
+      return invoke(statement, method, args);
+    };
+    return (PreparedStatement) Proxy.newProxyInstance(
+      StatementCapture.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, handler);
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+}
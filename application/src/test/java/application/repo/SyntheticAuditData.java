@@ -0,0 +1,202 @@
+package application.repo;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Server-side generator of widgets and audit history with production-like skew, for plan tests.
+ *
+ * Rows are produced by INSERT ... SELECT over generate_series in parallel slices, so nothing is
+ * shipped over the wire. Audit and hash-chain triggers are disabled during the load and secondary
+ * indexes are dropped and rebuilt afterwards from their own pg_indexes definitions, which is much
+ * faster than maintaining them row by row. Audit rows are appended in changed_at order over the
+ * last year, like a real log; a few hot widgets and heavy users take a fixed share of all changes.
+ */
+final class SyntheticAuditData {
+
+  private static final int SLICE_ROWS = 1_000_000;
+  private static final double HOT_WIDGET_SHARE = 0.10;
+  private static final double HEAVY_USER_SHARE = 0.50;
+  private static final int HOT_WIDGETS = 100;
+  private static final int USERS = 10_000;
+  private static final int HEAVY_USERS = 5;
+
+  /**
+   * Rows per widget and user in the generated data, for sizing budgets.
+   *
+   * @param hotWidgetId  a widget with roughly {@link #hotWidgetRows} audit rows
+   * @param coldWidgetId a widget with roughly {@link #coldWidgetRows} audit rows
+   * @param heavyUser    a user behind roughly {@link #heavyUserRows} audit rows
+   * @param lightUser    a user behind roughly {@link #lightUserRows} audit rows
+   */
+  record Dataset(long widgets, long auditRows, long hotWidgetId, long coldWidgetId, String heavyUser,
+                 String lightUser, long maxAuditId, OffsetDateTime generatedAt) {
+
+    double hotWidgetRows() {
+      return auditRows * HOT_WIDGET_SHARE / HOT_WIDGETS + coldWidgetRows();
+    }
+
+    double coldWidgetRows() {
+      return auditRows * (1 - HOT_WIDGET_SHARE) / widgets;
+    }
+
+    double heavyUserRows() {
+      return auditRows * HEAVY_USER_SHARE / HEAVY_USERS;
+    }
+
+    double lightUserRows() {
+      return auditRows * (1 - HEAVY_USER_SHARE) / (USERS - HEAVY_USERS);
+    }
+
+    /**
+     * Audit rows changed after the given time, from the even spread over the last year.
+     */
+    double rowsChangedAfter(OffsetDateTime since) {
+      double secondsBack = Math.max(0, generatedAt.toEpochSecond() - since.toEpochSecond());
+      return auditRows * Math.min(1, secondsBack / (365 * 86_400.0));
+    }
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final int parallelism;
+
+  SyntheticAuditData(JdbcTemplate jdbcTemplate, int parallelism) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.parallelism = parallelism;
+  }
+
+  Dataset generate(long widgets, long auditRows) {
+    String prefix = "plan-" + Long.toString(System.currentTimeMillis(), 36);
+    OffsetDateTime generatedAt = jdbcTemplate.queryForObject("SELECT now()", OffsetDateTime.class);
+
+    jdbcTemplate.update("INSERT INTO public.audit_users (username) "
+      + "SELECT ? || '-user-' || g FROM generate_series(1, ?) g ORDER BY g", prefix, USERS);
+    int firstUserId = jdbcTemplate.queryForObject(
+      "SELECT user_id FROM public.audit_users WHERE username = ?", Integer.class, prefix + "-user-1");
+
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+    List<Map<String, Object>> droppedIndexes = new ArrayList<>();
+    try {
+      jdbcTemplate.execute("ALTER TABLE public.widgets DISABLE TRIGGER USER");
+      jdbcTemplate.execute("ALTER TABLE public.widgets_audit DISABLE TRIGGER USER");
+      droppedIndexes.addAll(dropSecondaryIndexes("widgets"));
+      droppedIndexes.addAll(dropSecondaryIndexes("widgets_audit"));
+
+      // One multi-row load from a cache-1 sequence: the new ids are the contiguous range after this value
+      long firstWidgetId = jdbcTemplate.queryForObject(
+        "SELECT nextval(pg_get_serial_sequence('public.widgets', 'id'))", Long.class) + 1;
+      runSlices(executor, widgets, (from, to) -> jdbcTemplate.update(
+        "INSERT INTO public.widgets (name, created_at, quantity, price) "
+          + "SELECT ? || '-widget-' || g, ?::TIMESTAMPTZ - random() * INTERVAL '365 days', "
+          + "(random() * 1000)::INTEGER, round((random() * 1000)::NUMERIC, 2) "
+          + "FROM generate_series(?::BIGINT, ?::BIGINT) g",
+        prefix, generatedAt, from, to));
+
+      runSlices(executor, auditRows, (from, to) -> jdbcTemplate.update(
+        "INSERT INTO public.widgets_audit "
+          + "(widget_id, changed_at, created_at, changed_by_id, quantity, operation, price, name) "
+          + "SELECT CASE WHEN hot < ?::FLOAT8 THEN ?::BIGINT + floor(pick * ?::INTEGER)::BIGINT "
+          + "ELSE ?::BIGINT + floor(pick * ?::BIGINT)::BIGINT END, "
+          + "?::TIMESTAMPTZ - (?::BIGINT - g)::FLOAT8 * (INTERVAL '365 days' / ?::FLOAT8), "
+          + "?::TIMESTAMPTZ - INTERVAL '366 days', "
+          + "CASE WHEN heavy < ?::FLOAT8 THEN ?::INTEGER + floor(who * ?::INTEGER)::INTEGER "
+          + "ELSE ?::INTEGER + ?::INTEGER + floor(who * ?::INTEGER)::INTEGER END, "
+          + "(random() * 1000)::INTEGER, "
+          + "CASE WHEN op < 0.10 THEN 'I' WHEN op < 0.11 THEN 'D' ELSE 'U' END::\"char\", "
+          + "round((random() * 1000)::NUMERIC, 2), ? || '-audit-' || g "
+          // random() in a subquery's select list is evaluated once per generated row
+          + "FROM (SELECT g, random() AS hot, random() AS pick, random() AS heavy, random() AS who, "
+          + "random() AS op FROM generate_series(?::BIGINT, ?::BIGINT) g) r",
+        HOT_WIDGET_SHARE, firstWidgetId, HOT_WIDGETS, firstWidgetId, widgets,
+        generatedAt, auditRows, auditRows,
+        generatedAt,
+        HEAVY_USER_SHARE, firstUserId, HEAVY_USERS, firstUserId, HEAVY_USERS, USERS - HEAVY_USERS,
+        prefix,
+        from, to));
+
+      rebuildIndexes(executor, droppedIndexes);
+      droppedIndexes.clear();
+
+      long maxAuditId = jdbcTemplate.queryForObject("SELECT max(audit_id) FROM public.widgets_audit", Long.class);
+      return new Dataset(widgets, auditRows, firstWidgetId, firstWidgetId + widgets - 1,
+        prefix + "-user-1", prefix + "-user-" + USERS, maxAuditId, generatedAt);
+    } finally {
+      // Leave the schema as the migrations defined it even when the load fails part way
+      rebuildIndexes(executor, droppedIndexes);
+      jdbcTemplate.execute("ALTER TABLE public.widgets ENABLE TRIGGER USER");
+      jdbcTemplate.execute("ALTER TABLE public.widgets_audit ENABLE TRIGGER USER");
+      executor.shutdownNow();
+      // VACUUM sets the visibility map so index-only scans are costed as they would be in production
+      jdbcTemplate.execute("VACUUM (ANALYZE) public.widgets");
+      jdbcTemplate.execute("VACUUM (ANALYZE) public.widgets_audit");
+      jdbcTemplate.execute("ANALYZE public.audit_users");
+    }
+  }
+
+  private interface Slice {
+    void load(long from, long to);
+  }
+
+  private static void runSlices(ExecutorService executor, long rows, Slice slice) {
+    List<Future<?>> futures = new ArrayList<>();
+    for (long from = 1; from <= rows; from += SLICE_ROWS) {
+      long sliceFrom = from;
+      long sliceTo = Math.min(rows, from + SLICE_ROWS - 1);
+      futures.add(executor.submit(() -> slice.load(sliceFrom, sliceTo)));
+    }
+    awaitAll(futures);
+  }
+
+  /**
+   * Drop the table's indexes that do not back a constraint, returning their names and definitions.
+   */
+  private List<Map<String, Object>> dropSecondaryIndexes(String table) {
+    List<Map<String, Object>> indexes = jdbcTemplate.queryForList(
+      "SELECT indexname, indexdef FROM pg_indexes i WHERE schemaname = 'public' AND tablename = ? "
+        + "AND NOT EXISTS (SELECT 1 FROM pg_constraint c "
+        + "WHERE c.conindid = (quote_ident(i.schemaname) || '.' || quote_ident(i.indexname))::REGCLASS)", table);
+    for (Map<String, Object> index : indexes) {
+      jdbcTemplate.execute("DROP INDEX public." + index.get("indexname"));
+    }
+    return indexes;
+  }
+
+  private void rebuildIndexes(ExecutorService executor, List<Map<String, Object>> indexes) {
+    List<Future<?>> futures = new ArrayList<>();
+    for (Map<String, Object> index : indexes) {
+      String definition = (String) index.get("indexdef");
+      futures.add(executor.submit(() -> jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("SET maintenance_work_mem = '512MB'");
+          statement.execute(definition);
+          statement.execute("RESET maintenance_work_mem");
+        }
+        return null;
+      })));
+    }
+    awaitAll(futures);
+  }
+
+  private static void awaitAll(List<Future<?>> futures) {
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while generating data", e);
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Data generation failed", e.getCause());
+      }
+    }
+  }
+}
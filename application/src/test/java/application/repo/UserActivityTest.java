@@ -0,0 +1,112 @@
+package application.repo;
+
+import application.TestcontainersConfiguration;
+import application.model.Widget;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Per-user activity queries. Rows written in one test transaction share changed_at, which also
+ * exercises the audit_id tie-break of the keyset.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UserActivityTest {
+
+  private static final String REVIEWED_USER = "activity_reviewed_user";
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private WidgetAuditRepository widgetAuditRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void testActivityPagesCoverEveryChangeOnce() {
+    actAs(REVIEWED_USER);
+    List<Widget> widgets = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      widgets.add(widgetRepository.saveAndFlush(
+        new Widget("Activity " + i, OffsetDateTime.now(), i, new BigDecimal("1.00"))));
+    }
+    Widget first = widgets.get(0);
+    first.updateDetails(first.getName(), 99, first.getPrice());
+    widgetRepository.saveAndFlush(first);
+
+    OffsetDateTime since = OffsetDateTime.now().minusHours(1);
+    List<Long> seen = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      UserActivityPage page = widgetAuditRepository.findActivityByUser(REVIEWED_USER, since, cursor, 2);
+      page.entries().forEach(entry -> seen.add(entry.auditId()));
+      cursor = page.nextCursor();
+      pages++;
+    } while (cursor != null);
+
+    assertEquals(6, seen.size());
+    assertEquals(3, pages);
+    assertEquals(seen.stream().sorted((a, b) -> Long.compare(b, a)).toList(), seen,
+      "Same changed_at within the transaction, so entries are ordered by audit_id descending");
+  }
+
+  @Test
+  void testSummaryCountsOperationsAndWidgets() {
+    actAs(REVIEWED_USER);
+    Widget kept = widgetRepository.saveAndFlush(
+      new Widget("Activity Summary Kept", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+    Widget removed = widgetRepository.saveAndFlush(
+      new Widget("Activity Summary Removed", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+    kept.updateDetails(kept.getName(), 2, kept.getPrice());
+    widgetRepository.saveAndFlush(kept);
+    widgetRepository.delete(removed);
+    widgetRepository.flush();
+
+    UserActivitySummary summary =
+      widgetAuditRepository.summarizeUserActivity(REVIEWED_USER, OffsetDateTime.now().minusHours(1));
+
+    assertEquals(2, summary.inserts());
+    assertEquals(1, summary.updates());
+    assertEquals(1, summary.deletes());
+    assertEquals(2, summary.widgetsTouched());
+    assertEquals(4, summary.totalChanges());
+    assertNotNull(summary.firstChangeAt());
+  }
+
+  @Test
+  void testUnknownUserHasNoActivity() {
+    OffsetDateTime since = OffsetDateTime.now().minusDays(7);
+
+    assertTrue(widgetAuditRepository.findActivityByUser("nobody_at_all", since, null, 10).entries().isEmpty());
+    assertEquals(0, widgetAuditRepository.summarizeUserActivity("nobody_at_all", since).totalChanges());
+  }
+
+  @Test
+  void testRejectsInvalidPageSize() {
+    assertThrows(InvalidDataAccessApiUsageException.class, () -> widgetAuditRepository.findActivityByUser(
+      REVIEWED_USER, OffsetDateTime.now(), null, AuditActivityOperations.MAX_ACTIVITY_PAGE_SIZE + 1));
+  }
+
+  private void actAs(String username) {
+    // the test transaction is already open, so this holds for every statement of the test
+    jdbcTemplate.queryForObject("SELECT set_config('app.current_user', ?, true)", String.class, username);
+  }
+}
@@ -0,0 +1,130 @@
+package application.repo;
+
+import application.TestcontainersConfiguration;
+import application.model.Widget;
+import application.model.WidgetAudit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the audit history cache.
+ * Not @Transactional: the cache must only ever see committed audit rows.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class WidgetAuditHistoryCacheTest {
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private WidgetAuditRepository widgetAuditRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void testHitAppendsOnlyNewRows() {
+    WidgetAuditHistoryCache cache = new WidgetAuditHistoryCache(widgetAuditRepository,
+      WidgetAuditHistoryCache.DEFAULT_MAX_WEIGHT_BYTES);
+    Widget widget = widgetRepository.saveAndFlush(
+      new Widget("History Cache", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+
+    assertEquals(1, cache.findByWidgetIdOrderByChangedAtDesc(widget.getId()).size());
+
+    widget.updateDetails("History Cache", 2, new BigDecimal("1.00"));
+    widget = widgetRepository.saveAndFlush(widget);
+    widget.updateDetails("History Cache", 3, new BigDecimal("1.00"));
+    widgetRepository.saveAndFlush(widget);
+
+    List<WidgetAudit> history = cache.findByWidgetIdOrderByChangedAtDesc(widget.getId());
+    assertEquals(3, history.size());
+    assertEquals(3, history.get(0).getQuantity(), "Newest row first");
+    assertEquals("INSERT", history.get(2).getOperation());
+
+    HistoryCacheStats stats = cache.stats();
+    assertEquals(1, stats.misses());
+    assertEquals(1, stats.hits());
+    assertEquals(3, stats.rowsLoaded(), "The hit should only load the two appended rows");
+
+    assertSame(history, cache.findByWidgetIdOrderByChangedAtDesc(widget.getId()),
+      "A hit without new rows returns the cached history");
+  }
+
+  @Test
+  void testMatchesRepositoryOrder() {
+    WidgetAuditHistoryCache cache = new WidgetAuditHistoryCache(widgetAuditRepository,
+      WidgetAuditHistoryCache.DEFAULT_MAX_WEIGHT_BYTES);
+    Widget widget = widgetRepository.saveAndFlush(
+      new Widget("History Cache Order", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+    widget.updateDetails("History Cache Order", 2, new BigDecimal("2.00"));
+    widgetRepository.saveAndFlush(widget);
+    widgetRepository.deleteById(widget.getId());
+
+    List<Long> expected = widgetAuditRepository.findByWidgetIdOrderByChangedAtDesc(widget.getId()).stream()
+      .map(WidgetAudit::getAuditId).toList();
+    List<Long> cached = cache.findByWidgetIdOrderByChangedAtDesc(widget.getId()).stream()
+      .map(WidgetAudit::getAuditId).toList();
+    assertEquals(expected, cached);
+  }
+
+  @Test
+  void testPurgeDropsHistoriesHoldingPurgedRows() {
+    WidgetAuditHistoryCache cache = new WidgetAuditHistoryCache(widgetAuditRepository,
+      WidgetAuditHistoryCache.DEFAULT_MAX_WEIGHT_BYTES);
+    Widget older = widgetRepository.saveAndFlush(
+      new Widget("History Cache Purged", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+    Widget newer = widgetRepository.saveAndFlush(
+      new Widget("History Cache Kept", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+    List<WidgetAudit> olderHistory = cache.findByWidgetIdOrderByChangedAtDesc(older.getId());
+    cache.findByWidgetIdOrderByChangedAtDesc(newer.getId());
+
+    // As the retention purge or archival would after deleting the older widget's row
+    jdbcTemplate.update("DELETE FROM public.widgets_audit WHERE widget_id = ?", older.getId());
+    cache.auditRowsPurged(olderHistory.get(0).getAuditId());
+
+    assertEquals(1, cache.stats().entries());
+    assertTrue(cache.findByWidgetIdOrderByChangedAtDesc(older.getId()).isEmpty());
+    assertEquals(1, cache.findByWidgetIdOrderByChangedAtDesc(newer.getId()).size());
+    assertEquals(1, cache.stats().hits(), "The newer widget's history survives the purge");
+  }
+
+  @Test
+  void testEvictsLeastRecentlyUsedOverBudget() {
+    Widget first = widgetRepository.saveAndFlush(
+      new Widget("History Cache LRU 1", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+    Widget second = widgetRepository.saveAndFlush(
+      new Widget("History Cache LRU 2", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+    Widget third = widgetRepository.saveAndFlush(
+      new Widget("History Cache LRU 3", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+
+    WidgetAuditHistoryCache sizing = new WidgetAuditHistoryCache(widgetAuditRepository, Long.MAX_VALUE);
+    sizing.findByWidgetIdOrderByChangedAtDesc(first.getId());
+    long oneEntry = sizing.stats().weightBytes();
+
+    WidgetAuditHistoryCache cache = new WidgetAuditHistoryCache(widgetAuditRepository, oneEntry * 2 + 10);
+    cache.findByWidgetIdOrderByChangedAtDesc(first.getId());
+    cache.findByWidgetIdOrderByChangedAtDesc(second.getId());
+    cache.findByWidgetIdOrderByChangedAtDesc(first.getId());
+    cache.findByWidgetIdOrderByChangedAtDesc(third.getId());
+
+    HistoryCacheStats stats = cache.stats();
+    assertEquals(2, stats.entries());
+    assertEquals(1, stats.evictions());
+    assertTrue(stats.weightBytes() <= stats.maxWeightBytes());
+
+    cache.findByWidgetIdOrderByChangedAtDesc(first.getId());
+    assertEquals(2, cache.stats().hits(), "The recently used widget must have survived eviction");
+  }
+}
@@ -0,0 +1,75 @@
+package application.repo;
+
+import application.TestcontainersConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.OffsetDateTime;
+import java.util.function.LongSupplier;
+
+/**
+ * Compares allocation per row and throughput of the three audit read paths:
+ * managed entities, read-only record projections, and the JDBC row mapper.
+ * Disabled by default; run with: mvn test -Dtest=WidgetAuditReadPathBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class WidgetAuditReadPathBenchmarkTest {
+
+  private static final int ROWS = 200_000;
+  private static final int ITERATIONS = 3;
+
+  @Autowired
+  private WidgetAuditRepository widgetAuditRepository;
+
+  @Autowired
+  private WidgetAuditReader widgetAuditReader;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Test
+  void compareReadPaths() {
+    OffsetDateTime since = OffsetDateTime.now().minusSeconds(1);
+    jdbcTemplate.update(
+      "INSERT INTO public.widgets (name, quantity, price) "
+        + "SELECT 'read-bench-' || g, g % 100, 9.99 FROM generate_series(1, ?) g", ROWS);
+
+    for (int i = 0; i < ITERATIONS; i++) {
+      measure("entity", () -> transactionTemplate.execute(status ->
+        (long) widgetAuditRepository.findByChangedAtAfterOrderByChangedAtDesc(since).size()));
+      measure("projection", () -> transactionTemplate.execute(status ->
+        (long) widgetAuditRepository.findSummariesByChangedAtAfter(since).size()));
+      measure("row mapper", () -> {
+        long[] count = new long[1];
+        widgetAuditReader.forEachChangedAfter(since, row -> count[0]++);
+        return count[0];
+      });
+    }
+  }
+
+  private static void measure(String label, LongSupplier readPath) {
+    com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+    long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+    long started = System.nanoTime();
+    long rows = readPath.getAsLong();
+    long nanos = System.nanoTime() - started;
+    long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+    System.out.printf("%-11s rows=%,d bytes/row=%,d rows/s=%,.0f%n",
+      label, rows, rows == 0 ? 0 : allocated / rows, rows * 1e9 / nanos);
+  }
+}
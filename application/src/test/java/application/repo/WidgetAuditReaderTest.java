@@ -0,0 +1,79 @@
+package application.repo;
+
+import application.TestcontainersConfiguration;
+import application.model.Widget;
+import application.model.WidgetAudit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class WidgetAuditReaderTest {
+
+  @Autowired
+  private WidgetAuditReader widgetAuditReader;
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private WidgetAuditRepository widgetAuditRepository;
+
+  @Test
+  void testRowsMatchEntityPath() {
+    OffsetDateTime before = OffsetDateTime.now().minusSeconds(1);
+    Widget saved = widgetRepository.saveAndFlush(
+      new Widget("Reader Test", OffsetDateTime.now(), 12, new BigDecimal("12.34")));
+
+    List<AuditRow> rows = new ArrayList<>();
+    widgetAuditReader.forEachChangedAfter(before, row -> {
+      if (saved.getId().equals(row.widgetId())) {
+        rows.add(row);
+      }
+    });
+
+    assertEquals(1, rows.size());
+    AuditRow row = rows.get(0);
+    WidgetAudit entity = widgetAuditRepository.findById(row.auditId()).orElseThrow();
+    assertEquals(entity.getOperation(), row.operation());
+    assertEquals("INSERT", row.operation());
+    assertEquals(entity.getName(), row.name());
+    assertEquals(entity.getQuantity(), row.quantity());
+    assertEquals(0, entity.getPrice().compareTo(row.price()));
+    assertEquals(entity.getChangedBy(), row.changedBy());
+    assertTrue(entity.getChangedAt().isEqual(row.changedAt()));
+
+    assertEquals("Reader Test", row.name());
+    assertEquals(12, row.quantity());
+    assertEquals(0, new BigDecimal("12.34").compareTo(row.price()));
+    assertEquals("system_process", row.changedBy());
+    assertNull(row.oldQuantity());
+  }
+
+  @Test
+  void testAuditIdRangeIsHalfOpen() {
+    Widget saved = widgetRepository.saveAndFlush(
+      new Widget("Reader Range Test", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+    long auditId = widgetAuditRepository.findByWidgetIdOrderByChangedAtDesc(saved.getId()).get(0).getAuditId();
+
+    List<AuditRow> included = new ArrayList<>();
+    widgetAuditReader.forEachInAuditIdRange(auditId - 1, auditId, included::add);
+    assertEquals(1, included.size());
+    assertEquals(auditId, included.get(0).auditId());
+
+    List<AuditRow> excluded = new ArrayList<>();
+    widgetAuditReader.forEachInAuditIdRange(auditId, auditId, excluded::add);
+    assertTrue(excluded.isEmpty());
+  }
+}
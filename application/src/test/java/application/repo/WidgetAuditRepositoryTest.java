@@ -1,15 +1,21 @@
 package application.repo;
 
+import application.model.Widget;
 import application.model.WidgetAudit;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import application.TestcontainersConfiguration;
 
+import java.math.BigDecimal;
 import java.time.OffsetDateTime;
+import java.util.Comparator;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -20,9 +26,20 @@ import static org.junit.jupiter.api.Assertions.*;
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 class WidgetAuditRepositoryTest {
 
+  private static final String SUMMARY_USER = "audit_summary_reader";
+
   @Autowired
   private WidgetAuditRepository widgetAuditRepository;
 
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private EntityManager entityManager;
+
   @Test
   void testRepositoryExists() {
     assertNotNull(widgetAuditRepository);
@@ -70,5 +87,90 @@ class WidgetAuditRepositoryTest {
     long count = widgetAuditRepository.countByOperation("INSERT");
     assertTrue(count >= 0);
   }
-}
 
+  @Test
+  void testFindSummariesByWidgetId() {
+    actAs(SUMMARY_USER);
+    Widget widget = widgetRepository.saveAndFlush(
+      new Widget("Summary Widget", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+    widget.updateDetails(widget.getName(), 2, widget.getPrice());
+    widgetRepository.saveAndFlush(widget);
+    entityManager.clear();
+
+    List<AuditEntrySummary> summaries = widgetAuditRepository.findSummariesByWidgetId(widget.getId());
+    assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount(),
+      "Projections must not load audit entities");
+    assertEquals(List.of("INSERT", "UPDATE"), summaries.stream()
+      .sorted(Comparator.comparing(AuditEntrySummary::auditId))
+      .map(AuditEntrySummary::operation)
+      .toList());
+    summaries.forEach(summary -> assertMatchesAuditRow(summary, SUMMARY_USER));
+  }
+
+  @Test
+  void testFindSummariesByOperation() {
+    actAs(SUMMARY_USER);
+    Widget widget = widgetRepository.saveAndFlush(
+      new Widget("Summary By Operation", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+    long insertAuditId = widgetAuditRepository.findByWidgetIdOrderByChangedAtDesc(widget.getId()).get(0).getAuditId();
+
+    List<AuditEntrySummary> summaries = widgetAuditRepository.findSummariesByOperation("INSERT");
+    summaries.forEach(summary -> assertEquals("INSERT", summary.operation()));
+    AuditEntrySummary inserted = summaries.stream()
+      .filter(summary -> summary.auditId() == insertAuditId)
+      .findFirst()
+      .orElseThrow();
+    assertMatchesAuditRow(inserted, SUMMARY_USER);
+  }
+
+  @Test
+  void testFindSummariesByChangedAtAfter() {
+    actAs(SUMMARY_USER);
+    Widget widget = widgetRepository.saveAndFlush(
+      new Widget("Summary Changed After", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+    WidgetAudit audit = widgetAuditRepository.findByWidgetIdOrderByChangedAtDesc(widget.getId()).get(0);
+    OffsetDateTime cutoff = audit.getChangedAt().minusSeconds(1);
+
+    List<AuditEntrySummary> summaries = widgetAuditRepository.findSummariesByChangedAtAfter(cutoff);
+    summaries.forEach(summary -> assertTrue(summary.changedAt().isAfter(cutoff)));
+    AuditEntrySummary inserted = summaries.stream()
+      .filter(summary -> summary.auditId().equals(audit.getAuditId()))
+      .findFirst()
+      .orElseThrow();
+    assertMatchesAuditRow(inserted, SUMMARY_USER);
+  }
+
+  @Test
+  void testFindersLoadAuditEntitiesReadOnly() {
+    Widget widget = widgetRepository.saveAndFlush(
+      new Widget("Read Only Audit", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+    entityManager.clear();
+
+    Session session = entityManager.unwrap(Session.class);
+    List<WidgetAudit> audits = widgetAuditRepository.findByWidgetIdOrderByChangedAtDesc(widget.getId());
+    assertEquals(1, audits.size());
+    audits.forEach(audit -> assertTrue(session.isReadOnly(audit), "No dirty-checking snapshot is kept"));
+    audits = widgetAuditRepository.findByWidgetIdAndOperation(widget.getId(), "INSERT");
+    assertEquals(1, audits.size());
+    audits.forEach(audit -> assertTrue(session.isReadOnly(audit)));
+  }
+
+  private void assertMatchesAuditRow(AuditEntrySummary summary, String changedBy) {
+    List<String> users = jdbcTemplate.query(
+      "SELECT a.operation::TEXT, a.changed_at, u.username FROM public.widgets_audit a "
+        + "JOIN public.audit_users u ON u.user_id = a.changed_by_id WHERE a.audit_id = ?",
+      (rs, rowNum) -> {
+        assertEquals(summary.operation().substring(0, 1), rs.getString(1));
+        assertTrue(rs.getObject(2, OffsetDateTime.class).isEqual(summary.changedAt()));
+        return rs.getString(3);
+      },
+      summary.auditId());
+    assertEquals(List.of(changedBy), users);
+    assertEquals(changedBy, summary.changedBy());
+  }
+
+  private void actAs(String username) {
+    // the test transaction is already open, so this holds for every statement of the test
+    jdbcTemplate.queryForObject("SELECT set_config('app.current_user', ?, true)", String.class, username);
+  }
+}
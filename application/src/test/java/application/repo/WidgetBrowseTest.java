@@ -0,0 +1,83 @@
+package application.repo;
+
+import application.TestcontainersConfiguration;
+import application.model.Widget;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class WidgetBrowseTest {
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @BeforeEach
+  void createWidgets() {
+    OffsetDateTime base = OffsetDateTime.parse("2026-01-01T00:00:00Z");
+    List<Widget> widgets = new ArrayList<>();
+    for (int i = 0; i < 25; i++) {
+      // Repeated prices and timestamps force the id tiebreaker to matter
+      widgets.add(new Widget("Browse " + (char) ('a' + i), base.plusMinutes(i / 3), i,
+        new BigDecimal(i % 4 + ".50")));
+    }
+    widgetRepository.saveAllAndFlush(widgets);
+  }
+
+  @Test
+  void testPagesCoverEveryWidgetInPriceOrder() {
+    Comparator<Widget> byPrice = Comparator.comparing(Widget::getPrice).thenComparing(Widget::getId);
+    assertBrowseMatches(WidgetSortKey.PRICE, Sort.Direction.ASC, byPrice);
+  }
+
+  @Test
+  void testPagesCoverEveryWidgetInDescendingCreatedAtOrder() {
+    Comparator<Widget> byCreatedAt = Comparator.comparing(Widget::getCreatedAt).thenComparing(Widget::getId);
+    assertBrowseMatches(WidgetSortKey.CREATED_AT, Sort.Direction.DESC, byCreatedAt.reversed());
+  }
+
+  @Test
+  void testLastPageHasNoCursor() {
+    long total = widgetRepository.count();
+    WidgetPage page = widgetRepository.browse(WidgetSortKey.NAME, Sort.Direction.ASC, null, (int) total);
+    assertEquals(total, page.widgets().size());
+    assertFalse(page.hasNext());
+  }
+
+  @Test
+  void testRejectsInvalidPageSize() {
+    assertThrows(Exception.class,
+      () -> widgetRepository.browse(WidgetSortKey.NAME, Sort.Direction.ASC, null, 0));
+  }
+
+  private void assertBrowseMatches(WidgetSortKey sortKey, Sort.Direction direction, Comparator<Widget> order) {
+    List<Long> expected = widgetRepository.findAll().stream().sorted(order).map(Widget::getId).toList();
+
+    List<Long> browsed = new ArrayList<>();
+    String cursor = null;
+    do {
+      WidgetPage page = widgetRepository.browse(sortKey, direction, cursor, 4);
+      assertTrue(page.widgets().size() <= 4);
+      page.widgets().forEach(widget -> browsed.add(widget.getId()));
+      cursor = page.nextCursor();
+    } while (cursor != null);
+
+    assertEquals(expected, browsed);
+  }
+}
@@ -0,0 +1,93 @@
+package application.repo;
+
+import application.TestcontainersConfiguration;
+import application.audit.AuditContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark for the chunked bulk mutations at one million widgets, limited to the id range it inserted
+ * and deleted again afterwards.
+ * Disabled by default; run with: mvn test -Dtest=WidgetBulkOperationsBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class WidgetBulkOperationsBenchmarkTest {
+
+  private static final int WIDGETS = 1_000_000;
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private long firstId;
+  private long lastId;
+
+  @AfterEach
+  void deleteBenchmarkWidgets() {
+    jdbcTemplate.update("DELETE FROM public.widgets WHERE id BETWEEN ? AND ?", firstId, lastId);
+  }
+
+  @Test
+  void benchmarkBulkMutationsAtOneMillionWidgets() {
+    long[] range = jdbcTemplate.queryForObject(
+      "WITH inserted AS (INSERT INTO public.widgets (name, quantity, price) "
+        + "SELECT 'bulk-ops-bench-' || g, g % 50, (g % 10000) / 100.0 + 1 FROM generate_series(1, ?) g RETURNING id) "
+        + "SELECT min(id), max(id) FROM inserted",
+      (rs, rowNum) -> new long[] {rs.getLong(1), rs.getLong(2)}, WIDGETS);
+    firstId = range[0];
+    lastId = range[1];
+    jdbcTemplate.execute("ANALYZE public.widgets");
+
+    long auditBefore = countAudits();
+    BulkMutationResult[] repriced = new BulkMutationResult[1];
+    AuditContext.runAsUser("bench_user", () ->
+      repriced[0] = widgetRepository.repriceByPercent(new BigDecimal("5"), firstId, lastId,
+        WidgetBulkOperations.DEFAULT_CHUNK_SIZE, progress -> {
+          if (progress.chunksDone() % 20 == 0) {
+            System.out.printf("reprice %.0f%% (%d rows)%n", progress.fractionComplete() * 100, progress.totalRows());
+          }
+        }));
+    BulkMutationResult reprice = repriced[0];
+    report("reprice +5%", reprice, countAudits() - auditBefore);
+
+    auditBefore = countAudits();
+    BulkMutationResult restock = widgetRepository.restockBelow(10, 25, firstId, lastId,
+      WidgetBulkOperations.DEFAULT_CHUNK_SIZE, BulkProgressListener.none());
+    report("restock below 10", restock, countAudits() - auditBefore);
+
+    jdbcTemplate.update("UPDATE public.widgets SET quantity = 0 WHERE id BETWEEN ? AND ? AND id % 10 = 0",
+      firstId, lastId);
+    auditBefore = countAudits();
+    BulkMutationResult purge = widgetRepository.purgeOutOfStock(firstId, lastId,
+      WidgetBulkOperations.DEFAULT_CHUNK_SIZE, BulkProgressListener.none());
+    report("purge out of stock", purge, countAudits() - auditBefore);
+
+    assertTrue(reprice.rowsAffected() > 0);
+    assertTrue(purge.rowsAffected() > 0);
+  }
+
+  private long countAudits() {
+    Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM public.widgets_audit", Long.class);
+    return count == null ? 0 : count;
+  }
+
+  private static void report(String label, BulkMutationResult result, long auditRows) {
+    System.out.printf("%-20s rows=%,d chunks=%d elapsed=%dms throughput=%,.0f rows/s audit rows=%,d%n",
+      label, result.rowsAffected(), result.chunks(), result.elapsed().toMillis(), result.rowsPerSecond(), auditRows);
+  }
+}
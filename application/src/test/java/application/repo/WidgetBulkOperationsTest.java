@@ -0,0 +1,152 @@
+package application.repo;
+
+import application.TestcontainersConfiguration;
+import application.audit.AuditContext;
+import application.model.Widget;
+import application.model.WidgetAudit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the chunked bulk mutation APIs.
+ * Not @Transactional: every chunk commits in its own transaction, so test data must be committed too.
+ * Each test works on the id range of its own widgets and deletes them afterwards.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class WidgetBulkOperationsTest {
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private WidgetAuditRepository widgetAuditRepository;
+
+  private final List<Long> created = new ArrayList<>();
+
+  @AfterEach
+  void deleteCreatedWidgets() {
+    widgetRepository.deleteAllByIdInBatch(created);
+  }
+
+  @Test
+  void testRepriceUpdatesPricesAndAuditsWithCurrentUser() {
+    Widget saved = create("Bulk Reprice", 10, "20.00");
+
+    AuditContext.runAsUser("bulk_pricer", () -> widgetRepository.repriceByPercent(new BigDecimal("5"),
+      firstId(), lastId(), 1_000, BulkProgressListener.none()));
+
+    Widget repriced = widgetRepository.findById(saved.getId()).orElseThrow();
+    assertEquals(0, new BigDecimal("21.00").compareTo(repriced.getPrice()));
+
+    List<WidgetAudit> updates = widgetAuditRepository.findByWidgetIdAndOperation(saved.getId(), "UPDATE");
+    assertEquals(1, updates.size(), "Reprice should produce exactly one UPDATE audit row");
+    assertEquals("bulk_pricer", updates.get(0).getChangedBy());
+    assertEquals(0, new BigDecimal("21.00").compareTo(updates.get(0).getPrice()));
+  }
+
+  @Test
+  void testRestockOnlyTouchesWidgetsBelowThreshold() {
+    Widget low = create("Bulk Restock Low", 2, "1.00");
+    Widget high = create("Bulk Restock High", 500, "1.00");
+
+    BulkMutationResult result = widgetRepository.restockBelow(5, 100, firstId(), lastId(),
+      WidgetBulkOperations.DEFAULT_CHUNK_SIZE, BulkProgressListener.none());
+
+    assertEquals(1, result.rowsAffected());
+    assertEquals(102, widgetRepository.findById(low.getId()).orElseThrow().getQuantity());
+    assertEquals(500, widgetRepository.findById(high.getId()).orElseThrow().getQuantity());
+    assertTrue(widgetAuditRepository.findByWidgetIdAndOperation(high.getId(), "UPDATE").isEmpty(),
+      "Untouched widgets must not be audited");
+  }
+
+  @Test
+  void testPurgeDeletesOutOfStockWidgetsAndAuditsDeletes() {
+    Widget empty = create("Bulk Purge Empty", 0, "3.00");
+    Widget stocked = create("Bulk Purge Stocked", 1, "3.00");
+
+    AuditContext.runAsUser("bulk_purger", () -> widgetRepository.purgeOutOfStock(firstId(), lastId(),
+      WidgetBulkOperations.DEFAULT_CHUNK_SIZE, BulkProgressListener.none()));
+
+    assertFalse(widgetRepository.existsById(empty.getId()));
+    assertTrue(widgetRepository.existsById(stocked.getId()));
+
+    List<WidgetAudit> deletes = widgetAuditRepository.findByWidgetIdAndOperation(empty.getId(), "DELETE");
+    assertEquals(1, deletes.size());
+    assertEquals("bulk_purger", deletes.get(0).getChangedBy());
+  }
+
+  @Test
+  void testProgressIsReportedPerChunk() {
+    create("Bulk Progress 1", 1, "1.00");
+    create("Bulk Progress 2", 1, "1.00");
+    create("Bulk Progress 3", 1, "1.00");
+
+    List<BulkProgress> reports = new ArrayList<>();
+    BulkMutationResult result = widgetRepository.restockBelow(0, 1, firstId(), lastId(), 1, reports::add);
+
+    assertEquals(0, result.rowsAffected());
+    assertEquals(result.chunks(), reports.size());
+    assertEquals(lastId() - firstId() + 1, reports.size(), "A chunk size of 1 should produce one chunk per id");
+
+    BulkProgress last = reports.get(reports.size() - 1);
+    assertEquals(last.chunksTotal(), last.chunksDone());
+    assertEquals(1.0, last.fractionComplete());
+  }
+
+  @Test
+  void testRejectsNonPositiveChunkSize() {
+    assertThrows(InvalidDataAccessApiUsageException.class,
+      () -> widgetRepository.purgeOutOfStock(0, BulkProgressListener.none()));
+  }
+
+  @Test
+  void testRepriceRejectsMissingPercent() {
+    assertThrows(InvalidDataAccessApiUsageException.class,
+      () -> widgetRepository.repriceByPercent(null, 1_000, BulkProgressListener.none()));
+  }
+
+  @Test
+  void testRepriceThatWouldOverflowThePriceColumnChangesNothing() {
+    create("Bulk Overflow Cheap", 1, "1.00");
+    Widget expensive = create("Bulk Overflow Expensive", 1, "90000000.00");
+
+    InvalidDataAccessApiUsageException rejected = assertThrows(InvalidDataAccessApiUsageException.class,
+      () -> widgetRepository.repriceByPercent(new BigDecimal("20"), firstId(), lastId(), 1,
+        BulkProgressListener.none()));
+
+    assertTrue(rejected.getMessage().contains("90000000.00"), rejected.getMessage());
+    assertEquals(0, new BigDecimal("90000000.00").compareTo(
+      widgetRepository.findById(expensive.getId()).orElseThrow().getPrice()));
+    created.forEach(id -> assertTrue(widgetAuditRepository.findByWidgetIdAndOperation(id, "UPDATE").isEmpty(),
+      "No chunk may run before the overflow is detected"));
+  }
+
+  private Widget create(String name, int quantity, String price) {
+    Widget widget = widgetRepository.saveAndFlush(
+      new Widget(name, OffsetDateTime.now(), quantity, new BigDecimal(price)));
+    created.add(widget.getId());
+    return widget;
+  }
+
+  private long firstId() {
+    return created.stream().mapToLong(Long::longValue).min().orElseThrow();
+  }
+
+  private long lastId() {
+    return created.stream().mapToLong(Long::longValue).max().orElseThrow();
+  }
+}
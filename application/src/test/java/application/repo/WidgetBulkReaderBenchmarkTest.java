@@ -0,0 +1,82 @@
+package application.repo;
+
+import application.TestcontainersConfiguration;
+import application.model.Widget;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.LongSupplier;
+
+/**
+ * Compares a full catalog scan through findAll() with the columnar bulk reader.
+ * Disabled by default; run with: mvn test -Dtest=WidgetBulkReaderBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class WidgetBulkReaderBenchmarkTest {
+
+  private static final int WIDGETS = 1_000_000;
+  private static final int ITERATIONS = 3;
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private WidgetBulkReader widgetBulkReader;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Test
+  void compareFullScans() {
+    jdbcTemplate.update(
+      "INSERT INTO public.widgets (name, quantity, price) "
+        + "SELECT 'scan-bench-' || g, g % 100, (g % 5000) / 100.0 FROM generate_series(1, ?) g", WIDGETS);
+
+    for (int i = 0; i < ITERATIONS; i++) {
+      measure("findAll", () -> transactionTemplate.execute(status -> {
+        long value = 0;
+        for (Widget widget : widgetRepository.findAll()) {
+          value += widget.getQuantity() * widget.getPrice().movePointRight(2).longValue();
+        }
+        return value;
+      }));
+      measure("columnar", () -> {
+        long[] value = new long[1];
+        widgetBulkReader.forEachBatch(WidgetBulkReader.DEFAULT_BATCH_SIZE, false, batch -> {
+          long[] cents = batch.priceCents();
+          int[] quantity = batch.quantity();
+          for (int row = 0; row < batch.size(); row++) {
+            value[0] += quantity[row] * cents[row];
+          }
+        });
+        return value[0];
+      });
+    }
+  }
+
+  private static void measure(String label, LongSupplier scan) {
+    com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+    long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+    long started = System.nanoTime();
+    long checksum = scan.getAsLong();
+    long nanos = System.nanoTime() - started;
+    long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+    System.out.printf("%-9s checksum=%d elapsed=%dms bytes/row=%,d%n",
+      label, checksum, nanos / 1_000_000, allocated / WIDGETS);
+  }
+}
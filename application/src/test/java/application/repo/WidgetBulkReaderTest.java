@@ -0,0 +1,72 @@
+package application.repo;
+
+import application.TestcontainersConfiguration;
+import application.model.Widget;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class WidgetBulkReaderTest {
+
+  @Autowired
+  private WidgetBulkReader widgetBulkReader;
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Test
+  void testBatchesMatchEntities() {
+    OffsetDateTime createdAt = OffsetDateTime.parse("2026-03-01T08:15:30.654321Z");
+    Widget saved = widgetRepository.saveAndFlush(
+      new Widget("Columnar Test", createdAt, 42, new BigDecimal("123.45")));
+
+    long[] found = new long[4];
+    String[] foundName = new String[1];
+    List<Integer> batchSizes = new ArrayList<>();
+    long rows = widgetBulkReader.forEachBatch(2, true, batch -> {
+      batchSizes.add(batch.size());
+      for (int i = 0; i < batch.size(); i++) {
+        if (batch.id()[i] == saved.getId()) {
+          found[0] = batch.id()[i];
+          found[1] = batch.priceCents()[i];
+          found[2] = batch.quantity()[i];
+          found[3] = batch.createdAtMicros()[i];
+          foundName[0] = batch.name()[i];
+        }
+      }
+    });
+
+    assertEquals(widgetRepository.count(), rows);
+    assertEquals(rows, batchSizes.stream().mapToLong(Integer::longValue).sum());
+    batchSizes.subList(0, batchSizes.size() - 1).forEach(size -> assertEquals(2, size));
+
+    assertEquals(saved.getId(), found[0]);
+    assertEquals(12345L, found[1]);
+    assertEquals(42L, found[2]);
+    assertEquals(WidgetColumnBatch.toEpochMicros(createdAt), found[3]);
+    assertEquals("Columnar Test", foundName[0]);
+  }
+
+  @Test
+  void testNamesCanBeSkipped() {
+    widgetRepository.saveAndFlush(new Widget("Columnar No Name", OffsetDateTime.now(), 1, BigDecimal.ONE));
+
+    widgetBulkReader.forEachBatch(WidgetBulkReader.DEFAULT_BATCH_SIZE, false, batch -> {
+      for (int i = 0; i < batch.size(); i++) {
+        assertNull(batch.name()[i]);
+      }
+    });
+  }
+}
@@ -0,0 +1,77 @@
+package application.repo;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WidgetColumnBatchTest {
+
+  @Test
+  void testAddFillsColumnsUntilFull() {
+    WidgetColumnBatch batch = new WidgetColumnBatch(2);
+    assertEquals(0, batch.size());
+    assertFalse(batch.isFull());
+
+    batch.add(1L, 1999L, 10, 5L, "alpha");
+    batch.add(2L, 2999L, 20, 6L, "beta");
+
+    assertTrue(batch.isFull());
+    assertEquals(2, batch.size());
+    assertArrayEquals(new long[] {1L, 2L}, batch.id());
+    assertArrayEquals(new long[] {1999L, 2999L}, batch.priceCents());
+    assertArrayEquals(new int[] {10, 20}, batch.quantity());
+    assertArrayEquals(new long[] {5L, 6L}, batch.createdAtMicros());
+    assertArrayEquals(new String[] {"alpha", "beta"}, batch.name());
+  }
+
+  @Test
+  void testClearReusesArrays() {
+    WidgetColumnBatch batch = new WidgetColumnBatch(4);
+    long[] ids = batch.id();
+    batch.add(1L, 1L, 1, 1L, "alpha");
+
+    batch.clear();
+
+    assertEquals(0, batch.size());
+    assertSame(ids, batch.id());
+    assertNull(batch.name()[0]);
+  }
+
+  @Test
+  void testNamesAreStoredWithoutCopying() {
+    WidgetColumnBatch batch = new WidgetColumnBatch(1);
+    String name = new String("alpha");
+    batch.add(1L, 1L, 1, 1L, name);
+
+    assertSame(name, batch.name()[0]);
+  }
+
+  @Test
+  void testNullNamesAreAllowed() {
+    WidgetColumnBatch batch = new WidgetColumnBatch(1);
+    batch.add(1L, 1L, 1, 1L, null);
+    assertNull(batch.name()[0]);
+  }
+
+  @Test
+  void testRejectsNonPositiveCapacity() {
+    assertThrows(IllegalArgumentException.class, () -> new WidgetColumnBatch(0));
+  }
+
+  @Test
+  void testCentsConversion() {
+    assertEquals(1999L, WidgetColumnBatch.toCents(new BigDecimal("19.99")));
+    assertEquals(1000L, WidgetColumnBatch.toCents(new BigDecimal("10")));
+    assertEquals(0, new BigDecimal("19.99").compareTo(WidgetColumnBatch.fromCents(1999L)));
+    assertThrows(ArithmeticException.class, () -> WidgetColumnBatch.toCents(new BigDecimal("0.001")));
+  }
+
+  @Test
+  void testEpochMicrosConversion() {
+    OffsetDateTime time = OffsetDateTime.parse("2026-02-19T15:30:00.123456Z");
+    assertEquals(1771515000123456L, WidgetColumnBatch.toEpochMicros(time));
+  }
+}
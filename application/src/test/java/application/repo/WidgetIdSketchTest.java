@@ -0,0 +1,60 @@
+package application.repo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WidgetIdSketchTest {
+
+  @Test
+  void testCountsSmallSetsExactly() {
+    WidgetIdSketch sketch = new WidgetIdSketch();
+    assertEquals(0, sketch.estimate());
+    for (long id = 1; id <= 50; id++) {
+      sketch.add(id);
+      sketch.add(id);
+    }
+    assertEquals(50, sketch.estimate());
+  }
+
+  @Test
+  void testEstimatesLargeSetsWithinTheStandardError() {
+    WidgetIdSketch sketch = new WidgetIdSketch();
+    for (long id = 1_000_000; id < 1_100_000; id++) {
+      sketch.add(id);
+    }
+    assertEquals(100_000, sketch.estimate(), 100_000 * 0.05);
+  }
+
+  @Test
+  void testMergeEstimatesTheUnion() {
+    WidgetIdSketch monday = new WidgetIdSketch();
+    WidgetIdSketch tuesday = new WidgetIdSketch();
+    for (long id = 0; id < 300; id++) {
+      monday.add(id);
+      tuesday.add(id + 200);
+    }
+    monday.merge(tuesday);
+
+    assertEquals(500, monday.estimate(), 500 * 0.05);
+  }
+
+  @Test
+  void testRoundTripsSparseAndDenseEncodings() {
+    WidgetIdSketch small = new WidgetIdSketch();
+    WidgetIdSketch large = new WidgetIdSketch();
+    for (long id = 0; id < 20_000; id++) {
+      large.add(id);
+      if (id < 10) {
+        small.add(id);
+      }
+    }
+
+    assertTrue(small.toBytes().length < WidgetIdSketch.REGISTERS);
+    assertEquals(WidgetIdSketch.REGISTERS, large.toBytes().length);
+    assertEquals(small.estimate(), WidgetIdSketch.fromBytes(small.toBytes()).estimate());
+    assertEquals(large.estimate(), WidgetIdSketch.fromBytes(large.toBytes()).estimate());
+    assertEquals(0, WidgetIdSketch.fromBytes(new byte[0]).estimate());
+    assertThrows(IllegalArgumentException.class, () -> WidgetIdSketch.fromBytes(new byte[4]));
+  }
+}
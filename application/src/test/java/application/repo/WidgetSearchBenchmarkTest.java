@@ -0,0 +1,76 @@
+package application.repo;
+
+import application.TestcontainersConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Search latency at 10M widgets against a p99 budget (default 50 ms, override with -Dsearch.p99.ms).
+ * Disabled by default; run with: mvn test -Dtest=WidgetSearchBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class WidgetSearchBenchmarkTest {
+
+  private static final int WIDGETS = 10_000_000;
+  private static final int QUERIES = 500;
+  private static final String[] WORDS = {
+    "sprocket", "flange", "gear", "bracket", "hinge", "valve", "spindle", "gasket", "rotor", "clamp"};
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void searchLatencyAtTenMillionWidgets() {
+    jdbcTemplate.update(
+      "INSERT INTO public.widgets (name, quantity, price) "
+        + "SELECT (ARRAY['sprocket','flange','gear','bracket','hinge','valve','spindle','gasket','rotor','clamp'])"
+        + "[1 + g % 10] || ' ' || substr(md5(g::text), 1, 8) || '-' || g, 1, 1.00 FROM generate_series(1, ?) g", WIDGETS);
+    jdbcTemplate.execute("ANALYZE public.widgets");
+
+    long budgetMs = Long.getLong("search.p99.ms", 50);
+    Random random = new Random(7);
+    long containing = measure("containing", q -> widgetRepository.searchByNameContaining(q, 20).size(), random);
+    long prefix = measure("prefix", q -> widgetRepository.searchByNamePrefix(q, 20).size(), random);
+    long similar = measure("similar", q -> widgetRepository.searchByNameSimilarTo(q, 0.4, 20).size(), random);
+
+    assertTrue(containing <= budgetMs, "containing p99 " + containing + "ms exceeds " + budgetMs + "ms");
+    assertTrue(prefix <= budgetMs, "prefix p99 " + prefix + "ms exceeds " + budgetMs + "ms");
+    assertTrue(similar <= budgetMs, "similar p99 " + similar + "ms exceeds " + budgetMs + "ms");
+  }
+
+  /**
+   * @return p99 latency in milliseconds
+   */
+  private long measure(String label, Function<String, Integer> search, Random random) {
+    long[] nanos = new long[QUERIES];
+    for (int i = 0; i < QUERIES; i++) {
+      String word = WORDS[random.nextInt(WORDS.length)];
+      String query = word + " " + Integer.toHexString(random.nextInt(0x10000));
+      long started = System.nanoTime();
+      search.apply(query.substring(0, Math.min(query.length(), 4 + random.nextInt(8))));
+      nanos[i] = System.nanoTime() - started;
+    }
+    Arrays.sort(nanos);
+    long p50 = nanos[QUERIES / 2] / 1_000_000;
+    long p99 = nanos[QUERIES * 99 / 100] / 1_000_000;
+    System.out.printf("%-10s p50=%dms p99=%dms%n", label, p50, p99);
+    return p99;
+  }
+}
@@ -0,0 +1,25 @@
+package application.repo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WidgetSearchOperationsImplTest {
+
+  @Test
+  void testEscapeLikeLeavesPlainTextAlone() {
+    assertEquals("gear box", WidgetSearchOperationsImpl.escapeLike("gear box"));
+  }
+
+  @Test
+  void testEscapeLikeEscapesWildcardsAndEscapeCharacter() {
+    assertEquals("100!% off", WidgetSearchOperationsImpl.escapeLike("100% off"));
+    assertEquals("a!_b", WidgetSearchOperationsImpl.escapeLike("a_b"));
+    assertEquals("wow!!", WidgetSearchOperationsImpl.escapeLike("wow!"));
+  }
+
+  @Test
+  void testEscapeLikeHandlesNull() {
+    assertNull(WidgetSearchOperationsImpl.escapeLike(null));
+  }
+}
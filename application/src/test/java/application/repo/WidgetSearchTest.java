@@ -0,0 +1,99 @@
+package application.repo;
+
+import application.TestcontainersConfiguration;
+import application.model.Widget;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class WidgetSearchTest {
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @BeforeEach
+  void createWidgets() {
+    widgetRepository.saveAllAndFlush(List.of(
+      new Widget("Sprocket Deluxe", OffsetDateTime.now(), 1, new BigDecimal("1.00")),
+      new Widget("Sprocket", OffsetDateTime.now(), 2, new BigDecimal("2.00")),
+      new Widget("Mini Sprocket", OffsetDateTime.now(), 3, new BigDecimal("3.00")),
+      new Widget("Flange 100% Steel", OffsetDateTime.now(), 4, new BigDecimal("4.00"))));
+  }
+
+  @Test
+  void testContainingMatchesAnywhereBestMatchFirst() {
+    List<WidgetSearchHit> hits = widgetRepository.searchByNameContaining("sprocket", 10);
+
+    List<String> names = hits.stream().map(WidgetSearchHit::name).toList();
+    assertTrue(names.containsAll(List.of("Sprocket Deluxe", "Sprocket", "Mini Sprocket")));
+    assertEquals("Sprocket", names.get(0), "The exact name should rank first");
+    assertEquals(hits.stream().sorted(Comparator.comparingDouble(WidgetSearchHit::score).reversed()).toList(), hits);
+    assertEquals("Sprocket", widgetRepository.searchByNameContaining("sprocket", 1).get(0).name(),
+      "The limit should keep the best match, not the first one found");
+  }
+
+  @Test
+  void testPrefixOnlyMatchesStartInNameOrder() {
+    List<String> names = widgetRepository.searchByNamePrefix("sprock", 10).stream()
+      .map(WidgetSearchHit::name).toList();
+
+    assertTrue(names.contains("Sprocket"));
+    assertTrue(names.contains("Sprocket Deluxe"));
+    assertFalse(names.contains("Mini Sprocket"));
+    assertTrue(names.indexOf("Sprocket") < names.indexOf("Sprocket Deluxe"));
+  }
+
+  @Test
+  void testPrefixWildcardsAreLiteral() {
+    widgetRepository.saveAndFlush(new Widget("100% Cotton Gasket", OffsetDateTime.now(), 5, new BigDecimal("5.00")));
+
+    assertEquals(List.of("100% Cotton Gasket"), widgetRepository.searchByNamePrefix("100% c", 10).stream()
+      .map(WidgetSearchHit::name).toList());
+    assertTrue(widgetRepository.searchByNamePrefix("_", 10).isEmpty());
+  }
+
+  @Test
+  void testWildcardsInInputAreLiteral() {
+    List<String> names = widgetRepository.searchByNameContaining("100%", 10).stream()
+      .map(WidgetSearchHit::name).toList();
+    assertTrue(names.contains("Flange 100% Steel"));
+
+    assertTrue(widgetRepository.searchByNameContaining("%", 10).stream()
+      .allMatch(hit -> hit.name().contains("%")));
+  }
+
+  @Test
+  void testSimilarToToleratesTypos() {
+    List<String> names = widgetRepository.searchByNameSimilarTo("sprockte", 0.3, 10).stream()
+      .map(WidgetSearchHit::name).toList();
+    assertTrue(names.contains("Sprocket"));
+    assertFalse(names.contains("Flange 100% Steel"));
+  }
+
+  @Test
+  void testLimitIsApplied() {
+    assertEquals(1, widgetRepository.searchByNameContaining("sprocket", 1).size());
+  }
+
+  @Test
+  void testRejectsInvalidArguments() {
+    assertThrows(Exception.class, () -> widgetRepository.searchByNameContaining("", 10));
+    assertThrows(Exception.class, () -> widgetRepository.searchByNamePrefix("a", 0));
+    assertThrows(Exception.class, () -> widgetRepository.searchByNameSimilarTo("a", 1.5, 10));
+  }
+}
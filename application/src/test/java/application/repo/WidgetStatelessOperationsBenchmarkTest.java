@@ -0,0 +1,74 @@
+package application.repo;
+
+import application.TestcontainersConfiguration;
+import application.model.Widget;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark for a batch job rewriting every widget it loaded: managed entities updated in one
+ * transaction (dirty checking at flush) against explicit StatelessSession updates.
+ * Disabled by default; run with: mvn test -Dtest=WidgetStatelessOperationsBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class WidgetStatelessOperationsBenchmarkTest {
+
+  private static final int WIDGETS = 50_000;
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Test
+  void benchmarkManagedVersusStatelessUpdates() {
+    List<Widget> widgets = new ArrayList<>(WIDGETS);
+    for (int i = 0; i < WIDGETS; i++) {
+      widgets.add(new Widget("stateless-bench-" + i, OffsetDateTime.now(), i % 100, BigDecimal.valueOf(i % 10_000, 2)));
+    }
+    BulkMutationResult inserted = widgetRepository.insertStateless(widgets,
+      WidgetStatelessOperations.DEFAULT_STATELESS_BATCH_SIZE);
+    System.out.printf("stateless insert  %,d widgets in %,d ms (%,.0f rows/s)%n", inserted.rowsAffected(),
+      inserted.elapsed().toMillis(), inserted.rowsPerSecond());
+    List<Long> ids = widgets.stream().map(Widget::getId).toList();
+
+    long started = System.nanoTime();
+    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+      for (Widget widget : widgetRepository.findAllById(ids)) {
+        widget.updateDetails(widget.getName(), widget.getQuantity() + 1, widget.getPrice());
+      }
+    });
+    long managedMillis = (System.nanoTime() - started) / 1_000_000;
+    System.out.printf("managed update    %,d widgets in %,d ms (%,.0f rows/s)%n", WIDGETS, managedMillis,
+      WIDGETS * 1000.0 / Math.max(1, managedMillis));
+
+    widgets.forEach(widget -> widget.updateDetails(widget.getName(), widget.getQuantity() + 2, widget.getPrice()));
+    BulkMutationResult updated = widgetRepository.updateStateless(widgets,
+      WidgetStatelessOperations.DEFAULT_STATELESS_BATCH_SIZE);
+    System.out.printf("stateless update  %,d widgets in %,d ms (%,.0f rows/s)%n", updated.rowsAffected(),
+      updated.elapsed().toMillis(), updated.rowsPerSecond());
+    assertEquals(WIDGETS, updated.rowsAffected());
+
+    BulkMutationResult deleted = widgetRepository.deleteStateless(widgets,
+      WidgetStatelessOperations.DEFAULT_STATELESS_BATCH_SIZE);
+    System.out.printf("stateless delete  %,d widgets in %,d ms (%,.0f rows/s)%n", deleted.rowsAffected(),
+      deleted.elapsed().toMillis(), deleted.rowsPerSecond());
+  }
+}
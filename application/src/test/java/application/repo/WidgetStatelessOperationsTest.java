@@ -0,0 +1,109 @@
+package application.repo;
+
+import application.TestcontainersConfiguration;
+import application.audit.AuditContext;
+import application.model.Widget;
+import application.model.WidgetAudit;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the StatelessSession bulk writes.
+ * Not @Transactional: batches commit on their own unless a test opens a transaction around them.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class WidgetStatelessOperationsTest {
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private WidgetAuditRepository widgetAuditRepository;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Test
+  void testInsertUpdateDeleteInBatchesAuditedAsCurrentUser() {
+    List<Widget> widgets = widgets("Stateless", 7);
+
+    BulkMutationResult inserted = AuditContext.runAsUser("stateless_loader", () ->
+      widgetRepository.insertStateless(widgets, 3));
+    assertEquals(7, inserted.rowsAffected());
+    assertEquals(3, inserted.chunks());
+    widgets.forEach(widget -> assertNotNull(widget.getId(), "Generated ids are set on the widgets"));
+    assertEquals("stateless_loader", onlyAudit(widgets.get(6), "INSERT").getChangedBy());
+
+    widgets.forEach(widget -> widget.updateDetails(widget.getName(), widget.getQuantity() + 1, widget.getPrice()));
+    BulkMutationResult updated = AuditContext.runAsUser("stateless_updater", () ->
+      widgetRepository.updateStateless(widgets, 3));
+    assertEquals(7, updated.rowsAffected());
+    for (Widget widget : widgets) {
+      assertEquals(widget.getQuantity(), widgetRepository.findById(widget.getId()).orElseThrow().getQuantity());
+    }
+    assertEquals("stateless_updater", onlyAudit(widgets.get(6), "UPDATE").getChangedBy());
+
+    widgetRepository.updateStateless(widgets, 3);
+    assertEquals(1, widgetAuditRepository.findByWidgetIdAndOperation(widgets.get(0).getId(), "UPDATE").size(),
+      "Rewriting unchanged widgets is not audited");
+
+    AuditContext.runAsUser("stateless_purger", () -> widgetRepository.deleteStateless(widgets, 3));
+    widgets.forEach(widget -> assertFalse(widgetRepository.existsById(widget.getId())));
+    assertEquals("stateless_purger", onlyAudit(widgets.get(6), "DELETE").getChangedBy());
+  }
+
+  @Test
+  void testJoinsCallerTransactionWithoutFillingThePersistenceContext() {
+    List<Widget> widgets = widgets("Stateless Rollback", 5);
+
+    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+      widgetRepository.insertStateless(widgets, 2);
+      assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount(),
+        "Stateless writes must not populate the persistence context");
+      assertTrue(widgetRepository.findByName("Stateless Rollback 4").isPresent(), "Visible inside the transaction");
+      status.setRollbackOnly();
+    });
+
+    assertTrue(widgetRepository.findByName("Stateless Rollback 0").isEmpty(), "Rolled back with the caller");
+  }
+
+  @Test
+  void testRejectsNonPositiveBatchSize() {
+    assertThrows(InvalidDataAccessApiUsageException.class,
+      () -> widgetRepository.insertStateless(widgets("Stateless Invalid", 1), 0));
+  }
+
+  private static List<Widget> widgets(String prefix, int count) {
+    List<Widget> widgets = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      widgets.add(new Widget(prefix + " " + i, OffsetDateTime.now(), i, new BigDecimal("1.50")));
+    }
+    return widgets;
+  }
+
+  private WidgetAudit onlyAudit(Widget widget, String operation) {
+    List<WidgetAudit> audits = widgetAuditRepository.findByWidgetIdAndOperation(widget.getId(), operation);
+    assertEquals(1, audits.size(), operation + " audits of " + widget.getName());
+    return audits.get(0);
+  }
+}
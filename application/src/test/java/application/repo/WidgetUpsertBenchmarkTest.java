@@ -0,0 +1,70 @@
+package application.repo;
+
+import application.TestcontainersConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark for a full catalog feed sync: an initial load, then a re-feed where one widget in ten changed.
+ * Disabled by default; run with: mvn test -Dtest=WidgetUpsertBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class WidgetUpsertBenchmarkTest {
+
+  private static final int WIDGETS = 200_000;
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void benchmarkFeedSync() {
+    List<WidgetUpsert> feed = new ArrayList<>(WIDGETS);
+    for (int i = 0; i < WIDGETS; i++) {
+      feed.add(new WidgetUpsert("upsert-bench-" + i, i % 100, BigDecimal.valueOf(i % 10_000, 2)));
+    }
+
+    long auditBefore = countAudits();
+    UpsertResult load = widgetRepository.upsertByName(feed, WidgetUpsertOperations.DEFAULT_UPSERT_BATCH_SIZE);
+    report("initial load", load, countAudits() - auditBefore);
+    assertEquals(WIDGETS, load.inserted());
+
+    for (int i = 0; i < WIDGETS; i += 10) {
+      WidgetUpsert widget = feed.get(i);
+      feed.set(i, new WidgetUpsert(widget.name(), widget.quantity() + 1, widget.price()));
+    }
+    auditBefore = countAudits();
+    UpsertResult resync = widgetRepository.upsertByName(feed, WidgetUpsertOperations.DEFAULT_UPSERT_BATCH_SIZE);
+    long audited = countAudits() - auditBefore;
+    report("re-feed 10% changed", resync, audited);
+    assertEquals(WIDGETS / 10, resync.updated());
+    assertEquals(WIDGETS / 10, audited, "Only the changed widgets should be audited");
+  }
+
+  private long countAudits() {
+    return jdbcTemplate.queryForObject("SELECT count(*) FROM public.widgets_audit", Long.class);
+  }
+
+  private static void report(String label, UpsertResult result, long auditRows) {
+    double seconds = result.elapsed().toNanos() / 1e9;
+    System.out.printf("%-20s inserted=%d updated=%d unchanged=%d in %d ms (%.0f rows/s), audit rows=%d%n",
+      label, result.inserted(), result.updated(), result.unchanged(), result.elapsed().toMillis(),
+      result.total() / seconds, auditRows);
+  }
+}
@@ -0,0 +1,152 @@
+package application.repo;
+
+import application.TestcontainersConfiguration;
+import application.audit.AuditContext;
+import application.model.Widget;
+import application.model.WidgetAudit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the bulk upsert by widget name.
+ * Not @Transactional: batches commit on their own, so test data must be committed too.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class WidgetUpsertTest {
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private WidgetAuditRepository widgetAuditRepository;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void testUpsertInsertsNewAndUpdatesOnlyChangedWidgets() {
+    Widget unchanged = widgetRepository.saveAndFlush(
+      new Widget("Upsert Unchanged", OffsetDateTime.now(), 5, new BigDecimal("5.00")));
+    Widget changed = widgetRepository.saveAndFlush(
+      new Widget("Upsert Changed", OffsetDateTime.now(), 5, new BigDecimal("5.00")));
+
+    UpsertResult[] result = new UpsertResult[1];
+    AuditContext.runAsUser("catalog_sync", () -> result[0] = widgetRepository.upsertByName(List.of(
+      new WidgetUpsert("Upsert Unchanged", 5, new BigDecimal("5.00")),
+      new WidgetUpsert("Upsert Changed", 7, new BigDecimal("5.00")),
+      new WidgetUpsert("Upsert New", 1, new BigDecimal("9.99"))), 2));
+
+    assertEquals(1, result[0].inserted());
+    assertEquals(1, result[0].updated());
+    assertEquals(1, result[0].unchanged());
+
+    assertEquals(7, widgetRepository.findById(changed.getId()).orElseThrow().getQuantity());
+    Widget inserted = widgetRepository.findByName("Upsert New").orElseThrow();
+    assertEquals(0, new BigDecimal("9.99").compareTo(inserted.getPrice()));
+    assertNotNull(inserted.getCreatedAt());
+
+    assertTrue(widgetAuditRepository.findByWidgetIdAndOperation(unchanged.getId(), "UPDATE").isEmpty(),
+      "Unchanged rows must not be written or audited");
+    List<WidgetAudit> updates = widgetAuditRepository.findByWidgetIdAndOperation(changed.getId(), "UPDATE");
+    assertEquals(1, updates.size());
+    assertEquals("catalog_sync", updates.get(0).getChangedBy());
+    List<WidgetAudit> inserts = widgetAuditRepository.findByWidgetIdAndOperation(inserted.getId(), "INSERT");
+    assertEquals(1, inserts.size());
+    assertEquals("catalog_sync", inserts.get(0).getChangedBy());
+  }
+
+  @Test
+  void testRepeatedUpsertIsANoOp() {
+    List<WidgetUpsert> feed = List.of(
+      new WidgetUpsert("Upsert Repeat 1", 1, new BigDecimal("1.00")),
+      new WidgetUpsert("Upsert Repeat 2", 2, new BigDecimal("2.00")));
+
+    assertEquals(2, widgetRepository.upsertByName(feed, WidgetUpsertOperations.DEFAULT_UPSERT_BATCH_SIZE).inserted());
+    UpsertResult again = widgetRepository.upsertByName(feed, WidgetUpsertOperations.DEFAULT_UPSERT_BATCH_SIZE);
+
+    assertEquals(0, again.inserted());
+    assertEquals(0, again.updated());
+    assertEquals(2, again.unchanged());
+  }
+
+  @Test
+  void testDuplicateNamesInFeedLastOneWins() {
+    UpsertResult result = widgetRepository.upsertByName(List.of(
+      new WidgetUpsert("Upsert Duplicate", 1, new BigDecimal("1.00")),
+      new WidgetUpsert("Upsert Duplicate", 3, new BigDecimal("3.00"))), 10);
+
+    assertEquals(1, result.inserted());
+    assertEquals(1, result.total());
+    assertEquals(3, widgetRepository.findByName("Upsert Duplicate").orElseThrow().getQuantity());
+  }
+
+  @Test
+  void testOverlappingUpsertsLockInNameOrder() throws Exception {
+    widgetRepository.saveAllAndFlush(List.of(
+      new Widget("Upsert Lock A", OffsetDateTime.now(), 1, new BigDecimal("1.00")),
+      new Widget("Upsert Lock Z", OffsetDateTime.now(), 1, new BigDecimal("1.00"))));
+    CompletableFuture<UpsertResult> other = new CompletableFuture<>();
+
+    transactionTemplate.executeWithoutResult(status -> {
+      widgetRepository.upsertByName(List.of(new WidgetUpsert("Upsert Lock A", 2, new BigDecimal("1.00"))), 10);
+      // Fed Z first: unsorted, the other upsert would hold Z while it waits for A
+      CompletableFuture.runAsync(() -> other.complete(widgetRepository.upsertByName(List.of(
+        new WidgetUpsert("Upsert Lock Z", 3, new BigDecimal("1.00")),
+        new WidgetUpsert("Upsert Lock A", 3, new BigDecimal("1.00"))), 10)))
+        .exceptionally(failure -> {
+          other.completeExceptionally(failure);
+          return null;
+        });
+      awaitUpsertBlockedOnLock();
+      widgetRepository.upsertByName(List.of(new WidgetUpsert("Upsert Lock Z", 2, new BigDecimal("1.00"))), 10);
+    });
+
+    assertEquals(2, other.get(10, TimeUnit.SECONDS).updated());
+    assertEquals(3, widgetRepository.findByName("Upsert Lock Z").orElseThrow().getQuantity());
+  }
+
+  @Test
+  void testNameIsUnique() {
+    widgetRepository.saveAndFlush(new Widget("Upsert Unique", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+
+    assertThrows(DataIntegrityViolationException.class, () -> widgetRepository.saveAndFlush(
+      new Widget("Upsert Unique", OffsetDateTime.now(), 2, new BigDecimal("2.00"))));
+  }
+
+  @Test
+  void testRejectsInvalidInput() {
+    assertThrows(InvalidDataAccessApiUsageException.class, () -> widgetRepository.upsertByName(List.of(), 0));
+    assertThrows(InvalidDataAccessApiUsageException.class, () -> widgetRepository.upsertByName(
+      List.of(new WidgetUpsert(null, 1, BigDecimal.ONE)), 10));
+  }
+
+  private void awaitUpsertBlockedOnLock() {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    // pg_locks rather than pg_stat_activity, which keeps one snapshot per transaction
+    while (jdbcTemplate.queryForObject("SELECT count(*) FROM pg_locks WHERE NOT granted "
+      + "AND locktype = 'transactionid' AND transactionid::TEXT = pg_current_xact_id()::TEXT", Integer.class) == 0) {
+      assertTrue(System.nanoTime() < deadline, "The other upsert never waited for the lock");
+      Thread.onSpinWait();
+    }
+  }
+}
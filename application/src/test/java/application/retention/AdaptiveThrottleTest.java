@@ -0,0 +1,54 @@
+package application.retention;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveThrottleTest {
+
+  private static final RetentionSettings SETTINGS = new RetentionSettings(Duration.ofDays(1), 400, 100, 600,
+    Duration.ofMillis(100), 1_000, Duration.ofMillis(250));
+
+  private static final long FAST = Duration.ofMillis(10).toNanos();
+  private static final long SLOW = Duration.ofMillis(500).toNanos();
+
+  @Test
+  void testGrowsAdditivelyWhileHealthy() {
+    AdaptiveThrottle throttle = new AdaptiveThrottle(SETTINGS);
+
+    assertEquals(0, throttle.afterBatch(FAST, 0));
+    assertEquals(500, throttle.batchSize());
+    throttle.afterBatch(FAST, 0);
+    throttle.afterBatch(FAST, 0);
+    assertEquals(600, throttle.batchSize(), "Capped at the maximum");
+  }
+
+  @Test
+  void testHalvesOnSlowStatements() {
+    AdaptiveThrottle throttle = new AdaptiveThrottle(SETTINGS);
+
+    assertEquals(0, throttle.afterBatch(SLOW, 0));
+    assertEquals(200, throttle.batchSize());
+    throttle.afterBatch(SLOW, 0);
+    throttle.afterBatch(SLOW, 0);
+    assertEquals(100, throttle.batchSize(), "Floored at the minimum");
+  }
+
+  @Test
+  void testBacksOffWhileReplicasLag() {
+    AdaptiveThrottle throttle = new AdaptiveThrottle(SETTINGS);
+
+    assertEquals(250, throttle.afterBatch(FAST, 5_000));
+    assertEquals(200, throttle.batchSize());
+    assertEquals(0, throttle.afterBatch(FAST, 10));
+    assertEquals(300, throttle.batchSize());
+  }
+
+  @Test
+  void testRejectsInconsistentBatchSizes() {
+    assertThrows(IllegalArgumentException.class, () -> new RetentionSettings(Duration.ofDays(1), 50, 100, 600,
+      Duration.ofMillis(100), 1_000, Duration.ZERO));
+  }
+}
@@ -0,0 +1,171 @@
+package application.retention;
+
+import application.TestcontainersConfiguration;
+import application.model.Widget;
+import application.repo.WidgetRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the batched retention purge.
+ * Not @Transactional: every batch commits on its own.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class AuditRetentionJobTest {
+
+  private static final RetentionSettings SMALL_BATCHES = new RetentionSettings(Duration.ofDays(365), 2, 2, 2,
+    Duration.ofSeconds(10), Long.MAX_VALUE, Duration.ZERO);
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Test
+  void testPurgesOnlyRowsOlderThanCutoffInBatches() {
+    List<Long> oldWidgets = createWidgets("Retention Old", 5);
+    List<Long> recentWidgets = createWidgets("Retention Recent", 2);
+    backdate(oldWidgets);
+
+    AuditRetentionJob job = newJob(SMALL_BATCHES);
+    List<RetentionProgress> reports = new ArrayList<>();
+    RetentionRunResult result = job.purgeChangedBefore(OffsetDateTime.now().minusDays(365), reports::add);
+
+    assertEquals(AuditRetentionJob.COMPLETED, result.status());
+    assertTrue(result.rowsDeleted() >= 5);
+    assertTrue(reports.size() >= 3, "Five rows in batches of two need at least three batches");
+    assertTrue(reports.stream().allMatch(progress -> progress.batchSize() == 2));
+    assertEquals(1.0, reports.get(reports.size() - 1).fractionComplete());
+    assertEquals(0, countAudits(oldWidgets));
+    assertEquals(2, countAudits(recentWidgets));
+  }
+
+  @Test
+  void testReportsEveryBatchToThePurgeListener() {
+    List<Long> oldWidgets = createWidgets("Retention Listener", 3);
+    backdate(oldWidgets);
+    long newestOld = jdbcTemplate.queryForObject(
+      "SELECT max(audit_id) FROM public.widgets_audit WHERE widget_id = ?", Long.class, oldWidgets.get(2));
+    List<Long> purged = new ArrayList<>();
+    AuditRetentionJob job = new AuditRetentionJob(jdbcTemplate, new TransactionTemplate(transactionManager),
+      () -> 0, SMALL_BATCHES, purged::add);
+
+    RetentionRunResult result = job.purgeChangedBefore(OffsetDateTime.now().minusDays(365), progress -> { });
+
+    assertTrue(purged.size() >= 2, "Three rows in batches of two");
+    assertEquals(purged.stream().sorted().toList(), purged, "Batches purge in audit_id order");
+    assertTrue(purged.get(purged.size() - 1) >= newestOld);
+    assertEquals(AuditRetentionJob.COMPLETED, result.status());
+  }
+
+  @Test
+  void testPauseAndResumeFromCheckpoint() {
+    List<Long> oldWidgets = createWidgets("Retention Pause", 6);
+    backdate(oldWidgets);
+    AuditRetentionJob job = newJob(SMALL_BATCHES);
+
+    RetentionRunResult paused = job.purgeChangedBefore(OffsetDateTime.now().minusDays(365), progress -> job.pause());
+
+    assertEquals(AuditRetentionJob.PAUSED, paused.status());
+    assertTrue(paused.rowsDeleted() > 0);
+    assertTrue(countAudits(oldWidgets) > 0, "Pausing after the first batch leaves rows behind");
+    assertEquals(AuditRetentionJob.PAUSED, jdbcTemplate.queryForObject(
+      "SELECT status FROM public.audit_retention_checkpoint WHERE job_name = ?", String.class,
+      AuditRetentionJob.JOB_NAME));
+
+    // a fresh job instance (as after a restart) stays paused until resumed, then continues from the checkpoint
+    AuditRetentionJob restarted = newJob(SMALL_BATCHES);
+    assertTrue(restarted.isPaused());
+    int left = countAudits(oldWidgets);
+    RetentionRunResult stillPaused = restarted.run();
+    assertEquals(AuditRetentionJob.PAUSED, stillPaused.status());
+    assertEquals(0, stillPaused.rowsDeleted());
+    assertEquals(left, countAudits(oldWidgets));
+
+    restarted.resume();
+    assertFalse(restarted.isPaused());
+    RetentionRunResult resumed = restarted.run();
+
+    assertEquals(AuditRetentionJob.COMPLETED, resumed.status());
+    assertEquals(0, countAudits(oldWidgets));
+  }
+
+  @Test
+  void testPauseFromAnotherInstanceStopsARunningPurge() {
+    List<Long> oldWidgets = createWidgets("Retention Remote Pause", 6);
+    backdate(oldWidgets);
+    AuditRetentionJob job = newJob(SMALL_BATCHES);
+    AuditRetentionJob operator = newJob(SMALL_BATCHES);
+
+    RetentionRunResult paused = job.purgeChangedBefore(OffsetDateTime.now().minusDays(365),
+      progress -> operator.pause());
+
+    assertEquals(AuditRetentionJob.PAUSED, paused.status());
+    assertTrue(countAudits(oldWidgets) > 0);
+    assertTrue(job.isPaused());
+
+    operator.resume();
+    assertEquals(AuditRetentionJob.COMPLETED, job.run().status());
+    assertEquals(0, countAudits(oldWidgets));
+  }
+
+  @Test
+  void testReplicationLagShrinksBatches() {
+    List<Long> oldWidgets = createWidgets("Retention Lag", 4);
+    backdate(oldWidgets);
+    RetentionSettings settings = new RetentionSettings(Duration.ofDays(365), 4, 1, 4,
+      Duration.ofSeconds(10), 100, Duration.ofMillis(1));
+    AuditRetentionJob job = new AuditRetentionJob(jdbcTemplate, new TransactionTemplate(transactionManager),
+      () -> 1_000, settings);
+
+    List<Integer> batchSizes = new ArrayList<>();
+    job.purgeChangedBefore(OffsetDateTime.now().minusDays(365), progress -> batchSizes.add(progress.batchSize()));
+
+    assertEquals(4, batchSizes.get(0));
+    assertTrue(batchSizes.size() == 1 || batchSizes.get(1) == 2, "Batch size halves while replicas lag");
+    assertEquals(0, countAudits(oldWidgets));
+  }
+
+  private AuditRetentionJob newJob(RetentionSettings settings) {
+    return new AuditRetentionJob(jdbcTemplate, new TransactionTemplate(transactionManager), () -> 0, settings);
+  }
+
+  private List<Long> createWidgets(String prefix, int count) {
+    List<Long> ids = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      ids.add(widgetRepository.saveAndFlush(
+        new Widget(prefix + " " + i, OffsetDateTime.now(), i, new BigDecimal("1.00"))).getId());
+    }
+    return ids;
+  }
+
+  private void backdate(List<Long> widgetIds) {
+    widgetIds.forEach(id -> jdbcTemplate.update(
+      "UPDATE public.widgets_audit SET changed_at = now() - interval '400 days' WHERE widget_id = ?", id));
+  }
+
+  private int countAudits(List<Long> widgetIds) {
+    return widgetIds.stream().mapToInt(id -> jdbcTemplate.queryForObject(
+      "SELECT count(*) FROM public.widgets_audit WHERE widget_id = ?", Integer.class, id)).sum();
+  }
+}
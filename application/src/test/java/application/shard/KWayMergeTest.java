@@ -0,0 +1,34 @@
+package application.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KWayMergeTest {
+
+  @Test
+  void testMergesSortedInputs() {
+    List<Integer> merged = KWayMerge.merge(
+      List.of(List.of(1, 4, 7), List.of(2, 5, 8), List.of(3, 6, 9)), Comparator.naturalOrder(), 100);
+
+    assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9), merged);
+  }
+
+  @Test
+  void testStopsAtLimit() {
+    List<Integer> merged = KWayMerge.merge(
+      List.of(List.of(9, 5, 1), List.of(8, 7, 6)), Comparator.reverseOrder(), 4);
+
+    assertEquals(List.of(9, 8, 7, 6), merged);
+  }
+
+  @Test
+  void testHandlesEmptyInputs() {
+    assertTrue(KWayMerge.merge(List.<List<Integer>>of(), Comparator.naturalOrder(), 10).isEmpty());
+    assertEquals(List.of(1, 2), KWayMerge.merge(
+      List.of(List.of(), List.of(1, 2), List.of()), Comparator.<Integer>naturalOrder(), 10));
+  }
+}
@@ -0,0 +1,158 @@
+package application.shard;
+
+import application.TestcontainersConfiguration;
+import application.audit.AuditContext;
+import application.model.Widget;
+import application.repo.AuditRow;
+import application.repo.BulkProgressListener;
+import application.repo.WidgetRepository;
+import application.repo.WidgetUpsert;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.JdbcDatabaseContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for sharded mode against three Postgres containers (plus the primary database).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class ShardedWidgetRepositoryTest {
+
+  private static final List<PostgreSQLContainer<?>> SHARDS = Stream.<PostgreSQLContainer<?>>generate(() ->
+      new PostgreSQLContainer<>(DockerImageName.parse("postgres:16"))
+        .withDatabaseName("shard")
+        .withUsername("testuser")
+        .withPassword("testpass"))
+    .limit(3)
+    .toList();
+
+  @DynamicPropertySource
+  static void shardProperties(DynamicPropertyRegistry registry) {
+    SHARDS.parallelStream().forEach(PostgreSQLContainer::start);
+    registry.add("app.shard.enabled", () -> "true");
+    registry.add("app.shard.urls",
+      () -> SHARDS.stream().map(JdbcDatabaseContainer::getJdbcUrl).collect(Collectors.joining(",")));
+    registry.add("app.shard.username", () -> "testuser");
+    registry.add("app.shard.password", () -> "testpass");
+  }
+
+  @Autowired
+  private ShardCluster shardCluster;
+
+  @Autowired
+  private ShardedWidgetRepository widgets;
+
+  @Autowired
+  private ShardedWidgetAuditRepository audits;
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Test
+  void testIdsAreGloballyUniqueAndRouteToTheNamesShard() {
+    Set<Long> ids = new HashSet<>();
+    Set<Integer> shardsUsed = new HashSet<>();
+    for (int i = 0; i < 9; i++) {
+      WidgetRow saved = widgets.save("Shard Route " + i, i, new BigDecimal("1.00"));
+      assertTrue(ids.add(saved.id()), "Duplicate id " + saved.id());
+      Shard owner = shardCluster.shardFor(saved.id());
+      assertSame(shardCluster.shardForName(saved.name()), owner);
+      shardsUsed.add(owner.index());
+      assertEquals(1, owner.jdbcTemplate().queryForObject(
+        "SELECT count(*) FROM public.widgets WHERE id = ?", Integer.class, saved.id()));
+      assertEquals(saved, widgets.findById(saved.id()).orElseThrow());
+    }
+    assertEquals(3, shardsUsed.size(), "These names hash to every shard");
+  }
+
+  @Test
+  void testNamesAreUniqueAcrossShards() {
+    WidgetRow saved = widgets.save("Shard Duplicate", 1, new BigDecimal("1.00"));
+    assertThrows(DuplicateKeyException.class, () -> widgets.save("Shard Duplicate", 2, new BigDecimal("2.00")));
+
+    // "Shard Rename A" and "Shard Rename D" hash to the same shard, "Shard Rename B" to another
+    WidgetRow renamed = widgets.save("Shard Rename A", 1, new BigDecimal("1.00"));
+    assertTrue(widgets.updateDetails(renamed.id(), "Shard Rename D", 1, new BigDecimal("1.00")));
+    assertThrows(IllegalArgumentException.class,
+      () -> widgets.updateDetails(renamed.id(), "Shard Rename B", 1, new BigDecimal("1.00")));
+    assertEquals("Shard Rename D", widgets.findById(renamed.id()).orElseThrow().name());
+    assertEquals(saved, widgets.findById(saved.id()).orElseThrow());
+  }
+
+  @Test
+  void testPrimaryOnlyWritePathsAreRefused() {
+    assertThrows(InvalidDataAccessApiUsageException.class, () -> widgetRepository.upsertByName(
+      List.of(new WidgetUpsert("Shard Upsert", 1, new BigDecimal("1.00"))), 10));
+    assertThrows(InvalidDataAccessApiUsageException.class,
+      () -> widgetRepository.restockBelow(1, 1, 10, BulkProgressListener.none()));
+    assertThrows(InvalidDataAccessApiUsageException.class, () -> widgetRepository.insertStateless(
+      List.of(new Widget("Shard Stateless", OffsetDateTime.now(), 1, new BigDecimal("1.00"))), 10));
+  }
+
+  @Test
+  void testAuditUserIsSetOnTheShardConnection() {
+    WidgetRow[] saved = new WidgetRow[1];
+    AuditContext.runAsUser("shard_user", () -> {
+      saved[0] = widgets.save("Shard Audit", 1, new BigDecimal("2.00"));
+      assertTrue(widgets.updateDetails(saved[0].id(), "Shard Audit", 2, new BigDecimal("2.00")));
+    });
+    assertTrue(widgets.deleteById(saved[0].id()));
+
+    List<AuditRow> rows = audits.findByWidgetId(saved[0].id());
+    assertEquals(List.of("INSERT", "UPDATE", "DELETE"), rows.stream().map(AuditRow::operation).toList());
+    assertEquals("shard_user", rows.get(0).changedBy());
+    assertEquals("shard_user", rows.get(1).changedBy());
+    assertEquals("system_process", rows.get(2).changedBy());
+    assertTrue(widgets.findById(saved[0].id()).isEmpty());
+  }
+
+  @Test
+  void testScatterGatherMergesAllShardsNewestFirst() {
+    OffsetDateTime before = OffsetDateTime.now().minusSeconds(1);
+    long insertsBefore = audits.countByOperation("INSERT");
+    List<Long> created = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      created.add(widgets.save("Shard Scatter " + i, i, new BigDecimal("3.00")).id());
+    }
+
+    assertEquals(insertsBefore + 6, audits.countByOperation("INSERT"));
+
+    List<AuditRow> recent = audits.findByChangedAtAfterOrderByChangedAtDesc(before, 1_000);
+    assertTrue(recent.stream().map(AuditRow::widgetId).collect(Collectors.toSet()).containsAll(created));
+    for (int i = 1; i < recent.size(); i++) {
+      assertTrue(ShardedWidgetAuditRepository.NEWEST_FIRST.compare(recent.get(i - 1), recent.get(i)) < 0,
+        "Rows must be newest first");
+    }
+    assertEquals(2, audits.findByChangedAtAfterOrderByChangedAtDesc(before, 2).size());
+  }
+
+  @Test
+  void testIdAllocationIsIdempotent() {
+    shardCluster.configureIdAllocation();
+    for (Shard shard : shardCluster.shards()) {
+      assertEquals(3L, shard.jdbcTemplate().queryForObject(
+        "SELECT increment_by FROM pg_sequences WHERE sequencename = 'widgets_id_seq'", Long.class));
+    }
+  }
+}
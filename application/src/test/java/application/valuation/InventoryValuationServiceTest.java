@@ -0,0 +1,179 @@
+package application.valuation;
+
+import application.TestcontainersConfiguration;
+import application.audit.AuditContext;
+import application.model.Widget;
+import application.repo.WidgetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the incrementally maintained inventory valuation.
+ * Not @Transactional: every check reads committed audit rows from other connections.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class InventoryValuationServiceTest {
+
+  private static final List<BigDecimal> BANDS = List.of(new BigDecimal("10"), new BigDecimal("100"));
+
+  @Autowired
+  private WidgetRepository widgetRepository;
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private InventoryValuationService service;
+
+  @BeforeEach
+  void loadValuation() {
+    service = new InventoryValuationService(dataSource, BANDS, 3);
+    ReconciliationResult result = service.reconcile();
+    assertFalse(result.compared(), "Nothing to compare on the first load");
+  }
+
+  @Test
+  void testRecomputeMatchesFullScan() {
+    assertMatchesTable(service.current());
+    assertEquals(3, service.current().segments().size());
+  }
+
+  @Test
+  void testRefreshAppliesDeltasAcrossBands() {
+    Widget widget = widgetRepository.saveAndFlush(
+      new Widget("Valuation Delta", OffsetDateTime.now(), 2, new BigDecimal("5.00")));
+    BigDecimal before = service.current().value();
+    long cheapBefore = service.current().segments().get(0).widgets();
+
+    assertEquals(1, service.refresh());
+    assertEquals(0, new BigDecimal("10.00").compareTo(service.current().value().subtract(before)));
+    assertEquals(cheapBefore + 1, service.current().segments().get(0).widgets());
+
+    widget.updateDetails("Valuation Delta", 3, new BigDecimal("50.00"));
+    widgetRepository.saveAndFlush(widget);
+    assertEquals(1, service.refresh());
+    assertEquals(0, new BigDecimal("150.00").compareTo(service.current().value().subtract(before)));
+    assertEquals(cheapBefore, service.current().segments().get(0).widgets(), "Moved out of the cheap band");
+    assertMatchesTable(service.current());
+
+    widgetRepository.delete(widget);
+    assertEquals(1, service.refresh());
+    assertEquals(0, before.compareTo(service.current().value()));
+    assertEquals(0, service.refresh(), "Rows re-read while their transactions may be in flight apply once");
+
+    ReconciliationResult result = service.reconcile();
+    assertTrue(result.compared());
+    assertFalse(result.drifted(), () -> "Unexpected drift " + result.drift());
+  }
+
+  @Test
+  void testAppliesTransactionsThatCommitLongAfterDrawingTheirAuditId() throws SQLException {
+    Widget widget = widgetRepository.saveAndFlush(
+      new Widget("Valuation Late Commit", OffsetDateTime.now(), 1, new BigDecimal("1.00")));
+    service.refresh();
+    BigDecimal before = service.current().value();
+
+    try (Connection late = dataSource.getConnection()) {
+      late.setAutoCommit(false);
+      try (PreparedStatement update = late.prepareStatement("UPDATE widgets SET quantity = 11 WHERE id = ?")) {
+        update.setLong(1, widget.getId());
+        update.executeUpdate();
+      }
+
+      // Move far past the open transaction's audit id, refreshing along the way
+      jdbcTemplate.queryForList("SELECT nextval('widgets_audit_audit_id_seq') FROM generate_series(1, 5000)");
+      widgetRepository.saveAndFlush(
+        new Widget("Valuation Late Neighbour", OffsetDateTime.now(), 1, new BigDecimal("3.00")));
+      service.refresh();
+      service.refresh();
+      assertEquals(0, new BigDecimal("3.00").compareTo(service.current().value().subtract(before)));
+
+      late.commit();
+    }
+    assertEquals(1, service.refresh());
+
+    assertEquals(0, new BigDecimal("13.00").compareTo(service.current().value().subtract(before)));
+    assertEquals(0, service.refresh());
+    assertMatchesTable(service.current());
+  }
+
+  @Test
+  void testReconcileDetectsAndCorrectsDrift() {
+    Widget widget = widgetRepository.saveAndFlush(
+      new Widget("Valuation Drift", OffsetDateTime.now(), 4, new BigDecimal("20.00")));
+    service.refresh();
+
+    // Triggers off: the change never reaches the audit log
+    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+      jdbcTemplate.execute("SET LOCAL session_replication_role = replica");
+      jdbcTemplate.update("UPDATE widgets SET quantity = 5 WHERE id = ?", widget.getId());
+    });
+    assertEquals(0, service.refresh());
+
+    ReconciliationResult result = service.reconcile();
+    assertTrue(result.compared());
+    assertEquals(1, result.drift().size());
+    SegmentDrift drift = result.drift().get(0);
+    assertEquals(new BigDecimal("10"), drift.running().fromInclusive());
+    assertEquals(0, drift.widgetDifference());
+    assertEquals(0, new BigDecimal("20.00").compareTo(drift.valueDifference()));
+    assertMatchesTable(service.current());
+
+    assertFalse(service.reconcile().drifted(), "The recompute replaced the running totals");
+  }
+
+  @Test
+  void testBulkSummaryForcesRecompute() {
+    jdbcTemplate.execute("GRANT audit_bulk_maintainer TO CURRENT_USER");
+    widgetRepository.saveAndFlush(new Widget("Valuation Bulk", OffsetDateTime.now(), 1, new BigDecimal("2.00")));
+    service.refresh();
+
+    AuditContext.runAsBulkMaintenance("valuation_admin", "restock", () ->
+      new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+        jdbcTemplate.update("UPDATE widgets SET quantity = quantity + 10 WHERE name = 'Valuation Bulk'")));
+    service.refresh();
+
+    assertMatchesTable(service.current());
+    assertFalse(service.reconcile().drifted());
+  }
+
+  private void assertMatchesTable(InventoryValuation valuation) {
+    BigDecimal value = jdbcTemplate.queryForObject(
+      "SELECT coalesce(sum(quantity * price), 0) FROM widgets", BigDecimal.class);
+    Long widgets = jdbcTemplate.queryForObject("SELECT count(*) FROM widgets", Long.class);
+    assertEquals(0, value.compareTo(valuation.value()), () -> "Expected " + value + " but was " + valuation.value());
+    assertEquals(widgets, valuation.widgets());
+
+    for (SegmentValuation segment : valuation.segments()) {
+      BigDecimal segmentValue = jdbcTemplate.queryForObject(
+        "SELECT coalesce(sum(quantity * price), 0) FROM widgets "
+          + "WHERE (?::NUMERIC IS NULL OR price >= ?) AND (?::NUMERIC IS NULL OR price < ?)", BigDecimal.class,
+        segment.fromInclusive(), segment.fromInclusive(), segment.toExclusive(), segment.toExclusive());
+      assertEquals(0, segmentValue.compareTo(segment.value()), () -> "Band " + segment);
+    }
+  }
+}
@@ -0,0 +1,57 @@
+#!/bin/bash
+set -e
+
+# Compares wall-clock time and peak RSS of one short application run (start, count widgets, exit)
+# for the plain jar, the AOT + CDS jar and the native image. Build them first with:
+#   (cd application && mvn -DskipTests package)            -> application/target/application-*.jar
+#   (cd application && mvn -Pcds -DskipTests package)      -> application/target/cds/
+#   (cd application && mvn -Pnative -DskipTests package)   -> application/target/application
+# Builds that are missing are skipped. Extra arguments are passed to every run, e.g.
+#   ./startup-benchmark.sh --spring.datasource.url=jdbc:postgresql://localhost:5432/app_db
+
+RUNS=${RUNS:-5}
+TARGET="$(cd "$(dirname "$0")" && pwd)/application/target"
+JAR=$(ls "$TARGET"/application-*.jar 2>/dev/null | grep -v original | head -1)
+
+# Run a command RUNS times; print the median wall time and the largest peak RSS (VmHWM)
+measure() {
+  local label=$1
+  shift
+  local times=() peak=0
+  for ((i = 0; i < RUNS; i++)); do
+    local started=$(date +%s%N)
+    "$@" > /dev/null 2>&1 &
+    local pid=$! hwm=0
+    while kill -0 "$pid" 2> /dev/null; do
+      local sample=$(awk '/VmHWM/ {print $2}' "/proc/$pid/status" 2> /dev/null)
+      [ -n "$sample" ] && hwm=$sample
+      sleep 0.01
+    done
+    wait "$pid" || { echo "$label: run failed"; return; }
+    times+=($(( ($(date +%s%N) - started) / 1000000 )))
+    (( hwm > peak )) && peak=$hwm
+  done
+  local median=$(printf '%s\n' "${times[@]}" | sort -n | sed -n "$(( (RUNS + 1) / 2 ))p")
+  printf '%-10s %8s ms %10s MB\n' "$label" "$median" "$(( peak / 1024 ))"
+}
+
+echo "=== Startup comparison (median of $RUNS runs, peak RSS) ==="
+
+if [ -n "$JAR" ]; then
+  measure "jar" java -jar "$JAR" "$@"
+else
+  echo "jar: not built"
+fi
+
+if [ -f "$TARGET/cds/application.jsa" ]; then
+  (cd "$TARGET/cds" && measure "aot+cds" java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+    -jar "$(basename "$JAR")" "$@")
+else
+  echo "aot+cds: not built"
+fi
+
+if [ -x "$TARGET/application" ]; then
+  measure "native" "$TARGET/application" "$@"
+else
+  echo "native: not built"
+fi